@@ -28,6 +28,13 @@ public class SimpleOutputFileCollection(private val outputFiles: List<OutputFile
     override fun asList(): List<OutputFile> = outputFiles
 }
 
+/**
+ * Receives output files as soon as they are generated, see [org.jetbrains.kotlin.codegen.ClassFileFactory.setOutputSink]
+ */
+public trait OutputFileSink {
+    public fun write(outputFile: OutputFile)
+}
+
 public trait OutputFile {
     public val relativePath: String
     public val sourceFiles: List<File>
@@ -25,11 +25,16 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 import org.jetbrains.kotlin.codegen.state.GenerationState;
+import org.jetbrains.kotlin.descriptors.DeclarationDescriptor;
+import org.jetbrains.kotlin.descriptors.SimpleFunctionDescriptor;
+import org.jetbrains.kotlin.load.kotlin.PackageClassUtils;
 import org.jetbrains.kotlin.psi.JetFile;
 import org.jetbrains.kotlin.resolve.jvm.diagnostics.JvmDeclarationOrigin;
 import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.backend.common.output.OutputFile;
 import org.jetbrains.kotlin.backend.common.output.OutputFileCollection;
+import org.jetbrains.kotlin.backend.common.output.OutputFileSink;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.jetbrains.org.objectweb.asm.Type;
 
 import java.io.File;
@@ -41,6 +46,14 @@ public class ClassFileFactory implements OutputFileCollection {
     private final Map<FqName, PackageCodegen> package2codegen = new HashMap<FqName, PackageCodegen>();
     private final Map<String, ClassBuilderAndSourceFileList> generators = new LinkedHashMap<String, ClassBuilderAndSourceFileList>();
 
+    // When packages are generated in parallel, classes of each package are collected here and are added to generators
+    // afterwards in the order of packages, so that the output doesn't depend on thread scheduling
+    private final ThreadLocal<PackageOutput> currentPackageOutput = new ThreadLocal<PackageOutput>();
+
+    // In the streaming mode, classes are written to the sink when their package is generated
+    private OutputFileSink sink = null;
+    private final Set<String> pendingOutputs = new LinkedHashSet<String>();
+
     private boolean isDone = false;
 
     public ClassFileFactory(@NotNull GenerationState state, @NotNull ClassBuilderFactory builderFactory) {
@@ -63,24 +76,132 @@ public class ClassFileFactory implements OutputFileCollection {
             @NotNull Collection<? extends PsiFile> sourceFiles) {
         String outputFilePath = asmType.getInternalName() + ".class";
         List<File> ioSourceFiles = toIoFilesIgnoringNonPhysical(sourceFiles);
-        state.getProgress().reportOutput(ioSourceFiles, new File(outputFilePath));
         ClassBuilder answer = builderFactory.newClassBuilder(origin);
-        generators.put(outputFilePath, new ClassBuilderAndSourceFileList(answer, ioSourceFiles));
+        ClassBuilderAndSourceFileList classBuilderAndSourceFiles =
+                new ClassBuilderAndSourceFileList(answer, ioSourceFiles, isDeclaredInInlineFunction(origin.getDescriptor()));
+
+        PackageOutput packageOutput = currentPackageOutput.get();
+        if (packageOutput != null) {
+            packageOutput.generators.put(outputFilePath, classBuilderAndSourceFiles);
+        }
+
+        synchronized (this) {
+            state.getProgress().reportOutput(ioSourceFiles, new File(outputFilePath));
+            if (packageOutput == null) {
+                generators.put(outputFilePath, classBuilderAndSourceFiles);
+                if (sink != null) {
+                    pendingOutputs.add(outputFilePath);
+                }
+            }
+        }
         return answer;
     }
 
-    void done() {
+    /**
+     * Enables the streaming mode: each class is written to the given sink as soon as its package is generated
+     * (see {@link #packageGenerated}) and its class builder is released. Package facades are written in {@link #done},
+     * because callables of the package are added to them until then.
+     *
+     * Written classes are released, except anonymous classes declared in inline functions: the inliner reads them
+     * (see AnonymousObjectTransformer) when the functions are inlined into other packages. Text of classes is not available
+     * in this mode, see {@link #createText}.
+     */
+    public synchronized void setOutputSink(@NotNull OutputFileSink sink) {
+        assert generators.isEmpty() : "Output sink should be set before generation";
+        this.sink = sink;
+    }
+
+    synchronized void packageGenerated(@NotNull FqName fqName) {
+        if (sink == null) return;
+
+        CompilerPhaseMetrics.Measurement measurement =
+                CompilerPhaseMetrics.start(state.getPhaseMetrics(), CompilerPhaseMetrics.Phase.OUTPUT_WRITING, null, fqName.asString());
+        try {
+            String packageFacadePath = PackageClassUtils.getPackageClassInternalName(fqName) + ".class";
+            for (Iterator<String> iterator = pendingOutputs.iterator(); iterator.hasNext(); ) {
+                String outputFilePath = iterator.next();
+                if (!outputFilePath.equals(packageFacadePath)) {
+                    writeToSink(outputFilePath);
+                    iterator.remove();
+                }
+            }
+        }
+        finally {
+            CompilerPhaseMetrics.finish(measurement);
+        }
+    }
+
+    private void writeToSink(@NotNull String outputFilePath) {
+        ClassBuilderAndSourceFileList generator = generators.get(outputFilePath);
+        if (generator == null) return;
+
+        generator.bytes = builderFactory.asBytes(generator.classBuilder);
+        generator.classBuilder = null;
+        sink.write(new OutputClassFile(outputFilePath));
+        if (!generator.keepBytesAfterWrite) {
+            generator.bytes = null;
+        }
+    }
+
+    private static boolean isDeclaredInInlineFunction(@Nullable DeclarationDescriptor descriptor) {
+        for (DeclarationDescriptor current = descriptor; current != null; current = current.getContainingDeclaration()) {
+            if (current instanceof SimpleFunctionDescriptor && ((SimpleFunctionDescriptor) current).getInlineStrategy().isInline()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts collecting classes created by the current thread into a separate {@link PackageOutput}
+     * instead of adding them to this factory right away
+     */
+    void startPackageOutput() {
+        assert currentPackageOutput.get() == null : "Package output is already started in " + Thread.currentThread();
+        currentPackageOutput.set(new PackageOutput());
+    }
+
+    @NotNull
+    PackageOutput finishPackageOutput() {
+        PackageOutput packageOutput = currentPackageOutput.get();
+        assert packageOutput != null : "Package output is not started in " + Thread.currentThread();
+        currentPackageOutput.remove();
+        return packageOutput;
+    }
+
+    synchronized void addPackageOutput(@NotNull PackageOutput packageOutput) {
+        generators.putAll(packageOutput.generators);
+        if (sink != null) {
+            pendingOutputs.addAll(packageOutput.generators.keySet());
+        }
+    }
+
+    synchronized void done() {
         if (!isDone) {
             isDone = true;
             for (PackageCodegen codegen : package2codegen.values()) {
                 codegen.done();
             }
+
+            if (sink != null) {
+                CompilerPhaseMetrics.Measurement measurement =
+                        CompilerPhaseMetrics.start(state.getPhaseMetrics(), CompilerPhaseMetrics.Phase.OUTPUT_WRITING);
+                try {
+                    for (String outputFilePath : pendingOutputs) {
+                        writeToSink(outputFilePath);
+                    }
+                    pendingOutputs.clear();
+                }
+                finally {
+                    CompilerPhaseMetrics.finish(measurement);
+                }
+            }
         }
     }
 
     @NotNull
     @Override
-    public List<OutputFile> asList() {
+    public synchronized List<OutputFile> asList() {
         done();
         return ContainerUtil.map(generators.keySet(), new Function<String, OutputFile>() {
             @Override
@@ -93,12 +214,16 @@ public class ClassFileFactory implements OutputFileCollection {
     @Override
     @Nullable
     public OutputFile get(@NotNull String relativePath) {
-        return generators.containsKey(relativePath) ? new OutputClassFile(relativePath) : null;
+        return getGenerator(relativePath) != null ? new OutputClassFile(relativePath) : null;
     }
 
     @NotNull
     @TestOnly
     public String createText() {
+        if (sink != null) {
+            throw new IllegalStateException("Text of classes is not available in the streaming mode, they are released once written");
+        }
+
         StringBuilder answer = new StringBuilder();
 
         for (OutputFile file : asList()) {
@@ -110,7 +235,7 @@ public class ClassFileFactory implements OutputFileCollection {
     }
 
     @NotNull
-    public PackageCodegen forPackage(@NotNull FqName fqName, @NotNull Collection<JetFile> files) {
+    public synchronized PackageCodegen forPackage(@NotNull FqName fqName, @NotNull Collection<JetFile> files) {
         assert !isDone : "Already done!";
         PackageCodegen codegen = package2codegen.get(fqName);
         if (codegen == null) {
@@ -151,7 +276,7 @@ public class ClassFileFactory implements OutputFileCollection {
         @NotNull
         @Override
         public List<File> getSourceFiles() {
-            ClassBuilderAndSourceFileList pair = generators.get(relativeClassFilePath);
+            ClassBuilderAndSourceFileList pair = getGenerator(relativeClassFilePath);
             if (pair == null) {
                 throw new IllegalStateException("No record for binary file " + relativeClassFilePath);
             }
@@ -162,13 +287,22 @@ public class ClassFileFactory implements OutputFileCollection {
         @NotNull
         @Override
         public byte[] asByteArray() {
-            return builderFactory.asBytes(generators.get(relativeClassFilePath).classBuilder);
+            ClassBuilderAndSourceFileList generator = getGenerator(relativeClassFilePath);
+            if (generator.bytes != null) return generator.bytes;
+            if (generator.classBuilder == null) {
+                throw new IllegalStateException("Class is already written to the output and released: " + relativeClassFilePath);
+            }
+            return builderFactory.asBytes(generator.classBuilder);
         }
 
         @NotNull
         @Override
         public String asText() {
-            return builderFactory.asText(generators.get(relativeClassFilePath).classBuilder);
+            ClassBuilderAndSourceFileList generator = getGenerator(relativeClassFilePath);
+            if (generator.classBuilder == null) {
+                throw new IllegalStateException("Class is already written to the output and released: " + relativeClassFilePath);
+            }
+            return builderFactory.asText(generator.classBuilder);
         }
 
         @NotNull
@@ -178,19 +312,50 @@ public class ClassFileFactory implements OutputFileCollection {
         }
     }
 
+    @Nullable
+    private ClassBuilderAndSourceFileList getGenerator(@NotNull String relativeClassFilePath) {
+        // Classes of the package being generated on this thread (e.g. anonymous objects read by the inliner) are not added yet
+        PackageOutput packageOutput = currentPackageOutput.get();
+        if (packageOutput != null) {
+            ClassBuilderAndSourceFileList generator = packageOutput.generators.get(relativeClassFilePath);
+            if (generator != null) return generator;
+        }
+        synchronized (this) {
+            return generators.get(relativeClassFilePath);
+        }
+    }
+
+    static final class PackageOutput {
+        private final Map<String, ClassBuilderAndSourceFileList> generators = new LinkedHashMap<String, ClassBuilderAndSourceFileList>();
+    }
+
     private static final class ClassBuilderAndSourceFileList {
-        private final ClassBuilder classBuilder;
+        // null once the class is written to the sink
+        private ClassBuilder classBuilder;
+        // only kept after the class is written to the sink if keepBytesAfterWrite is set
+        private byte[] bytes;
         private final List<File> sourceFiles;
+        private final boolean keepBytesAfterWrite;
 
-        private ClassBuilderAndSourceFileList(ClassBuilder classBuilder, List<File> sourceFiles) {
+        private ClassBuilderAndSourceFileList(ClassBuilder classBuilder, List<File> sourceFiles, boolean keepBytesAfterWrite) {
             this.classBuilder = classBuilder;
             this.sourceFiles = sourceFiles;
+            this.keepBytesAfterWrite = keepBytesAfterWrite;
         }
     }
 
     public void removeInlinedClasses(Set<String> classNamesToRemove) {
-        for (String classInternalName : classNamesToRemove) {
-            generators.remove(classInternalName + ".class");
+        PackageOutput packageOutput = currentPackageOutput.get();
+        synchronized (this) {
+            for (String classInternalName : classNamesToRemove) {
+                String outputFilePath = classInternalName + ".class";
+                if (packageOutput != null) {
+                    packageOutput.generators.remove(outputFilePath);
+                }
+                // Inlined lambdas belong to the package being generated, so they can't be written to the sink yet
+                generators.remove(outputFilePath);
+                pendingOutputs.remove(outputFilePath);
+            }
         }
     }
 }
@@ -526,6 +526,15 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
         }
 
         JetExpression loopRange = forExpression.getLoopRange();
+        assert loopRange != null;
+
+        // Is it "a downTo b", "a..b step c", "(a..b).reversed()", "c.indices" or so
+        ResolvedCall<? extends CallableDescriptor> progressionCall = RangeCodegenUtil.getIntegerProgressionCall(loopRange, bindingContext);
+        if (progressionCall != null) {
+            generateForLoop(new ForInProgressionCallLoopGenerator(forExpression, progressionCall));
+            return StackValue.none();
+        }
+
         JetType loopRangeType = bindingContext.get(EXPRESSION_TYPE, loopRange);
         assert loopRangeType != null;
         Type asmLoopRangeType = asmType(loopRangeType);
@@ -1032,13 +1041,13 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
         }
     }
 
-    private class ForInProgressionExpressionLoopGenerator extends AbstractForInProgressionOrRangeLoopGenerator {
-        private int incrementVar;
-        private Type incrementType;
+    private abstract class AbstractForInProgressionLoopGenerator extends AbstractForInProgressionOrRangeLoopGenerator {
+        protected int incrementVar;
+        protected Type incrementType;
 
         private int finalVar;
 
-        private ForInProgressionExpressionLoopGenerator(@NotNull JetForExpression forExpression) {
+        private AbstractForInProgressionLoopGenerator(@NotNull JetForExpression forExpression) {
             super(forExpression);
         }
 
@@ -1053,25 +1062,15 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
 
             incrementVar = createLoopTempVariable(asmElementType);
 
-            JetType loopRangeType = bindingContext.get(EXPRESSION_TYPE, forExpression.getLoopRange());
-            assert loopRangeType != null;
-            Type asmLoopRangeType = asmType(loopRangeType);
-
-            Collection<VariableDescriptor> incrementProp = loopRangeType.getMemberScope().getProperties(Name.identifier("increment"));
-            assert incrementProp.size() == 1 : loopRangeType + " " + incrementProp.size();
-            incrementType = asmType(incrementProp.iterator().next().getType());
-
-            gen(forExpression.getLoopRange(), asmLoopRangeType);
-            v.dup();
-            v.dup();
-
-            generateRangeOrProgressionProperty(asmLoopRangeType, "getStart", asmElementType, loopParameterVar);
-            generateRangeOrProgressionProperty(asmLoopRangeType, "getEnd", asmElementType, endVar);
-            generateRangeOrProgressionProperty(asmLoopRangeType, "getIncrement", incrementType, incrementVar);
+            storeProgressionParts();
 
             storeFinalVar();
         }
 
+        // Stores the first element, the end and the increment of the progression to loopParameterVar, endVar and incrementVar
+        // and initializes incrementType
+        protected abstract void storeProgressionParts();
+
         private void storeFinalVar() {
             if (!isIntegerProgression) {
                 finalVar = -1;
@@ -1186,6 +1185,163 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
     }
 
 
+    private class ForInProgressionExpressionLoopGenerator extends AbstractForInProgressionLoopGenerator {
+        private ForInProgressionExpressionLoopGenerator(@NotNull JetForExpression forExpression) {
+            super(forExpression);
+        }
+
+        @Override
+        protected void storeProgressionParts() {
+            JetType loopRangeType = bindingContext.get(EXPRESSION_TYPE, forExpression.getLoopRange());
+            assert loopRangeType != null;
+            Type asmLoopRangeType = asmType(loopRangeType);
+
+            Collection<VariableDescriptor> incrementProp = loopRangeType.getMemberScope().getProperties(Name.identifier("increment"));
+            assert incrementProp.size() == 1 : loopRangeType + " " + incrementProp.size();
+            incrementType = asmType(incrementProp.iterator().next().getType());
+
+            gen(forExpression.getLoopRange(), asmLoopRangeType);
+            v.dup();
+            v.dup();
+
+            generateRangeOrProgressionProperty(asmLoopRangeType, "getStart", asmElementType, loopParameterVar);
+            generateRangeOrProgressionProperty(asmLoopRangeType, "getEnd", asmElementType, endVar);
+            generateRangeOrProgressionProperty(asmLoopRangeType, "getIncrement", incrementType, incrementVar);
+        }
+    }
+
+    private class ForInProgressionCallLoopGenerator extends AbstractForInProgressionLoopGenerator {
+        private final ResolvedCall<? extends CallableDescriptor> progressionCall;
+        private boolean isIncrementStored;
+
+        private ForInProgressionCallLoopGenerator(
+                @NotNull JetForExpression forExpression,
+                @NotNull ResolvedCall<? extends CallableDescriptor> progressionCall
+        ) {
+            super(forExpression);
+            this.progressionCall = progressionCall;
+        }
+
+        @Override
+        protected void storeProgressionParts() {
+            incrementType = asmElementType.getSort() == Type.LONG ? Type.LONG_TYPE : Type.INT_TYPE;
+
+            boolean isIncrementPositive = storeProgressionParts(progressionCall);
+            if (!isIncrementStored) {
+                if (incrementType.getSort() == Type.LONG) {
+                    v.lconst(isIncrementPositive ? 1L : -1L);
+                }
+                else {
+                    v.iconst(isIncrementPositive ? 1 : -1);
+                }
+                v.store(incrementVar, incrementType);
+            }
+        }
+
+        // Evaluates the receivers and arguments of the calls in the order of their appearance, as if the progression was created.
+        // The increment is only stored if the progression has a step, the method returns whether it's positive
+        private boolean storeProgressionParts(@NotNull ResolvedCall<? extends CallableDescriptor> call) {
+            RangeCodegenUtil.ProgressionCallKind kind = RangeCodegenUtil.getProgressionCallKind(call.getResultingDescriptor());
+            JetExpression receiver = RangeCodegenUtil.getReceiverExpression(call);
+            assert kind != null && receiver != null : "Not a progression call: " + call.getCall().getCallElement().getText();
+
+            switch (kind) {
+                case RANGE_TO:
+                case DOWN_TO:
+                    gen(receiver, asmElementType);
+                    v.store(loopParameterVar, asmElementType);
+                    gen(RangeCodegenUtil.getArgumentExpression(call), asmElementType);
+                    v.store(endVar, asmElementType);
+                    return kind == RangeCodegenUtil.ProgressionCallKind.RANGE_TO;
+
+                case INDICES:
+                    v.iconst(0);
+                    v.store(loopParameterVar, Type.INT_TYPE);
+                    // Not the type of the expression: a smart cast receiver should be cast to the receiver type of indices
+                    ReceiverParameterDescriptor receiverParameter = call.getResultingDescriptor().getExtensionReceiverParameter();
+                    assert receiverParameter != null : "No receiver for indices: " + call.getResultingDescriptor();
+                    Type receiverType = asmType(receiverParameter.getType());
+                    gen(receiver, receiverType);
+                    if (receiverType.getSort() == Type.ARRAY) {
+                        v.arraylength();
+                    }
+                    else {
+                        v.invokeinterface("java/util/Collection", "size", "()I");
+                    }
+                    v.iconst(1);
+                    v.sub(Type.INT_TYPE);
+                    v.store(endVar, Type.INT_TYPE);
+                    return true;
+
+                case REVERSED:
+                    boolean isReceiverIncrementPositive = storeProgressionParts(getReceiverProgressionCall(receiver));
+
+                    // swap the first element and the end
+                    v.load(loopParameterVar, asmElementType);
+                    v.load(endVar, asmElementType);
+                    v.store(loopParameterVar, asmElementType);
+                    v.store(endVar, asmElementType);
+
+                    if (isIncrementStored) {
+                        negateIncrement();
+                    }
+                    return !isReceiverIncrementPositive;
+
+                case STEP:
+                    boolean isIncrementPositive = storeProgressionParts(getReceiverProgressionCall(receiver));
+
+                    gen(RangeCodegenUtil.getArgumentExpression(call), incrementType);
+                    v.store(incrementVar, incrementType);
+                    checkStepIsPositive();
+                    if (!isIncrementPositive) {
+                        negateIncrement();
+                    }
+                    isIncrementStored = true;
+                    return isIncrementPositive;
+
+                default:
+                    throw new IllegalStateException("Unexpected progression call: " + kind);
+            }
+        }
+
+        @NotNull
+        private ResolvedCall<? extends CallableDescriptor> getReceiverProgressionCall(@NotNull JetExpression receiver) {
+            ResolvedCall<? extends CallableDescriptor> resolvedCall = getResolvedCall(JetPsiUtil.deparenthesize(receiver), bindingContext);
+            assert resolvedCall != null : "No resolved call for progression " + receiver.getText();
+            return resolvedCall;
+        }
+
+        private void negateIncrement() {
+            v.load(incrementVar, incrementType);
+            v.neg(incrementType);
+            v.store(incrementVar, incrementType);
+        }
+
+        // Same check as in kotlin.step()
+        private void checkStepIsPositive() {
+            Label positiveStep = new Label();
+            v.load(incrementVar, incrementType);
+            if (incrementType.getSort() == Type.LONG) {
+                v.lconst(0L);
+                v.lcmp();
+            }
+            v.ifgt(positiveStep);
+
+            v.anew(Type.getObjectType("java/lang/IllegalArgumentException"));
+            v.dup();
+            genStringBuilderConstructor(v);
+            v.aconst("Step must be positive, was: ");
+            genInvokeAppendMethod(v, JAVA_STRING_TYPE);
+            v.load(incrementVar, incrementType);
+            genInvokeAppendMethod(v, incrementType);
+            v.invokevirtual("java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false);
+            v.invokespecial("java/lang/IllegalArgumentException", "<init>", "(Ljava/lang/String;)V", false);
+            v.athrow();
+
+            v.mark(positiveStep);
+        }
+    }
+
     @Override
     public StackValue visitBreakExpression(@NotNull JetBreakExpression expression, StackValue receiver) {
         return generateBreakOrContinueExpression(expression, true);
@@ -24,13 +24,14 @@ import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.psi.JetFile;
 import org.jetbrains.kotlin.psi.JetScript;
 import org.jetbrains.kotlin.resolve.ScriptNameUtil;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.jetbrains.org.objectweb.asm.Type;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
 
 import static org.jetbrains.kotlin.codegen.binding.CodegenBinding.registerClassNameForScript;
+import static org.jetbrains.kotlin.utils.UtilsPackage.rethrow;
 
 public class KotlinCodegenFacade {
 
@@ -53,6 +54,18 @@ public class KotlinCodegenFacade {
     public static void compileCorrectFiles(
             @NotNull GenerationState state,
             @NotNull CompilationErrorHandler errorHandler
+    ) {
+        compileCorrectFiles(state, errorHandler, 1);
+    }
+
+    /**
+     * @param threads number of threads to generate packages on. When it's greater than 1, packages are generated concurrently,
+     *                but the classes are added to the {@link ClassFileFactory} in the same order as in the sequential mode
+     */
+    public static void compileCorrectFiles(
+            @NotNull GenerationState state,
+            @NotNull CompilationErrorHandler errorHandler,
+            int threads
     ) {
         prepareForCompilation(state);
 
@@ -63,21 +76,89 @@ public class KotlinCodegenFacade {
         }
 
         Set<FqName> packagesWithObsoleteParts = new HashSet<FqName>(state.getPackagesWithObsoleteParts());
-        for (FqName fqName : Sets.union(packagesWithObsoleteParts, packageFqNameToFiles.keySet())) {
-            generatePackage(state, fqName, packageFqNameToFiles.get(fqName), errorHandler);
+        Set<FqName> packages = Sets.union(packagesWithObsoleteParts, packageFqNameToFiles.keySet());
+        if (threads > 1 && packages.size() > 1) {
+            generatePackagesInParallel(state, packages, packageFqNameToFiles, errorHandler, threads);
+        }
+        else {
+            for (FqName fqName : packages) {
+                generatePackage(state, fqName, packageFqNameToFiles.get(fqName), errorHandler);
+                state.getFactory().packageGenerated(fqName);
+            }
         }
 
         state.getFactory().done();
     }
 
+    private static void generatePackagesInParallel(
+            @NotNull final GenerationState state,
+            @NotNull Collection<FqName> packages,
+            @NotNull final MultiMap<FqName, JetFile> packageFqNameToFiles,
+            @NotNull final CompilationErrorHandler errorHandler,
+            int threads
+    ) {
+        final ClassFileFactory factory = state.getFactory();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, packages.size()));
+        try {
+            Map<FqName, Future<ClassFileFactory.PackageOutput>> outputs =
+                    new LinkedHashMap<FqName, Future<ClassFileFactory.PackageOutput>>(packages.size());
+            for (final FqName fqName : packages) {
+                outputs.put(fqName, executor.submit(new Callable<ClassFileFactory.PackageOutput>() {
+                    @Override
+                    public ClassFileFactory.PackageOutput call() {
+                        ClassFileFactory.PackageOutput output;
+                        factory.startPackageOutput();
+                        try {
+                            generatePackage(state, fqName, packageFqNameToFiles.get(fqName), errorHandler);
+                        }
+                        finally {
+                            output = factory.finishPackageOutput();
+                        }
+                        return output;
+                    }
+                }));
+            }
+
+            // Outputs are added in the order of packages, which makes the result independent of the scheduling
+            for (Map.Entry<FqName, Future<ClassFileFactory.PackageOutput>> output : outputs.entrySet()) {
+                factory.addPackageOutput(getResult(output.getValue()));
+                factory.packageGenerated(output.getKey());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @NotNull
+    private static <T> T getResult(@NotNull Future<T> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating packages", e);
+        }
+        catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
     public static void generatePackage(
             @NotNull GenerationState state,
             @NotNull FqName fqName,
             @NotNull Collection<JetFile> jetFiles,
             @NotNull CompilationErrorHandler errorHandler
     ) {
-        PackageCodegen codegen = state.getFactory().forPackage(fqName, jetFiles);
-        codegen.generate(errorHandler);
+        CompilerPhaseMetrics.Measurement measurement =
+                CompilerPhaseMetrics.start(state.getPhaseMetrics(), CompilerPhaseMetrics.Phase.CODEGEN, null, fqName.asString());
+        try {
+            PackageCodegen codegen = state.getFactory().forPackage(fqName, jetFiles);
+            codegen.generate(errorHandler);
+        }
+        finally {
+            CompilerPhaseMetrics.finish(measurement);
+        }
     }
 
     private KotlinCodegenFacade() {}
@@ -56,6 +56,7 @@ import org.jetbrains.kotlin.serialization.deserialization.descriptors.Deserializ
 import org.jetbrains.kotlin.serialization.deserialization.descriptors.DeserializedPropertyDescriptor;
 import org.jetbrains.kotlin.serialization.deserialization.descriptors.DeserializedSimpleFunctionDescriptor;
 import org.jetbrains.kotlin.serialization.jvm.BitEncoding;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.jetbrains.org.objectweb.asm.AnnotationVisitor;
 import org.jetbrains.org.objectweb.asm.MethodVisitor;
 import org.jetbrains.org.objectweb.asm.Type;
@@ -210,6 +211,10 @@ public class PackageCodegen {
         Map<CallableMemberDescriptor, Runnable> generateCallableMemberTasks = new HashMap<CallableMemberDescriptor, Runnable>();
 
         for (JetFile file : files) {
+            VirtualFile virtualFile = file.getVirtualFile();
+            CompilerPhaseMetrics.Measurement measurement = CompilerPhaseMetrics.start(
+                    state.getPhaseMetrics(), CompilerPhaseMetrics.Phase.CODEGEN,
+                    virtualFile == null ? file.getName() : virtualFile.getPath(), null);
             try {
                 ClassBuilder builder = generate(file, generateCallableMemberTasks);
                 if (builder != null) {
@@ -228,6 +233,9 @@ public class PackageCodegen {
                     e.printStackTrace();
                 }
             }
+            finally {
+                CompilerPhaseMetrics.finish(measurement);
+            }
         }
 
         generateDelegationsToPreviouslyCompiled(generateCallableMemberTasks);
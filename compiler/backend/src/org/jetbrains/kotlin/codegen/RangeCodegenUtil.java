@@ -21,18 +21,22 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
 import org.jetbrains.kotlin.builtins.PrimitiveType;
-import org.jetbrains.kotlin.descriptors.CallableDescriptor;
-import org.jetbrains.kotlin.descriptors.ClassifierDescriptor;
+import org.jetbrains.kotlin.descriptors.*;
 import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.name.Name;
 import org.jetbrains.kotlin.psi.*;
+import org.jetbrains.kotlin.resolve.BindingContext;
 import org.jetbrains.kotlin.resolve.DescriptorUtils;
+import org.jetbrains.kotlin.resolve.calls.model.ResolvedCall;
+import org.jetbrains.kotlin.resolve.scopes.receivers.ExpressionReceiver;
+import org.jetbrains.kotlin.resolve.scopes.receivers.ReceiverValue;
 import org.jetbrains.kotlin.types.JetType;
 
 import java.util.List;
 
 import static org.jetbrains.kotlin.builtins.KotlinBuiltIns.BUILT_INS_PACKAGE_FQ_NAME;
 import static org.jetbrains.kotlin.codegen.AsmUtil.isPrimitiveNumberClassDescriptor;
+import static org.jetbrains.kotlin.resolve.calls.callUtil.CallUtilPackage.getResolvedCall;
 
 public class RangeCodegenUtil {
     private static final ImmutableMap<FqName, PrimitiveType> RANGE_TO_ELEMENT_TYPE;
@@ -134,6 +138,122 @@ public class RangeCodegenUtil {
         return false;
     }
 
+    /**
+     * Calls producing progressions, which can be iterated over in a for-loop without creating the progression object
+     */
+    public enum ProgressionCallKind {
+        RANGE_TO,
+        DOWN_TO,
+        STEP,
+        REVERSED,
+        INDICES
+    }
+
+    @Nullable
+    public static ProgressionCallKind getProgressionCallKind(@NotNull CallableDescriptor descriptor) {
+        if (isOptimizableRangeTo(descriptor)) return ProgressionCallKind.RANGE_TO;
+
+        DeclarationDescriptor container = descriptor.getContainingDeclaration();
+        if (!(container instanceof PackageFragmentDescriptor) ||
+            !BUILT_INS_PACKAGE_FQ_NAME.equals(((PackageFragmentDescriptor) container).getFqName())) {
+            return null;
+        }
+
+        ReceiverParameterDescriptor receiverParameter = descriptor.getExtensionReceiverParameter();
+        if (receiverParameter == null) return null;
+        JetType receiverType = receiverParameter.getType();
+
+        String name = descriptor.getName().asString();
+        int valueParameterCount = descriptor.getValueParameters().size();
+        if (descriptor instanceof FunctionDescriptor) {
+            if ("downTo".equals(name) && valueParameterCount == 1 && KotlinBuiltIns.isPrimitiveType(receiverType)) {
+                return ProgressionCallKind.DOWN_TO;
+            }
+            if ("step".equals(name) && valueParameterCount == 1 && (isRange(receiverType) || isProgression(receiverType))) {
+                return ProgressionCallKind.STEP;
+            }
+            if ("reversed".equals(name) && valueParameterCount == 0 && (isRange(receiverType) || isProgression(receiverType))) {
+                return ProgressionCallKind.REVERSED;
+            }
+        }
+        else if (descriptor instanceof PropertyDescriptor && "indices".equals(name)) {
+            if (KotlinBuiltIns.isArray(receiverType) || KotlinBuiltIns.isPrimitiveArray(receiverType) ||
+                receiverType.getConstructor().getDeclarationDescriptor() == KotlinBuiltIns.getInstance().getCollection()) {
+                return ProgressionCallKind.INDICES;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the resolved call of the expression if it's a call of {@link ProgressionCallKind} other than RANGE_TO
+     * producing a progression of integers, and the receivers of STEP and REVERSED calls are such calls or RANGE_TO as well
+     */
+    @Nullable
+    public static ResolvedCall<? extends CallableDescriptor> getIntegerProgressionCall(
+            @NotNull JetExpression expression,
+            @NotNull BindingContext bindingContext
+    ) {
+        JetType type = bindingContext.get(BindingContext.EXPRESSION_TYPE, expression);
+        if (type == null || !(isRange(type) || isProgression(type))) return null;
+
+        PrimitiveType elementType = getPrimitiveRangeOrProgressionElementType(DescriptorUtils.getFqNameSafe(
+                type.getConstructor().getDeclarationDescriptor()));
+        if (elementType == PrimitiveType.FLOAT || elementType == PrimitiveType.DOUBLE) return null;
+
+        ResolvedCall<? extends CallableDescriptor> resolvedCall = getProgressionCall(expression, bindingContext);
+        if (resolvedCall == null) return null;
+
+        ProgressionCallKind kind = getProgressionCallKind(resolvedCall.getResultingDescriptor());
+        return kind != ProgressionCallKind.RANGE_TO ? resolvedCall : null;
+    }
+
+    @Nullable
+    private static ResolvedCall<? extends CallableDescriptor> getProgressionCall(
+            @NotNull JetExpression expression,
+            @NotNull BindingContext bindingContext
+    ) {
+        JetExpression deparenthesized = JetPsiUtil.deparenthesize(expression);
+        if (deparenthesized == null || deparenthesized instanceof JetSafeQualifiedExpression) return null;
+
+        ResolvedCall<? extends CallableDescriptor> resolvedCall = getResolvedCall(deparenthesized, bindingContext);
+        if (resolvedCall == null) return null;
+
+        ProgressionCallKind kind = getProgressionCallKind(resolvedCall.getResultingDescriptor());
+        if (kind == null || getReceiverExpression(resolvedCall) == null) return null;
+
+        switch (kind) {
+            case RANGE_TO:
+            case DOWN_TO:
+            case STEP:
+                if (getArgumentExpression(resolvedCall) == null) return null;
+                break;
+            default:
+                break;
+        }
+
+        if (kind == ProgressionCallKind.STEP || kind == ProgressionCallKind.REVERSED) {
+            //noinspection ConstantConditions
+            if (getProgressionCall(getReceiverExpression(resolvedCall), bindingContext) == null) return null;
+        }
+
+        return resolvedCall;
+    }
+
+    @Nullable
+    public static JetExpression getReceiverExpression(@NotNull ResolvedCall<?> resolvedCall) {
+        ReceiverValue receiver = resolvedCall.getExtensionReceiver().exists()
+                                 ? resolvedCall.getExtensionReceiver()
+                                 : resolvedCall.getDispatchReceiver();
+        return receiver instanceof ExpressionReceiver ? ((ExpressionReceiver) receiver).getExpression() : null;
+    }
+
+    @Nullable
+    public static JetExpression getArgumentExpression(@NotNull ResolvedCall<?> resolvedCall) {
+        List<? extends ValueArgument> arguments = resolvedCall.getCall().getValueArguments();
+        return arguments.size() == 1 ? arguments.get(0).getArgumentExpression() : null;
+    }
+
     public static class BinaryCall {
         public final JetExpression left;
         public final JetExpression op;
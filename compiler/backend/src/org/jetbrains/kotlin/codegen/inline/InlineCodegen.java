@@ -40,6 +40,7 @@ import org.jetbrains.kotlin.resolve.jvm.jvmSignature.JvmMethodParameterKind;
 import org.jetbrains.kotlin.resolve.jvm.jvmSignature.JvmMethodParameterSignature;
 import org.jetbrains.kotlin.resolve.jvm.jvmSignature.JvmMethodSignature;
 import org.jetbrains.kotlin.serialization.deserialization.descriptors.DeserializedSimpleFunctionDescriptor;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.jetbrains.org.objectweb.asm.Label;
 import org.jetbrains.org.objectweb.asm.MethodVisitor;
 import org.jetbrains.org.objectweb.asm.Opcodes;
@@ -121,6 +122,8 @@ public class InlineCodegen extends CallGenerator {
     public void genCallInner(@NotNull CallableMethod callableMethod, @Nullable ResolvedCall<?> resolvedCall, boolean callDefault, @NotNull ExpressionCodegen codegen) {
         MethodNode node = null;
 
+        CompilerPhaseMetrics.Measurement measurement =
+                CompilerPhaseMetrics.start(state.getPhaseMetrics(), CompilerPhaseMetrics.Phase.INLINING);
         try {
             node = createMethodNode(callDefault);
             endCall(inlineCall(node));
@@ -137,6 +140,9 @@ public class InlineCodegen extends CallGenerator {
                                        (generateNodeText ? ("\ncause: " + InlineCodegenUtil.getNodeText(node)) : ""),
                                        e, callElement);
         }
+        finally {
+            CompilerPhaseMetrics.finish(measurement);
+        }
 
 
     }
@@ -164,7 +170,7 @@ public class InlineCodegen extends CallGenerator {
         MethodNode node;
         if (functionDescriptor instanceof DeserializedSimpleFunctionDescriptor) {
             VirtualFile file = InlineCodegenUtil.getVirtualFileForCallable((DeserializedSimpleFunctionDescriptor) functionDescriptor, state);
-            node = InlineCodegenUtil.getMethodNode(file.contentsToByteArray(), asmMethod.getName(), asmMethod.getDescriptor());
+            node = state.getInlineMethodNodeCache().getMethodNode(file, asmMethod.getName(), asmMethod.getDescriptor());
 
             if (node == null) {
                 throw new RuntimeException("Couldn't obtain compiled function body for " + descriptorName(functionDescriptor));
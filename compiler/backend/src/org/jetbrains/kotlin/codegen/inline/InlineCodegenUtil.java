@@ -80,7 +80,7 @@ public class InlineCodegenUtil {
             byte[] classData,
             final String methodName,
             final String methodDescriptor
-    ) throws ClassNotFoundException, IOException {
+    ) {
         ClassReader cr = new ClassReader(classData);
         final MethodNode[] methodNode = new MethodNode[1];
         cr.accept(new ClassVisitor(API) {
@@ -97,7 +97,6 @@ public class InlineCodegenUtil {
         return methodNode[0];
     }
 
-
     @NotNull
     public static VirtualFile getVirtualFileForCallable(@NotNull DeserializedSimpleFunctionDescriptor deserializedDescriptor, @NotNull GenerationState state) {
         VirtualFile file;
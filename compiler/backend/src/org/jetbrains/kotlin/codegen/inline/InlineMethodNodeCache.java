@@ -0,0 +1,91 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.inline;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.org.objectweb.asm.tree.MethodNode;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bodies of the methods of compiled classes, which are read once per compilation.
+ *
+ * Only the requested method is parsed and cached, since library classes such as package facades may have thousands of methods,
+ * few of which are inline. Callers receive copies of the cached nodes, since the inliner transforms the nodes it is given.
+ */
+public class InlineMethodNodeCache {
+    // class file -> name + descriptor -> method
+    private final ConcurrentMap<VirtualFile, ConcurrentMap<String, MethodNode>> classMethods = ContainerUtil.newConcurrentMap();
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    @Nullable
+    public MethodNode getMethodNode(@NotNull VirtualFile file, @NotNull String name, @NotNull String descriptor) throws IOException {
+        ConcurrentMap<String, MethodNode> methods = classMethods.get(file);
+        if (methods == null) {
+            ConcurrentMap<String, MethodNode> newMethods = ContainerUtil.newConcurrentMap();
+            methods = classMethods.putIfAbsent(file, newMethods);
+            if (methods == null) {
+                methods = newMethods;
+            }
+        }
+
+        String key = name + descriptor;
+        MethodNode node = methods.get(key);
+        if (node != null) {
+            hits.incrementAndGet();
+        }
+        else {
+            misses.incrementAndGet();
+            MethodNode parsed = InlineCodegenUtil.getMethodNode(file.contentsToByteArray(), name, descriptor);
+            if (parsed == null) return null;
+
+            node = methods.putIfAbsent(key, parsed);
+            if (node == null) {
+                node = parsed;
+            }
+        }
+
+        return copy(node);
+    }
+
+    public int getHitCount() {
+        return hits.get();
+    }
+
+    public int getMissCount() {
+        return misses.get();
+    }
+
+    @NotNull
+    private static MethodNode copy(@NotNull MethodNode node) {
+        MethodNode copy = new MethodNode(node.access, node.name, node.desc, node.signature,
+                                         node.exceptions.toArray(new String[node.exceptions.size()]));
+        // accept() resets the labels of the instructions of the node, so it's not safe to copy the same node from several threads
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (node) {
+            node.accept(copy);
+        }
+        return copy;
+    }
+}
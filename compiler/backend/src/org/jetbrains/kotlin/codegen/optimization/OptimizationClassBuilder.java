@@ -21,13 +21,16 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.codegen.ClassBuilder;
 import org.jetbrains.kotlin.codegen.DelegatingClassBuilder;
 import org.jetbrains.kotlin.resolve.jvm.diagnostics.JvmDeclarationOrigin;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.jetbrains.org.objectweb.asm.MethodVisitor;
 
 public class OptimizationClassBuilder extends DelegatingClassBuilder {
     private final ClassBuilder delegate;
+    private final CompilerPhaseMetrics phaseMetrics;
 
-    public OptimizationClassBuilder(@NotNull ClassBuilder delegate) {
+    public OptimizationClassBuilder(@NotNull ClassBuilder delegate, @Nullable CompilerPhaseMetrics phaseMetrics) {
         this.delegate = delegate;
+        this.phaseMetrics = phaseMetrics;
     }
 
     @NotNull
@@ -48,7 +51,7 @@ public class OptimizationClassBuilder extends DelegatingClassBuilder {
     ) {
         return new OptimizationMethodVisitor(
                 super.newMethod(origin, access, name, desc, signature, exceptions),
-                access, name, desc, signature, exceptions
+                access, name, desc, signature, exceptions, phaseMetrics
         );
     }
 }
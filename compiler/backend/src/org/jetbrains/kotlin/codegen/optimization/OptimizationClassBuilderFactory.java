@@ -17,16 +17,20 @@
 package org.jetbrains.kotlin.codegen.optimization;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.codegen.ClassBuilder;
 import org.jetbrains.kotlin.codegen.ClassBuilderFactory;
 import org.jetbrains.kotlin.codegen.ClassBuilderMode;
 import org.jetbrains.kotlin.resolve.jvm.diagnostics.JvmDeclarationOrigin;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 
 public class OptimizationClassBuilderFactory implements ClassBuilderFactory {
     private final ClassBuilderFactory delegate;
+    private final CompilerPhaseMetrics phaseMetrics;
 
-    public OptimizationClassBuilderFactory(ClassBuilderFactory delegate) {
+    public OptimizationClassBuilderFactory(ClassBuilderFactory delegate, @Nullable CompilerPhaseMetrics phaseMetrics) {
         this.delegate = delegate;
+        this.phaseMetrics = phaseMetrics;
     }
 
     @NotNull
@@ -38,7 +42,7 @@ public class OptimizationClassBuilderFactory implements ClassBuilderFactory {
     @NotNull
     @Override
     public ClassBuilder newClassBuilder(@NotNull JvmDeclarationOrigin origin) {
-        return new OptimizationClassBuilder(delegate.newClassBuilder(origin));
+        return new OptimizationClassBuilder(delegate.newClassBuilder(origin), phaseMetrics);
     }
 
     @Override
@@ -22,9 +22,12 @@ import org.jetbrains.kotlin.codegen.inline.InlineCodegenUtil;
 import org.jetbrains.kotlin.codegen.optimization.boxing.RedundantBoxingMethodTransformer;
 import org.jetbrains.kotlin.codegen.optimization.boxing.RedundantNullCheckMethodTransformer;
 import org.jetbrains.kotlin.codegen.optimization.common.CommonPackage;
+import org.jetbrains.kotlin.codegen.optimization.common.MethodControlFlowGraph;
 import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.jetbrains.org.objectweb.asm.MethodVisitor;
 import org.jetbrains.org.objectweb.asm.Opcodes;
+import org.jetbrains.org.objectweb.asm.tree.AbstractInsnNode;
 import org.jetbrains.org.objectweb.asm.tree.LocalVariableNode;
 import org.jetbrains.org.objectweb.asm.tree.MethodNode;
 import org.jetbrains.org.objectweb.asm.util.Textifier;
@@ -45,6 +48,7 @@ public class OptimizationMethodVisitor extends MethodVisitor {
 
     private final MethodNode methodNode;
     private final MethodVisitor delegate;
+    private final CompilerPhaseMetrics phaseMetrics;
 
     public OptimizationMethodVisitor(
             @NotNull MethodVisitor delegate,
@@ -52,10 +56,12 @@ public class OptimizationMethodVisitor extends MethodVisitor {
             @NotNull String name,
             @NotNull String desc,
             @Nullable String signature,
-            @Nullable String[] exceptions
+            @Nullable String[] exceptions,
+            @Nullable CompilerPhaseMetrics phaseMetrics
     ) {
         super(Opcodes.ASM5);
         this.delegate = delegate;
+        this.phaseMetrics = phaseMetrics;
         this.methodNode = new MethodNode(access, name, desc, signature, exceptions);
         this.methodNode.localVariables = new ArrayList<LocalVariableNode>(5);
         this.mv = InlineCodegenUtil.wrapWithMaxLocalCalc(methodNode);
@@ -71,10 +77,16 @@ public class OptimizationMethodVisitor extends MethodVisitor {
         super.visitEnd();
 
         if (canBeAnalyzed(methodNode)) {
-            for (MethodTransformer transformer : TRANSFORMERS) {
-                transformer.transform("fake", methodNode);
+            CompilerPhaseMetrics.Measurement measurement = CompilerPhaseMetrics.start(phaseMetrics, CompilerPhaseMetrics.Phase.OPTIMIZATION);
+            try {
+                for (MethodTransformer transformer : TRANSFORMERS) {
+                    transformer.transform("fake", methodNode);
+                }
+                CommonPackage.prepareForEmitting(methodNode);
+            }
+            finally {
+                CompilerPhaseMetrics.finish(measurement);
             }
-            CommonPackage.prepareForEmitting(methodNode);
         }
 
         methodNode.accept(new EndIgnoringMethodVisitorDecorator(Opcodes.ASM5, delegate));
@@ -122,10 +134,24 @@ public class OptimizationMethodVisitor extends MethodVisitor {
     }
 
     private static boolean canBeAnalyzed(@NotNull MethodNode node) {
-        int totalFramesSizeMb = node.instructions.size() *
-                              (node.maxLocals + node.maxStack) / (1024 * 1024);
+        if (node.instructions.size() == 0) return false;
+
+        // Subroutines (JSR/RET) are not generated by the compiler, but such code is left as it is rather than analyzed
+        if (MethodControlFlowGraph.hasSubroutines(node)) return false;
+
+        // Frames are only kept at the starts of basic blocks (see SparseFrames),
+        // and every block except the first one starts with a label or follows a jump or an exit instruction
+        int maxBlockCount = 1;
+        for (AbstractInsnNode insn = node.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            int type = insn.getType();
+            if (type == AbstractInsnNode.LABEL || type == AbstractInsnNode.JUMP_INSN ||
+                type == AbstractInsnNode.TABLESWITCH_INSN || type == AbstractInsnNode.LOOKUPSWITCH_INSN ||
+                (insn.getOpcode() >= Opcodes.IRETURN && insn.getOpcode() <= Opcodes.RETURN) || insn.getOpcode() == Opcodes.ATHROW) {
+                maxBlockCount++;
+            }
+        }
 
-        return node.instructions.size() > 0 &&
-               totalFramesSizeMb < MEMORY_LIMIT_BY_METHOD_MB;
+        long totalFramesSizeMb = (long) maxBlockCount * (node.maxLocals + node.maxStack) / (1024 * 1024);
+        return totalFramesSizeMb < MEMORY_LIMIT_BY_METHOD_MB;
     }
 }
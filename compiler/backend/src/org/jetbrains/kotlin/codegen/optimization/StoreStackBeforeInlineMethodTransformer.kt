@@ -18,6 +18,7 @@ package org.jetbrains.kotlin.codegen.optimization
 
 import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer
 import org.jetbrains.kotlin.codegen.optimization.common.OptimizationBasicInterpreter
+import org.jetbrains.kotlin.codegen.optimization.common.SparseFrames
 import org.jetbrains.kotlin.codegen.inline.InlineCodegenUtil
 import org.jetbrains.org.objectweb.asm.tree.MethodNode
 import org.jetbrains.org.objectweb.asm.tree.AbstractInsnNode
@@ -28,6 +29,7 @@ import org.jetbrains.org.objectweb.asm.tree.analysis.BasicValue
 import org.jetbrains.org.objectweb.asm.tree.VarInsnNode
 import org.jetbrains.org.objectweb.asm.Type
 import com.intellij.util.containers.Stack
+import java.util.HashMap
 
 class StoreStackBeforeInlineMethodTransformer : MethodTransformer() {
     override fun transform(internalClassName: String, methodNode: MethodNode) {
@@ -41,17 +43,17 @@ class StoreStackBeforeInlineMethodTransformer : MethodTransformer() {
     }
 }
 
-private fun needToProcess(node: MethodNode, frames: Array<Frame<BasicValue>?>): Boolean {
+private fun needToProcess(node: MethodNode, frames: SparseFrames<BasicValue>): Boolean {
     val insns = node.instructions.toArray()
     var balance = 0
     var isThereAnyInlineMarker = false
 
-    for ((insn, frame) in insns.zip(frames)) {
+    for ((index, insn) in insns.withIndex()) {
         if (isInlineMarker(insn)) {
             isThereAnyInlineMarker = true
 
             // inline marker is not available
-            if (frame == null) return false
+            if (!frames.isReachable(index)) return false
         }
 
         if (isBeforeInlineMarker(insn)) {
@@ -81,14 +83,26 @@ private fun isInlineMarker(insn: AbstractInsnNode, markerName: String? = null):
            )
 }
 
-private fun process(methodNode: MethodNode, frames: Array<Frame<BasicValue>?>) {
+private fun process(methodNode: MethodNode, frames: SparseFrames<BasicValue>) {
     val insns = methodNode.instructions.toArray()
 
+    // frames are recomputed from the instructions, so they should be taken before the instructions are modified
+    val markerFrames = HashMap<AbstractInsnNode, Frame<BasicValue>>()
+    for ((index, insn) in insns.withIndex()) {
+        if (isInlineMarker(insn)) {
+            val frame = frames.get(index)
+            if (frame != null) {
+                markerFrames[insn] = Frame(frame)
+            }
+        }
+    }
+
     val storedValuesDescriptorsStack = Stack<StoredStackValuesDescriptor>()
     var firstAvailableVarIndex = methodNode.maxLocals
     var currentStoredValuesCount = 0
 
-    for ((insn, frame) in insns.zip(frames)) {
+    for (insn in insns) {
+        val frame = markerFrames[insn]
         if (isBeforeInlineMarker(insn)) {
             frame ?: throw AssertionError("process method shouldn't be called if frame is null before inline marker")
 
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.codegen.optimization.common;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.org.objectweb.asm.Opcodes;
+import org.jetbrains.org.objectweb.asm.tree.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Basic blocks of a method and the control flow edges between them.
+ *
+ * Blocks are also split at the boundaries of try/catch blocks, so that all instructions of a block are covered
+ * by the same exception handlers.
+ * The graph is only valid until the instructions of the method are modified.
+ * Methods with subroutines (JSR/RET instructions) are not supported, they should be checked with {@link #hasSubroutines} first.
+ */
+public class MethodControlFlowGraph {
+    private static final int[] NO_SUCCESSORS = new int[0];
+
+    private final int[] blockStarts;
+    private final int[] blockOfInsn;
+    private final int[][] successors;
+    private final List<TryCatchBlockNode>[] handlers;
+
+    public MethodControlFlowGraph(@NotNull MethodNode node) {
+        InsnList insns = node.instructions;
+        int insnCount = insns.size();
+
+        boolean[] isBlockStart = new boolean[insnCount + 1];
+        isBlockStart[0] = true;
+        for (int i = 0; i < insnCount; i++) {
+            AbstractInsnNode insn = insns.get(i);
+            int opcode = insn.getOpcode();
+            if (opcode == Opcodes.JSR || opcode == Opcodes.RET) {
+                throw new IllegalStateException("Subroutines are not supported, see hasSubroutines(): " + node.name + node.desc);
+            }
+
+            switch (insn.getType()) {
+                case AbstractInsnNode.JUMP_INSN:
+                    isBlockStart[insns.indexOf(((JumpInsnNode) insn).label)] = true;
+                    isBlockStart[i + 1] = true;
+                    break;
+                case AbstractInsnNode.TABLESWITCH_INSN:
+                    markLabels(insns, ((TableSwitchInsnNode) insn).dflt, ((TableSwitchInsnNode) insn).labels, isBlockStart);
+                    isBlockStart[i + 1] = true;
+                    break;
+                case AbstractInsnNode.LOOKUPSWITCH_INSN:
+                    markLabels(insns, ((LookupSwitchInsnNode) insn).dflt, ((LookupSwitchInsnNode) insn).labels, isBlockStart);
+                    isBlockStart[i + 1] = true;
+                    break;
+                default:
+                    if (isExit(opcode)) {
+                        isBlockStart[i + 1] = true;
+                    }
+            }
+        }
+        for (TryCatchBlockNode tryCatchBlock : node.tryCatchBlocks) {
+            isBlockStart[insns.indexOf(tryCatchBlock.start)] = true;
+            isBlockStart[insns.indexOf(tryCatchBlock.end)] = true;
+            isBlockStart[insns.indexOf(tryCatchBlock.handler)] = true;
+        }
+
+        int blockCount = 0;
+        for (int i = 0; i < insnCount; i++) {
+            if (isBlockStart[i]) blockCount++;
+        }
+
+        blockStarts = new int[blockCount + 1];
+        blockOfInsn = new int[insnCount];
+        int block = -1;
+        for (int i = 0; i < insnCount; i++) {
+            if (isBlockStart[i]) {
+                blockStarts[++block] = i;
+            }
+            blockOfInsn[i] = block;
+        }
+        blockStarts[blockCount] = insnCount;
+
+        successors = new int[blockCount][];
+        for (int b = 0; b < blockCount; b++) {
+            successors[b] = computeSuccessors(insns, blockStarts[b + 1] - 1);
+        }
+
+        //noinspection unchecked
+        handlers = new List[blockCount];
+        for (TryCatchBlockNode tryCatchBlock : node.tryCatchBlocks) {
+            int from = blockOfInsn(insns, tryCatchBlock.start);
+            int to = blockOfInsn(insns, tryCatchBlock.end);
+            for (int b = from; b < to; b++) {
+                if (handlers[b] == null) {
+                    handlers[b] = new ArrayList<TryCatchBlockNode>(1);
+                }
+                handlers[b].add(tryCatchBlock);
+            }
+        }
+    }
+
+    public static boolean hasSubroutines(@NotNull MethodNode node) {
+        for (AbstractInsnNode insn = node.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn.getOpcode() == Opcodes.JSR || insn.getOpcode() == Opcodes.RET) return true;
+        }
+        return false;
+    }
+
+    public int getBlockCount() {
+        return successors.length;
+    }
+
+    public int getBlock(int insnIndex) {
+        return blockOfInsn[insnIndex];
+    }
+
+    public int getBlockStart(int block) {
+        return blockStarts[block];
+    }
+
+    /**
+     * @return index of the instruction following the last instruction of the block
+     */
+    public int getBlockEnd(int block) {
+        return blockStarts[block + 1];
+    }
+
+    /**
+     * @return blocks which can be executed right after the given one, not including exception handlers
+     */
+    @NotNull
+    public int[] getSuccessors(int block) {
+        return successors[block];
+    }
+
+    /**
+     * @return try/catch blocks covering all instructions of the given block, in the order of their declaration
+     */
+    @Nullable
+    public List<TryCatchBlockNode> getHandlers(int block) {
+        return handlers[block];
+    }
+
+    public int getHandlerBlock(@NotNull InsnList insns, @NotNull TryCatchBlockNode tryCatchBlock) {
+        return blockOfInsn(insns, tryCatchBlock.handler);
+    }
+
+    private int blockOfInsn(@NotNull InsnList insns, @NotNull LabelNode label) {
+        int index = insns.indexOf(label);
+        return index < blockOfInsn.length ? blockOfInsn[index] : getBlockCount();
+    }
+
+    @NotNull
+    private int[] computeSuccessors(@NotNull InsnList insns, int lastInsnIndex) {
+        AbstractInsnNode insn = insns.get(lastInsnIndex);
+        int opcode = insn.getOpcode();
+        boolean hasNext = lastInsnIndex + 1 < insns.size();
+
+        switch (insn.getType()) {
+            case AbstractInsnNode.JUMP_INSN:
+                int target = blockOfInsn[insns.indexOf(((JumpInsnNode) insn).label)];
+                return opcode == Opcodes.GOTO || !hasNext
+                       ? new int[] {target}
+                       : new int[] {blockOfInsn[lastInsnIndex + 1], target};
+            case AbstractInsnNode.TABLESWITCH_INSN:
+                return switchSuccessors(insns, ((TableSwitchInsnNode) insn).dflt, ((TableSwitchInsnNode) insn).labels);
+            case AbstractInsnNode.LOOKUPSWITCH_INSN:
+                return switchSuccessors(insns, ((LookupSwitchInsnNode) insn).dflt, ((LookupSwitchInsnNode) insn).labels);
+            default:
+                return isExit(opcode) || !hasNext ? NO_SUCCESSORS : new int[] {blockOfInsn[lastInsnIndex + 1]};
+        }
+    }
+
+    @NotNull
+    private int[] switchSuccessors(@NotNull InsnList insns, @NotNull LabelNode dflt, @NotNull List<LabelNode> labels) {
+        int[] result = new int[labels.size() + 1];
+        result[0] = blockOfInsn[insns.indexOf(dflt)];
+        for (int i = 0; i < labels.size(); i++) {
+            result[i + 1] = blockOfInsn[insns.indexOf(labels.get(i))];
+        }
+        return result;
+    }
+
+    private static void markLabels(
+            @NotNull InsnList insns,
+            @NotNull LabelNode dflt,
+            @NotNull List<LabelNode> labels,
+            @NotNull boolean[] isBlockStart
+    ) {
+        isBlockStart[insns.indexOf(dflt)] = true;
+        for (LabelNode label : labels) {
+            isBlockStart[insns.indexOf(label)] = true;
+        }
+    }
+
+    private static boolean isExit(int opcode) {
+        return (opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) || opcode == Opcodes.ATHROW;
+    }
+}
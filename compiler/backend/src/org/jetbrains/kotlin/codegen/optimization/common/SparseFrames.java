@@ -0,0 +1,205 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.codegen.optimization.common;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.org.objectweb.asm.Opcodes;
+import org.jetbrains.org.objectweb.asm.Type;
+import org.jetbrains.org.objectweb.asm.tree.AbstractInsnNode;
+import org.jetbrains.org.objectweb.asm.tree.InsnList;
+import org.jetbrains.org.objectweb.asm.tree.MethodNode;
+import org.jetbrains.org.objectweb.asm.tree.TryCatchBlockNode;
+import org.jetbrains.org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.jetbrains.org.objectweb.asm.tree.analysis.Frame;
+import org.jetbrains.org.objectweb.asm.tree.analysis.Interpreter;
+import org.jetbrains.org.objectweb.asm.tree.analysis.Value;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Result of the data flow analysis of a method, equivalent to the frames computed by ASM's Analyzer,
+ * but frames are only stored at the starts of basic blocks (see {@link MethodControlFlowGraph}).
+ *
+ * Frames of other instructions are recomputed on request by interpreting the block from its start up to the instruction,
+ * continuing from the last requested frame when possible, so that a sequential scan over instructions interprets every block once.
+ * Thus frames must be requested before the instructions of the method are modified.
+ * Interpreters are expected to give the same results when an instruction is interpreted again with the same frame,
+ * as it happens in ASM's Analyzer anyway when a loop is analyzed.
+ */
+public class SparseFrames<V extends Value> {
+    private final InsnList insns;
+    private final Interpreter<V> interpreter;
+    private final MethodControlFlowGraph graph;
+    private final Frame<V>[] blockFrames;
+
+    // frame before the instruction with index cursorIndex
+    private Frame<V> cursor;
+    private int cursorIndex = -1;
+
+    private SparseFrames(
+            @NotNull InsnList insns,
+            @NotNull Interpreter<V> interpreter,
+            @NotNull MethodControlFlowGraph graph,
+            @NotNull Frame<V>[] blockFrames
+    ) {
+        this.insns = insns;
+        this.interpreter = interpreter;
+        this.graph = graph;
+        this.blockFrames = blockFrames;
+    }
+
+    public int size() {
+        return insns.size();
+    }
+
+    public boolean isReachable(int insnIndex) {
+        return blockFrames[graph.getBlock(insnIndex)] != null;
+    }
+
+    /**
+     * @return the frame before the execution of the instruction with the given index, or null if the instruction is unreachable.
+     * The frame must not be modified, it is only valid until the next call of this method.
+     */
+    @Nullable
+    public Frame<V> get(int insnIndex) {
+        int block = graph.getBlock(insnIndex);
+        Frame<V> blockFrame = blockFrames[block];
+        if (blockFrame == null) return null;
+
+        if (cursor == null) {
+            cursor = new Frame<V>(blockFrame);
+            cursorIndex = graph.getBlockStart(block);
+        }
+        else if (cursorIndex > insnIndex || graph.getBlock(cursorIndex) != block) {
+            cursor.init(blockFrame);
+            cursorIndex = graph.getBlockStart(block);
+        }
+
+        while (cursorIndex < insnIndex) {
+            execute(insns.get(cursorIndex++), cursor, interpreter);
+        }
+        return cursor;
+    }
+
+    @NotNull
+    public static <V extends Value> SparseFrames<V> analyze(
+            @NotNull String internalClassName,
+            @NotNull MethodNode node,
+            @NotNull Interpreter<V> interpreter
+    ) {
+        InsnList insns = node.instructions;
+        MethodControlFlowGraph graph = new MethodControlFlowGraph(node);
+        int blockCount = graph.getBlockCount();
+
+        //noinspection unchecked
+        Frame<V>[] blockFrames = new Frame[blockCount];
+        BitSet pending = new BitSet(blockCount);
+
+        if (blockCount > 0) {
+            blockFrames[0] = createInitialFrame(internalClassName, node, interpreter);
+            pending.set(0);
+        }
+
+        Frame<V> handlerFrame = new Frame<V>(node.maxLocals, node.maxStack);
+        for (int block = pending.nextSetBit(0); block >= 0; block = pending.nextSetBit(0)) {
+            pending.clear(block);
+
+            List<TryCatchBlockNode> handlers = graph.getHandlers(block);
+            Frame<V> current = new Frame<V>(blockFrames[block]);
+            for (int i = graph.getBlockStart(block); i < graph.getBlockEnd(block); i++) {
+                if (handlers != null) {
+                    for (TryCatchBlockNode tryCatchBlock : handlers) {
+                        String exceptionType = tryCatchBlock.type != null ? tryCatchBlock.type : "java/lang/Throwable";
+                        handlerFrame.init(current);
+                        handlerFrame.clearStack();
+                        handlerFrame.push(interpreter.newValue(Type.getObjectType(exceptionType)));
+                        merge(graph.getHandlerBlock(insns, tryCatchBlock), handlerFrame, blockFrames, pending, interpreter);
+                    }
+                }
+                execute(insns.get(i), current, interpreter);
+            }
+
+            for (int successor : graph.getSuccessors(block)) {
+                merge(successor, current, blockFrames, pending, interpreter);
+            }
+        }
+
+        return new SparseFrames<V>(insns, interpreter, graph, blockFrames);
+    }
+
+    @NotNull
+    private static <V extends Value> Frame<V> createInitialFrame(
+            @NotNull String internalClassName,
+            @NotNull MethodNode node,
+            @NotNull Interpreter<V> interpreter
+    ) {
+        Frame<V> frame = new Frame<V>(node.maxLocals, node.maxStack);
+        frame.setReturn(interpreter.newValue(Type.getReturnType(node.desc)));
+
+        int local = 0;
+        if ((node.access & Opcodes.ACC_STATIC) == 0) {
+            frame.setLocal(local++, interpreter.newValue(Type.getObjectType(internalClassName)));
+        }
+        for (Type argumentType : Type.getArgumentTypes(node.desc)) {
+            frame.setLocal(local++, interpreter.newValue(argumentType));
+            if (argumentType.getSize() == 2) {
+                frame.setLocal(local++, interpreter.newValue(null));
+            }
+        }
+        while (local < node.maxLocals) {
+            frame.setLocal(local++, interpreter.newValue(null));
+        }
+        return frame;
+    }
+
+    private static <V extends Value> void merge(
+            int block,
+            @NotNull Frame<V> frame,
+            @NotNull Frame<V>[] blockFrames,
+            @NotNull BitSet pending,
+            @NotNull Interpreter<V> interpreter
+    ) {
+        try {
+            Frame<V> blockFrame = blockFrames[block];
+            if (blockFrame == null) {
+                blockFrames[block] = new Frame<V>(frame);
+                pending.set(block);
+            }
+            else if (blockFrame.merge(frame, interpreter)) {
+                pending.set(block);
+            }
+        }
+        catch (AnalyzerException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static <V extends Value> void execute(@NotNull AbstractInsnNode insn, @NotNull Frame<V> frame, @NotNull Interpreter<V> interpreter) {
+        int type = insn.getType();
+        if (type == AbstractInsnNode.LABEL || type == AbstractInsnNode.LINE || type == AbstractInsnNode.FRAME) return;
+
+        try {
+            frame.execute(insn, interpreter);
+        }
+        catch (AnalyzerException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.jetbrains.kotlin.codegen.optimization.transformer;
 
 import kotlin.jvm.KotlinSignature;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.codegen.optimization.common.SparseFrames;
 import org.jetbrains.org.objectweb.asm.tree.MethodNode;
 import org.jetbrains.org.objectweb.asm.tree.analysis.*;
 
@@ -38,14 +39,14 @@ public abstract class MethodTransformer {
         }
     }
 
-    @KotlinSignature("fun <V : Value?> analyze(internalClassName: String, node: MethodNode, interpreter: Interpreter<V>): Array<Frame<V>?>")
+    @KotlinSignature("fun <V : Value?> analyze(internalClassName: String, node: MethodNode, interpreter: Interpreter<V>): SparseFrames<V>")
     @NotNull
-    protected static <V extends Value> Frame<V>[] analyze(
+    protected static <V extends Value> SparseFrames<V> analyze(
             @NotNull String internalClassName,
             @NotNull MethodNode node,
             @NotNull Interpreter<V> interpreter
     ) {
-        return runAnalyzer(new Analyzer<V>(interpreter), internalClassName, node);
+        return SparseFrames.analyze(internalClassName, node, interpreter);
     }
 
     abstract public void transform(@NotNull String internalClassName, @NotNull MethodNode methodNode);
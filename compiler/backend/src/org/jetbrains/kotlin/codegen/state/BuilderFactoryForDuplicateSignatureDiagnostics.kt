@@ -30,6 +30,7 @@ import org.jetbrains.kotlin.utils.addIfNotNull
 import org.jetbrains.kotlin.codegen.ClassBuilderMode
 import org.jetbrains.kotlin.load.java.descriptors.SamAdapterDescriptor
 import org.jetbrains.kotlin.resolve.DescriptorToSourceUtils
+import org.jetbrains.kotlin.diagnostics.Diagnostic
 import org.jetbrains.kotlin.diagnostics.DiagnosticSink
 
 class BuilderFactoryForDuplicateSignatureDiagnostics(
@@ -54,7 +55,7 @@ class BuilderFactoryForDuplicateSignatureDiagnostics(
         }
 
         for (element in elements) {
-            diagnostics.report(ErrorsJvm.CONFLICTING_JVM_DECLARATIONS.on(element, data))
+            report(ErrorsJvm.CONFLICTING_JVM_DECLARATIONS.on(element, data))
         }
     }
 
@@ -103,7 +104,15 @@ class BuilderFactoryForDuplicateSignatureDiagnostics(
             if (elementToReportOn == null) return // TODO: it'd be better to report this error without any element at all
 
             val data = ConflictingJvmDeclarationsData(classInternalName, classOrigin, rawSignature, origins)
-            diagnostics.report(ErrorsJvm.ACCIDENTAL_OVERRIDE.on(elementToReportOn, data))
+            report(ErrorsJvm.ACCIDENTAL_OVERRIDE.on(elementToReportOn, data))
+        }
+    }
+
+    // Classes of different packages are done on different threads with parallel codegen. The diagnostics are sorted by their
+    // position when they are rendered, and diagnostics on the same element come from the thread of its package, in serial order
+    private fun report(diagnostic: Diagnostic) {
+        synchronized(diagnostics) {
+            diagnostics.report(diagnostic)
         }
     }
 
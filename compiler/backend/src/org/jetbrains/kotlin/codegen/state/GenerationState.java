@@ -21,6 +21,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.codegen.*;
 import org.jetbrains.kotlin.codegen.binding.CodegenBinding;
+import org.jetbrains.kotlin.codegen.inline.InlineMethodNodeCache;
 import org.jetbrains.kotlin.codegen.intrinsics.IntrinsicMethods;
 import org.jetbrains.kotlin.codegen.optimization.OptimizationClassBuilderFactory;
 import org.jetbrains.kotlin.codegen.when.MappingsClassesForWhenByEnum;
@@ -35,6 +36,7 @@ import org.jetbrains.kotlin.resolve.BindingContext;
 import org.jetbrains.kotlin.resolve.BindingTrace;
 import org.jetbrains.kotlin.resolve.DelegatingBindingTrace;
 import org.jetbrains.kotlin.types.reflect.ReflectionTypes;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 
 import java.io.File;
 import java.util.Collection;
@@ -88,6 +90,9 @@ public class GenerationState {
     @NotNull
     private final MappingsClassesForWhenByEnum mappingsClassesForWhenByEnum = new MappingsClassesForWhenByEnum(this);
 
+    @NotNull
+    private final InlineMethodNodeCache inlineMethodNodeCache = new InlineMethodNodeCache();
+
     @NotNull
     private final BindingTrace bindingTrace;
 
@@ -116,6 +121,9 @@ public class GenerationState {
     @Nullable
     private final String moduleId; // for PackageCodegen in incremental compilation mode
 
+    @Nullable
+    private final CompilerPhaseMetrics phaseMetrics;
+
     @Nullable
     private final File outDirectory; // TODO: temporary hack, see JetTypeMapperWithOutDirectory state for details
 
@@ -146,6 +154,29 @@ public class GenerationState {
             @Nullable String moduleId,
             @NotNull DiagnosticSink diagnostics,
             @Nullable File outDirectory
+    ) {
+        this(project, builderFactory, progress, module, bindingContext, files, disableCallAssertions, disableParamAssertions,
+             generateClassFilter, disableInline, disableOptimization, packagesWithObsoleteParts, moduleId, diagnostics, outDirectory,
+             null);
+    }
+
+    public GenerationState(
+            @NotNull Project project,
+            @NotNull ClassBuilderFactory builderFactory,
+            @NotNull Progress progress,
+            @NotNull ModuleDescriptor module,
+            @NotNull BindingContext bindingContext,
+            @NotNull List<JetFile> files,
+            boolean disableCallAssertions,
+            boolean disableParamAssertions,
+            GenerateClassFilter generateClassFilter,
+            boolean disableInline,
+            boolean disableOptimization,
+            @Nullable Collection<FqName> packagesWithObsoleteParts,
+            @Nullable String moduleId,
+            @NotNull DiagnosticSink diagnostics,
+            @Nullable File outDirectory,
+            @Nullable CompilerPhaseMetrics phaseMetrics
     ) {
         this.project = project;
         this.progress = progress;
@@ -155,6 +186,7 @@ public class GenerationState {
         this.packagesWithObsoleteParts = packagesWithObsoleteParts == null ? Collections.<FqName>emptySet() : packagesWithObsoleteParts;
         this.classBuilderMode = builderFactory.getClassBuilderMode();
         this.disableInline = disableInline;
+        this.phaseMetrics = phaseMetrics;
 
         this.bindingTrace = new DelegatingBindingTrace(bindingContext, "trace in GenerationState");
         this.bindingContext = bindingTrace.getBindingContext();
@@ -165,7 +197,7 @@ public class GenerationState {
         this.intrinsics = new IntrinsicMethods();
 
         if (!disableOptimization) {
-            builderFactory = new OptimizationClassBuilderFactory(builderFactory);
+            builderFactory = new OptimizationClassBuilderFactory(builderFactory, phaseMetrics);
         }
 
         this.classFileFactory = new ClassFileFactory(this, new BuilderFactoryForDuplicateSignatureDiagnostics(
@@ -189,6 +221,11 @@ public class GenerationState {
         return progress;
     }
 
+    @Nullable
+    public CompilerPhaseMetrics getPhaseMetrics() {
+        return phaseMetrics;
+    }
+
     @NotNull
     public BindingContext getBindingContext() {
         return bindingContext;
@@ -234,6 +271,11 @@ public class GenerationState {
         return mappingsClassesForWhenByEnum;
     }
 
+    @NotNull
+    public InlineMethodNodeCache getInlineMethodNodeCache() {
+        return inlineMethodNodeCache;
+    }
+
     public boolean isCallAssertionsEnabled() {
         return !disableCallAssertions;
     }
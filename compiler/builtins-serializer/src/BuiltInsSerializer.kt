@@ -25,6 +25,8 @@ import org.jetbrains.kotlin.descriptors.*
 import org.jetbrains.kotlin.name.Name
 import java.io.ByteArrayOutputStream
 import org.jetbrains.kotlin.builtins.BuiltInsSerializationUtil
+import org.jetbrains.kotlin.builtins.BuiltInsSnapshot
+import java.util.LinkedHashMap
 import com.intellij.openapi.Disposable
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys
 import org.jetbrains.kotlin.config.CommonConfigurationKeys
@@ -40,59 +42,14 @@ import org.jetbrains.kotlin.analyzer.ModuleContent
 import org.jetbrains.kotlin.resolve.scopes.DescriptorKindFilter
 import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles
 import org.jetbrains.kotlin.cli.jvm.JVMConfigurationKeys
-import org.jetbrains.kotlin.resolve.constants.NullValue
-import org.jetbrains.kotlin.builtins.KotlinBuiltIns
 import org.jetbrains.kotlin.name.ClassId
 import org.jetbrains.kotlin.resolve.descriptorUtil.classId
 
-private object BuiltInsSerializerExtension : SerializerExtension() {
-    override fun serializeClass(descriptor: ClassDescriptor, proto: ProtoBuf.Class.Builder, stringTable: StringTable) {
-        for (annotation in descriptor.getAnnotations()) {
-            proto.addExtension(BuiltInsProtoBuf.classAnnotation, AnnotationSerializer.serializeAnnotation(annotation, stringTable))
-        }
-    }
-
-    override fun serializePackage(
-            packageFragments: Collection<PackageFragmentDescriptor>,
-            proto: ProtoBuf.Package.Builder,
-            stringTable: StringTable
-    ) {
-        val classes = packageFragments.flatMap {
-            it.getMemberScope().getDescriptors(DescriptorKindFilter.CLASSIFIERS).filterIsInstance<ClassDescriptor>()
-        }
-
-        for (descriptor in DescriptorSerializer.sort(classes)) {
-            proto.addExtension(BuiltInsProtoBuf.className, stringTable.getSimpleNameIndex(descriptor.getName()))
-        }
-    }
-
-    override fun serializeCallable(
-            callable: CallableMemberDescriptor,
-            proto: ProtoBuf.Callable.Builder,
-            stringTable: StringTable
-    ) {
-        for (annotation in callable.getAnnotations()) {
-            proto.addExtension(BuiltInsProtoBuf.callableAnnotation, AnnotationSerializer.serializeAnnotation(annotation, stringTable))
-        }
-        val compileTimeConstant = (callable as? PropertyDescriptor)?.getCompileTimeInitializer()
-        if (compileTimeConstant != null && compileTimeConstant !is NullValue) {
-            val type = compileTimeConstant.getType(KotlinBuiltIns.getInstance())
-            proto.setExtension(BuiltInsProtoBuf.compileTimeValue, AnnotationSerializer.valueProto(compileTimeConstant, type, stringTable).build())
-        }
-    }
-
-    override fun serializeValueParameter(
-            descriptor: ValueParameterDescriptor,
-            proto: ProtoBuf.Callable.ValueParameter.Builder,
-            stringTable: StringTable
-    ) {
-        for (annotation in descriptor.getAnnotations()) {
-            proto.addExtension(BuiltInsProtoBuf.parameterAnnotation, AnnotationSerializer.serializeAnnotation(annotation, stringTable))
-        }
-    }
-}
-
-public class BuiltInsSerializer(private val dependOnOldBuiltIns: Boolean) {
+/**
+ * @param writeSnapshots whether to write all files of each package into its single .kotlin_builtins snapshot (see [BuiltInsSnapshot])
+ *                       instead of writing them separately. Both layouts are loaded by [BuiltinsPackageFragment]
+ */
+public class BuiltInsSerializer(private val dependOnOldBuiltIns: Boolean, private val writeSnapshots: Boolean = true) {
     private var totalSize = 0
     private var totalFiles = 0
 
@@ -167,30 +124,44 @@ public class BuiltInsSerializer(private val dependOnOldBuiltIns: Boolean) {
 
         val classifierDescriptors = DescriptorSerializer.sort(packageView.getMemberScope().getDescriptors(DescriptorKindFilter.CLASSIFIERS))
 
+        // Contents of all files of the package, which are written either to the package snapshot or separately
+        val packageFiles = LinkedHashMap<String, ByteArray>()
+
         serializeClasses(classifierDescriptors, serializer) {
             (classDescriptor, classProto) ->
             val stream = ByteArrayOutputStream()
             classProto.writeTo(stream)
-            write(destDir, getFileName(classDescriptor), stream)
+            packageFiles[getFileName(classDescriptor)] = stream.toByteArray()
         }
 
         val packageStream = ByteArrayOutputStream()
         val fragments = module.getPackageFragmentProvider().getPackageFragments(fqName)
         val packageProto = serializer.packageProto(fragments).build() ?: error("Package fragments not serialized: $fragments")
         packageProto.writeTo(packageStream)
-        write(destDir, BuiltInsSerializationUtil.getPackageFilePath(fqName), packageStream)
+        packageFiles[BuiltInsSerializationUtil.getPackageFilePath(fqName)] = packageStream.toByteArray()
 
         val nameStream = ByteArrayOutputStream()
         NameSerializationUtil.serializeStringTable(nameStream, serializer.getStringTable())
-        write(destDir, BuiltInsSerializationUtil.getStringTableFilePath(fqName), nameStream)
+        packageFiles[BuiltInsSerializationUtil.getStringTableFilePath(fqName)] = nameStream.toByteArray()
+
+        if (writeSnapshots) {
+            val snapshotStream = ByteArrayOutputStream()
+            BuiltInsSnapshot.write(packageFiles, snapshotStream)
+            write(destDir, BuiltInsSerializationUtil.getSnapshotFilePath(fqName), snapshotStream.toByteArray())
+        }
+        else {
+            for ((fileName, bytes) in packageFiles) {
+                write(destDir, fileName, bytes)
+            }
+        }
     }
 
-    private fun write(destDir: File, fileName: String, stream: ByteArrayOutputStream) {
-        totalSize += stream.size()
+    private fun write(destDir: File, fileName: String, bytes: ByteArray) {
+        totalSize += bytes.size()
         totalFiles++
         val file = File(destDir, fileName)
         file.getParentFile()?.mkdirs()
-        file.writeBytes(stream.toByteArray())
+        file.writeBytes(bytes)
     }
 
     private fun serializeClass(
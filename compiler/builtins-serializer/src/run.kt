@@ -28,8 +28,9 @@ fun main(args: Array<String>) {
 Usage: ... <destination dir> (<source dir>)+
 
 Analyzes Kotlin sources found in the given source directories and serializes
-found top-level declarations to <destination dir> (files such as
-.kotlin_class_names, .kotlin_name_table, .kotlin_package, *.kotlin_class)"""
+found top-level declarations to <destination dir> (a .kotlin_builtins file
+for each package, which contains its .kotlin_string_table, .kotlin_package
+and *.kotlin_class files)"""
         )
         return
     }
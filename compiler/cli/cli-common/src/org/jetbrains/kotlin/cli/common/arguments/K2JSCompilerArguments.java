@@ -55,6 +55,9 @@ public class K2JSCompilerArguments extends CommonCompilerArguments {
     @ValueDescription("<path>")
     public String outputPostfix;
 
+    @Argument(value = "meta-info", description = "Generate a library jar with the output and serialized descriptors next to the output file")
+    public boolean metaInfo;
+
     @Override
     @NotNull
     public String executableScriptFileName() {
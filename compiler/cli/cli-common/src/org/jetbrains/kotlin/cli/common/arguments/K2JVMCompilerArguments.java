@@ -66,6 +66,22 @@ public class K2JVMCompilerArguments extends CommonCompilerArguments {
     @Argument(value = "Xno-optimize", description = "Disable optimizations")
     public boolean noOptimize;
 
+    @Argument(value = "Xparallel-codegen", description = "Generate bytecode for different packages in parallel")
+    public boolean parallelCodegen;
+
+    @Argument(value = "Xparallel-body-resolve", description = "Resolve bodies of declarations from different files in parallel")
+    public boolean parallelBodyResolve;
+
+    @Argument(value = "Xstream-output", description = "Write each class to the destination as soon as its package is generated")
+    public boolean streamOutput;
+
+    @Argument(value = "Xphase-metrics", description = "Write time and memory spent in compiler phases to the JSON file")
+    @ValueDescription("<path>")
+    public String phaseMetrics;
+
+    @Argument(value = "Xphase-metrics-detailed", description = "Include metrics of each file and package into the phase metrics")
+    public boolean phaseMetricsDetailed;
+
     @Override
     @NotNull
     public String executableScriptFileName() {
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.common.daemon;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Sends requests to a compile daemon listening on a local port
+ */
+public final class CompileDaemonClient {
+    private CompileDaemonClient() {
+    }
+
+    /**
+     * Compiles with the given K2JVMCompiler arguments in the daemon and prints the compiler output (in the XML format) to {@code out}.
+     * Nothing is printed unless the whole response is received, so that the caller can compile in its own process on an exception
+     *
+     * @param tokenFile the file the daemon has written its token to (see {@link CompileDaemonProtocol#getDefaultTokenFile})
+     * @param workingDirectory the directory relative paths in the arguments are resolved against
+     * @throws IOException if the daemon is not running, the token doesn't match, the connection is broken,
+     * or the daemon refused to compile (e.g. it's of another version)
+     */
+    @NotNull
+    public static ExitCode compile(
+            int port,
+            @NotNull File tokenFile,
+            @NotNull File workingDirectory,
+            @NotNull String[] arguments,
+            @NotNull PrintStream out
+    ) throws IOException {
+        String token = CompileDaemonProtocol.readTokenFile(tokenFile);
+        ExitCode exitCode;
+        String compilerOutput;
+        Socket socket = connect(port);
+        try {
+            CompileDaemonProtocol.writeCompileRequest(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())),
+                                                      token, workingDirectory, arguments);
+
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            int status = input.readInt();
+            if (status != CompileDaemonProtocol.COMPILED) {
+                throw new IOException(status == CompileDaemonProtocol.REFUSED
+                                      ? "Compile daemon refused the request: " + CompileDaemonProtocol.readString(input)
+                                      : "Unknown response status of compile daemon: " + status);
+            }
+            exitCode = readExitCode(CompileDaemonProtocol.readString(input));
+            compilerOutput = CompileDaemonProtocol.readString(input);
+        }
+        finally {
+            closeQuietly(socket);
+        }
+
+        out.print(compilerOutput);
+        return exitCode;
+    }
+
+    @NotNull
+    private static ExitCode readExitCode(@NotNull String name) throws IOException {
+        try {
+            return ExitCode.valueOf(name);
+        }
+        catch (IllegalArgumentException e) {
+            throw new IOException("Unknown exit code of compile daemon: " + name);
+        }
+    }
+
+    private static void closeQuietly(@NotNull Socket socket) {
+        try {
+            socket.close();
+        }
+        catch (IOException ignored) {
+            // The response is either already read or the request has failed anyway
+        }
+    }
+
+    public static void shutdown(int port, @NotNull File tokenFile) throws IOException {
+        String token = CompileDaemonProtocol.readTokenFile(tokenFile);
+        Socket socket = connect(port);
+        try {
+            CompileDaemonProtocol.writeShutdownRequest(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())), token);
+            // Wait until the daemon closes the connection
+            //noinspection ResultOfMethodCallIgnored
+            socket.getInputStream().read();
+        }
+        finally {
+            socket.close();
+        }
+    }
+
+    @NotNull
+    private static Socket connect(int port) throws IOException {
+        // null stands for the loopback address
+        return new Socket(InetAddress.getByName(null), port);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.common.daemon;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+import org.jetbrains.kotlin.cli.common.KotlinVersion;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * Requests and responses of the compile daemon.
+ *
+ * A request starts with the token of the daemon session, which the daemon writes to a file readable only by its user
+ * (see {@link #writeTokenFile}), so that other users can't send requests to the daemon. The daemon closes the connection
+ * without a response if the token doesn't match.
+ *
+ * The token is followed by {@link #PROTOCOL_VERSION}, a command code and its data: for {@link #COMPILE}, the version of
+ * the compiler the client expects, the working directory of the client, against which relative paths in the arguments
+ * are resolved, the number of compiler arguments and the arguments.
+ *
+ * The response to {@link #COMPILE} starts with a status. {@link #COMPILED} is followed by the exit code name and the compiler
+ * output (messages in the XML format). {@link #REFUSED} is followed by the reason: the daemon doesn't run requests of other
+ * versions of the protocol or of the compiler, and requests the client should run itself, so that the client can compile
+ * in its own process instead. The response to {@link #SHUTDOWN} is empty.
+ *
+ * Strings are written as the number of bytes followed by the bytes in UTF-8,
+ * because classpath arguments may exceed the length limit of {@link DataOutput#writeUTF}.
+ */
+public final class CompileDaemonProtocol {
+    // Changed whenever the format of requests or responses changes
+    public static final int PROTOCOL_VERSION = 2;
+
+    public static final int COMPILE = 1;
+    public static final int SHUTDOWN = 2;
+
+    public static final int COMPILED = 0;
+    public static final int REFUSED = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    // Number of random bytes in a token, which is written in hex
+    private static final int TOKEN_LENGTH = 32;
+
+    private CompileDaemonProtocol() {
+    }
+
+    /**
+     * @return the file the daemon listening on the given port writes its token to by default
+     */
+    @NotNull
+    public static File getDefaultTokenFile(int port) {
+        return new File(System.getProperty("user.home"), ".kotlin" + File.separator + "daemon" + File.separator + port + ".token");
+    }
+
+    /**
+     * Generates a new token and writes it to the given file, which is made readable and writable only by its owner
+     */
+    @NotNull
+    public static String writeTokenFile(@NotNull File tokenFile) throws IOException {
+        byte[] bytes = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder token = new StringBuilder(TOKEN_LENGTH * 2);
+        for (byte b : bytes) {
+            token.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        File directory = tokenFile.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create directory " + directory);
+        }
+        if (tokenFile.exists() && !tokenFile.delete()) {
+            throw new IOException("Couldn't delete the previous token file " + tokenFile);
+        }
+        if (!tokenFile.createNewFile()) {
+            throw new IOException("Token file was created by someone else: " + tokenFile);
+        }
+        // Permissions are restricted before the token is written. Clearing them for everyone first leaves them only for the owner
+        if (!tokenFile.setReadable(false, false) || !tokenFile.setWritable(false, false) || !tokenFile.setExecutable(false, false) ||
+            !tokenFile.setReadable(true, true) || !tokenFile.setWritable(true, true)) {
+            //noinspection ResultOfMethodCallIgnored
+            tokenFile.delete();
+            throw new IOException("Couldn't restrict permissions of the token file " + tokenFile);
+        }
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(tokenFile), UTF_8);
+        try {
+            writer.write(token.toString());
+        }
+        finally {
+            writer.close();
+        }
+        return token.toString();
+    }
+
+    @NotNull
+    public static String readTokenFile(@NotNull File tokenFile) throws IOException {
+        DataInputStream input = new DataInputStream(new FileInputStream(tokenFile));
+        try {
+            byte[] bytes = new byte[(int) tokenFile.length()];
+            input.readFully(bytes);
+            return new String(bytes, UTF_8).trim();
+        }
+        finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Compares the tokens in time independent of the position of the first difference
+     */
+    public static boolean isSameToken(@NotNull String expected, @NotNull String actual) {
+        return MessageDigest.isEqual(expected.getBytes(UTF_8), actual.getBytes(UTF_8));
+    }
+
+    /**
+     * Reads the token of a request. Its length is checked before anything is allocated, because the request may come from anyone
+     */
+    @NotNull
+    public static String readToken(@NotNull DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > TOKEN_LENGTH * 2) {
+            throw new IOException("Invalid token length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public static void writeCompileRequest(
+            @NotNull DataOutputStream output,
+            @NotNull String token,
+            @NotNull File workingDirectory,
+            @NotNull String[] arguments
+    ) throws IOException {
+        writeString(output, token);
+        output.writeInt(PROTOCOL_VERSION);
+        output.writeInt(COMPILE);
+        writeString(output, KotlinVersion.VERSION);
+        writeString(output, workingDirectory.getAbsolutePath());
+        output.writeInt(arguments.length);
+        for (String argument : arguments) {
+            writeString(output, argument);
+        }
+        output.flush();
+    }
+
+    @NotNull
+    public static String[] readArguments(@NotNull DataInputStream input) throws IOException {
+        String[] arguments = new String[input.readInt()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = readString(input);
+        }
+        return arguments;
+    }
+
+    public static void writeCompileResponse(@NotNull DataOutputStream output, @NotNull ExitCode exitCode, @NotNull String compilerOutput)
+            throws IOException {
+        output.writeInt(COMPILED);
+        writeString(output, exitCode.name());
+        writeString(output, compilerOutput);
+        output.flush();
+    }
+
+    public static void writeRefusal(@NotNull DataOutputStream output, @NotNull String reason) throws IOException {
+        output.writeInt(REFUSED);
+        writeString(output, reason);
+        output.flush();
+    }
+
+    public static void writeShutdownRequest(@NotNull DataOutputStream output, @NotNull String token) throws IOException {
+        writeString(output, token);
+        output.writeInt(PROTOCOL_VERSION);
+        output.writeInt(SHUTDOWN);
+        output.flush();
+    }
+
+    private static void writeString(@NotNull DataOutputStream output, @NotNull String string) throws IOException {
+        byte[] bytes = string.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    @NotNull
+    public static String readString(@NotNull DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
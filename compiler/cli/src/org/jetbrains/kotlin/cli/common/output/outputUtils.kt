@@ -16,7 +16,9 @@
 
 package org.jetbrains.kotlin.cli.common.output.outputUtils
 
+import org.jetbrains.kotlin.backend.common.output.OutputFile
 import org.jetbrains.kotlin.backend.common.output.OutputFileCollection
+import org.jetbrains.kotlin.backend.common.output.OutputFileSink
 import org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation
 import org.jetbrains.kotlin.cli.common.messages.OutputMessageUtil
 import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity
@@ -24,12 +26,21 @@ import org.jetbrains.kotlin.cli.common.messages.MessageCollector
 import java.io.File
 import com.intellij.openapi.util.io.FileUtil
 
+public class DirectoryOutputFileSink(
+        private val outputDir: File,
+        private val report: (sources: List<File>, output: File) -> Unit
+) : OutputFileSink {
+    override fun write(outputFile: OutputFile) {
+        val output = File(outputDir, outputFile.relativePath)
+        report(outputFile.sourceFiles, output)
+        FileUtil.writeToFile(output, outputFile.asByteArray())
+    }
+}
+
 public fun OutputFileCollection.writeAll(outputDir: File, report: (sources: List<File>, output: File) -> Unit) {
+    val sink = DirectoryOutputFileSink(outputDir, report)
     for (file in asList()) {
-        val sources = file.sourceFiles
-        val output = File(outputDir, file.relativePath)
-        report(sources, output)
-        FileUtil.writeToFile(output, file.asByteArray())
+        sink.write(file)
     }
 }
 
@@ -40,7 +51,12 @@ public fun OutputFileCollection.writeAllTo(outputDir: File) {
 }
 
 public fun OutputFileCollection.writeAll(outputDir: File, messageCollector: MessageCollector) {
-    writeAll(outputDir) { sources, output ->
-        messageCollector.report(CompilerMessageSeverity.OUTPUT, OutputMessageUtil.formatOutputMessage(sources, output), CompilerMessageLocation.NO_LOCATION)
-    }
+    writeAll(outputDir, reportOutputTo(messageCollector))
+}
+
+public fun createDirectoryOutputSink(outputDir: File, messageCollector: MessageCollector): OutputFileSink =
+        DirectoryOutputFileSink(outputDir, reportOutputTo(messageCollector))
+
+private fun reportOutputTo(messageCollector: MessageCollector): (List<File>, File) -> Unit = { sources, output ->
+    messageCollector.report(CompilerMessageSeverity.OUTPUT, OutputMessageUtil.formatOutputMessage(sources, output), CompilerMessageLocation.NO_LOCATION)
 }
@@ -33,6 +33,7 @@ import kotlin.Unit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.analyzer.AnalysisResult;
+import org.jetbrains.kotlin.backend.common.output.OutputFile;
 import org.jetbrains.kotlin.backend.common.output.OutputFileCollection;
 import org.jetbrains.kotlin.cli.common.CLICompiler;
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys;
@@ -57,12 +58,16 @@ import org.jetbrains.kotlin.js.config.EcmaVersion;
 import org.jetbrains.kotlin.js.config.LibrarySourcesConfig;
 import org.jetbrains.kotlin.js.facade.MainCallParameters;
 import org.jetbrains.kotlin.js.facade.Status;
+import org.jetbrains.kotlin.js.serialization.KotlinJavascriptSerializationUtil;
 import org.jetbrains.kotlin.psi.JetFile;
 import org.jetbrains.kotlin.resolve.diagnostics.Diagnostics;
+import org.jetbrains.kotlin.utils.LibraryUtils;
 import org.jetbrains.kotlin.utils.PathUtil;
 
-import java.io.File;
+import java.io.*;
 import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 import static org.jetbrains.kotlin.cli.common.ExitCode.COMPILATION_ERROR;
 import static org.jetbrains.kotlin.cli.common.ExitCode.OK;
@@ -132,7 +137,8 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
             return COMPILATION_ERROR;
         }
 
-        if (analyzeAndReportErrors(messageCollector, sourcesFiles, config)) {
+        AnalyzerWithCompilerReport analyzerWithCompilerReport = analyzeAndReportErrors(messageCollector, sourcesFiles, config);
+        if (analyzerWithCompilerReport.hasErrors()) {
             return COMPILATION_ERROR;
         }
 
@@ -188,9 +194,52 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
         }
         OutputUtilsPackage.writeAll(outputFiles, outputDir, messageCollector);
 
+        if (arguments.metaInfo) {
+            AnalysisResult analysisResult = analyzerWithCompilerReport.getAnalysisResult();
+            File libraryFile = new File(outputDir, config.getModuleId() + ".jar");
+            try {
+                writeLibrary(libraryFile, config.getModuleId(), sourcesFiles, analysisResult, outputFiles);
+            }
+            catch (IOException e) {
+                messageCollector.report(CompilerMessageSeverity.ERROR,
+                                        "Could not write library to '" + libraryFile.getPath() + "': " + e.getMessage(),
+                                        CompilerMessageLocation.NO_LOCATION);
+                return ExitCode.COMPILATION_ERROR;
+            }
+        }
+
         return OK;
     }
 
+    /**
+     * Writes a library which can be passed to -library-files: the compiled JavaScript, and the metadata which is read instead of
+     * the library sources
+     */
+    private static void writeLibrary(
+            @NotNull File libraryFile,
+            @NotNull String moduleId,
+            @NotNull List<JetFile> sourceFiles,
+            @NotNull AnalysisResult analysisResult,
+            @NotNull OutputFileCollection outputFiles
+    ) throws IOException {
+        JarOutputStream stream = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(libraryFile)),
+                                                     LibraryUtils.createKotlinJavascriptLibraryManifest(moduleId));
+        try {
+            stream.putNextEntry(new JarEntry(KotlinJavascriptSerializationUtil.getMetadataFileName(moduleId)));
+            KotlinJavascriptSerializationUtil.serializeMetadata(sourceFiles, analysisResult.getBindingContext(), stream);
+            stream.closeEntry();
+
+            for (OutputFile outputFile : outputFiles.asList()) {
+                stream.putNextEntry(new JarEntry(outputFile.getRelativePath()));
+                stream.write(outputFile.asByteArray());
+                stream.closeEntry();
+            }
+        }
+        finally {
+            stream.close();
+        }
+    }
+
     private static void reportCompiledSourcesList(@NotNull MessageCollector messageCollector, @NotNull List<JetFile> sourceFiles) {
         Iterable<String> fileNames = ContainerUtil.map(sourceFiles, new Function<JetFile, String>() {
             @Override
@@ -207,7 +256,8 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
                                 CompilerMessageLocation.NO_LOCATION);
     }
 
-    private static boolean analyzeAndReportErrors(@NotNull MessageCollector messageCollector,
+    @NotNull
+    private static AnalyzerWithCompilerReport analyzeAndReportErrors(@NotNull MessageCollector messageCollector,
             @NotNull final List<JetFile> sources, @NotNull final Config config) {
         AnalyzerWithCompilerReport analyzerWithCompilerReport = new AnalyzerWithCompilerReport(messageCollector);
         analyzerWithCompilerReport.analyzeAndReport(sources, new Function0<AnalysisResult>() {
@@ -216,7 +266,7 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
                 return TopDownAnalyzerFacadeForJS.analyzeFiles(sources, Predicates.<PsiFile>alwaysTrue(), config);
             }
         });
-        return analyzerWithCompilerReport.hasErrors();
+        return analyzerWithCompilerReport;
     }
 
     @NotNull
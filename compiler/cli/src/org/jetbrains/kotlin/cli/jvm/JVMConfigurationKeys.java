@@ -20,6 +20,7 @@ import org.jetbrains.kotlin.cli.jvm.compiler.CompilerJarLocator;
 import org.jetbrains.kotlin.config.CompilerConfigurationKey;
 import org.jetbrains.kotlin.load.kotlin.incremental.cache.IncrementalCacheProvider;
 import org.jetbrains.kotlin.resolve.AnalyzerScriptParameter;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 
 import java.io.File;
 import java.util.List;
@@ -42,6 +43,19 @@ public class JVMConfigurationKeys {
             CompilerConfigurationKey.create("disable inline");
     public static final CompilerConfigurationKey<Boolean> DISABLE_OPTIMIZATION =
             CompilerConfigurationKey.create("disable optimization");
+    public static final CompilerConfigurationKey<Boolean> PARALLEL_CODEGEN =
+            CompilerConfigurationKey.create("generate packages in parallel");
+    public static final CompilerConfigurationKey<Boolean> PARALLEL_BODY_RESOLVE =
+            CompilerConfigurationKey.create("resolve bodies of different files in parallel");
+    public static final CompilerConfigurationKey<Boolean> PARALLEL_PARSING =
+            CompilerConfigurationKey.create("parse source files in parallel when the environment is created");
+    public static final CompilerConfigurationKey<Boolean> STREAM_OUTPUT =
+            CompilerConfigurationKey.create("write classes as soon as their package is generated");
+    public static final CompilerConfigurationKey<Boolean> USE_PSI_CLASS_FILES_READING =
+            CompilerConfigurationKey.create("read library classes through PSI instead of reading class files directly");
+
+    public static final CompilerConfigurationKey<CompilerPhaseMetrics> PHASE_METRICS =
+            CompilerConfigurationKey.create("metrics of the compiler phases");
 
     public static final CompilerConfigurationKey<IncrementalCacheProvider> INCREMENTAL_CACHE_PROVIDER =
             CompilerConfigurationKey.create("incremental cache provider");
@@ -20,6 +20,7 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 import com.intellij.openapi.Disposable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.cli.common.CLICompiler;
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys;
 import org.jetbrains.kotlin.cli.common.ExitCode;
@@ -34,11 +35,15 @@ import org.jetbrains.kotlin.config.CompilerConfiguration;
 import org.jetbrains.kotlin.config.Services;
 import org.jetbrains.kotlin.load.kotlin.incremental.cache.IncrementalCacheProvider;
 import org.jetbrains.kotlin.resolve.AnalyzerScriptParameter;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.jetbrains.kotlin.utils.KotlinPaths;
 import org.jetbrains.kotlin.utils.KotlinPathsFromHomeDir;
 import org.jetbrains.kotlin.utils.PathUtil;
 
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.List;
 
@@ -59,6 +64,47 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
             @NotNull Services services,
             @NotNull MessageCollector messageCollector,
             @NotNull Disposable rootDisposable
+    ) {
+        if (arguments.phaseMetrics == null) {
+            return compile(arguments, services, messageCollector, rootDisposable, null);
+        }
+
+        CompilerPhaseMetrics metrics = new CompilerPhaseMetrics(arguments.phaseMetricsDetailed);
+        try {
+            return compile(arguments, services, messageCollector, rootDisposable, metrics);
+        }
+        finally {
+            writePhaseMetrics(metrics, new File(arguments.phaseMetrics), messageCollector);
+        }
+    }
+
+    private static void writePhaseMetrics(
+            @NotNull CompilerPhaseMetrics metrics,
+            @NotNull File file,
+            @NotNull MessageCollector messageCollector
+    ) {
+        try {
+            Writer writer = new FileWriter(file);
+            try {
+                metrics.writeJson(writer);
+            }
+            finally {
+                writer.close();
+            }
+        }
+        catch (IOException e) {
+            messageCollector.report(CompilerMessageSeverity.ERROR, "Could not write phase metrics to " + file + ": " + e.getMessage(),
+                                    CompilerMessageLocation.NO_LOCATION);
+        }
+    }
+
+    @NotNull
+    private ExitCode compile(
+            @NotNull K2JVMCompilerArguments arguments,
+            @NotNull Services services,
+            @NotNull MessageCollector messageCollector,
+            @NotNull Disposable rootDisposable,
+            @Nullable CompilerPhaseMetrics phaseMetrics
     ) {
         KotlinPaths paths = arguments.kotlinHome != null
                                 ? new KotlinPathsFromHomeDir(new File(arguments.kotlinHome))
@@ -69,6 +115,9 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
 
         CompilerConfiguration configuration = new CompilerConfiguration();
         configuration.put(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, messageCollector);
+        if (phaseMetrics != null) {
+            configuration.put(JVMConfigurationKeys.PHASE_METRICS, phaseMetrics);
+        }
 
         IncrementalCacheProvider incrementalCacheProvider = services.get(IncrementalCacheProvider.class);
         if (incrementalCacheProvider != null) {
@@ -184,6 +233,11 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
         configuration.put(JVMConfigurationKeys.DISABLE_PARAM_ASSERTIONS, arguments.noParamAssertions);
         configuration.put(JVMConfigurationKeys.DISABLE_INLINE, arguments.noInline);
         configuration.put(JVMConfigurationKeys.DISABLE_OPTIMIZATION, arguments.noOptimize);
+        configuration.put(JVMConfigurationKeys.PARALLEL_CODEGEN, arguments.parallelCodegen);
+        configuration.put(JVMConfigurationKeys.PARALLEL_BODY_RESOLVE, arguments.parallelBodyResolve);
+        configuration.put(JVMConfigurationKeys.STREAM_OUTPUT, arguments.streamOutput);
+        // The command line compiler is the only client which creates the environment for all sources at once
+        configuration.put(JVMConfigurationKeys.PARALLEL_PARSING, true);
     }
 
     /**
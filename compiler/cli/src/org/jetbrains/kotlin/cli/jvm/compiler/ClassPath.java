@@ -18,6 +18,7 @@ package org.jetbrains.kotlin.cli.jvm.compiler;
 
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -28,6 +29,9 @@ public final class ClassPath implements Iterable<VirtualFile> {
     @NotNull
     private final List<VirtualFile> roots = new ArrayList<VirtualFile>();
 
+    @Nullable
+    private volatile JvmDependenciesIndex index;
+
     @NotNull
     @Override
     public Iterator<VirtualFile> iterator() {
@@ -36,5 +40,16 @@ public final class ClassPath implements Iterable<VirtualFile> {
 
     public void add(@NotNull VirtualFile root) {
         roots.add(root);
+        index = null;
+    }
+
+    @NotNull
+    public JvmDependenciesIndex getIndex() {
+        JvmDependenciesIndex result = index;
+        if (result == null) {
+            result = new JvmDependenciesIndex(new ArrayList<VirtualFile>(roots));
+            index = result;
+        }
+        return result;
     }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassOwner;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.name.ClassId;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.resolve.jvm.KotlinCliJavaClassFinder;
+
+public final class CliJavaClassFinder implements KotlinCliJavaClassFinder {
+    private final PsiManager psiManager;
+    private final ClassPath classPath;
+    private final CoreExternalAnnotationsManager annotationsManager;
+    private final boolean usePsiClassFilesReading;
+
+    public CliJavaClassFinder(
+            @NotNull PsiManager psiManager,
+            @NotNull ClassPath classPath,
+            @NotNull CoreExternalAnnotationsManager annotationsManager,
+            boolean usePsiClassFilesReading
+    ) {
+        this.psiManager = psiManager;
+        this.classPath = classPath;
+        this.annotationsManager = annotationsManager;
+        this.usePsiClassFilesReading = usePsiClassFilesReading;
+    }
+
+    @Nullable
+    @Override
+    public PsiClass findClass(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
+        VirtualFile file = classPath.getIndex().findTopLevelClassFile(qualifiedName, '.', ".class", ".java");
+        if (file == null || !scope.contains(file)) return null;
+
+        PsiFile psiFile = psiManager.findFile(file);
+        if (!(psiFile instanceof PsiClassOwner)) return null;
+
+        // A source file may declare several top-level classes
+        for (PsiClass topLevelClass : ((PsiClassOwner) psiFile).getClasses()) {
+            String topLevelClassName = topLevelClass.getQualifiedName();
+            if (topLevelClassName == null) continue;
+
+            if (qualifiedName.equals(topLevelClassName)) return topLevelClass;
+            if (qualifiedName.startsWith(topLevelClassName + ".")) {
+                return findNestedClass(topLevelClass, qualifiedName.substring(topLevelClassName.length() + 1));
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static PsiClass findNestedClass(@NotNull PsiClass topLevelClass, @NotNull String relativeName) {
+        PsiClass result = topLevelClass;
+        for (String name : StringUtil.split(relativeName, ".")) {
+            result = result.findInnerClassByName(name, false);
+            if (result == null) return null;
+        }
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public VirtualFile findBinaryClassFile(@NotNull ClassId classId, @NotNull GlobalSearchScope scope) {
+        if (usePsiClassFilesReading) return null;
+
+        FqName packageFqName = classId.getPackageFqName();
+        String packagePath = packageFqName.asString().replace('.', '/');
+        // External annotations are only read from PSI
+        if (annotationsManager.hasAnnotationsForPackage(packagePath)) return null;
+
+        // The top-level class is looked up with the same priority of sources and binaries as in findClass()
+        String topLevelClassName = classId.getRelativeClassName().pathSegments().get(0).asString();
+        VirtualFile topLevelClassFile = classPath.getIndex().findFileInPackage(packagePath, topLevelClassName, ".class", ".java");
+        if (topLevelClassFile == null || !"class".equals(topLevelClassFile.getExtension())) return null;
+
+        VirtualFile file = classId.isNestedClass()
+                           ? topLevelClassFile.getParent().findChild(classId.getRelativeClassName().asString().replace('.', '$') + ".class")
+                           : topLevelClassFile;
+        return file != null && scope.contains(file) ? file : null;
+    }
+}
@@ -36,55 +36,16 @@ public class CliVirtualFileFinder extends VirtualFileKotlinClassFinder implement
     @Nullable
     @Override
     public VirtualFile findVirtualFileWithHeader(@NotNull FqName className) {
-        for (VirtualFile root : classPath) {
-            VirtualFile fileInRoot = findFileInRoot(className.asString(), root, '.');
-            //NOTE: currently we use VirtualFileFinder to find Kotlin binaries only
-            if (fileInRoot != null && KotlinBinaryClassCache.getKotlinBinaryClass(fileInRoot) != null) {
-                return fileInRoot;
-            }
+        VirtualFile file = classPath.getIndex().findClassFile(className.asString(), '.');
+        //NOTE: currently we use VirtualFileFinder to find Kotlin binaries only
+        if (file != null && KotlinBinaryClassCache.getKotlinBinaryClass(file) != null) {
+            return file;
         }
         return null;
     }
 
     @Override
     public VirtualFile findVirtualFile(@NotNull String internalName) {
-        for (VirtualFile root : classPath) {
-            VirtualFile fileInRoot = findFileInRoot(internalName, root, '/');
-            if (fileInRoot != null) {
-                return fileInRoot;
-            }
-        }
-        return null;
+        return classPath.getIndex().findClassFile(internalName, '/');
     }
-
-    //NOTE: copied with some changes from CoreJavaFileManager
-    @Nullable
-    private static VirtualFile findFileInRoot(@NotNull String qName, @NotNull VirtualFile root, char separator) {
-        String pathRest = qName;
-        VirtualFile cur = root;
-
-        while (true) {
-            int dot = pathRest.indexOf(separator);
-            if (dot < 0) break;
-
-            String pathComponent = pathRest.substring(0, dot);
-            VirtualFile child = cur.findChild(pathComponent);
-
-            if (child == null) break;
-            pathRest = pathRest.substring(dot + 1);
-            cur = child;
-        }
-
-        String className = pathRest.replace('.', '$');
-        VirtualFile vFile = cur.findChild(className + ".class");
-        if (vFile != null) {
-            if (!vFile.isValid()) {
-                //TODO: log
-                return null;
-            }
-            return vFile;
-        }
-        return null;
-    }
-
 }
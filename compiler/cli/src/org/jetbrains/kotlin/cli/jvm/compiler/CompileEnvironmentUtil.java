@@ -19,6 +19,7 @@ package org.jetbrains.kotlin.cli.jvm.compiler;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.io.FileUtil;
@@ -52,6 +53,7 @@ import org.jetbrains.kotlin.idea.JetFileType;
 import org.jetbrains.kotlin.load.kotlin.PackageClassUtils;
 import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.jetbrains.kotlin.utils.KotlinPaths;
 import org.jetbrains.kotlin.utils.PathUtil;
 import org.jetbrains.kotlin.utils.UtilsPackage;
@@ -65,6 +67,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.*;
 import java.util.jar.*;
 
 import static org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation.NO_LOCATION;
@@ -169,27 +172,25 @@ public class CompileEnvironmentUtil {
 
     // TODO: includeRuntime should be not a flag but a path to runtime
     private static void doWriteToJar(ClassFileFactory outputFiles, OutputStream fos, @Nullable FqName mainClass, boolean includeRuntime) {
+        JarWriter writer = null;
         try {
-            Manifest manifest = new Manifest();
-            Attributes mainAttributes = manifest.getMainAttributes();
-            mainAttributes.putValue("Manifest-Version", "1.0");
-            mainAttributes.putValue("Created-By", "JetBrains Kotlin");
-            if (mainClass != null) {
-                mainAttributes.putValue("Main-Class", mainClass.asString());
-            }
-            JarOutputStream stream = new JarOutputStream(fos, manifest);
+            writer = createJarWriter(fos, mainClass);
             for (OutputFile outputFile : outputFiles.asList()) {
-                stream.putNextEntry(new JarEntry(outputFile.getRelativePath()));
-                stream.write(outputFile.asByteArray());
+                writer.addEntry(outputFile.getRelativePath(), outputFile.asByteArray());
             }
             if (includeRuntime) {
-                writeRuntimeToJar(stream);
+                writeRuntimeToJar(writer);
             }
-            stream.finish();
+            writer.finish();
         }
         catch (IOException e) {
             throw new CompileEnvironmentException("Failed to generate jar file", e);
         }
+        finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
     }
 
     public static void writeToJar(File jarPath, boolean jarRuntime, FqName mainClass, ClassFileFactory outputFiles) {
@@ -210,28 +211,26 @@ public class CompileEnvironmentUtil {
         }
     }
 
-    private static void writeRuntimeToJar(JarOutputStream stream) throws IOException {
+    @NotNull
+    static JarWriter createJarWriter(@NotNull OutputStream fos, @Nullable FqName mainClass) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes mainAttributes = manifest.getMainAttributes();
+        mainAttributes.putValue("Manifest-Version", "1.0");
+        mainAttributes.putValue("Created-By", "JetBrains Kotlin");
+        if (mainClass != null) {
+            mainAttributes.putValue("Main-Class", mainClass.asString());
+        }
+        return new JarWriter(fos, manifest, Runtime.getRuntime().availableProcessors());
+    }
+
+    static void writeRuntimeToJar(@NotNull JarWriter writer) throws IOException {
         File runtimePath = PathUtil.getKotlinPathsForCompiler().getRuntimePath();
         if (!runtimePath.exists()) {
             throw new CompileEnvironmentException("Couldn't find runtime library");
         }
 
-        JarInputStream jis = new JarInputStream(new FileInputStream(runtimePath));
-        try {
-            while (true) {
-                JarEntry e = jis.getNextJarEntry();
-                if (e == null) {
-                    break;
-                }
-                if (FileUtilRt.extensionEquals(e.getName(), "class")) {
-                    stream.putNextEntry(e);
-                    FileUtil.copy(jis, stream);
-                }
-            }
-        }
-        finally {
-            jis.close();
-        }
+        // Classes of the runtime are copied compressed as they are, without inflating and deflating them again
+        writer.copyClassesFrom(runtimePath);
     }
 
     // Used for debug output only
@@ -246,14 +245,14 @@ public class CompileEnvironmentUtil {
 
     @NotNull
     public static List<JetFile> getJetFiles(
-            @NotNull final Project project,
+            @NotNull Project project,
             @NotNull Collection<String> sourceRoots,
             @NotNull Function1<String, Unit> reportError
     ) {
         final VirtualFileSystem localFileSystem = VirtualFileManager.getInstance().getFileSystem(StandardFileSystems.FILE_PROTOCOL);
 
         final Set<VirtualFile> processedFiles = Sets.newHashSet();
-        final List<JetFile> result = Lists.newArrayList();
+        final List<VirtualFile> virtualFiles = Lists.newArrayList();
 
         for (String sourceRootPath : sourceRoots) {
             if (sourceRootPath == null) {
@@ -275,12 +274,8 @@ public class CompileEnvironmentUtil {
                 public Unit invoke(File file) {
                     if (file.isFile()) {
                         VirtualFile virtualFile = localFileSystem.findFileByPath(file.getAbsolutePath());
-                        if (virtualFile != null && !processedFiles.contains(virtualFile)) {
-                            processedFiles.add(virtualFile);
-                            PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
-                            if (psiFile instanceof JetFile) {
-                                result.add((JetFile) psiFile);
-                            }
+                        if (virtualFile != null && processedFiles.add(virtualFile)) {
+                            virtualFiles.add(virtualFile);
                         }
                     }
                     return Unit.INSTANCE$;
@@ -288,6 +283,93 @@ public class CompileEnvironmentUtil {
             });
         }
 
+        PsiManager psiManager = PsiManager.getInstance(project);
+        List<JetFile> result = Lists.newArrayList();
+        for (VirtualFile virtualFile : virtualFiles) {
+            PsiFile psiFile = psiManager.findFile(virtualFile);
+            if (psiFile instanceof JetFile) {
+                result.add((JetFile) psiFile);
+            }
+        }
         return result;
     }
+
+    /**
+     * Builds syntax trees of the given files right away instead of on the first access during analysis.
+     * Files are parsed in parallel, each one on a single thread.
+     */
+    public static void parseFiles(@NotNull List<JetFile> files, @Nullable final CompilerPhaseMetrics phaseMetrics) {
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), files.size());
+        if (threads <= 1) {
+            for (JetFile file : files) {
+                parseFile(file, phaseMetrics);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(files.size());
+            for (final JetFile file : files) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        parseFile(file, phaseMetrics);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                getResult(future);
+            }
+        }
+        finally {
+            // No worker may touch PSI after the environment is set up, even if parsing of some file failed
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+    }
+
+    private static void parseFile(@NotNull final JetFile file, @Nullable CompilerPhaseMetrics phaseMetrics) {
+        VirtualFile virtualFile = file.getVirtualFile();
+        CompilerPhaseMetrics.Measurement measurement = CompilerPhaseMetrics.start(
+                phaseMetrics, CompilerPhaseMetrics.Phase.PARSING, virtualFile != null ? virtualFile.getPath() : file.getName(), null);
+        try {
+            ApplicationManager.getApplication().runReadAction(new Runnable() {
+                @Override
+                public void run() {
+                    // The file element is parsed lazily on the first access to its children
+                    file.getNode().getFirstChildNode();
+                }
+            });
+        }
+        finally {
+            CompilerPhaseMetrics.finish(measurement);
+        }
+    }
+
+    private static void awaitTermination(@NotNull ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // A worker which is in the middle of parsing a file is not interruptible, wait until it finishes
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Nullable
+    private static <T> T getResult(@NotNull Future<T> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing source files", e);
+        }
+        catch (ExecutionException e) {
+            throw UtilsPackage.rethrow(e.getCause());
+        }
+    }
 }
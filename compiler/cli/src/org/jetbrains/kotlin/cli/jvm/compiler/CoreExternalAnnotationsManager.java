@@ -19,11 +19,13 @@ package org.jetbrains.kotlin.cli.jvm.compiler;
 import com.intellij.codeInsight.BaseExternalAnnotationsManager;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 public class CoreExternalAnnotationsManager extends BaseExternalAnnotationsManager {
     static {
@@ -31,8 +33,13 @@ public class CoreExternalAnnotationsManager extends BaseExternalAnnotationsManag
         System.setProperty("javax.xml.parsers.SAXParserFactory", "com.sun.org.apache.xerces.internal.jaxp.SAXParserFactoryImpl");
     }
 
+    private static final String ANNOTATIONS_XML = "annotations.xml";
+
     private final List<VirtualFile> externalAnnotationsRoots = new ArrayList<VirtualFile>();
 
+    // package path separated with '/' -> whether any root has annotations.xml for this package
+    private final ConcurrentMap<String, Boolean> packagesWithAnnotations = ContainerUtil.newConcurrentMap();
+
     public CoreExternalAnnotationsManager(@NotNull PsiManager psiManager) {
         super(psiManager);
     }
@@ -41,6 +48,26 @@ public class CoreExternalAnnotationsManager extends BaseExternalAnnotationsManag
         externalAnnotationsRoots.add(externalAnnotationsRoot);
     }
 
+    /**
+     * Results are cached, so all roots are expected to be added before the first call
+     */
+    public boolean hasAnnotationsForPackage(@NotNull String packagePath) {
+        Boolean cached = packagesWithAnnotations.get(packagePath);
+        if (cached != null) return cached;
+
+        String relativePath = packagePath.isEmpty() ? ANNOTATIONS_XML : packagePath + "/" + ANNOTATIONS_XML;
+        boolean result = false;
+        for (VirtualFile root : externalAnnotationsRoots) {
+            if (root.findFileByRelativePath(relativePath) != null) {
+                result = true;
+                break;
+            }
+        }
+
+        packagesWithAnnotations.put(packagePath, result);
+        return result;
+    }
+
     @Override
     protected boolean hasAnyAnnotationsRoots() {
         return true;
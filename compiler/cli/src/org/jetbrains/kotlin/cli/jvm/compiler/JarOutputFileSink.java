@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.backend.common.output.OutputFile;
+import org.jetbrains.kotlin.backend.common.output.OutputFileSink;
+import org.jetbrains.kotlin.name.FqName;
+
+import java.io.*;
+
+/**
+ * Writes output files to the jar as soon as they are generated. {@link #finish} should be called after all files are written,
+ * {@link #close} releases the file in case the compilation has failed.
+ */
+public final class JarOutputFileSink implements OutputFileSink, Closeable {
+    private final boolean includeRuntime;
+    private final FileOutputStream outputStream;
+    private final JarWriter writer;
+
+    public JarOutputFileSink(@NotNull File jarPath, boolean includeRuntime, @Nullable FqName mainClass) {
+        this.includeRuntime = includeRuntime;
+        try {
+            outputStream = new FileOutputStream(jarPath);
+        }
+        catch (FileNotFoundException e) {
+            throw new CompileEnvironmentException("Invalid jar path " + jarPath, e);
+        }
+
+        try {
+            writer = CompileEnvironmentUtil.createJarWriter(outputStream, mainClass);
+        }
+        catch (IOException e) {
+            close();
+            throw new CompileEnvironmentException("Failed to generate jar file", e);
+        }
+    }
+
+    @Override
+    public void write(@NotNull OutputFile outputFile) {
+        try {
+            writer.addEntry(outputFile.getRelativePath(), outputFile.asByteArray());
+        }
+        catch (IOException e) {
+            throw new CompileEnvironmentException("Failed to generate jar file", e);
+        }
+    }
+
+    public void finish() {
+        try {
+            if (includeRuntime) {
+                CompileEnvironmentUtil.writeRuntimeToJar(writer);
+            }
+            writer.finish();
+            outputStream.close();
+        }
+        catch (IOException e) {
+            throw new CompileEnvironmentException("Failed to generate jar file", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.close();
+        }
+        try {
+            outputStream.close();
+        }
+        catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,466 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.cli.jvm.compiler;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.io.FileUtilRt;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import static org.jetbrains.kotlin.utils.UtilsPackage.rethrow;
+
+/**
+ * Writes a jar file, unlike {@link java.util.jar.JarOutputStream}:
+ * <ul>
+ *     <li>entries added with {@link #addEntry} are deflated in parallel, and written in the order they are added;</li>
+ *     <li>classes copied from another jar with {@link #copyClassesFrom} are written as they are compressed there,
+ *     without inflating and deflating them again;</li>
+ *     <li>all entries have the same fixed modification time and no extra fields, so that the same input produces the same jar.</li>
+ * </ul>
+ * The manifest is written first. Zip64 is not supported: the jar can't have more than 65535 entries or exceed 4 GB.
+ */
+public final class JarWriter implements Closeable {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF_8 = 1 << 11;
+
+    // 1980-01-01 00:00:00, the earliest time representable in the MS-DOS format
+    private static final int DOS_TIME = 0;
+    private static final int DOS_DATE = (1 << 5) | 1;
+
+    private static final int MAX_ENTRIES = 0xFFFF;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    // Same as the one written by JarOutputStream to the first entry, makes the jar executable on Solaris
+    private static final byte[] JAR_MAGIC = new byte[] {(byte) 0xFE, (byte) 0xCA, 0, 0};
+    private static final byte[] NO_EXTRA = new byte[0];
+
+    private final OutputStream output;
+    private final ExecutorService executor;
+
+    private final Set<String> names = new HashSet<String>();
+    private final List<Entry> writtenEntries = new ArrayList<Entry>();
+    // Entries being deflated, in the order they were added
+    private final Queue<Future<Entry>> pendingEntries = new ArrayDeque<Future<Entry>>();
+    private long offset = 0;
+
+    public JarWriter(@NotNull OutputStream output, @NotNull Manifest manifest, int threads) throws IOException {
+        this.output = new BufferedOutputStream(output);
+
+        ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+        manifest.write(manifestBytes);
+        checkName(JarFile.MANIFEST_NAME);
+        writeEntry(deflate(JarFile.MANIFEST_NAME, manifestBytes.toByteArray(), JAR_MAGIC));
+
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+    }
+
+    public void addEntry(@NotNull final String name, @NotNull final byte[] bytes) throws IOException {
+        checkName(name);
+
+        if (executor == null) {
+            writeEntry(deflate(name, bytes, NO_EXTRA));
+            return;
+        }
+
+        pendingEntries.add(executor.submit(new Callable<Entry>() {
+            @Override
+            public Entry call() {
+                return deflate(name, bytes, NO_EXTRA);
+            }
+        }));
+
+        // Write what is already deflated, so that bytes of all entries are not kept in memory until the end
+        while (!pendingEntries.isEmpty() && pendingEntries.peek().isDone()) {
+            writeEntry(getResult(pendingEntries.poll()));
+        }
+    }
+
+    /**
+     * Copies class files from the given jar in the order of its central directory. If the jar can't be copied as is
+     * (e.g. it uses Zip64 or compression methods other than deflate), the classes are read and compressed again.
+     */
+    public void copyClassesFrom(@NotNull File jar) throws IOException {
+        writePendingEntries();
+
+        byte[] contents = readFile(jar);
+        List<Entry> entries = readCompressedEntries(contents);
+        if (entries == null) {
+            copyClassesWithRecompression(jar);
+            return;
+        }
+
+        for (Entry entry : entries) {
+            if (entry.name.endsWith("/") || !FileUtilRt.extensionEquals(entry.name, "class")) continue;
+
+            checkName(entry.name);
+            writeEntry(entry);
+        }
+    }
+
+    private void copyClassesWithRecompression(@NotNull File jar) throws IOException {
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !FileUtilRt.extensionEquals(entry.getName(), "class")) continue;
+
+                InputStream stream = zipFile.getInputStream(entry);
+                try {
+                    addEntry(entry.getName(), FileUtil.loadBytes(stream));
+                }
+                finally {
+                    stream.close();
+                }
+            }
+        }
+        finally {
+            zipFile.close();
+        }
+    }
+
+    /**
+     * Writes the central directory. Doesn't close the underlying stream
+     */
+    public void finish() throws IOException {
+        writePendingEntries();
+        shutdown();
+
+        long centralDirectoryOffset = offset;
+        for (Entry entry : writtenEntries) {
+            writeCentralDirectoryHeader(entry);
+        }
+        long centralDirectorySize = offset - centralDirectoryOffset;
+        checkSize(offset);
+
+        ByteBuffer buffer = littleEndianBuffer(END_OF_CENTRAL_DIRECTORY_SIZE);
+        buffer.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) writtenEntries.size());
+        buffer.putShort((short) writtenEntries.size());
+        buffer.putInt((int) centralDirectorySize);
+        buffer.putInt((int) centralDirectoryOffset);
+        buffer.putShort((short) 0);
+        write(buffer);
+
+        output.flush();
+    }
+
+    /**
+     * Stops deflating entries which are not written yet. Doesn't close the underlying stream
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private void checkName(@NotNull String name) throws ZipException {
+        if (!names.add(name)) {
+            throw new ZipException("duplicate entry: " + name);
+        }
+        if (names.size() > MAX_ENTRIES) {
+            throw new ZipException("Too many entries in the jar: " + names.size() + ", at most " + MAX_ENTRIES + " are supported");
+        }
+    }
+
+    private static void checkSize(long size) throws ZipException {
+        if (size > MAX_SIZE) {
+            throw new ZipException("The jar exceeds " + MAX_SIZE + " bytes");
+        }
+    }
+
+    private void writePendingEntries() throws IOException {
+        while (!pendingEntries.isEmpty()) {
+            writeEntry(getResult(pendingEntries.poll()));
+        }
+    }
+
+    private void writeEntry(@NotNull Entry entry) throws IOException {
+        entry.localHeaderOffset = offset;
+
+        ByteBuffer buffer = littleEndianBuffer(LOCAL_FILE_HEADER_SIZE + entry.nameBytes.length + entry.extra.length);
+        buffer.putInt(LOCAL_FILE_HEADER_SIGNATURE);
+        buffer.putShort((short) entry.getVersionNeeded());
+        buffer.putShort((short) entry.flags);
+        buffer.putShort((short) entry.method);
+        buffer.putShort((short) DOS_TIME);
+        buffer.putShort((short) DOS_DATE);
+        buffer.putInt((int) entry.crc);
+        buffer.putInt((int) entry.compressedSize);
+        buffer.putInt((int) entry.uncompressedSize);
+        buffer.putShort((short) entry.nameBytes.length);
+        buffer.putShort((short) entry.extra.length);
+        buffer.put(entry.nameBytes);
+        buffer.put(entry.extra);
+        write(buffer);
+
+        output.write(entry.data, entry.dataOffset, (int) entry.compressedSize);
+        offset += entry.compressedSize;
+        checkSize(offset);
+
+        entry.releaseData();
+        writtenEntries.add(entry);
+    }
+
+    private void writeCentralDirectoryHeader(@NotNull Entry entry) throws IOException {
+        ByteBuffer buffer = littleEndianBuffer(CENTRAL_DIRECTORY_HEADER_SIZE + entry.nameBytes.length + entry.extra.length);
+        buffer.putInt(CENTRAL_DIRECTORY_HEADER_SIGNATURE);
+        buffer.putShort((short) entry.getVersionNeeded());
+        buffer.putShort((short) entry.getVersionNeeded());
+        buffer.putShort((short) entry.flags);
+        buffer.putShort((short) entry.method);
+        buffer.putShort((short) DOS_TIME);
+        buffer.putShort((short) DOS_DATE);
+        buffer.putInt((int) entry.crc);
+        buffer.putInt((int) entry.compressedSize);
+        buffer.putInt((int) entry.uncompressedSize);
+        buffer.putShort((short) entry.nameBytes.length);
+        buffer.putShort((short) entry.extra.length);
+        buffer.putShort((short) 0); // comment length
+        buffer.putShort((short) 0); // disk number
+        buffer.putShort((short) 0); // internal attributes
+        buffer.putInt(0); // external attributes
+        buffer.putInt((int) entry.localHeaderOffset);
+        buffer.put(entry.nameBytes);
+        buffer.put(entry.extra);
+        write(buffer);
+    }
+
+    private void write(@NotNull ByteBuffer buffer) throws IOException {
+        output.write(buffer.array(), 0, buffer.position());
+        offset += buffer.position();
+    }
+
+    @NotNull
+    private static Entry deflate(@NotNull String name, @NotNull byte[] bytes, @NotNull byte[] extra) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2 + 64);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+        }
+        finally {
+            deflater.end();
+        }
+
+        byte[] data = compressed.toByteArray();
+        return new Entry(name, name.getBytes(UTF_8), FLAG_UTF_8, ZipEntry.DEFLATED, crc.getValue(),
+                         data, 0, data.length, bytes.length, extra);
+    }
+
+    /**
+     * @return entries of the given zip file with their compressed data, or null if the file can't be copied as is
+     */
+    @Nullable
+    private static List<Entry> readCompressedEntries(@NotNull byte[] contents) {
+        ByteBuffer buffer = ByteBuffer.wrap(contents).order(ByteOrder.LITTLE_ENDIAN);
+
+        // The end of central directory record is followed by a comment of at most 0xFFFF bytes
+        int endOfCentralDirectory = -1;
+        int lowestPosition = Math.max(0, contents.length - END_OF_CENTRAL_DIRECTORY_SIZE - 0xFFFF);
+        for (int i = contents.length - END_OF_CENTRAL_DIRECTORY_SIZE; i >= lowestPosition; i--) {
+            if (buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                endOfCentralDirectory = i;
+                break;
+            }
+        }
+        if (endOfCentralDirectory < 0) return null;
+
+        int entryCount = unsignedShort(buffer, endOfCentralDirectory + 10);
+        long centralDirectoryOffset = unsignedInt(buffer, endOfCentralDirectory + 16);
+        if (entryCount == MAX_ENTRIES || centralDirectoryOffset >= contents.length) return null;
+
+        List<Entry> entries = new ArrayList<Entry>(entryCount);
+        int position = (int) centralDirectoryOffset;
+        for (int i = 0; i < entryCount; i++) {
+            if (position + CENTRAL_DIRECTORY_HEADER_SIZE > contents.length ||
+                buffer.getInt(position) != CENTRAL_DIRECTORY_HEADER_SIGNATURE) return null;
+
+            int flags = unsignedShort(buffer, position + 8);
+            int method = unsignedShort(buffer, position + 10);
+            long crc = unsignedInt(buffer, position + 16);
+            long compressedSize = unsignedInt(buffer, position + 20);
+            long uncompressedSize = unsignedInt(buffer, position + 24);
+            int nameLength = unsignedShort(buffer, position + 28);
+            int extraLength = unsignedShort(buffer, position + 30);
+            int commentLength = unsignedShort(buffer, position + 32);
+            long localHeaderOffset = unsignedInt(buffer, position + 42);
+
+            if ((flags & FLAG_ENCRYPTED) != 0 || (method != ZipEntry.DEFLATED && method != ZipEntry.STORED)) return null;
+            if (compressedSize == MAX_SIZE || uncompressedSize == MAX_SIZE || localHeaderOffset == MAX_SIZE) return null;
+            if (localHeaderOffset + LOCAL_FILE_HEADER_SIZE > contents.length ||
+                buffer.getInt((int) localHeaderOffset) != LOCAL_FILE_HEADER_SIGNATURE) return null;
+
+            byte[] nameBytes = Arrays.copyOfRange(contents, position + CENTRAL_DIRECTORY_HEADER_SIZE,
+                                                  position + CENTRAL_DIRECTORY_HEADER_SIZE + nameLength);
+            // Names are decoded only to filter and check for duplicates, the original bytes are written
+            String name = new String(nameBytes, UTF_8);
+
+            int local = (int) localHeaderOffset;
+            long dataOffset = localHeaderOffset + LOCAL_FILE_HEADER_SIZE +
+                              unsignedShort(buffer, local + 26) + unsignedShort(buffer, local + 28);
+            if (dataOffset + compressedSize > contents.length) return null;
+
+            entries.add(new Entry(name, nameBytes, flags & ~FLAG_DATA_DESCRIPTOR, method, crc,
+                                  contents, (int) dataOffset, compressedSize, uncompressedSize, NO_EXTRA));
+
+            position += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    @NotNull
+    private static byte[] readFile(@NotNull File file) throws IOException {
+        FileInputStream stream = new FileInputStream(file);
+        try {
+            FileChannel channel = stream.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of file: " + file);
+                }
+            }
+            return buffer.array();
+        }
+        finally {
+            stream.close();
+        }
+    }
+
+    @NotNull
+    private static ByteBuffer littleEndianBuffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int unsignedShort(@NotNull ByteBuffer buffer, int index) {
+        return buffer.getShort(index) & 0xFFFF;
+    }
+
+    private static long unsignedInt(@NotNull ByteBuffer buffer, int index) {
+        return buffer.getInt(index) & 0xFFFFFFFFL;
+    }
+
+    @NotNull
+    private static <T> T getResult(@NotNull Future<T> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing jar", e);
+        }
+        catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static final class Entry {
+        private final String name;
+        private final byte[] nameBytes;
+        private final int flags;
+        private final int method;
+        private final long crc;
+        private final long compressedSize;
+        private final long uncompressedSize;
+        private final byte[] extra;
+
+        // Compressed data is data[dataOffset, dataOffset + compressedSize), released when the entry is written
+        private byte[] data;
+        private final int dataOffset;
+
+        private long localHeaderOffset = -1;
+
+        private Entry(
+                @NotNull String name,
+                @NotNull byte[] nameBytes,
+                int flags,
+                int method,
+                long crc,
+                @NotNull byte[] data,
+                int dataOffset,
+                long compressedSize,
+                long uncompressedSize,
+                @NotNull byte[] extra
+        ) {
+            this.name = name;
+            this.nameBytes = nameBytes;
+            this.flags = flags;
+            this.method = method;
+            this.crc = crc;
+            this.data = data;
+            this.dataOffset = dataOffset;
+            this.compressedSize = compressedSize;
+            this.uncompressedSize = uncompressedSize;
+            this.extra = extra;
+        }
+
+        private int getVersionNeeded() {
+            return method == ZipEntry.DEFLATED ? 20 : 10;
+        }
+
+        private void releaseData() {
+            data = null;
+        }
+    }
+}
@@ -73,9 +73,11 @@ import org.jetbrains.kotlin.parsing.JetParserDefinition;
 import org.jetbrains.kotlin.parsing.JetScriptDefinitionProvider;
 import org.jetbrains.kotlin.psi.JetFile;
 import org.jetbrains.kotlin.resolve.CodeAnalyzerInitializer;
+import org.jetbrains.kotlin.resolve.jvm.KotlinCliJavaClassFinder;
 import org.jetbrains.kotlin.resolve.jvm.KotlinJavaPsiFacade;
 import org.jetbrains.kotlin.resolve.lazy.declarations.CliDeclarationProviderFactoryService;
 import org.jetbrains.kotlin.resolve.lazy.declarations.DeclarationProviderFactoryService;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.jetbrains.kotlin.utils.PathUtil;
 
 import java.io.File;
@@ -90,12 +92,31 @@ public class JetCoreEnvironment {
     private static final Object APPLICATION_LOCK = new Object();
     private static JavaCoreApplicationEnvironment ourApplicationEnvironment;
     private static int ourProjectCount = 0;
+    private static boolean ourKeepApplicationEnvironment = false;
+    // jar -> its modification time when it was opened in the shared application environment
+    private static final Map<File, Long> ourJarModificationTimes = new HashMap<File, Long>();
 
     @NotNull
     public static JetCoreEnvironment createForProduction(
             @NotNull Disposable parentDisposable,
             @NotNull CompilerConfiguration configuration,
             @NotNull List<String> configFilePaths
+    ) {
+        CompilerPhaseMetrics.Measurement measurement = CompilerPhaseMetrics.start(
+                configuration.get(JVMConfigurationKeys.PHASE_METRICS), CompilerPhaseMetrics.Phase.ENVIRONMENT_SETUP);
+        try {
+            return doCreateForProduction(parentDisposable, configuration, configFilePaths);
+        }
+        finally {
+            CompilerPhaseMetrics.finish(measurement);
+        }
+    }
+
+    @NotNull
+    private static JetCoreEnvironment doCreateForProduction(
+            @NotNull Disposable parentDisposable,
+            @NotNull CompilerConfiguration configuration,
+            @NotNull List<String> configFilePaths
     ) {
         // JPS may run many instances of the compiler in parallel (there's an option for compiling independent modules in parallel in IntelliJ)
         // All projects share the same ApplicationEnvironment, and when the last project is disposed, the ApplicationEnvironment is disposed as well
@@ -103,7 +124,7 @@ public class JetCoreEnvironment {
             @Override
             public void dispose() {
                 synchronized (APPLICATION_LOCK) {
-                    if (--ourProjectCount <= 0) {
+                    if (--ourProjectCount <= 0 && !ourKeepApplicationEnvironment) {
                         disposeApplicationEnvironment();
                     }
                 }
@@ -144,6 +165,7 @@ public class JetCoreEnvironment {
                 public void dispose() {
                     synchronized (APPLICATION_LOCK) {
                         ourApplicationEnvironment = null;
+                        ourJarModificationTimes.clear();
                     }
                 }
             });
@@ -160,6 +182,44 @@ public class JetCoreEnvironment {
         }
     }
 
+    /**
+     * Makes the application environment outlive the last project, so that subsequent compilations in the same process
+     * reuse jar file systems, cached class files and everything else registered on the application level
+     */
+    public static void setKeepApplicationEnvironment(boolean keep) {
+        synchronized (APPLICATION_LOCK) {
+            ourKeepApplicationEnvironment = keep;
+        }
+    }
+
+    /**
+     * Disposes the shared application environment if some of the jars opened in it were modified or deleted since then.
+     * Should not be called while there are projects using the environment
+     *
+     * @return true if the environment was disposed
+     */
+    public static boolean disposeApplicationEnvironmentIfJarsChanged() {
+        synchronized (APPLICATION_LOCK) {
+            assert ourProjectCount <= 0 : "Application environment is in use by " + ourProjectCount + " projects";
+            for (Map.Entry<File, Long> entry : ourJarModificationTimes.entrySet()) {
+                if (entry.getKey().lastModified() != entry.getValue()) {
+                    disposeApplicationEnvironment();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private void recordJarModificationTime(@NotNull File path) {
+        File jar = path.getAbsoluteFile();
+        synchronized (APPLICATION_LOCK) {
+            if (getMyApplicationEnvironment() == ourApplicationEnvironment && !ourJarModificationTimes.containsKey(jar)) {
+                ourJarModificationTimes.put(jar, jar.lastModified());
+            }
+        }
+    }
+
     @NotNull
     private static JavaCoreApplicationEnvironment createApplicationEnvironment(
             @NotNull Disposable parentDisposable,
@@ -281,6 +341,9 @@ public class JetCoreEnvironment {
                         }
                 )
         );
+        if (configuration.get(JVMConfigurationKeys.PARALLEL_PARSING, false)) {
+            CompileEnvironmentUtil.parseFiles(sourceFiles, configuration.get(JVMConfigurationKeys.PHASE_METRICS));
+        }
 
         ContainerUtil.sort(sourceFiles, new Comparator<JetFile>() {
             @Override
@@ -294,6 +357,9 @@ public class JetCoreEnvironment {
         );
 
         project.registerService(VirtualFileFinderFactory.class, new CliVirtualFileFinderFactory(classPath));
+        boolean usePsiClassFilesReading = configuration.get(JVMConfigurationKeys.USE_PSI_CLASS_FILES_READING, false);
+        project.registerService(KotlinCliJavaClassFinder.class, new CliJavaClassFinder(
+                PsiManager.getInstance(project), classPath, annotationsManager, usePsiClassFilesReading));
     }
 
     private static void registerProjectExtensionPoints(ExtensionsArea area) {
@@ -364,6 +430,7 @@ public class JetCoreEnvironment {
             }
             projectEnvironment.addJarToClassPath(path);
             classPath.add(jarFile);
+            recordJarModificationTime(path);
         }
         else {
             VirtualFile root = getMyApplicationEnvironment().getLocalFileSystem().findFileByPath(path.getAbsolutePath());
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps package names to the directories of this package in classpath roots, so that a class lookup
+ * only visits the roots which actually contain the package of the class.
+ *
+ * Directories of a package are computed on the first request from the directories of its parent package,
+ * and are cached along with the packages that are not present in any root.
+ */
+public final class JvmDependenciesIndex {
+    @NotNull
+    private final List<VirtualFile> roots;
+
+    // package path separated with '/' -> directories of this package in the order of roots, empty if there are none
+    private final ConcurrentMap<String, List<VirtualFile>> packageDirectories = ContainerUtil.newConcurrentMap();
+
+    public JvmDependenciesIndex(@NotNull List<VirtualFile> roots) {
+        this.roots = roots;
+    }
+
+    @NotNull
+    public List<VirtualFile> getPackageDirectories(@NotNull String packagePath) {
+        List<VirtualFile> cached = packageDirectories.get(packagePath);
+        if (cached != null) return cached;
+
+        List<VirtualFile> result;
+        if (packagePath.isEmpty()) {
+            result = roots;
+        }
+        else {
+            int lastSlash = packagePath.lastIndexOf('/');
+            String parentPath = lastSlash < 0 ? "" : packagePath.substring(0, lastSlash);
+            String shortName = packagePath.substring(lastSlash + 1);
+
+            result = null;
+            for (VirtualFile parentDirectory : getPackageDirectories(parentPath)) {
+                VirtualFile directory = parentDirectory.findChild(shortName);
+                if (directory != null && directory.isDirectory()) {
+                    if (result == null) {
+                        result = new ArrayList<VirtualFile>(1);
+                    }
+                    result.add(directory);
+                }
+            }
+            if (result == null) {
+                result = Collections.emptyList();
+            }
+        }
+
+        List<VirtualFile> previous = packageDirectories.putIfAbsent(packagePath, result);
+        return previous != null ? previous : result;
+    }
+
+    /**
+     * Finds the file of a top-level class by the qualified name of the class or of its nested class.
+     * Every prefix of the name which is a package present in some root is tried as the package of the class, starting
+     * with the longest one, and the first name segment after it as the class name.
+     *
+     * @param separator the separator between the name segments, '.' or '/'
+     * @param extensions extensions of the file to look for, in the order of priority
+     */
+    @Nullable
+    public VirtualFile findTopLevelClassFile(@NotNull String qualifiedName, char separator, @NotNull String... extensions) {
+        return findFileBySplittingName(qualifiedName, separator, false, extensions);
+    }
+
+    /**
+     * Same as {@link #findTopLevelClassFile}, but looks for the class file of the nested class itself,
+     * with the name segments after the package joined with '$'
+     */
+    @Nullable
+    public VirtualFile findClassFile(@NotNull String qualifiedName, char separator) {
+        return findFileBySplittingName(qualifiedName, separator, true, ".class");
+    }
+
+    @Nullable
+    private VirtualFile findFileBySplittingName(
+            @NotNull String qualifiedName,
+            char separator,
+            boolean nestedClassFile,
+            @NotNull String... extensions
+    ) {
+        String path = separator == '/' ? qualifiedName : qualifiedName.replace(separator, '/');
+
+        // A prefix of the name may be a package in one root and an outer class in another one
+        int packageEnd = path.lastIndexOf('/');
+        while (true) {
+            String packagePath = packageEnd < 0 ? "" : path.substring(0, packageEnd);
+            if (packageEnd < 0 || !getPackageDirectories(packagePath).isEmpty()) {
+                String relativeName = path.substring(packageEnd + 1);
+                String className;
+                if (nestedClassFile) {
+                    className = relativeName.replace('/', '$');
+                }
+                else {
+                    int firstSlash = relativeName.indexOf('/');
+                    className = firstSlash < 0 ? relativeName : relativeName.substring(0, firstSlash);
+                }
+
+                VirtualFile file = findFileInPackage(packagePath, className, extensions);
+                if (file != null) return file;
+            }
+
+            if (packageEnd < 0) return null;
+            packageEnd = path.lastIndexOf('/', packageEnd - 1);
+        }
+    }
+
+    /**
+     * Finds the file of a class in the given package, looking into the roots in their order
+     *
+     * @param packagePath the package name separated with '/'
+     * @param extensions extensions of the file to look for, in the order of priority
+     */
+    @Nullable
+    public VirtualFile findFileInPackage(@NotNull String packagePath, @NotNull String className, @NotNull String... extensions) {
+        for (VirtualFile directory : getPackageDirectories(packagePath)) {
+            for (String extension : extensions) {
+                VirtualFile file = directory.findChild(className + extension);
+                if (file != null) {
+                    //TODO: log
+                    return file.isValid() ? file : null;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -32,14 +32,18 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.analyzer.AnalysisResult;
 import org.jetbrains.kotlin.asJava.FilteredJvmDiagnostics;
+import org.jetbrains.kotlin.backend.common.output.OutputFileSink;
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys;
 import org.jetbrains.kotlin.cli.common.CompilerPlugin;
 import org.jetbrains.kotlin.cli.common.CompilerPluginContext;
 import org.jetbrains.kotlin.cli.common.messages.AnalyzerWithCompilerReport;
+import org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity;
 import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
 import org.jetbrains.kotlin.cli.common.output.outputUtils.OutputUtilsPackage;
 import org.jetbrains.kotlin.cli.jvm.JVMConfigurationKeys;
 import org.jetbrains.kotlin.codegen.*;
+import org.jetbrains.kotlin.codegen.inline.InlineMethodNodeCache;
 import org.jetbrains.kotlin.codegen.state.GenerationState;
 import org.jetbrains.kotlin.codegen.state.Progress;
 import org.jetbrains.kotlin.config.CommonConfigurationKeys;
@@ -55,11 +59,13 @@ import org.jetbrains.kotlin.parsing.JetScriptDefinition;
 import org.jetbrains.kotlin.parsing.JetScriptDefinitionProvider;
 import org.jetbrains.kotlin.psi.JetFile;
 import org.jetbrains.kotlin.resolve.AnalyzerScriptParameter;
+import org.jetbrains.kotlin.resolve.BindingContext;
 import org.jetbrains.kotlin.resolve.BindingTrace;
 import org.jetbrains.kotlin.resolve.BindingTraceContext;
 import org.jetbrains.kotlin.resolve.ScriptNameUtil;
 import org.jetbrains.kotlin.resolve.jvm.JvmClassName;
 import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.jetbrains.kotlin.utils.KotlinPaths;
 
 import java.io.File;
@@ -99,12 +105,19 @@ public class KotlinToJVMBytecodeCompiler {
             boolean jarRuntime,
             @Nullable FqName mainClass
     ) {
-        if (jarPath != null) {
-            CompileEnvironmentUtil.writeToJar(jarPath, jarRuntime, mainClass, outputFiles);
+        CompilerPhaseMetrics.Measurement measurement = CompilerPhaseMetrics.start(
+                configuration.get(JVMConfigurationKeys.PHASE_METRICS), CompilerPhaseMetrics.Phase.OUTPUT_WRITING);
+        try {
+            if (jarPath != null) {
+                CompileEnvironmentUtil.writeToJar(jarPath, jarRuntime, mainClass, outputFiles);
+            }
+            else {
+                MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE);
+                OutputUtilsPackage.writeAll(outputFiles, outputDir == null ? new File(".") : outputDir, messageCollector);
+            }
         }
-        else {
-            MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE);
-            OutputUtilsPackage.writeAll(outputFiles, outputDir == null ? new File(".") : outputDir, messageCollector);
+        finally {
+            CompilerPhaseMetrics.finish(measurement);
         }
     }
 
@@ -121,6 +134,7 @@ public class KotlinToJVMBytecodeCompiler {
 
         Disposable parentDisposable = Disposer.newDisposable();
         JetCoreEnvironment environment = null;
+        JarOutputFileSink jarSink = null;
         try {
             environment = JetCoreEnvironment
                     .createForProduction(parentDisposable, compilerConfiguration, EnvironmentConfigFiles.JVM_CONFIG_FILES);
@@ -132,6 +146,11 @@ public class KotlinToJVMBytecodeCompiler {
 
             result.throwIfError();
 
+            boolean streamOutput = configuration.get(JVMConfigurationKeys.STREAM_OUTPUT, false);
+            if (streamOutput && jarPath != null) {
+                // All modules of the chunk are written to the same jar
+                jarSink = new JarOutputFileSink(jarPath, jarRuntime, null);
+            }
             for (Module module : chunk) {
                 List<JetFile> jetFiles = CompileEnvironmentUtil.getJetFiles(
                         environment.getProject(), getAbsolutePaths(directory, module), new Function1<String, Unit>() {
@@ -141,19 +160,32 @@ public class KotlinToJVMBytecodeCompiler {
                             }
                         }
                 );
-                GenerationState generationState =
-                        generate(environment, result, jetFiles, module.getModuleName(), new File(module.getOutputDirectory()));
-                outputFiles.put(module, generationState.getFactory());
+                File outputDirectory = new File(module.getOutputDirectory());
+                OutputFileSink sink = !streamOutput ? null : jarSink != null ? jarSink : createOutputSink(configuration, outputDirectory);
+                GenerationState generationState = generate(environment, result, jetFiles, module.getModuleName(), outputDirectory, sink);
+                if (sink == null) {
+                    outputFiles.put(module, generationState.getFactory());
+                }
+            }
+
+            if (jarSink != null) {
+                jarSink.finish();
             }
         }
         finally {
+            if (jarSink != null) {
+                jarSink.close();
+            }
             if (environment != null) {
                 Disposer.dispose(parentDisposable);
             }
         }
 
         for (Module module : chunk) {
-            writeOutput(configuration, outputFiles.get(module), new File(module.getOutputDirectory()), jarPath, jarRuntime, null);
+            ClassFileFactory moduleOutputFiles = outputFiles.get(module);
+            if (moduleOutputFiles != null) {
+                writeOutput(configuration, moduleOutputFiles, new File(module.getOutputDirectory()), jarPath, jarRuntime, null);
+            }
         }
         return true;
     }
@@ -184,8 +216,8 @@ public class KotlinToJVMBytecodeCompiler {
     }
 
     @Nullable
-    private static FqName findMainClass(@NotNull GenerationState generationState, @NotNull List<JetFile> files) {
-        MainFunctionDetector mainFunctionDetector = new MainFunctionDetector(generationState.getBindingContext());
+    private static FqName findMainClass(@NotNull BindingContext bindingContext, @NotNull List<JetFile> files) {
+        MainFunctionDetector mainFunctionDetector = new MainFunctionDetector(bindingContext);
         FqName mainClass = null;
         for (JetFile file : files) {
             if (mainFunctionDetector.hasMain(file.getDeclarations())) {
@@ -206,13 +238,16 @@ public class KotlinToJVMBytecodeCompiler {
             @Nullable File outputDir,
             boolean includeRuntime
     ) {
+        if (environment.getConfiguration().get(JVMConfigurationKeys.STREAM_OUTPUT, false)) {
+            return compileBunchOfSourcesWithStreamingOutput(environment, jar, outputDir, includeRuntime);
+        }
 
         GenerationState generationState = analyzeAndGenerate(environment);
         if (generationState == null) {
             return false;
         }
 
-        FqName mainClass = findMainClass(generationState, environment.getSourceFiles());
+        FqName mainClass = findMainClass(generationState.getBindingContext(), environment.getSourceFiles());
 
         try {
             writeOutput(environment.getConfiguration(), generationState.getFactory(), outputDir, jar, includeRuntime, mainClass);
@@ -223,6 +258,43 @@ public class KotlinToJVMBytecodeCompiler {
         }
     }
 
+    private static boolean compileBunchOfSourcesWithStreamingOutput(
+            @NotNull JetCoreEnvironment environment,
+            @Nullable File jar,
+            @Nullable File outputDir,
+            boolean includeRuntime
+    ) {
+        AnalysisResult result = analyze(environment);
+        if (result == null) {
+            return false;
+        }
+
+        result.throwIfError();
+
+        List<JetFile> sourceFiles = environment.getSourceFiles();
+        if (jar != null) {
+            JarOutputFileSink sink = new JarOutputFileSink(jar, includeRuntime, findMainClass(result.getBindingContext(), sourceFiles));
+            try {
+                generate(environment, result, sourceFiles, null, null, sink).destroy();
+                sink.finish();
+            }
+            finally {
+                sink.close();
+            }
+        }
+        else {
+            OutputFileSink sink = createOutputSink(environment.getConfiguration(), outputDir == null ? new File(".") : outputDir);
+            generate(environment, result, sourceFiles, null, null, sink).destroy();
+        }
+        return true;
+    }
+
+    @NotNull
+    private static OutputFileSink createOutputSink(@NotNull CompilerConfiguration configuration, @NotNull File outputDir) {
+        MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE);
+        return OutputUtilsPackage.createDirectoryOutputSink(outputDir, messageCollector);
+    }
+
     public static void compileAndExecuteScript(
             @NotNull KotlinPaths paths,
             @NotNull JetCoreEnvironment environment,
@@ -282,7 +354,7 @@ public class KotlinToJVMBytecodeCompiler {
 
         result.throwIfError();
 
-        return generate(environment, result, environment.getSourceFiles(), null, null);
+        return generate(environment, result, environment.getSourceFiles(), null, null, null);
     }
 
     @Nullable
@@ -298,6 +370,9 @@ public class KotlinToJVMBytecodeCompiler {
                     public AnalysisResult invoke() {
                         BindingTrace sharedTrace = new CliLightClassGenerationSupport.NoScopeRecordCliBindingTrace();
                         ModuleDescriptorImpl analyzeModule = TopDownAnalyzerFacadeForJVM.createSealedJavaModule();
+                        int bodyResolveThreads = environment.getConfiguration().get(JVMConfigurationKeys.PARALLEL_BODY_RESOLVE, false)
+                                                 ? Runtime.getRuntime().availableProcessors()
+                                                 : 1;
 
                         return TopDownAnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationWithCustomContext(
                                 environment.getProject(),
@@ -307,7 +382,9 @@ public class KotlinToJVMBytecodeCompiler {
                                 Predicates.<PsiFile>alwaysTrue(),
                                 analyzeModule,
                                 environment.getConfiguration().get(JVMConfigurationKeys.MODULE_IDS),
-                                environment.getConfiguration().get(JVMConfigurationKeys.INCREMENTAL_CACHE_PROVIDER)
+                                environment.getConfiguration().get(JVMConfigurationKeys.INCREMENTAL_CACHE_PROVIDER),
+                                bodyResolveThreads,
+                                environment.getConfiguration().get(JVMConfigurationKeys.PHASE_METRICS)
                         );
                     }
                 }
@@ -331,7 +408,8 @@ public class KotlinToJVMBytecodeCompiler {
             @NotNull AnalysisResult result,
             @NotNull List<JetFile> sourceFiles,
             @Nullable String moduleId,
-            File outputDirectory
+            File outputDirectory,
+            @Nullable OutputFileSink sink
     ) {
         CompilerConfiguration configuration = environment.getConfiguration();
         IncrementalCacheProvider incrementalCacheProvider = configuration.get(JVMConfigurationKeys.INCREMENTAL_CACHE_PROVIDER);
@@ -363,9 +441,24 @@ public class KotlinToJVMBytecodeCompiler {
                 packagesWithObsoleteParts,
                 moduleId,
                 diagnosticHolder,
-                outputDirectory
+                outputDirectory,
+                configuration.get(JVMConfigurationKeys.PHASE_METRICS)
+        );
+        if (sink != null) {
+            generationState.getFactory().setOutputSink(sink);
+        }
+        int codegenThreads = configuration.get(JVMConfigurationKeys.PARALLEL_CODEGEN, false)
+                             ? Runtime.getRuntime().availableProcessors()
+                             : 1;
+        KotlinCodegenFacade.compileCorrectFiles(generationState, CompilationErrorHandler.THROW_EXCEPTION, codegenThreads);
+
+        InlineMethodNodeCache inlineMethodNodeCache = generationState.getInlineMethodNodeCache();
+        configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE).report(
+                CompilerMessageSeverity.LOGGING,
+                "Inline function bodies from compiled classes: " + inlineMethodNodeCache.getHitCount() + " cache hits, " +
+                inlineMethodNodeCache.getMissCount() + " methods read from class files",
+                CompilerMessageLocation.NO_LOCATION
         );
-        KotlinCodegenFacade.compileCorrectFiles(generationState, CompilationErrorHandler.THROW_EXCEPTION);
         AnalyzerWithCompilerReport.reportDiagnostics(
                 new FilteredJvmDiagnostics(
                         diagnosticHolder.getBindingContext().getDiagnostics(),
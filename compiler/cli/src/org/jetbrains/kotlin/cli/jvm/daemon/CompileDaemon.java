@@ -0,0 +1,284 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.daemon;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.sampullara.cli.Args;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+import org.jetbrains.kotlin.cli.common.KotlinVersion;
+import org.jetbrains.kotlin.cli.common.arguments.K2JVMCompilerArguments;
+import org.jetbrains.kotlin.cli.common.daemon.CompileDaemonProtocol;
+import org.jetbrains.kotlin.cli.common.messages.*;
+import org.jetbrains.kotlin.cli.jvm.K2JVMCompiler;
+import org.jetbrains.kotlin.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.kotlin.config.Services;
+import org.jetbrains.kotlin.load.kotlin.header.KotlinClassHeader;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation.NO_LOCATION;
+
+/**
+ * Long-lived process which compiles with K2JVMCompiler on requests from a local socket (see {@link CompileDaemonProtocol}).
+ * Only requests with the token the daemon has written to its token file are accepted.
+ *
+ * Compilations reuse the warmed-up JVM, the built-ins and the application environment, including opened jars and class files
+ * cached for them. Descriptors of library classes belong to the module of a compilation, but the metadata they are deserialized
+ * from is parsed once and cached along with the class file (see {@link KotlinClassHeader#getClassData}).
+ * The application environment is recreated before a compilation if some of the jars opened in it were modified.
+ * Compilations share this process-wide state, so they are run one at a time.
+ *
+ * Requests of other protocol or compiler versions, scripts and the REPL are refused, so that the client runs them in its process.
+ *
+ * Usage: {@code java -cp kotlin-compiler.jar org.jetbrains.kotlin.cli.jvm.daemon.CompileDaemon [port [token file]]},
+ * the token is written to {@link CompileDaemonProtocol#getDefaultTokenFile} by default
+ */
+public class CompileDaemon {
+    public static final int DEFAULT_PORT = 3030;
+
+    private final ServerSocket serverSocket;
+    private final File tokenFile;
+    private final String token;
+    private final MessageCollector messageCollector;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Object compilationLock = new Object();
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        File tokenFile = args.length > 1 ? new File(args[1]) : null;
+        MessageCollector messageCollector = MessageCollectorPlainTextToStream.PLAIN_TEXT_TO_SYSTEM_ERR;
+        CompileDaemon daemon = new CompileDaemon(port, tokenFile, messageCollector);
+        messageCollector.report(CompilerMessageSeverity.INFO, "Kotlin compile daemon is listening on port " + daemon.getPort() +
+                                                              ", token file: " + daemon.getTokenFile(), NO_LOCATION);
+        daemon.run();
+    }
+
+    /**
+     * @param port the port to listen on, 0 for any free port
+     * @param tokenFile the file to write the token of the session to, {@link CompileDaemonProtocol#getDefaultTokenFile} if null
+     * @param messageCollector receives errors of the daemon itself, compilation messages are sent to the clients
+     */
+    public CompileDaemon(int port, @Nullable File tokenFile, @NotNull MessageCollector messageCollector) throws IOException {
+        this.messageCollector = messageCollector;
+        // null stands for the loopback address: requests from other hosts are not accepted
+        serverSocket = new ServerSocket(port, 0, InetAddress.getByName(null));
+        this.tokenFile = tokenFile != null ? tokenFile : CompileDaemonProtocol.getDefaultTokenFile(getPort());
+        try {
+            token = CompileDaemonProtocol.writeTokenFile(this.tokenFile);
+        }
+        catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @NotNull
+    public File getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * Accepts requests until a shutdown request is received
+     */
+    public void run() throws IOException {
+        JetCoreEnvironment.setKeepApplicationEnvironment(true);
+        try {
+            while (true) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                }
+                catch (SocketException e) {
+                    if (serverSocket.isClosed()) break;
+                    throw e;
+                }
+
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(socket);
+                    }
+                });
+            }
+        }
+        finally {
+            executor.shutdown();
+            //noinspection ResultOfMethodCallIgnored
+            tokenFile.delete();
+            JetCoreEnvironment.setKeepApplicationEnvironment(false);
+            JetCoreEnvironment.disposeApplicationEnvironment();
+        }
+    }
+
+    private void handle(@NotNull Socket socket) {
+        try {
+            try {
+                DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+                if (!CompileDaemonProtocol.isSameToken(token, CompileDaemonProtocol.readToken(input))) {
+                    messageCollector.report(CompilerMessageSeverity.WARNING, "Request with a wrong token is rejected", NO_LOCATION);
+                    return;
+                }
+
+                int protocolVersion = input.readInt();
+                if (protocolVersion != CompileDaemonProtocol.PROTOCOL_VERSION) {
+                    CompileDaemonProtocol.writeRefusal(output, "the daemon uses protocol version " + CompileDaemonProtocol.PROTOCOL_VERSION +
+                                                               ", the client uses " + protocolVersion);
+                    return;
+                }
+
+                int command = input.readInt();
+                switch (command) {
+                    case CompileDaemonProtocol.COMPILE:
+                        handleCompile(input, output);
+                        break;
+                    case CompileDaemonProtocol.SHUTDOWN:
+                        serverSocket.close();
+                        break;
+                    default:
+                        messageCollector.report(CompilerMessageSeverity.ERROR, "Unknown compile daemon command: " + command, NO_LOCATION);
+                }
+            }
+            finally {
+                socket.close();
+            }
+        }
+        catch (IOException e) {
+            messageCollector.report(CompilerMessageSeverity.EXCEPTION, OutputMessageUtil.renderException(e), NO_LOCATION);
+        }
+    }
+
+    private void handleCompile(@NotNull DataInputStream input, @NotNull DataOutputStream output) throws IOException {
+        String clientCompilerVersion = CompileDaemonProtocol.readString(input);
+        File workingDirectory = new File(CompileDaemonProtocol.readString(input));
+        String[] args = CompileDaemonProtocol.readArguments(input);
+
+        if (!KotlinVersion.VERSION.equals(clientCompilerVersion)) {
+            CompileDaemonProtocol.writeRefusal(output, "the daemon runs compiler version " + KotlinVersion.VERSION +
+                                                       ", the client expects " + clientCompilerVersion);
+            return;
+        }
+
+        K2JVMCompilerArguments arguments = new K2JVMCompilerArguments();
+        String argumentsError = null;
+        try {
+            arguments.freeArgs = Args.parse(arguments, args);
+        }
+        catch (IllegalArgumentException e) {
+            argumentsError = e.getMessage();
+        }
+
+        // A script or the REPL runs in the process of the compiler, its input, output and exit code belong to the client
+        if (argumentsError == null && arguments.script) {
+            CompileDaemonProtocol.writeRefusal(output, "scripts are run in the process of the client");
+            return;
+        }
+        if (argumentsError == null && arguments.module == null && arguments.freeArgs.isEmpty() && !arguments.version) {
+            CompileDaemonProtocol.writeRefusal(output, "the REPL is run in the process of the client");
+            return;
+        }
+
+        MessageRenderer messageRenderer = MessageRenderer.XML;
+        ByteArrayOutputStream compilerOutput = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(compilerOutput, true, "UTF-8");
+        ExitCode exitCode;
+        out.print(messageRenderer.renderPreamble());
+        try {
+            if (argumentsError != null) {
+                out.println(messageRenderer.render(CompilerMessageSeverity.ERROR, argumentsError, NO_LOCATION));
+                exitCode = ExitCode.COMPILATION_ERROR;
+            }
+            else {
+                exitCode = compile(workingDirectory, arguments, out, messageRenderer);
+            }
+        }
+        finally {
+            out.print(messageRenderer.renderConclusion());
+        }
+        CompileDaemonProtocol.writeCompileResponse(output, exitCode, compilerOutput.toString("UTF-8"));
+    }
+
+    @NotNull
+    private ExitCode compile(
+            @NotNull File workingDirectory,
+            @NotNull K2JVMCompilerArguments arguments,
+            @NotNull PrintStream out,
+            @NotNull MessageRenderer messageRenderer
+    ) {
+        resolvePaths(arguments, workingDirectory);
+
+        MessageCollector collector = new PrintingMessageCollector(out, messageRenderer, arguments.verbose);
+        synchronized (compilationLock) {
+            JetCoreEnvironment.disposeApplicationEnvironmentIfJarsChanged();
+            return new K2JVMCompiler().exec(collector, Services.EMPTY, arguments);
+        }
+    }
+
+    /**
+     * Makes paths in the arguments absolute, because they are given relative to the working directory of the client
+     */
+    private static void resolvePaths(@NotNull K2JVMCompilerArguments arguments, @NotNull File workingDirectory) {
+        arguments.destination = resolvePath(arguments.destination, workingDirectory);
+        arguments.classpath = resolvePathList(arguments.classpath, workingDirectory);
+        arguments.annotations = resolvePathList(arguments.annotations, workingDirectory);
+        arguments.module = resolvePath(arguments.module, workingDirectory);
+        arguments.kotlinHome = resolvePath(arguments.kotlinHome, workingDirectory);
+        arguments.phaseMetrics = resolvePath(arguments.phaseMetrics, workingDirectory);
+
+        List<String> freeArgs = new ArrayList<String>(arguments.freeArgs.size());
+        for (String freeArg : arguments.freeArgs) {
+            freeArgs.add(resolvePath(freeArg, workingDirectory));
+        }
+        arguments.freeArgs = freeArgs;
+    }
+
+    @Nullable
+    private static String resolvePathList(@Nullable String paths, @NotNull File workingDirectory) {
+        if (paths == null) return null;
+
+        List<String> result = new ArrayList<String>();
+        for (String path : Splitter.on(File.pathSeparatorChar).split(paths)) {
+            result.add(resolvePath(path, workingDirectory));
+        }
+        return Joiner.on(File.pathSeparatorChar).join(result);
+    }
+
+    @Nullable
+    private static String resolvePath(@Nullable String path, @NotNull File workingDirectory) {
+        if (path == null || new File(path).isAbsolute()) return path;
+        return new File(workingDirectory, path).getPath();
+    }
+}
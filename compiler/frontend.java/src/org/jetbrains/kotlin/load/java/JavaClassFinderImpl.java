@@ -16,12 +16,14 @@
 
 package org.jetbrains.kotlin.load.java;
 
+import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiPackage;
 import com.intellij.psi.search.DelegatingGlobalSearchScope;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.idea.JetFileType;
@@ -29,14 +31,18 @@ import org.jetbrains.kotlin.load.java.structure.JavaClass;
 import org.jetbrains.kotlin.load.java.structure.JavaPackage;
 import org.jetbrains.kotlin.load.java.structure.impl.JavaClassImpl;
 import org.jetbrains.kotlin.load.java.structure.impl.JavaPackageImpl;
+import org.jetbrains.kotlin.load.java.structure.impl.classFiles.BinaryJavaClass;
 import org.jetbrains.kotlin.name.ClassId;
 import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.name.FqNameUnsafe;
 import org.jetbrains.kotlin.resolve.jvm.JavaClassFinderPostConstruct;
+import org.jetbrains.kotlin.resolve.jvm.KotlinCliJavaClassFinder;
 import org.jetbrains.kotlin.resolve.jvm.KotlinJavaPsiFacade;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentMap;
 
 public class JavaClassFinderImpl implements JavaClassFinder {
     private Project project;
@@ -45,6 +51,11 @@ public class JavaClassFinderImpl implements JavaClassFinder {
     private GlobalSearchScope javaSearchScope;
     private KotlinJavaPsiFacade javaFacade;
 
+    // In the command line compiler, library classes are read from class files without PSI where possible, see BinaryJavaClass.
+    // Such classes are cached, so that each of them is represented by one instance
+    private KotlinCliJavaClassFinder cliJavaClassFinder;
+    private final ConcurrentMap<ClassId, JavaClass> binaryClasses = ContainerUtil.newConcurrentMap();
+
     @Inject
     public void setProject(@NotNull Project project) {
         this.project = project;
@@ -82,11 +93,17 @@ public class JavaClassFinderImpl implements JavaClassFinder {
         };
 
         javaFacade = KotlinJavaPsiFacade.getInstance(project);
+        cliJavaClassFinder = ServiceManager.getService(project, KotlinCliJavaClassFinder.class);
     }
 
     @Nullable
     @Override
     public JavaClass findClass(@NotNull ClassId classId) {
+        if (cliJavaClassFinder != null) {
+            JavaClass binaryClass = findBinaryClass(classId);
+            if (binaryClass != null) return binaryClass;
+        }
+
         FqNameUnsafe fqName = classId.asSingleFqName();
 
         PsiClass psiClass = javaFacade.findClass(fqName.asString(), javaSearchScope);
@@ -105,6 +122,31 @@ public class JavaClassFinderImpl implements JavaClassFinder {
         return javaClass;
     }
 
+    @Nullable
+    private JavaClass findBinaryClass(@NotNull ClassId classId) {
+        JavaClass cached = binaryClasses.get(classId);
+        if (cached != null) return cached;
+
+        VirtualFile file = cliJavaClassFinder.findBinaryClassFile(classId, javaSearchScope);
+        if (file == null) return null;
+
+        BinaryJavaClass javaClass;
+        try {
+            javaClass = BinaryJavaClass.read(file, classId, file.contentsToByteArray(), this);
+        }
+        catch (IOException e) {
+            return null;
+        }
+        catch (IllegalArgumentException e) {
+            // Class file of an unsupported version, let PSI deal with it
+            return null;
+        }
+        if (javaClass == null) return null;
+
+        JavaClass previous = binaryClasses.putIfAbsent(classId, javaClass);
+        return previous != null ? previous : javaClass;
+    }
+
     @Nullable
     @Override
     public JavaPackage findPackage(@NotNull FqName fqName) {
@@ -43,20 +43,26 @@ public class LazyResolveBasedCache : JavaResolverCache {
         return trace.get(FQNAME_TO_CLASS_DESCRIPTOR, fqName.toUnsafe()) ?: findInPackageFragments(fqName)
     }
 
+    // Elements read from class files without PSI (see BinaryJavaClass) have nothing to be recorded for
+
     override fun recordMethod(method: JavaMethod, descriptor: SimpleFunctionDescriptor) {
-        BindingContextUtils.recordFunctionDeclarationToDescriptor(trace, (method as JavaMethodImpl).getPsi(), descriptor)
+        if (method !is JavaMethodImpl) return
+        BindingContextUtils.recordFunctionDeclarationToDescriptor(trace, method.getPsi(), descriptor)
     }
 
     override fun recordConstructor(element: JavaElement, descriptor: ConstructorDescriptor) {
-        trace.record(CONSTRUCTOR, (element as JavaElementImpl<*>).getPsi(), descriptor)
+        if (element !is JavaElementImpl<*>) return
+        trace.record(CONSTRUCTOR, element.getPsi(), descriptor)
     }
 
     override fun recordField(field: JavaField, descriptor: PropertyDescriptor) {
-        trace.record(VARIABLE, (field as JavaFieldImpl).getPsi(), descriptor)
+        if (field !is JavaFieldImpl) return
+        trace.record(VARIABLE, field.getPsi(), descriptor)
     }
 
     override fun recordClass(javaClass: JavaClass, descriptor: ClassDescriptor) {
-        trace.record(CLASS, (javaClass as JavaClassImpl).getPsi(), descriptor)
+        if (javaClass !is JavaClassImpl) return
+        trace.record(CLASS, javaClass.getPsi(), descriptor)
     }
 
     private fun findInPackageFragments(fullFqName: FqName): ClassDescriptor? {
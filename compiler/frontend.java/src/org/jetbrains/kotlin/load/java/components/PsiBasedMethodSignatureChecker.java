@@ -26,6 +26,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.descriptors.ClassDescriptor;
 import org.jetbrains.kotlin.descriptors.FunctionDescriptor;
 import org.jetbrains.kotlin.descriptors.SimpleFunctionDescriptor;
+import org.jetbrains.kotlin.descriptors.Visibilities;
 import org.jetbrains.kotlin.load.java.structure.*;
 import org.jetbrains.kotlin.load.java.structure.impl.JavaMethodImpl;
 import org.jetbrains.kotlin.resolve.OverrideResolver;
@@ -38,7 +39,9 @@ import org.jetbrains.kotlin.types.TypeSubstitutor;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class PsiBasedMethodSignatureChecker implements MethodSignatureChecker {
     private static final Logger LOG = Logger.getInstance(PsiBasedMethodSignatureChecker.class);
@@ -171,9 +174,9 @@ public class PsiBasedMethodSignatureChecker implements MethodSignatureChecker {
         // This optimization speed things up because hasRawTypesInHierarchicalSignature() is very expensive
         if (superFunctions.isEmpty() && (signatureErrors.isEmpty() || !reportSignatureErrors)) return;
 
-        JavaMethodImpl methodWithPsi = (JavaMethodImpl) method;
-        if (!RawTypesCheck.hasRawTypesInHierarchicalSignature(methodWithPsi) &&
-            isMethodReturnTypeCompatible(methodWithPsi) &&
+        // Methods read from class files have no PSI, their return types are not checked since they are already verified by javac
+        if (!RawTypesCheck.hasRawTypesInHierarchicalSignature(method) &&
+            (!(method instanceof JavaMethodImpl) || isMethodReturnTypeCompatible((JavaMethodImpl) method)) &&
             !containsErrorType(superFunctions, descriptor)) {
             if (signatureErrors.isEmpty()) {
                 for (FunctionDescriptor superFunction : superFunctions) {
@@ -241,7 +244,7 @@ public class PsiBasedMethodSignatureChecker implements MethodSignatureChecker {
             return false;
         }
 
-        public static boolean hasRawTypesInHierarchicalSignature(@NotNull JavaMethodImpl method) {
+        public static boolean hasRawTypesInHierarchicalSignature(@NotNull JavaMethod method) {
             // This is a very important optimization: package-classes are big and full of static methods
             // building method hierarchies for such classes takes a very long time
             if (method.isStatic()) return false;
@@ -250,7 +253,11 @@ public class PsiBasedMethodSignatureChecker implements MethodSignatureChecker {
                 return true;
             }
 
-            for (HierarchicalMethodSignature superSignature : method.getPsi().getHierarchicalMethodSignature().getSuperSignatures()) {
+            if (!(method instanceof JavaMethodImpl)) {
+                return hasRawTypesInSuperMethods(method, method.getContainingClass(), false, new HashSet<JavaClass>());
+            }
+
+            for (HierarchicalMethodSignature superSignature : ((JavaMethodImpl) method).getPsi().getHierarchicalMethodSignature().getSuperSignatures()) {
                 JavaMethod superMethod = new JavaMethodImpl(superSignature.getMethod());
                 if (superSignature.isRaw() || typeParameterIsErased(method, superMethod) || hasRawTypesInSignature(superMethod)) {
                     return true;
@@ -260,6 +267,43 @@ public class PsiBasedMethodSignatureChecker implements MethodSignatureChecker {
             return false;
         }
 
+        // Methods read from class files have no hierarchical signatures, so super methods are looked up in supertypes
+        // by name and number of parameters. Overloads can be taken for super methods here, which only makes the check stricter
+        private static boolean hasRawTypesInSuperMethods(
+                @NotNull JavaMethod method,
+                @NotNull JavaClass javaClass,
+                boolean isRawSupertype,
+                @NotNull Set<JavaClass> visited
+        ) {
+            for (JavaClassifierType supertype : javaClass.getSupertypes()) {
+                JavaClassifier classifier = supertype.getClassifier();
+                if (!(classifier instanceof JavaClass) || !visited.add((JavaClass) classifier)) continue;
+
+                JavaClass superClass = (JavaClass) classifier;
+                boolean isRaw = isRawSupertype || supertype.isRaw();
+                for (JavaMethod superMethod : superClass.getMethods()) {
+                    if (!isOverrideCandidate(method, superMethod)) continue;
+
+                    if (isRaw || typeParameterIsErased(method, superMethod) || hasRawTypesInSignature(superMethod)) {
+                        return true;
+                    }
+                }
+
+                if (hasRawTypesInSuperMethods(method, superClass, isRaw, visited)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private static boolean isOverrideCandidate(@NotNull JavaMethod method, @NotNull JavaMethod superMethod) {
+            return !superMethod.isStatic() &&
+                   superMethod.getVisibility() != Visibilities.PRIVATE &&
+                   superMethod.getName().equals(method.getName()) &&
+                   superMethod.getValueParameters().size() == method.getValueParameters().size();
+        }
+
         private static boolean typeParameterIsErased(@NotNull JavaMethod method, @NotNull JavaMethod superMethod) {
             // Java allows you to write
             //   <T extends Foo> T foo(), in the superclass and then
@@ -175,23 +175,117 @@ public class JavaClassImpl extends JavaClassifierImpl<PsiClass> implements JavaC
     @NotNull
     @Override
     public JavaType createImmediateType(@NotNull JavaTypeSubstitutor substitutor) {
+        PsiClass psiClass = getPsi();
         return new JavaClassifierTypeImpl(
-                JavaPsiFacade.getElementFactory(getPsi().getProject()).createType(getPsi(), createPsiSubstitutor(substitutor)));
+                JavaPsiFacade.getElementFactory(psiClass.getProject()).createType(psiClass, createPsiSubstitutor(substitutor, psiClass)));
     }
 
     @NotNull
-    private static PsiSubstitutor createPsiSubstitutor(@NotNull JavaTypeSubstitutor substitutor) {
+    private static PsiSubstitutor createPsiSubstitutor(@NotNull JavaTypeSubstitutor substitutor, @NotNull PsiElement context) {
         Map<PsiTypeParameter, PsiType> substMap = new HashMap<PsiTypeParameter, PsiType>();
         for (Map.Entry<JavaTypeParameter, JavaType> entry : substitutor.getSubstitutionMap().entrySet()) {
             PsiTypeParameter key = ((JavaTypeParameterImpl) entry.getKey()).getPsi();
-            if (entry.getValue() == null) {
-                substMap.put(key, null);
+            substMap.put(key, toPsiType(entry.getValue(), context));
+        }
+
+        return PsiSubstitutorImpl.createSubstitutor(substMap);
+    }
+
+    /**
+     * Types read from class files (see BinaryJavaClass) have no PSI, they are converted to PSI types of the same classes,
+     * so that substituted types keep their arguments. Null stands for a raw substitution, as everywhere in PsiSubstitutor
+     */
+    @Nullable
+    private static PsiType toPsiType(@Nullable JavaType type, @NotNull PsiElement context) {
+        if (type == null) return null;
+        if (type instanceof JavaTypeImpl) return ((JavaTypeImpl) type).getPsi();
+
+        PsiElementFactory factory = JavaPsiFacade.getElementFactory(context.getProject());
+        if (type instanceof JavaPrimitiveType) {
+            return factory.createPrimitiveType(((JavaPrimitiveType) type).getCanonicalText());
+        }
+        else if (type instanceof JavaArrayType) {
+            PsiType componentType = toPsiType(((JavaArrayType) type).getComponentType(), context);
+            return componentType != null ? componentType.createArrayType() : null;
+        }
+        else if (type instanceof JavaWildcardType) {
+            JavaWildcardType wildcardType = (JavaWildcardType) type;
+            PsiManager manager = context.getManager();
+            if (wildcardType.getBound() == null) return PsiWildcardType.createUnbounded(manager);
+
+            PsiType bound = toPsiType(wildcardType.getBound(), context);
+            if (bound == null) return null;
+            return wildcardType.isExtends() ? PsiWildcardType.createExtends(manager, bound) : PsiWildcardType.createSuper(manager, bound);
+        }
+        else if (type instanceof JavaClassifierType) {
+            JavaClassifierType classifierType = (JavaClassifierType) type;
+            JavaClassifier classifier = classifierType.getClassifier();
+            if (classifier instanceof JavaTypeParameter) {
+                PsiTypeParameter typeParameter = findPsiTypeParameter((JavaTypeParameter) classifier, context);
+                return typeParameter != null ? factory.createType(typeParameter) : null;
             }
-            else {
-                substMap.put(key, ((JavaTypeImpl) entry.getValue()).getPsi());
+            else if (classifier instanceof JavaClass) {
+                PsiClass psiClass = findPsiClass((JavaClass) classifier, context);
+                if (psiClass == null) return null;
+                if (classifierType.isRaw()) return factory.createType(psiClass, factory.createRawSubstitutor(psiClass));
+
+                return factory.createType(psiClass, createPsiSubstitutor(classifierType, (JavaClass) classifier, psiClass, context));
+            }
+        }
+
+        return null;
+    }
+
+    @NotNull
+    private static PsiSubstitutor createPsiSubstitutor(
+            @NotNull JavaClassifierType type,
+            @NotNull JavaClass javaClass,
+            @NotNull PsiClass psiClass,
+            @NotNull PsiElement context
+    ) {
+        Map<PsiTypeParameter, PsiType> substMap = new HashMap<PsiTypeParameter, PsiType>();
+        JavaTypeSubstitutor substitutor = type.getSubstitutor();
+        JavaClass javaOwner = javaClass;
+        PsiClass psiOwner = psiClass;
+        while (javaOwner != null && psiOwner != null) {
+            List<JavaTypeParameter> javaTypeParameters = javaOwner.getTypeParameters();
+            PsiTypeParameter[] psiTypeParameters = psiOwner.getTypeParameters();
+            for (int i = 0; i < psiTypeParameters.length; i++) {
+                JavaType argument = i < javaTypeParameters.size() ? substitutor.substitute(javaTypeParameters.get(i)) : null;
+                substMap.put(psiTypeParameters[i], toPsiType(argument, context));
             }
+
+            if (javaOwner.isStatic()) break;
+
+            javaOwner = javaOwner.getOuterClass();
+            psiOwner = psiOwner.getContainingClass();
         }
 
         return PsiSubstitutorImpl.createSubstitutor(substMap);
     }
+
+    @Nullable
+    private static PsiClass findPsiClass(@NotNull JavaClass javaClass, @NotNull PsiElement context) {
+        if (javaClass instanceof JavaClassImpl) return ((JavaClassImpl) javaClass).getPsi();
+
+        FqName fqName = javaClass.getFqName();
+        if (fqName == null) return null;
+        return JavaPsiFacade.getInstance(context.getProject()).findClass(fqName.asString(), context.getResolveScope());
+    }
+
+    // Only type parameters of classes can be found in PSI, type variables of methods are substituted as raw
+    @Nullable
+    private static PsiTypeParameter findPsiTypeParameter(@NotNull JavaTypeParameter typeParameter, @NotNull PsiElement context) {
+        if (typeParameter instanceof JavaTypeParameterImpl) return ((JavaTypeParameterImpl) typeParameter).getPsi();
+
+        JavaTypeParameterListOwner owner = typeParameter.getOwner();
+        if (!(owner instanceof JavaClass)) return null;
+
+        PsiClass psiClass = findPsiClass((JavaClass) owner, context);
+        if (psiClass == null) return null;
+
+        PsiTypeParameter[] typeParameters = psiClass.getTypeParameters();
+        int index = typeParameter.getIndex();
+        return index < typeParameters.length ? typeParameters[index] : null;
+    }
 }
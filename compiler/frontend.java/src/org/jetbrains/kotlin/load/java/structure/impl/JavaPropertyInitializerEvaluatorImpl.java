@@ -24,6 +24,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.descriptors.PropertyDescriptor;
 import org.jetbrains.kotlin.load.java.structure.JavaField;
 import org.jetbrains.kotlin.load.java.structure.JavaPropertyInitializerEvaluator;
+import org.jetbrains.kotlin.load.java.structure.impl.classFiles.BinaryJavaField;
 import org.jetbrains.kotlin.resolve.constants.CompileTimeConstant;
 import org.jetbrains.kotlin.resolve.constants.ConstantsPackage;
 import org.jetbrains.kotlin.resolve.constants.evaluate.ConstantExpressionEvaluator;
@@ -32,8 +33,14 @@ public class JavaPropertyInitializerEvaluatorImpl implements JavaPropertyInitial
     @Nullable
     @Override
     public CompileTimeConstant<?> getInitializerConstant(@NotNull JavaField field, @NotNull PropertyDescriptor descriptor) {
-        PsiExpression initializer = ((JavaFieldImpl) field).getInitializer();
-        Object evaluatedExpression = JavaConstantExpressionEvaluator.computeConstantExpression(initializer, false);
+        Object evaluatedExpression;
+        if (field instanceof BinaryJavaField) {
+            evaluatedExpression = ((BinaryJavaField) field).getConstantValue();
+        }
+        else {
+            PsiExpression initializer = ((JavaFieldImpl) field).getInitializer();
+            evaluatedExpression = JavaConstantExpressionEvaluator.computeConstantExpression(initializer, false);
+        }
         if (evaluatedExpression != null) {
             return ConstantsPackage.createCompileTimeConstant(
                     evaluatedExpression,
@@ -49,6 +56,9 @@ public class JavaPropertyInitializerEvaluatorImpl implements JavaPropertyInitial
     public boolean isNotNullCompileTimeConstant(@NotNull JavaField field) {
         // PsiUtil.isCompileTimeConstant returns false for null-initialized fields,
         // see com.intellij.psi.util.IsConstantExpressionVisitor.visitLiteralExpression()
+        if (field instanceof BinaryJavaField) {
+            return field.isFinal() && ((BinaryJavaField) field).getConstantValue() != null;
+        }
         return PsiUtil.isCompileTimeConstant(((JavaFieldImpl) field).getPsi());
     }
 }
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.structure.*;
+import org.jetbrains.kotlin.name.ClassId;
+import org.jetbrains.kotlin.name.Name;
+import org.jetbrains.org.objectweb.asm.AnnotationVisitor;
+import org.jetbrains.org.objectweb.asm.Type;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.jetbrains.org.objectweb.asm.Opcodes.ASM5;
+
+public class BinaryJavaAnnotation implements JavaAnnotation {
+    // ASM reports this annotation on synthetic parameters which are not mentioned in parameter annotation attributes
+    private static final String SYNTHETIC_PARAMETER_ANNOTATION_DESC = "Ljava/lang/Synthetic;";
+
+    private final String desc;
+    private final ClassifierResolutionContext context;
+    private final List<JavaAnnotationArgument> arguments = new ArrayList<JavaAnnotationArgument>(1);
+
+    private BinaryJavaAnnotation(@NotNull String desc, @NotNull ClassifierResolutionContext context) {
+        this.desc = desc;
+        this.context = context;
+    }
+
+    /**
+     * Creates an annotation of the given descriptor, adds it to the given list and returns the visitor which reads its arguments
+     */
+    @Nullable
+    /* package */ static AnnotationVisitor addAnnotation(
+            @NotNull List<JavaAnnotation> annotations,
+            @NotNull String desc,
+            @NotNull ClassifierResolutionContext context
+    ) {
+        if (SYNTHETIC_PARAMETER_ANNOTATION_DESC.equals(desc)) return null;
+
+        BinaryJavaAnnotation annotation = new BinaryJavaAnnotation(desc, context);
+        annotations.add(annotation);
+        return new ArgumentsVisitor(annotation.arguments, context);
+    }
+
+    @Nullable
+    @Override
+    public JavaAnnotationArgument findArgument(@NotNull Name name) {
+        for (JavaAnnotationArgument argument : arguments) {
+            if (name.equals(argument.getName())) return argument;
+        }
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaAnnotationArgument> getArguments() {
+        return arguments;
+    }
+
+    @NotNull
+    @Override
+    public ClassId getClassId() {
+        return context.mapInternalNameToClassId(Type.getType(desc).getInternalName());
+    }
+
+    @Nullable
+    @Override
+    public JavaClass resolve() {
+        return context.resolveClass(getClassId());
+    }
+
+    @Override
+    public String toString() {
+        return "@" + getClassId().asSingleFqName() + arguments;
+    }
+
+    private static class ArgumentsVisitor extends AnnotationVisitor {
+        private final List<JavaAnnotationArgument> arguments;
+        private final ClassifierResolutionContext context;
+
+        public ArgumentsVisitor(@NotNull List<JavaAnnotationArgument> arguments, @NotNull ClassifierResolutionContext context) {
+            super(ASM5);
+            this.arguments = arguments;
+            this.context = context;
+        }
+
+        @Override
+        public void visit(String name, @NotNull Object value) {
+            arguments.add(createArgument(name(name), value, context));
+        }
+
+        @Override
+        public void visitEnum(String name, @NotNull String desc, @NotNull String value) {
+            arguments.add(new EnumValueArgument(name(name), Type.getType(desc).getInternalName(), Name.identifier(value), context));
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, @NotNull String desc) {
+            BinaryJavaAnnotation annotation = new BinaryJavaAnnotation(desc, context);
+            arguments.add(new AnnotationAsArgument(name(name), annotation));
+            return new ArgumentsVisitor(annotation.arguments, context);
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            List<JavaAnnotationArgument> elements = new ArrayList<JavaAnnotationArgument>();
+            arguments.add(new ArrayArgument(name(name), elements));
+            return new ArgumentsVisitor(elements, context);
+        }
+
+        @NotNull
+        private static JavaAnnotationArgument createArgument(
+                @Nullable Name name,
+                @NotNull Object value,
+                @NotNull ClassifierResolutionContext context
+        ) {
+            if (value instanceof Type) {
+                return new ClassObjectArgument(name, ((Type) value).getDescriptor(), context);
+            }
+
+            // Arrays of primitives are reported with one call to visit()
+            if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                List<JavaAnnotationArgument> elements = new ArrayList<JavaAnnotationArgument>(length);
+                for (int i = 0; i < length; i++) {
+                    elements.add(new LiteralArgument(null, Array.get(value, i)));
+                }
+                return new ArrayArgument(name, elements);
+            }
+
+            return new LiteralArgument(name, value);
+        }
+
+        @Nullable
+        private static Name name(@Nullable String name) {
+            return name == null ? null : Name.identifier(name);
+        }
+    }
+
+    private static class LiteralArgument implements JavaLiteralAnnotationArgument {
+        private final Name name;
+        private final Object value;
+
+        public LiteralArgument(@Nullable Name name, @NotNull Object value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Nullable
+        @Override
+        public Name getName() {
+            return name;
+        }
+
+        @Nullable
+        @Override
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    private static class ArrayArgument implements JavaArrayAnnotationArgument {
+        private final Name name;
+        private final List<JavaAnnotationArgument> elements;
+
+        public ArrayArgument(@Nullable Name name, @NotNull List<JavaAnnotationArgument> elements) {
+            this.name = name;
+            this.elements = elements;
+        }
+
+        @Nullable
+        @Override
+        public Name getName() {
+            return name;
+        }
+
+        @NotNull
+        @Override
+        public List<JavaAnnotationArgument> getElements() {
+            return elements;
+        }
+    }
+
+    private static class EnumValueArgument implements JavaEnumValueAnnotationArgument {
+        private final Name name;
+        private final String enumInternalName;
+        private final Name entryName;
+        private final ClassifierResolutionContext context;
+
+        public EnumValueArgument(
+                @Nullable Name name,
+                @NotNull String enumInternalName,
+                @NotNull Name entryName,
+                @NotNull ClassifierResolutionContext context
+        ) {
+            this.name = name;
+            this.enumInternalName = enumInternalName;
+            this.entryName = entryName;
+            this.context = context;
+        }
+
+        @Nullable
+        @Override
+        public Name getName() {
+            return name;
+        }
+
+        @Nullable
+        @Override
+        public JavaField resolve() {
+            JavaClass enumClass = context.resolveClass(enumInternalName);
+            if (enumClass == null) return null;
+
+            for (JavaField field : enumClass.getFields()) {
+                if (field.isEnumEntry() && entryName.equals(field.getName())) return field;
+            }
+            return null;
+        }
+    }
+
+    private static class ClassObjectArgument implements JavaClassObjectAnnotationArgument {
+        private final Name name;
+        private final String typeDesc;
+        private final ClassifierResolutionContext context;
+
+        public ClassObjectArgument(@Nullable Name name, @NotNull String typeDesc, @NotNull ClassifierResolutionContext context) {
+            this.name = name;
+            this.typeDesc = typeDesc;
+            this.context = context;
+        }
+
+        @Nullable
+        @Override
+        public Name getName() {
+            return name;
+        }
+
+        @NotNull
+        @Override
+        public JavaType getReferencedType() {
+            return new BinarySignatureParser(typeDesc, context, null).parseType();
+        }
+    }
+
+    private static class AnnotationAsArgument implements JavaAnnotationAsAnnotationArgument {
+        private final Name name;
+        private final JavaAnnotation annotation;
+
+        public AnnotationAsArgument(@Nullable Name name, @NotNull JavaAnnotation annotation) {
+            this.name = name;
+            this.annotation = annotation;
+        }
+
+        @Nullable
+        @Override
+        public Name getName() {
+            return name;
+        }
+
+        @NotNull
+        @Override
+        public JavaAnnotation getAnnotation() {
+            return annotation;
+        }
+    }
+}
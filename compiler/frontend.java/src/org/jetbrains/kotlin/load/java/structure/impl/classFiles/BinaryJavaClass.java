@@ -0,0 +1,427 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.descriptors.Visibility;
+import org.jetbrains.kotlin.load.java.JavaClassFinder;
+import org.jetbrains.kotlin.load.java.structure.*;
+import org.jetbrains.kotlin.load.java.structure.impl.JavaTypeSubstitutorImpl;
+import org.jetbrains.kotlin.name.ClassId;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.name.Name;
+import org.jetbrains.org.objectweb.asm.*;
+
+import java.util.*;
+
+import static org.jetbrains.org.objectweb.asm.ClassReader.*;
+import static org.jetbrains.org.objectweb.asm.Opcodes.*;
+
+/**
+ * Java class read from a class file with ASM, without building PSI for it.
+ *
+ * The class file is read once on creation, members and annotations are recorded right away,
+ * while generic signatures are parsed only when types are requested.
+ * Classes referenced from signatures are resolved with the class finder which has created this class,
+ * so that every class is represented by the same instance.
+ */
+public class BinaryJavaClass extends ClassVisitor implements JavaClass, TypeParameterScope {
+    private static final String JAVA_LANG_OBJECT = "java/lang/Object";
+    private static final String JAVA_LANG_ANNOTATION_ANNOTATION = "java/lang/annotation/Annotation";
+
+    private final VirtualFile virtualFile;
+    private final ClassId classId;
+    private final ClassifierResolutionContext context;
+
+    private String internalName;
+    private int access;
+    private String signature;
+    private String superName;
+    private String[] interfaces;
+
+    // Whether there's an entry of InnerClasses attribute for this class, and whether it declares a member class
+    private boolean hasOwnInnerClassEntry;
+    private boolean isMemberClass;
+
+    private final List<Name> innerClassNames = new ArrayList<Name>(0);
+    private final List<JavaField> fields = new ArrayList<JavaField>();
+    private final List<JavaMethod> methods = new ArrayList<JavaMethod>();
+    private final List<JavaConstructor> constructors = new ArrayList<JavaConstructor>(1);
+    private final List<JavaAnnotation> annotations = new ArrayList<JavaAnnotation>(0);
+
+    private List<JavaTypeParameter> typeParameters;
+    private Collection<JavaClassifierType> supertypes;
+    private JavaClassifierType defaultType;
+
+    private BinaryJavaClass(@NotNull VirtualFile virtualFile, @NotNull ClassId classId, @NotNull JavaClassFinder classFinder) {
+        super(ASM5);
+        this.virtualFile = virtualFile;
+        this.classId = classId;
+        this.context = new ClassifierResolutionContext(classFinder);
+    }
+
+    /**
+     * @return the class read from the given bytes, or null if the class file doesn't declare the class with the given id
+     * (e.g. it is a local class, or the name differs in case)
+     */
+    @Nullable
+    public static BinaryJavaClass read(
+            @NotNull VirtualFile virtualFile,
+            @NotNull ClassId classId,
+            @NotNull byte[] bytes,
+            @NotNull JavaClassFinder classFinder
+    ) {
+        BinaryJavaClass result = new BinaryJavaClass(virtualFile, classId, classFinder);
+        new ClassReader(bytes).accept(result, SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
+        return result.declares(classId) ? result : null;
+    }
+
+    private boolean declares(@NotNull ClassId classId) {
+        if (classId.isNestedClass() ? !isMemberClass : hasOwnInnerClassEntry) return false;
+
+        FqName packageFqName = classId.getPackageFqName();
+        String relativeName = classId.getRelativeClassName().asString().replace('.', '$');
+        String expected = packageFqName.isRoot() ? relativeName : packageFqName.asString().replace('.', '/') + "/" + relativeName;
+        return expected.equals(internalName);
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        this.internalName = name;
+        this.access = access;
+        this.signature = signature;
+        this.superName = superName;
+        this.interfaces = interfaces;
+    }
+
+    @Override
+    public void visitInnerClass(@NotNull String name, String outerName, String innerName, int access) {
+        context.addInnerClass(name, outerName, innerName);
+
+        if (name.equals(internalName)) {
+            // Flags of nested classes, such as static and private, are only written to InnerClasses
+            this.access = access;
+            hasOwnInnerClassEntry = true;
+            isMemberClass = outerName != null && innerName != null;
+        }
+        else if (internalName.equals(outerName) && innerName != null && (access & ACC_SYNTHETIC) == 0) {
+            innerClassNames.add(Name.identifier(innerName));
+        }
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
+        return BinaryJavaAnnotation.addAnnotation(annotations, desc, context);
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, @NotNull String name, @NotNull String desc, String signature, Object value) {
+        if ((access & ACC_SYNTHETIC) != 0) return null;
+
+        final BinaryJavaField field = new BinaryJavaField(this, Name.identifier(name), access, desc, signature, value);
+        fields.add(field);
+
+        return new FieldVisitor(ASM5) {
+            @Override
+            public AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
+                return BinaryJavaAnnotation.addAnnotation(field.annotations, desc, context);
+            }
+        };
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, @NotNull String name, @NotNull String desc, String signature, String[] exceptions) {
+        if ((access & ACC_SYNTHETIC) != 0 || "<clinit>".equals(name)) return null;
+
+        final BinaryJavaMethodBase member;
+        if ("<init>".equals(name)) {
+            member = new BinaryJavaConstructor(this, getName(), access, desc, signature);
+            constructors.add((JavaConstructor) member);
+        }
+        else {
+            member = new BinaryJavaMethod(this, Name.identifier(name), access, desc, signature);
+            methods.add((JavaMethod) member);
+        }
+
+        return new MethodVisitor(ASM5) {
+            @Override
+            public AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
+                return BinaryJavaAnnotation.addAnnotation(member.annotations, desc, context);
+            }
+
+            @Override
+            public AnnotationVisitor visitParameterAnnotation(int parameter, @NotNull String desc, boolean visible) {
+                return member.visitParameterAnnotation(parameter, desc);
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotationDefault() {
+                if (member instanceof BinaryJavaMethod) {
+                    ((BinaryJavaMethod) member).setHasAnnotationParameterDefaultValue();
+                }
+                return null;
+            }
+        };
+    }
+
+    @NotNull
+    /* package */ ClassifierResolutionContext getContext() {
+        return context;
+    }
+
+    /* package */ boolean isNested() {
+        return classId.isNestedClass();
+    }
+
+    @NotNull
+    public VirtualFile getVirtualFile() {
+        return virtualFile;
+    }
+
+    @NotNull
+    @Override
+    public Name getName() {
+        return classId.getRelativeClassName().shortName();
+    }
+
+    @Nullable
+    @Override
+    public FqName getFqName() {
+        return classId.asSingleFqName().toSafe();
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaClass> getInnerClasses() {
+        if (innerClassNames.isEmpty()) return Collections.emptyList();
+
+        List<JavaClass> result = new ArrayList<JavaClass>(innerClassNames.size());
+        for (Name name : innerClassNames) {
+            JavaClass innerClass = context.resolveClass(classId.createNestedClassId(name));
+            if (innerClass != null) {
+                result.add(innerClass);
+            }
+        }
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public JavaClass getOuterClass() {
+        return classId.isNestedClass() ? context.resolveClass(classId.getOuterClassId()) : null;
+    }
+
+    @Override
+    public boolean isInterface() {
+        return (access & ACC_INTERFACE) != 0;
+    }
+
+    @Override
+    public boolean isAnnotationType() {
+        return (access & ACC_ANNOTATION) != 0;
+    }
+
+    @Override
+    public boolean isEnum() {
+        return (access & ACC_ENUM) != 0;
+    }
+
+    @NotNull
+    @Override
+    public List<JavaTypeParameter> getTypeParameters() {
+        if (typeParameters == null) {
+            typeParameters = signature == null
+                             ? Collections.<JavaTypeParameter>emptyList()
+                             : new BinarySignatureParser(signature, context, this).parseTypeParameters(this);
+        }
+        return typeParameters;
+    }
+
+    @Nullable
+    @Override
+    public JavaTypeParameter findTypeParameter(@NotNull String name) {
+        for (JavaTypeParameter typeParameter : getTypeParameters()) {
+            if (typeParameter.getName().asString().equals(name)) return typeParameter;
+        }
+
+        JavaClass outerClass = getOuterClass();
+        if (outerClass instanceof TypeParameterScope) {
+            return ((TypeParameterScope) outerClass).findTypeParameter(name);
+        }
+        else if (outerClass != null) {
+            for (JavaTypeParameter typeParameter : outerClass.getTypeParameters()) {
+                if (typeParameter.getName().asString().equals(name)) return typeParameter;
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaClassifierType> getSupertypes() {
+        if (supertypes == null) {
+            supertypes = computeSupertypes();
+        }
+        return supertypes;
+    }
+
+    // Same as PSI of compiled classes: java.lang.Object has no supertypes, interfaces have java.lang.Object if they extend nothing,
+    // and annotation types don't have java.lang.annotation.Annotation as a supertype
+    @NotNull
+    private Collection<JavaClassifierType> computeSupertypes() {
+        if (JAVA_LANG_OBJECT.equals(internalName)) return Collections.emptyList();
+
+        JavaClassifierType superclass = null;
+        List<JavaClassifierType> superinterfaces = new ArrayList<JavaClassifierType>(interfaces.length);
+        if (signature != null) {
+            BinarySignatureParser parser = new BinarySignatureParser(signature, context, this);
+            parser.skipTypeParameters();
+            superclass = (JavaClassifierType) parser.parseType();
+            while (parser.hasMore()) {
+                superinterfaces.add((JavaClassifierType) parser.parseType());
+            }
+        }
+        else {
+            if (superName != null) {
+                superclass = createClassType(superName);
+            }
+            for (String superinterface : interfaces) {
+                superinterfaces.add(createClassType(superinterface));
+            }
+        }
+
+        List<JavaClassifierType> result = new ArrayList<JavaClassifierType>(superinterfaces.size() + 1);
+        if (isInterface()) {
+            for (int i = 0; i < superinterfaces.size(); i++) {
+                if (isAnnotationType() && JAVA_LANG_ANNOTATION_ANNOTATION.equals(interfaces[i])) continue;
+                result.add(superinterfaces.get(i));
+            }
+            if (result.isEmpty()) {
+                result.add(createClassType(JAVA_LANG_OBJECT));
+            }
+        }
+        else {
+            if (superclass != null) {
+                result.add(superclass);
+            }
+            result.addAll(superinterfaces);
+        }
+        return result;
+    }
+
+    @NotNull
+    private JavaClassifierType createClassType(@NotNull String internalName) {
+        return BinaryJavaClassifierType.createClassType(context, internalName, Collections.<JavaType>emptyList(), null);
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaMethod> getMethods() {
+        return methods;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaField> getFields() {
+        return fields;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaConstructor> getConstructors() {
+        return constructors;
+    }
+
+    @NotNull
+    @Override
+    public JavaClassifierType getDefaultType() {
+        if (defaultType == null) {
+            Map<JavaTypeParameter, JavaType> substitutionMap = new HashMap<JavaTypeParameter, JavaType>();
+            for (JavaClass javaClass = this; javaClass != null; javaClass = javaClass.isStatic() ? null : javaClass.getOuterClass()) {
+                for (JavaTypeParameter typeParameter : javaClass.getTypeParameters()) {
+                    substitutionMap.put(typeParameter, typeParameter.getType());
+                }
+            }
+            defaultType = createImmediateType(new JavaTypeSubstitutorImpl(substitutionMap));
+        }
+        return defaultType;
+    }
+
+    @NotNull
+    @Override
+    public OriginKind getOriginKind() {
+        return OriginKind.COMPILED;
+    }
+
+    @NotNull
+    @Override
+    public JavaClassifierType createImmediateType(@NotNull JavaTypeSubstitutor substitutor) {
+        List<JavaTypeParameter> typeParameters = getTypeParameters();
+        List<JavaType> typeArguments = new ArrayList<JavaType>(typeParameters.size());
+        for (JavaTypeParameter typeParameter : typeParameters) {
+            JavaType argument = substitutor.substitute(typeParameter);
+            if (argument == null) {
+                // Raw type
+                typeArguments = Collections.emptyList();
+                break;
+            }
+            typeArguments.add(argument);
+        }
+        return BinaryJavaClassifierType.createImmediateType(this, internalName, typeArguments, substitutor);
+    }
+
+    @Override
+    public boolean isAbstract() {
+        return BinaryJavaElementUtil.isAbstract(access);
+    }
+
+    @Override
+    public boolean isStatic() {
+        return BinaryJavaElementUtil.isStatic(access);
+    }
+
+    @Override
+    public boolean isFinal() {
+        return BinaryJavaElementUtil.isFinal(access);
+    }
+
+    @NotNull
+    @Override
+    public Visibility getVisibility() {
+        return BinaryJavaElementUtil.getVisibility(access);
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaAnnotation> getAnnotations() {
+        return annotations;
+    }
+
+    @Nullable
+    @Override
+    public JavaAnnotation findAnnotation(@NotNull FqName fqName) {
+        return BinaryJavaElementUtil.findAnnotation(annotations, fqName);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + classId;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.structure.*;
+import org.jetbrains.kotlin.load.java.structure.impl.JavaTypeSubstitutorImpl;
+
+import java.util.*;
+
+/**
+ * A class type read from a signature or a descriptor, a type variable, or an immediate type of a {@link BinaryJavaClass}.
+ *
+ * Class types are identified by JVM internal names and are resolved to classifiers lazily, type arguments of outer classes
+ * are kept in {@link #outerType} the same way as they are written in generic signatures.
+ */
+public class BinaryJavaClassifierType extends BinaryJavaType implements JavaClassifierType {
+    private final ClassifierResolutionContext context;
+    // JVM internal name for class types, type parameter for type variables
+    private final Object key;
+    private final List<JavaType> typeArguments;
+    private final BinaryJavaClassifierType outerType;
+
+    private boolean classifierResolved;
+    private JavaClassifier classifier;
+    private JavaTypeSubstitutor substitutor;
+
+    private BinaryJavaClassifierType(
+            @Nullable ClassifierResolutionContext context,
+            @NotNull Object key,
+            @NotNull List<JavaType> typeArguments,
+            @Nullable BinaryJavaClassifierType outerType
+    ) {
+        this.context = context;
+        this.key = key;
+        this.typeArguments = typeArguments;
+        this.outerType = outerType;
+    }
+
+    @NotNull
+    /* package */ static BinaryJavaClassifierType createClassType(
+            @NotNull ClassifierResolutionContext context,
+            @NotNull String internalName,
+            @NotNull List<JavaType> typeArguments,
+            @Nullable BinaryJavaClassifierType outerType
+    ) {
+        return new BinaryJavaClassifierType(context, internalName, typeArguments, outerType);
+    }
+
+    @NotNull
+    /* package */ static BinaryJavaClassifierType createTypeVariableType(@NotNull JavaTypeParameter typeParameter) {
+        BinaryJavaClassifierType type =
+                new BinaryJavaClassifierType(null, typeParameter, Collections.<JavaType>emptyList(), null);
+        type.classifierResolved = true;
+        type.classifier = typeParameter;
+        return type;
+    }
+
+    @NotNull
+    /* package */ static BinaryJavaClassifierType createImmediateType(
+            @NotNull BinaryJavaClass javaClass,
+            @NotNull String internalName,
+            @NotNull List<JavaType> typeArguments,
+            @NotNull JavaTypeSubstitutor substitutor
+    ) {
+        BinaryJavaClassifierType type = new BinaryJavaClassifierType(null, internalName, typeArguments, null);
+        type.classifierResolved = true;
+        type.classifier = javaClass;
+        type.substitutor = substitutor;
+        return type;
+    }
+
+    @Nullable
+    @Override
+    public JavaClassifier getClassifier() {
+        if (!classifierResolved) {
+            assert context != null : "Class type should have a resolution context: " + this;
+            classifier = context.resolveClass((String) key);
+            classifierResolved = true;
+        }
+        return classifier;
+    }
+
+    @NotNull
+    @Override
+    public JavaTypeSubstitutor getSubstitutor() {
+        if (substitutor == null) {
+            substitutor = new JavaTypeSubstitutorImpl(computeSubstitutionMap());
+        }
+        return substitutor;
+    }
+
+    @NotNull
+    private Map<JavaTypeParameter, JavaType> computeSubstitutionMap() {
+        JavaClassifier classifier = getClassifier();
+        if (!(classifier instanceof JavaClass)) return Collections.emptyMap();
+
+        Map<JavaTypeParameter, JavaType> result = new HashMap<JavaTypeParameter, JavaType>();
+        JavaClass javaClass = (JavaClass) classifier;
+        BinaryJavaClassifierType type = this;
+        while (javaClass != null) {
+            List<JavaTypeParameter> typeParameters = javaClass.getTypeParameters();
+            List<JavaType> arguments = type != null ? type.typeArguments : Collections.<JavaType>emptyList();
+            // Raw types substitute nulls for type parameters, as PSI does
+            boolean isRaw = arguments.size() != typeParameters.size();
+            for (int i = 0; i < typeParameters.size(); i++) {
+                result.put(typeParameters.get(i), isRaw ? null : arguments.get(i));
+            }
+
+            if (javaClass.isStatic()) break;
+
+            javaClass = javaClass.getOuterClass();
+            type = type != null ? type.outerType : null;
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaClassifierType> getSupertypes() {
+        JavaClassifier classifier = getClassifier();
+        if (!(classifier instanceof JavaClass)) return Collections.emptyList();
+
+        JavaClass javaClass = (JavaClass) classifier;
+        Collection<JavaClassifierType> supertypes = javaClass.getSupertypes();
+
+        // Supertypes of classes loaded from PSI are substituted too, types read from class files are converted to PSI there
+        JavaTypeSubstitutor substitutor = getSubstitutor();
+        List<JavaClassifierType> result = new ArrayList<JavaClassifierType>(supertypes.size());
+        for (JavaClassifierType supertype : supertypes) {
+            JavaType substituted = substitutor.substitute(supertype);
+            result.add(substituted instanceof JavaClassifierType ? (JavaClassifierType) substituted : supertype);
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public String getPresentableText() {
+        StringBuilder builder = new StringBuilder();
+        if (key instanceof String) {
+            String internalName = (String) key;
+            builder.append(internalName.substring(internalName.lastIndexOf('/') + 1).replace('$', '.'));
+        }
+        else {
+            builder.append(((JavaTypeParameter) key).getName().asString());
+        }
+
+        if (!typeArguments.isEmpty()) {
+            builder.append('<');
+            for (Iterator<JavaType> iterator = typeArguments.iterator(); iterator.hasNext(); ) {
+                JavaType argument = iterator.next();
+                builder.append(argument instanceof JavaClassifierType ? ((JavaClassifierType) argument).getPresentableText() : argument);
+                if (iterator.hasNext()) builder.append(", ");
+            }
+            builder.append('>');
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean isRaw() {
+        if (!typeArguments.isEmpty()) return false;
+        JavaClassifier classifier = getClassifier();
+        return classifier instanceof JavaClass && !((JavaClass) classifier).getTypeParameters().isEmpty();
+    }
+
+    @NotNull
+    @Override
+    public List<JavaType> getTypeArguments() {
+        return typeArguments;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BinaryJavaClassifierType)) return false;
+
+        BinaryJavaClassifierType other = (BinaryJavaClassifierType) o;
+        return key.equals(other.key) &&
+               typeArguments.equals(other.typeArguments) &&
+               (outerType == null ? other.outerType == null : outerType.equals(other.outerType));
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode() * 31 + typeArguments.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getPresentableText();
+    }
+}
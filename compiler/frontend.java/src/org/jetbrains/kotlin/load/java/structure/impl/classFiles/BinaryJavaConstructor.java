@@ -0,0 +1,44 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.structure.JavaConstructor;
+import org.jetbrains.kotlin.name.Name;
+
+public class BinaryJavaConstructor extends BinaryJavaMethodBase implements JavaConstructor {
+    /* package */ BinaryJavaConstructor(
+            @NotNull BinaryJavaClass containingClass,
+            @NotNull Name name,
+            int access,
+            @NotNull String desc,
+            @Nullable String signature
+    ) {
+        super(containingClass, name, access, desc, signature);
+    }
+
+    @Override
+    protected int getSyntheticParameterCount() {
+        // Name and ordinal of enum entries, and the outer instance of inner classes
+        BinaryJavaClass containingClass = getBinaryContainingClass();
+        if (containingClass.isEnum()) return 2;
+        if (!containingClass.isStatic() && containingClass.isNested()) return 1;
+        return 0;
+    }
+}
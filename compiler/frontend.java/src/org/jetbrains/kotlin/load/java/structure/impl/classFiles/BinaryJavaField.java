@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.structure.JavaField;
+import org.jetbrains.kotlin.load.java.structure.JavaType;
+import org.jetbrains.kotlin.name.Name;
+
+import static org.jetbrains.org.objectweb.asm.Opcodes.ACC_ENUM;
+
+public class BinaryJavaField extends BinaryJavaMember implements JavaField {
+    private final String desc;
+    private final String signature;
+    private final Object constantValue;
+
+    private JavaType type;
+
+    /* package */ BinaryJavaField(
+            @NotNull BinaryJavaClass containingClass,
+            @NotNull Name name,
+            int access,
+            @NotNull String desc,
+            @Nullable String signature,
+            @Nullable Object constantValue
+    ) {
+        super(containingClass, name, access);
+        this.desc = desc;
+        this.signature = signature;
+        this.constantValue = constantValue;
+    }
+
+    @Override
+    public boolean isEnumEntry() {
+        return (getAccess() & ACC_ENUM) != 0;
+    }
+
+    @NotNull
+    @Override
+    public JavaType getType() {
+        if (type == null) {
+            BinaryJavaClass containingClass = getBinaryContainingClass();
+            type = new BinarySignatureParser(signature != null ? signature : desc, containingClass.getContext(), containingClass)
+                    .parseType();
+        }
+        return type;
+    }
+
+    /**
+     * @return the value of the ConstantValue attribute of this field converted to the type of the field,
+     * since booleans, chars, bytes and shorts are stored as ints there
+     */
+    @Nullable
+    public Object getConstantValue() {
+        if (!(constantValue instanceof Integer)) return constantValue;
+
+        int value = (Integer) constantValue;
+        switch (desc.charAt(0)) {
+            case 'Z':
+                return value != 0;
+            case 'C':
+                return (char) value;
+            case 'B':
+                return (byte) value;
+            case 'S':
+                return (short) value;
+            default:
+                return constantValue;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.descriptors.Visibility;
+import org.jetbrains.kotlin.load.java.structure.JavaAnnotation;
+import org.jetbrains.kotlin.load.java.structure.JavaClass;
+import org.jetbrains.kotlin.load.java.structure.JavaMember;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.name.Name;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public abstract class BinaryJavaMember implements JavaMember {
+    private final BinaryJavaClass containingClass;
+    private final Name name;
+    private final int access;
+
+    // Filled by BinaryJavaClass while the class file is read
+    /* package */ final List<JavaAnnotation> annotations = new ArrayList<JavaAnnotation>(0);
+
+    protected BinaryJavaMember(@NotNull BinaryJavaClass containingClass, @NotNull Name name, int access) {
+        this.containingClass = containingClass;
+        this.name = name;
+        this.access = access;
+    }
+
+    protected int getAccess() {
+        return access;
+    }
+
+    @NotNull
+    protected BinaryJavaClass getBinaryContainingClass() {
+        return containingClass;
+    }
+
+    @NotNull
+    @Override
+    public JavaClass getContainingClass() {
+        return containingClass;
+    }
+
+    @NotNull
+    @Override
+    public Name getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isAbstract() {
+        return BinaryJavaElementUtil.isAbstract(access);
+    }
+
+    @Override
+    public boolean isStatic() {
+        return BinaryJavaElementUtil.isStatic(access);
+    }
+
+    @Override
+    public boolean isFinal() {
+        return BinaryJavaElementUtil.isFinal(access);
+    }
+
+    @NotNull
+    @Override
+    public Visibility getVisibility() {
+        return BinaryJavaElementUtil.getVisibility(access);
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaAnnotation> getAnnotations() {
+        return annotations;
+    }
+
+    @Nullable
+    @Override
+    public JavaAnnotation findAnnotation(@NotNull FqName fqName) {
+        return BinaryJavaElementUtil.findAnnotation(annotations, fqName);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + containingClass + "." + name;
+    }
+}
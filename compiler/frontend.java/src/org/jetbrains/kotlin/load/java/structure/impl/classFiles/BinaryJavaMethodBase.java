@@ -0,0 +1,149 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.structure.*;
+import org.jetbrains.kotlin.name.Name;
+import org.jetbrains.org.objectweb.asm.AnnotationVisitor;
+import org.jetbrains.org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.jetbrains.org.objectweb.asm.Opcodes.ACC_VARARGS;
+
+/**
+ * Common part of methods and constructors: the signature is parsed on the first request of type parameters or value parameters
+ */
+public abstract class BinaryJavaMethodBase extends BinaryJavaMember implements JavaTypeParameterListOwner, TypeParameterScope {
+    private final String desc;
+    private final String signature;
+
+    // Annotations of parameters by their index in the method descriptor, which includes synthetic parameters
+    private List<List<JavaAnnotation>> parameterAnnotations;
+
+    private List<JavaTypeParameter> typeParameters;
+    private List<JavaValueParameter> valueParameters;
+    private JavaType returnType;
+
+    protected BinaryJavaMethodBase(
+            @NotNull BinaryJavaClass containingClass,
+            @NotNull Name name,
+            int access,
+            @NotNull String desc,
+            @Nullable String signature
+    ) {
+        super(containingClass, name, access);
+        this.desc = desc;
+        this.signature = signature;
+    }
+
+    /**
+     * @return the number of leading parameters of the descriptor which are not declared in the source code,
+     * in case there's no generic signature which omits them
+     */
+    protected int getSyntheticParameterCount() {
+        return 0;
+    }
+
+    @Nullable
+    /* package */ AnnotationVisitor visitParameterAnnotation(int parameter, @NotNull String annotationDesc) {
+        if (parameterAnnotations == null) {
+            int count = Type.getArgumentTypes(desc).length;
+            parameterAnnotations = new ArrayList<List<JavaAnnotation>>(count);
+            for (int i = 0; i < count; i++) {
+                parameterAnnotations.add(new ArrayList<JavaAnnotation>(0));
+            }
+        }
+        return BinaryJavaAnnotation.addAnnotation(parameterAnnotations.get(parameter), annotationDesc, getBinaryContainingClass().getContext());
+    }
+
+    @NotNull
+    private BinarySignatureParser createSignatureParser() {
+        return new BinarySignatureParser(signature != null ? signature : desc, getBinaryContainingClass().getContext(), this);
+    }
+
+    @NotNull
+    @Override
+    public List<JavaTypeParameter> getTypeParameters() {
+        if (typeParameters == null) {
+            typeParameters = signature == null
+                             ? Collections.<JavaTypeParameter>emptyList()
+                             : createSignatureParser().parseTypeParameters(this);
+        }
+        return typeParameters;
+    }
+
+    @Nullable
+    @Override
+    public JavaTypeParameter findTypeParameter(@NotNull String name) {
+        for (JavaTypeParameter typeParameter : getTypeParameters()) {
+            if (typeParameter.getName().asString().equals(name)) return typeParameter;
+        }
+        return getBinaryContainingClass().findTypeParameter(name);
+    }
+
+    @NotNull
+    public List<JavaValueParameter> getValueParameters() {
+        if (valueParameters == null) {
+            parseParametersAndReturnType();
+        }
+        return valueParameters;
+    }
+
+    @NotNull
+    protected JavaType getParsedReturnType() {
+        if (returnType == null) {
+            parseParametersAndReturnType();
+        }
+        return returnType;
+    }
+
+    private void parseParametersAndReturnType() {
+        BinarySignatureParser parser = createSignatureParser();
+        parser.skipTypeParameters();
+
+        List<JavaType> types = new ArrayList<JavaType>();
+        parser.expect('(');
+        while (!parser.tryConsume(')')) {
+            types.add(parser.parseType());
+        }
+        returnType = parser.parseType();
+
+        int shift;
+        if (signature != null) {
+            shift = Type.getArgumentTypes(desc).length - types.size();
+        }
+        else {
+            shift = getSyntheticParameterCount();
+            types = types.subList(shift, types.size());
+        }
+
+        boolean isVarargs = (getAccess() & ACC_VARARGS) != 0;
+        List<JavaValueParameter> result = new ArrayList<JavaValueParameter>(types.size());
+        for (int i = 0; i < types.size(); i++) {
+            List<JavaAnnotation> annotations =
+                    parameterAnnotations != null ? parameterAnnotations.get(i + shift) : Collections.<JavaAnnotation>emptyList();
+            result.add(new BinaryJavaValueParameter(types.get(i), annotations, isVarargs && i == types.size() - 1));
+        }
+        valueParameters = result;
+    }
+}
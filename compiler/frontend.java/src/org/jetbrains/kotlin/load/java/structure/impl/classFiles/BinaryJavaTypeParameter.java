@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.structure.*;
+import org.jetbrains.kotlin.name.Name;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bounds are kept as signatures and are parsed on the first request, when all type parameters of the owner and of its
+ * enclosing scopes are known, so that bounds may refer to any of them
+ */
+public class BinaryJavaTypeParameter implements JavaTypeParameter {
+    private static final String JAVA_LANG_OBJECT_SIGNATURE = "Ljava/lang/Object;";
+
+    private final Name name;
+    private final int index;
+    private final JavaTypeParameterListOwner owner;
+    private final List<String> boundSignatures;
+    private final ClassifierResolutionContext context;
+    private final TypeParameterScope scope;
+
+    private Collection<JavaClassifierType> upperBounds;
+    private JavaType type;
+
+    /* package */ BinaryJavaTypeParameter(
+            @NotNull Name name,
+            int index,
+            @NotNull JavaTypeParameterListOwner owner,
+            @NotNull List<String> boundSignatures,
+            @NotNull ClassifierResolutionContext context,
+            @NotNull TypeParameterScope scope
+    ) {
+        this.name = name;
+        this.index = index;
+        this.owner = owner;
+        this.boundSignatures = boundSignatures;
+        this.context = context;
+        this.scope = scope;
+    }
+
+    @NotNull
+    @Override
+    public Name getName() {
+        return name;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaClassifierType> getUpperBounds() {
+        if (upperBounds == null) {
+            List<JavaClassifierType> result = new ArrayList<JavaClassifierType>(boundSignatures.size());
+            for (String signature : boundSignatures) {
+                // Like PSI of compiled classes, implicit java.lang.Object bounds are not included
+                if (JAVA_LANG_OBJECT_SIGNATURE.equals(signature)) continue;
+
+                JavaType bound = new BinarySignatureParser(signature, context, scope).parseType();
+                if (bound instanceof JavaClassifierType) {
+                    result.add((JavaClassifierType) bound);
+                }
+            }
+            upperBounds = result;
+        }
+        return upperBounds;
+    }
+
+    @Nullable
+    @Override
+    public JavaTypeParameterListOwner getOwner() {
+        return owner;
+    }
+
+    @NotNull
+    @Override
+    public JavaType getType() {
+        if (type == null) {
+            type = BinaryJavaClassifierType.createTypeVariableType(this);
+        }
+        return type;
+    }
+
+    @NotNull
+    @Override
+    public JavaTypeProvider getTypeProvider() {
+        return new BinaryJavaTypeProvider(context);
+    }
+
+    @Override
+    public String toString() {
+        return name.asString();
+    }
+}
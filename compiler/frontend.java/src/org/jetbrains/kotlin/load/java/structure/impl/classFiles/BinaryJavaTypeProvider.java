@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.load.java.structure.JavaType;
+import org.jetbrains.kotlin.load.java.structure.JavaTypeProvider;
+import org.jetbrains.kotlin.load.java.structure.JavaWildcardType;
+
+import java.util.Collections;
+
+public class BinaryJavaTypeProvider implements JavaTypeProvider {
+    private final ClassifierResolutionContext context;
+
+    /* package */ BinaryJavaTypeProvider(@NotNull ClassifierResolutionContext context) {
+        this.context = context;
+    }
+
+    @NotNull
+    @Override
+    public JavaType createJavaLangObjectType() {
+        return BinaryJavaClassifierType.createClassType(context, "java/lang/Object", Collections.<JavaType>emptyList(), null);
+    }
+
+    @NotNull
+    @Override
+    public JavaWildcardType createUpperBoundWildcard(@NotNull JavaType bound) {
+        return new BinaryJavaWildcardType(bound, true, context);
+    }
+
+    @NotNull
+    @Override
+    public JavaWildcardType createLowerBoundWildcard(@NotNull JavaType bound) {
+        return new BinaryJavaWildcardType(bound, false, context);
+    }
+
+    @NotNull
+    @Override
+    public JavaWildcardType createUnboundedWildcard() {
+        return new BinaryJavaWildcardType(null, false, context);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.structure.JavaAnnotation;
+import org.jetbrains.kotlin.load.java.structure.JavaType;
+import org.jetbrains.kotlin.load.java.structure.JavaValueParameter;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.name.Name;
+
+import java.util.Collection;
+
+/**
+ * Parameter names are not available in class files unless they are compiled with debug information,
+ * so like PSI of compiled classes with auto-generated names, binary parameters have no names
+ */
+public class BinaryJavaValueParameter implements JavaValueParameter {
+    private final JavaType type;
+    private final Collection<JavaAnnotation> annotations;
+    private final boolean isVararg;
+
+    /* package */ BinaryJavaValueParameter(@NotNull JavaType type, @NotNull Collection<JavaAnnotation> annotations, boolean isVararg) {
+        this.type = type;
+        this.annotations = annotations;
+        this.isVararg = isVararg;
+    }
+
+    @Nullable
+    @Override
+    public Name getName() {
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public JavaType getType() {
+        return type;
+    }
+
+    @Override
+    public boolean isVararg() {
+        return isVararg;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaAnnotation> getAnnotations() {
+        return annotations;
+    }
+
+    @Nullable
+    @Override
+    public JavaAnnotation findAnnotation(@NotNull FqName fqName) {
+        return BinaryJavaElementUtil.findAnnotation(annotations, fqName);
+    }
+}
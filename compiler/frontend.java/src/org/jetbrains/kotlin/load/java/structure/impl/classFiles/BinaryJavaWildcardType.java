@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.structure.JavaType;
+import org.jetbrains.kotlin.load.java.structure.JavaTypeProvider;
+import org.jetbrains.kotlin.load.java.structure.JavaWildcardType;
+
+public class BinaryJavaWildcardType extends BinaryJavaType implements JavaWildcardType {
+    private final JavaType bound;
+    private final boolean isExtends;
+    private final ClassifierResolutionContext context;
+
+    /* package */ BinaryJavaWildcardType(@Nullable JavaType bound, boolean isExtends, @NotNull ClassifierResolutionContext context) {
+        this.bound = bound;
+        this.isExtends = isExtends;
+        this.context = context;
+    }
+
+    @Nullable
+    @Override
+    public JavaType getBound() {
+        return bound;
+    }
+
+    @Override
+    public boolean isExtends() {
+        return isExtends;
+    }
+
+    @NotNull
+    @Override
+    public JavaTypeProvider getTypeProvider() {
+        return new BinaryJavaTypeProvider(context);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BinaryJavaWildcardType)) return false;
+        BinaryJavaWildcardType other = (BinaryJavaWildcardType) o;
+        return isExtends == other.isExtends && (bound == null ? other.bound == null : bound.equals(other.bound));
+    }
+
+    @Override
+    public int hashCode() {
+        return (bound == null ? 0 : bound.hashCode()) * 31 + (isExtends ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        if (bound == null) return "?";
+        return (isExtends ? "? extends " : "? super ") + bound;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.structure.JavaType;
+import org.jetbrains.kotlin.load.java.structure.JavaTypeParameter;
+import org.jetbrains.kotlin.load.java.structure.JavaTypeParameterListOwner;
+import org.jetbrains.kotlin.name.Name;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses generic signatures (JVMS 4.7.9.1) and descriptors, which are their subset, to Java types.
+ *
+ * Class types are not resolved here, they keep JVM internal names which are resolved on request, see {@link BinaryJavaClassifierType}.
+ * Type variables are looked up in the given scope right away.
+ */
+/* package */ class BinarySignatureParser {
+    private final String signature;
+    private final ClassifierResolutionContext context;
+    private final TypeParameterScope scope;
+    private int position;
+
+    public BinarySignatureParser(
+            @NotNull String signature,
+            @NotNull ClassifierResolutionContext context,
+            @Nullable TypeParameterScope scope
+    ) {
+        this.signature = signature;
+        this.context = context;
+        this.scope = scope;
+    }
+
+    public boolean hasMore() {
+        return position < signature.length();
+    }
+
+    private char current() {
+        return signature.charAt(position);
+    }
+
+    public void expect(char c) {
+        if (current() != c) {
+            throw new IllegalStateException("'" + c + "' expected at " + position + " in " + signature);
+        }
+        position++;
+    }
+
+    public boolean tryConsume(char c) {
+        if (hasMore() && current() == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    @NotNull
+    public List<JavaTypeParameter> parseTypeParameters(@NotNull JavaTypeParameterListOwner owner) {
+        if (!tryConsume('<')) return Collections.emptyList();
+
+        List<JavaTypeParameter> result = new ArrayList<JavaTypeParameter>(1);
+        while (!tryConsume('>')) {
+            int colon = signature.indexOf(':', position);
+            Name name = Name.identifier(signature.substring(position, colon));
+            position = colon;
+
+            List<String> boundSignatures = new ArrayList<String>(1);
+            while (tryConsume(':')) {
+                // The class bound is empty if there are only interface bounds
+                if (current() == ':') continue;
+
+                int start = position;
+                skipType();
+                boundSignatures.add(signature.substring(start, position));
+            }
+
+            assert scope != null : "Type parameters can't be declared without a scope: " + signature;
+            result.add(new BinaryJavaTypeParameter(name, result.size(), owner, boundSignatures, context, scope));
+        }
+        return result;
+    }
+
+    public void skipTypeParameters() {
+        if (!tryConsume('<')) return;
+
+        int depth = 1;
+        while (depth > 0) {
+            char c = signature.charAt(position++);
+            if (c == '<') depth++;
+            else if (c == '>') depth--;
+        }
+    }
+
+    private void skipType() {
+        char c = signature.charAt(position++);
+        if (c == '[') {
+            skipType();
+        }
+        else if (c == 'T') {
+            position = signature.indexOf(';', position) + 1;
+        }
+        else if (c == 'L') {
+            int depth = 0;
+            while (true) {
+                c = signature.charAt(position++);
+                if (c == '<') depth++;
+                else if (c == '>') depth--;
+                else if (c == ';' && depth == 0) break;
+            }
+        }
+    }
+
+    @NotNull
+    public JavaType parseType() {
+        char c = signature.charAt(position++);
+        switch (c) {
+            case 'L':
+                return parseClassType();
+            case 'T': {
+                int end = signature.indexOf(';', position);
+                String name = signature.substring(position, end);
+                position = end + 1;
+                JavaTypeParameter typeParameter = scope != null ? scope.findTypeParameter(name) : null;
+                return typeParameter != null ? typeParameter.getType() : new BinaryJavaTypeProvider(context).createJavaLangObjectType();
+            }
+            case '[':
+                return parseType().createArrayType();
+            case 'B':
+                return new BinaryJavaPrimitiveType("byte");
+            case 'C':
+                return new BinaryJavaPrimitiveType("char");
+            case 'D':
+                return new BinaryJavaPrimitiveType("double");
+            case 'F':
+                return new BinaryJavaPrimitiveType("float");
+            case 'I':
+                return new BinaryJavaPrimitiveType("int");
+            case 'J':
+                return new BinaryJavaPrimitiveType("long");
+            case 'S':
+                return new BinaryJavaPrimitiveType("short");
+            case 'Z':
+                return new BinaryJavaPrimitiveType("boolean");
+            case 'V':
+                return new BinaryJavaPrimitiveType("void");
+            default:
+                throw new IllegalStateException("Unexpected '" + c + "' at " + (position - 1) + " in " + signature);
+        }
+    }
+
+    @NotNull
+    private BinaryJavaClassifierType parseClassType() {
+        // Lpackage/Outer<TypeArguments>.Inner<TypeArguments>; where the inner class is named package/Outer$Inner
+        BinaryJavaClassifierType result = null;
+        String internalName = null;
+        int start = position;
+        while (true) {
+            char c = current();
+            if (c != '<' && c != '.' && c != ';') {
+                position++;
+                continue;
+            }
+
+            String segment = signature.substring(start, position);
+            internalName = internalName == null ? segment : internalName + "$" + segment;
+            List<JavaType> typeArguments = c == '<' ? parseTypeArguments() : Collections.<JavaType>emptyList();
+            result = BinaryJavaClassifierType.createClassType(context, internalName, typeArguments, result);
+
+            if (tryConsume(';')) return result;
+            expect('.');
+            start = position;
+        }
+    }
+
+    @NotNull
+    private List<JavaType> parseTypeArguments() {
+        expect('<');
+        List<JavaType> result = new ArrayList<JavaType>(2);
+        while (!tryConsume('>')) {
+            if (tryConsume('*')) {
+                result.add(new BinaryJavaWildcardType(null, false, context));
+            }
+            else if (tryConsume('+')) {
+                result.add(new BinaryJavaWildcardType(parseType(), true, context));
+            }
+            else if (tryConsume('-')) {
+                result.add(new BinaryJavaWildcardType(parseType(), false, context));
+            }
+            else {
+                result.add(parseType());
+            }
+        }
+        return result;
+    }
+}
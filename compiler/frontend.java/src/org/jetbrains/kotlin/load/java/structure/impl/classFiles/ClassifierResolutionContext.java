@@ -0,0 +1,82 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.load.java.structure.impl.classFiles;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.load.java.JavaClassFinder;
+import org.jetbrains.kotlin.load.java.structure.JavaClass;
+import org.jetbrains.kotlin.name.ClassId;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.name.Name;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps JVM internal names of classes referenced from a class file to class ids, with the help of the InnerClasses attribute
+ * of this class file, and resolves them with the class finder
+ */
+/* package */ class ClassifierResolutionContext {
+    private static class OuterAndInnerName {
+        public final String outerInternalName;
+        public final String innerSimpleName;
+
+        private OuterAndInnerName(@NotNull String outerInternalName, @NotNull String innerSimpleName) {
+            this.outerInternalName = outerInternalName;
+            this.innerSimpleName = innerSimpleName;
+        }
+    }
+
+    private final JavaClassFinder classFinder;
+    private final Map<String, OuterAndInnerName> innerClasses = new HashMap<String, OuterAndInnerName>();
+
+    public ClassifierResolutionContext(@NotNull JavaClassFinder classFinder) {
+        this.classFinder = classFinder;
+    }
+
+    public void addInnerClass(@NotNull String internalName, @Nullable String outerInternalName, @Nullable String innerSimpleName) {
+        // Local and anonymous classes can't be referenced from signatures of members
+        if (outerInternalName == null || innerSimpleName == null) return;
+
+        innerClasses.put(internalName, new OuterAndInnerName(outerInternalName, innerSimpleName));
+    }
+
+    @NotNull
+    public ClassId mapInternalNameToClassId(@NotNull String internalName) {
+        OuterAndInnerName outerAndInner = innerClasses.get(internalName);
+        if (outerAndInner != null) {
+            return mapInternalNameToClassId(outerAndInner.outerInternalName)
+                    .createNestedClassId(Name.identifier(outerAndInner.innerSimpleName));
+        }
+
+        int lastSlash = internalName.lastIndexOf('/');
+        FqName packageFqName = lastSlash < 0 ? FqName.ROOT : new FqName(internalName.substring(0, lastSlash).replace('/', '.'));
+        return new ClassId(packageFqName, Name.identifier(internalName.substring(lastSlash + 1)));
+    }
+
+    @Nullable
+    public JavaClass resolveClass(@NotNull String internalName) {
+        return classFinder.findClass(mapInternalNameToClassId(internalName));
+    }
+
+    @Nullable
+    public JavaClass resolveClass(@NotNull ClassId classId) {
+        return classFinder.findClass(classId);
+    }
+}
@@ -16,7 +16,6 @@
 
 package org.jetbrains.kotlin.load.kotlin;
 
-import com.intellij.openapi.util.Ref;
 import kotlin.Function3;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -37,19 +36,24 @@ import java.util.*;
 import static org.jetbrains.org.objectweb.asm.ClassReader.*;
 import static org.jetbrains.org.objectweb.asm.Opcodes.ASM5;
 
+/**
+ * The class file is read once on creation: along with the header, class annotations and members with their annotations
+ * are recorded to {@link ClassFileData} and are replayed from there on {@link #loadClassAnnotations} and {@link #visitMembers}.
+ * Members are only recorded once the header is found
+ */
 public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
     private final ClassId classId;
     private final KotlinClassHeader classHeader;
-    private final InnerClassesInfo innerClasses;
+    private final ClassFileData data;
 
     protected FileBasedKotlinClass(
             @NotNull ClassId classId,
             @NotNull KotlinClassHeader classHeader,
-            @NotNull InnerClassesInfo innerClasses
+            @NotNull ClassFileData data
     ) {
         this.classId = classId;
         this.classHeader = classHeader;
-        this.innerClasses = innerClasses;
+        this.data = data;
     }
 
     private static class OuterAndInnerName {
@@ -78,6 +82,118 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
         }
     }
 
+    /**
+     * Annotation read from the class file, or an array argument of an annotation if desc is null
+     */
+    private static final class RecordedAnnotation extends org.jetbrains.org.objectweb.asm.AnnotationVisitor {
+        private final String desc;
+        private final int parameter;
+        // name, value for simple arguments; name, RecordedAnnotation for arrays; name, EnumValue for enums
+        private List<Object> arguments = null;
+
+        public RecordedAnnotation(@Nullable String desc, int parameter) {
+            super(ASM5);
+            this.desc = desc;
+            this.parameter = parameter;
+        }
+
+        private void addArgument(@Nullable String name, @NotNull Object value) {
+            if (arguments == null) {
+                arguments = new ArrayList<Object>(2);
+            }
+            arguments.add(name);
+            arguments.add(value);
+        }
+
+        @Override
+        public void visit(String name, @NotNull Object value) {
+            addArgument(name, value);
+        }
+
+        @Override
+        public void visitEnum(String name, @NotNull String desc, @NotNull String value) {
+            addArgument(name, new EnumValue(desc, value));
+        }
+
+        @Override
+        public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitArray(String name) {
+            RecordedAnnotation array = new RecordedAnnotation(null, -1);
+            addArgument(name, array);
+            return array;
+        }
+
+        public void accept(@NotNull org.jetbrains.org.objectweb.asm.AnnotationVisitor visitor) {
+            if (arguments != null) {
+                for (int i = 0; i < arguments.size(); i += 2) {
+                    String name = (String) arguments.get(i);
+                    Object value = arguments.get(i + 1);
+                    if (value instanceof RecordedAnnotation) {
+                        org.jetbrains.org.objectweb.asm.AnnotationVisitor arrayVisitor = visitor.visitArray(name);
+                        if (arrayVisitor != null) {
+                            ((RecordedAnnotation) value).accept(arrayVisitor);
+                        }
+                    }
+                    else if (value instanceof EnumValue) {
+                        visitor.visitEnum(name, ((EnumValue) value).desc, ((EnumValue) value).value);
+                    }
+                    else {
+                        visitor.visit(name, value);
+                    }
+                }
+            }
+            visitor.visitEnd();
+        }
+    }
+
+    private static final class EnumValue {
+        public final String desc;
+        public final String value;
+
+        private EnumValue(@NotNull String desc, @NotNull String value) {
+            this.desc = desc;
+            this.value = value;
+        }
+    }
+
+    private static final class RecordedMember {
+        public final boolean isMethod;
+        public final String name;
+        public final String desc;
+        public final Object initializer;
+        private List<RecordedAnnotation> annotations = null;
+
+        private RecordedMember(boolean isMethod, @NotNull String name, @NotNull String desc, @Nullable Object initializer) {
+            this.isMethod = isMethod;
+            this.name = name;
+            this.desc = desc;
+            this.initializer = initializer;
+        }
+
+        @NotNull
+        private RecordedAnnotation addAnnotation(@NotNull String desc, int parameter) {
+            if (annotations == null) {
+                annotations = new ArrayList<RecordedAnnotation>(1);
+            }
+            RecordedAnnotation annotation = new RecordedAnnotation(desc, parameter);
+            annotations.add(annotation);
+            return annotation;
+        }
+
+        @NotNull
+        public List<RecordedAnnotation> getAnnotations() {
+            return annotations == null ? Collections.<RecordedAnnotation>emptyList() : annotations;
+        }
+    }
+
+    protected static final class ClassFileData {
+        private final InnerClassesInfo innerClasses = new InnerClassesInfo();
+        private final List<RecordedAnnotation> classAnnotations = new ArrayList<RecordedAnnotation>(2);
+        private final List<RecordedMember> members = new ArrayList<RecordedMember>();
+
+        private ClassFileData() {
+        }
+    }
+
     @NotNull
     protected abstract byte[] getFileContents();
 
@@ -85,41 +201,98 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
     @Nullable
     public static <T extends FileBasedKotlinClass> T create(
             @NotNull byte[] fileContents,
-            @NotNull Function3<ClassId, KotlinClassHeader, InnerClassesInfo, T> factory
+            @NotNull Function3<ClassId, KotlinClassHeader, ClassFileData, T> factory
     ) {
-        final ReadKotlinClassHeaderAnnotationVisitor readHeaderVisitor = new ReadKotlinClassHeaderAnnotationVisitor();
-        final Ref<String> classNameRef = Ref.create();
-        final InnerClassesInfo innerClasses = new InnerClassesInfo();
-        new ClassReader(fileContents).accept(new ClassVisitor(ASM5) {
-            @Override
-            public void visit(int version, int access, @NotNull String name, String signature, String superName, String[] interfaces) {
-                classNameRef.set(name);
-            }
+        ClassFileDataRecorder recorder = new ClassFileDataRecorder();
+        new ClassReader(fileContents).accept(recorder, SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
 
-            @Override
-            public void visitInnerClass(@NotNull String name, String outerName, String innerName, int access) {
-                innerClasses.add(name, outerName, innerName);
-            }
+        String className = recorder.className;
+        if (className == null) return null;
 
-            @Override
-            public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
-                return convertAnnotationVisitor(readHeaderVisitor, desc, innerClasses);
-            }
+        KotlinClassHeader header = recorder.getHeader();
+        if (header == null) return null;
 
-            @Override
-            public void visitEnd() {
-                readHeaderVisitor.visitEnd();
+        ClassId id = resolveNameByInternalName(className, recorder.data.innerClasses);
+        return factory.invoke(id, header, recorder.data);
+    }
+
+    /**
+     * Class annotations and inner classes are visited before fields and methods, so the header is read when the first member
+     * is visited. Members of a class file without the header, which is the case for every Java class, are not recorded
+     */
+    private static class ClassFileDataRecorder extends ClassVisitor {
+        private final ClassFileData data = new ClassFileData();
+        private String className = null;
+
+        private boolean headerRead = false;
+        private KotlinClassHeader header = null;
+
+        public ClassFileDataRecorder() {
+            super(ASM5);
+        }
+
+        @Nullable
+        public KotlinClassHeader getHeader() {
+            if (!headerRead) {
+                ReadKotlinClassHeaderAnnotationVisitor readHeaderVisitor = new ReadKotlinClassHeaderAnnotationVisitor();
+                loadClassAnnotations(readHeaderVisitor, data);
+                header = readHeaderVisitor.createHeader();
+                headerRead = true;
             }
-        }, SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
+            return header;
+        }
 
-        String className = classNameRef.get();
-        if (className == null) return null;
+        @Override
+        public void visit(int version, int access, @NotNull String name, String signature, String superName, String[] interfaces) {
+            className = name;
+        }
 
-        KotlinClassHeader header = readHeaderVisitor.createHeader();
-        if (header == null) return null;
+        @Override
+        public void visitInnerClass(@NotNull String name, String outerName, String innerName, int access) {
+            data.innerClasses.add(name, outerName, innerName);
+        }
+
+        @Override
+        public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
+            RecordedAnnotation annotation = new RecordedAnnotation(desc, -1);
+            data.classAnnotations.add(annotation);
+            return annotation;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, @NotNull String name, @NotNull String desc, String signature, Object value) {
+            if (getHeader() == null) return null;
 
-        ClassId id = resolveNameByInternalName(className, innerClasses);
-        return factory.invoke(id, header, innerClasses);
+            final RecordedMember field = new RecordedMember(false, name, desc, value);
+            data.members.add(field);
+
+            return new FieldVisitor(ASM5) {
+                @Override
+                public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
+                    return field.addAnnotation(desc, -1);
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, @NotNull String name, @NotNull String desc, String signature, String[] exceptions) {
+            if (getHeader() == null) return null;
+
+            final RecordedMember method = new RecordedMember(true, name, desc, null);
+            data.members.add(method);
+
+            return new MethodVisitor(ASM5) {
+                @Override
+                public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
+                    return method.addAnnotation(desc, -1);
+                }
+
+                @Override
+                public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitParameterAnnotation(int parameter, @NotNull String desc, boolean visible) {
+                    return method.addAnnotation(desc, parameter);
+                }
+            };
+        }
     }
 
     @NotNull
@@ -135,18 +308,18 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
     }
 
     @Override
-    public void loadClassAnnotations(@NotNull final AnnotationVisitor annotationVisitor) {
-        new ClassReader(getFileContents()).accept(new ClassVisitor(ASM5) {
-            @Override
-            public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
-                return convertAnnotationVisitor(annotationVisitor, desc, innerClasses);
-            }
+    public void loadClassAnnotations(@NotNull AnnotationVisitor annotationVisitor) {
+        loadClassAnnotations(annotationVisitor, data);
+    }
 
-            @Override
-            public void visitEnd() {
-                annotationVisitor.visitEnd();
+    private static void loadClassAnnotations(@NotNull AnnotationVisitor annotationVisitor, @NotNull ClassFileData data) {
+        for (RecordedAnnotation annotation : data.classAnnotations) {
+            org.jetbrains.org.objectweb.asm.AnnotationVisitor v = convertAnnotationVisitor(annotationVisitor, annotation.desc, data.innerClasses);
+            if (v != null) {
+                annotation.accept(v);
             }
-        }, SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
+        }
+        annotationVisitor.visitEnd();
     }
 
     @Nullable
@@ -201,50 +374,42 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
     }
 
     @Override
-    public void visitMembers(@NotNull final MemberVisitor memberVisitor) {
-        new ClassReader(getFileContents()).accept(new ClassVisitor(ASM5) {
-            @Override
-            public FieldVisitor visitField(int access, @NotNull String name, @NotNull String desc, String signature, Object value) {
-                final AnnotationVisitor v = memberVisitor.visitField(Name.guess(name), desc, value);
-                if (v == null) return null;
-
-                return new FieldVisitor(ASM5) {
-                    @Override
-                    public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
-                        return convertAnnotationVisitor(v, desc, innerClasses);
-                    }
-
-                    @Override
-                    public void visitEnd() {
-                        v.visitEnd();
+    public void visitMembers(@NotNull MemberVisitor memberVisitor) {
+        InnerClassesInfo innerClasses = data.innerClasses;
+        for (RecordedMember member : data.members) {
+            if (member.isMethod) {
+                MethodAnnotationVisitor v = memberVisitor.visitMethod(Name.guess(member.name), member.desc);
+                if (v == null) continue;
+
+                for (RecordedAnnotation annotation : member.getAnnotations()) {
+                    org.jetbrains.org.objectweb.asm.AnnotationVisitor av;
+                    if (annotation.parameter >= 0) {
+                        AnnotationArgumentVisitor argumentVisitor =
+                                v.visitParameterAnnotation(annotation.parameter, resolveNameByDesc(annotation.desc, innerClasses));
+                        av = argumentVisitor == null ? null : convertAnnotationVisitor(argumentVisitor, innerClasses);
                     }
-                };
-            }
-
-            @Override
-            public MethodVisitor visitMethod(int access, @NotNull String name, @NotNull String desc, String signature, String[] exceptions) {
-                final MethodAnnotationVisitor v = memberVisitor.visitMethod(Name.guess(name), desc);
-                if (v == null) return null;
-
-                return new MethodVisitor(ASM5) {
-                    @Override
-                    public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
-                        return convertAnnotationVisitor(v, desc, innerClasses);
+                    else {
+                        av = convertAnnotationVisitor(v, annotation.desc, innerClasses);
                     }
-
-                    @Override
-                    public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitParameterAnnotation(int parameter, @NotNull String desc, boolean visible) {
-                        AnnotationArgumentVisitor av = v.visitParameterAnnotation(parameter, resolveNameByDesc(desc, innerClasses));
-                        return av == null ? null : convertAnnotationVisitor(av, innerClasses);
+                    if (av != null) {
+                        annotation.accept(av);
                     }
-
-                    @Override
-                    public void visitEnd() {
-                        v.visitEnd();
+                }
+                v.visitEnd();
+            }
+            else {
+                AnnotationVisitor v = memberVisitor.visitField(Name.guess(member.name), member.desc, member.initializer);
+                if (v == null) continue;
+
+                for (RecordedAnnotation annotation : member.getAnnotations()) {
+                    org.jetbrains.org.objectweb.asm.AnnotationVisitor av = convertAnnotationVisitor(v, annotation.desc, innerClasses);
+                    if (av != null) {
+                        annotation.accept(av);
                     }
-                };
+                }
+                v.visitEnd();
             }
-        }, SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
+        }
     }
 
     @NotNull
@@ -25,57 +25,114 @@ import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Caches parsed Kotlin binary classes, as well as class files which are not Kotlin binary classes.
+ * An entry is valid as long as the modification stamp of its file is not changed.
+ *
+ * The cache is split into segments by the hash of the file, each segment is locked separately, so that threads reading
+ * different classes don't wait for each other. A segment is bounded by the total length of its class files, least recently
+ * used entries of the segment are evicted first.
+ */
 public final class KotlinBinaryClassCache implements Disposable {
-    private static class RequestCache {
-        VirtualFile virtualFile;
-        long modificationStamp;
-        VirtualFileKotlinClass virtualFileKotlinClass;
+    private static final long MAX_CACHED_BYTES = 16 * 1024 * 1024;
+    private static final int SEGMENTS = 16;
 
-        public VirtualFileKotlinClass cache(VirtualFile file, VirtualFileKotlinClass aClass) {
-            virtualFile = file;
-            virtualFileKotlinClass = aClass;
-            modificationStamp = file.getModificationStamp();
+    private static class Entry {
+        final long modificationStamp;
+        final long weight;
+        @Nullable final VirtualFileKotlinClass virtualFileKotlinClass;
 
-            return aClass;
+        Entry(long modificationStamp, long weight, @Nullable VirtualFileKotlinClass virtualFileKotlinClass) {
+            this.modificationStamp = modificationStamp;
+            this.weight = weight;
+            this.virtualFileKotlinClass = virtualFileKotlinClass;
         }
     }
 
-    private final ThreadLocal<RequestCache> cache =
-            new ThreadLocal<RequestCache>() {
-                @Override
-                protected RequestCache initialValue() {
-                    return new RequestCache();
-                }
-            };
+    private static class Segment {
+        // Access-ordered, guarded by the segment
+        private final LinkedHashMap<VirtualFile, Entry> cache = new LinkedHashMap<VirtualFile, Entry>(16, 0.75f, true);
+        private long cachedBytes = 0;
+
+        @Nullable
+        public synchronized Entry get(@NotNull VirtualFile file) {
+            return cache.get(file);
+        }
+
+        public synchronized void put(@NotNull VirtualFile file, @NotNull Entry entry) {
+            Entry previous = cache.put(file, entry);
+            if (previous != null) {
+                cachedBytes -= previous.weight;
+            }
+            cachedBytes += entry.weight;
+
+            Iterator<Entry> iterator = cache.values().iterator();
+            while (cachedBytes > MAX_CACHED_BYTES / SEGMENTS && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                if (eldest == entry) break;
+                cachedBytes -= eldest.weight;
+                iterator.remove();
+            }
+        }
+
+        public synchronized void clear() {
+            cache.clear();
+            cachedBytes = 0;
+        }
+    }
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public KotlinBinaryClassCache() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
 
     @Nullable
     public static KotlinJvmBinaryClass getKotlinBinaryClass(@NotNull final VirtualFile file) {
         if (file.getFileType() != JavaClassFileType.INSTANCE) return null;
 
         KotlinBinaryClassCache service = ServiceManager.getService(KotlinBinaryClassCache.class);
-        RequestCache requestCache = service.cache.get();
 
-        if (file.getModificationStamp() == requestCache.modificationStamp && file.equals(requestCache.virtualFile)) {
-            return requestCache.virtualFileKotlinClass;
-        }
-        else {
-            VirtualFileKotlinClass aClass = ApplicationManager.getApplication().runReadAction(new Computable<VirtualFileKotlinClass>() {
-                @Override
-                public VirtualFileKotlinClass compute() {
-                    //noinspection deprecation
-                    return VirtualFileKotlinClass.Factory.create(file);
-                }
-            });
-
-            return requestCache.cache(file, aClass);
+        long modificationStamp = file.getModificationStamp();
+        Segment segment = service.getSegment(file);
+        Entry entry = segment.get(file);
+        if (entry != null && entry.modificationStamp == modificationStamp) {
+            return entry.virtualFileKotlinClass;
         }
+
+        // Parsing is done outside of the lock, so the same file may be occasionally parsed twice by different threads
+        VirtualFileKotlinClass aClass = ApplicationManager.getApplication().runReadAction(new Computable<VirtualFileKotlinClass>() {
+            @Override
+            public VirtualFileKotlinClass compute() {
+                //noinspection deprecation
+                return VirtualFileKotlinClass.Factory.create(file);
+            }
+        });
+
+        segment.put(file, new Entry(modificationStamp, Math.max(file.getLength(), 1), aClass));
+        return aClass;
+    }
+
+    @NotNull
+    private Segment getSegment(@NotNull VirtualFile file) {
+        int hash = file.hashCode();
+        // Spread the higher bits of the hash, like HashMap does
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return segments[hash & (SEGMENTS - 1)];
     }
 
     @Override
     public void dispose() {
         // This is only relevant for tests. We create a new instance of Application for each test, and so a new instance of this service is
-        // also created for each test. However all tests share the same event dispatch thread, which would collect all instances of this
-        // thread-local if they're not removed properly. Each instance would transitively retain VFS resulting in OutOfMemoryError
-        cache.remove();
+        // also created for each test. Cached classes transitively retain VFS, so they are dropped as soon as the application is disposed
+        for (Segment segment : segments) {
+            segment.clear();
+        }
     }
 }
@@ -29,8 +29,8 @@ public class VirtualFileKotlinClass private(
         public val file: VirtualFile,
         className: ClassId,
         classHeader: KotlinClassHeader,
-        innerClasses: FileBasedKotlinClass.InnerClassesInfo
-) : FileBasedKotlinClass(className, classHeader, innerClasses) {
+        data: FileBasedKotlinClass.ClassFileData
+) : FileBasedKotlinClass(className, classHeader, data) {
 
     override fun getFileContents(): ByteArray {
         try {
@@ -57,8 +57,8 @@ public class VirtualFileKotlinClass private(
 
             try {
                 return FileBasedKotlinClass.create(byteContent) {
-                    name, header, innerClasses ->
-                    VirtualFileKotlinClass(file, name, header, innerClasses)
+                    name, header, data ->
+                    VirtualFileKotlinClass(file, name, header, data)
                 }
             }
             catch (e: Throwable) {
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.resolve.jvm;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.name.ClassId;
+
+/**
+ * Registered as a project service in the command line compiler, where Java classes can be found
+ * with an index of the classpath instead of CoreJavaFileManager which looks into every classpath root.
+ * The index contains every root added to CoreJavaFileManager
+ */
+public interface KotlinCliJavaClassFinder {
+    @Nullable
+    PsiClass findClass(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope);
+
+    /**
+     * @return the class file of the given class, if the class can be read from it without PSI:
+     * the class is not declared in a source file and there are no external annotations for its package
+     */
+    @Nullable
+    VirtualFile findBinaryClassFile(@NotNull ClassId classId, @NotNull GlobalSearchScope scope);
+}
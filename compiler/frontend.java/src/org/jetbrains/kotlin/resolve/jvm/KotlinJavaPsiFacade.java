@@ -287,6 +287,7 @@ public class KotlinJavaPsiFacade {
     static class KotlinPsiElementFinderImpl implements KotlinPsiElementFinderWrapper, DumbAware {
         private final JavaFileManager javaFileManager;
         private final boolean isCoreJavaFileManager;
+        private final KotlinCliJavaClassFinder cliJavaClassFinder;
 
         private final PsiManager psiManager;
         private final PackageIndex packageIndex;
@@ -294,6 +295,7 @@ public class KotlinJavaPsiFacade {
         public KotlinPsiElementFinderImpl(Project project) {
             this.javaFileManager = findJavaFileManager(project);
             this.isCoreJavaFileManager = javaFileManager instanceof CoreJavaFileManager;
+            this.cliJavaClassFinder = ServiceManager.getService(project, KotlinCliJavaClassFinder.class);
 
             this.packageIndex = PackageIndex.getInstance(project);
             this.psiManager = PsiManager.getInstance(project);
@@ -312,6 +314,12 @@ public class KotlinJavaPsiFacade {
 
         @Override
         public PsiClass findClass(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
+            if (cliJavaClassFinder != null) {
+                PsiClass aClass = cliJavaClassFinder.findClass(qualifiedName, scope);
+                // The index of the finder covers all the roots of CoreJavaFileManager, the file manager won't find anything else
+                if (aClass != null || isCoreJavaFileManager) return aClass;
+            }
+
             PsiClass aClass = javaFileManager.findClass(qualifiedName, scope);
             if (aClass != null) {
                 //TODO: (module refactoring) CoreJavaFileManager should check scope
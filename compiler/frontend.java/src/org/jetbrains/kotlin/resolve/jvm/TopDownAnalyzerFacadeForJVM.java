@@ -41,6 +41,7 @@ import org.jetbrains.kotlin.resolve.DescriptorUtils;
 import org.jetbrains.kotlin.resolve.ImportPath;
 import org.jetbrains.kotlin.resolve.TopDownAnalysisParameters;
 import org.jetbrains.kotlin.resolve.lazy.declarations.FileBasedDeclarationProviderFactory;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -92,13 +93,48 @@ public enum TopDownAnalyzerFacadeForJVM {
             @NotNull ModuleDescriptorImpl module,
             @Nullable List<String> moduleIds,
             @Nullable IncrementalCacheProvider incrementalCacheProvider
+    ) {
+        return analyzeFilesWithJavaIntegrationWithCustomContext(project, globalContext, files, trace, filesToAnalyzeCompletely, module,
+                                                                moduleIds, incrementalCacheProvider, 1);
+    }
+
+    @NotNull
+    public static AnalysisResult analyzeFilesWithJavaIntegrationWithCustomContext(
+            @NotNull Project project,
+            @NotNull GlobalContext globalContext,
+            @NotNull Collection<JetFile> files,
+            @NotNull BindingTrace trace,
+            @NotNull Predicate<PsiFile> filesToAnalyzeCompletely,
+            @NotNull ModuleDescriptorImpl module,
+            @Nullable List<String> moduleIds,
+            @Nullable IncrementalCacheProvider incrementalCacheProvider,
+            int bodyResolveThreads
+    ) {
+        return analyzeFilesWithJavaIntegrationWithCustomContext(project, globalContext, files, trace, filesToAnalyzeCompletely, module,
+                                                                moduleIds, incrementalCacheProvider, bodyResolveThreads, null);
+    }
+
+    @NotNull
+    public static AnalysisResult analyzeFilesWithJavaIntegrationWithCustomContext(
+            @NotNull Project project,
+            @NotNull GlobalContext globalContext,
+            @NotNull Collection<JetFile> files,
+            @NotNull BindingTrace trace,
+            @NotNull Predicate<PsiFile> filesToAnalyzeCompletely,
+            @NotNull ModuleDescriptorImpl module,
+            @Nullable List<String> moduleIds,
+            @Nullable IncrementalCacheProvider incrementalCacheProvider,
+            int bodyResolveThreads,
+            @Nullable CompilerPhaseMetrics phaseMetrics
     ) {
         TopDownAnalysisParameters topDownAnalysisParameters = TopDownAnalysisParameters.create(
                 globalContext.getStorageManager(),
                 globalContext.getExceptionTracker(),
                 filesToAnalyzeCompletely,
                 false,
-                false
+                false,
+                bodyResolveThreads,
+                phaseMetrics
         );
 
         return analyzeFilesWithJavaIntegration(
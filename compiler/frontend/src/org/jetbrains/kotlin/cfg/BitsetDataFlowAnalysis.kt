@@ -0,0 +1,385 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cfg
+
+import org.jetbrains.kotlin.cfg.pseudocode.Pseudocode
+import org.jetbrains.kotlin.cfg.pseudocode.instructions.Instruction
+import org.jetbrains.kotlin.cfg.pseudocode.instructions.special.LocalFunctionDeclarationInstruction
+import org.jetbrains.kotlin.cfg.pseudocodeTraverser.*
+import org.jetbrains.kotlin.descriptors.VariableDescriptor
+import java.util.*
+
+/**
+ * Dense numbering of the variables of a pseudocode and its local declarations
+ */
+public class VariableIndex {
+    private val indices = HashMap<VariableDescriptor, Int>()
+    private val variables = ArrayList<VariableDescriptor>()
+
+    public val size: Int
+        get() = variables.size()
+
+    public fun register(variable: VariableDescriptor): Int {
+        val index = indices[variable]
+        if (index != null) return index
+
+        variables.add(variable)
+        indices[variable] = variables.size() - 1
+        return variables.size() - 1
+    }
+
+    public fun indexOf(variable: VariableDescriptor): Int = indices[variable] ?: -1
+
+    public fun getVariable(index: Int): VariableDescriptor = variables[index]
+}
+
+/**
+ * States of all variables at some point of the pseudocode, as computed by [BitsetDataFlowAnalysis]
+ */
+public class VariableStates<D>(private val analysis: BitsetDataFlowAnalysis<D>, private val state: BitSet) {
+    public fun get(variable: VariableDescriptor): D? {
+        val index = analysis.variables.indexOf(variable)
+        return if (index >= 0) analysis.decode(state, index) else null
+    }
+
+    public fun toMap(): Map<VariableDescriptor, D> {
+        val result = HashMap<VariableDescriptor, D>()
+        for (index in 0..analysis.variables.size - 1) {
+            val value = analysis.decode(state, index)
+            if (value != null) {
+                result[analysis.variables.getVariable(index)] = value
+            }
+        }
+        return result
+    }
+}
+
+/**
+ * Dataflow analysis of variables over the instructions of a pseudocode and its local declarations.
+ * Variables declared in a lexical scope are dropped from the state on the edges leaving the scope.
+ * With [mergeDataWithLocalDeclarations], the body of a local declaration is analyzed as if it was inlined at the declaration,
+ * otherwise it's analyzed separately starting from the empty state.
+ *
+ * A state of all variables is a bit set of [planeCount] planes with one bit per variable in each plane,
+ * states of the predecessors of an instruction are merged with a union, so that the absence of a variable
+ * (no bits in all planes) is the bottom of the lattice. Every instruction changes the state of at most one variable.
+ *
+ * Instructions are grouped in basic blocks, which are processed with a worklist in reverse post-order.
+ * Only the states at the entries and exits of the blocks are kept, the states inside a block are recomputed on demand.
+ */
+public abstract class BitsetDataFlowAnalysis<D>(
+        private val pseudocode: Pseudocode,
+        private val traversalOrder: TraversalOrder,
+        private val mergeDataWithLocalDeclarations: Boolean,
+        public val variables: VariableIndex,
+        private val lexicalScopeVariableInfo: LexicalScopeVariableInfo,
+        private val planeCount: Int
+) {
+    // instructions in the order of Pseudocode.traverse
+    private val instructions = ArrayList<Instruction>()
+    private val nodeIndices = HashMap<Instruction, Int>()
+
+    private var nodeVariables = IntArray(0)
+    private var predecessors = ArrayList<IntArray>()
+    // depth of the lexical scope to filter out the variables of deeper scopes on the edge from the corresponding predecessor
+    private var predecessorScopeDepths = ArrayList<IntArray>()
+
+    private var blockStarts = IntArray(0)
+    private var blockOfNode = IntArray(0)
+    private var blockSuccessors = ArrayList<IntArray>()
+    private var blockEntryStates = ArrayList<BitSet>()
+    private var blockExitStates = ArrayList<BitSet>()
+
+    private val outOfScopeMasks = HashMap<Int, BitSet>()
+
+    private var solved = false
+
+    /**
+     * Variable which state is changed by the instruction, if any
+     */
+    protected abstract fun getVariable(instruction: Instruction): VariableDescriptor?
+
+    /**
+     * Updates [state] of [variable] (an index in [variables]) before [instruction] to its state after the instruction
+     */
+    protected abstract fun transfer(instruction: Instruction, variable: Int, state: BitSet)
+
+    public abstract fun decode(state: BitSet, variable: Int): D?
+
+    protected fun bit(plane: Int, variable: Int): Int = plane * variables.size + variable
+
+    public fun traverse(analyzeInstruction: (Instruction, VariableStates<D>, VariableStates<D>) -> Unit) {
+        solve()
+        for (block in 0..blockStarts.size() - 1) {
+            processBlock(block, blockEntryStates[block], -1) {
+                instruction, incoming, outgoing ->
+                analyzeInstruction(instruction, VariableStates(this, incoming), VariableStates(this, outgoing))
+            }
+        }
+    }
+
+    public fun getIncomingStates(instruction: Instruction): VariableStates<D> {
+        solve()
+        val node = nodeIndices[instruction] ?: return VariableStates(this, BitSet())
+        val block = blockOfNode[node]
+        var result = blockEntryStates[block]
+        processBlock(block, blockEntryStates[block], node) {
+            current, incoming, outgoing ->
+            result = incoming
+        }
+        return VariableStates(this, result)
+    }
+
+    public fun getAllStates(): Map<Instruction, Edges<Map<VariableDescriptor, D>>> {
+        val result = LinkedHashMap<Instruction, Edges<Map<VariableDescriptor, D>>>()
+        traverse {
+            instruction, incoming, outgoing ->
+            result[instruction] = Edges(incoming.toMap(), outgoing.toMap())
+        }
+        return result
+    }
+
+    private fun solve() {
+        if (solved) return
+        solved = true
+
+        pseudocode.traverse(traversalOrder) { instruction ->
+            nodeIndices[instruction] = instructions.size()
+            instructions.add(instruction)
+        }
+        nodeVariables = IntArray(instructions.size())
+        for ((node, instruction) in instructions.withIndex()) {
+            val variable = getVariable(instruction)
+            nodeVariables[node] = if (variable != null) variables.indexOf(variable) else -1
+        }
+        for (node in instructions.indices) {
+            predecessors.add(IntArray(0))
+            predecessorScopeDepths.add(IntArray(0))
+        }
+        collectPredecessors(pseudocode, false, Collections.emptyList())
+
+        computeBlocks()
+
+        val order = computeReversePostOrder()
+        val positions = IntArray(order.size())
+        for ((position, block) in order.withIndex()) {
+            positions[block] = position
+        }
+
+        val pending = BitSet()
+        pending.set(0, order.size())
+        while (true) {
+            val position = pending.nextSetBit(0)
+            if (position < 0) break
+            pending.clear(position)
+
+            val block = order[position]
+            val entryState = mergePredecessorStates(blockStarts[block])
+            blockEntryStates[block] = entryState
+            val exitState = processBlock(block, entryState, -1, null)
+            if (exitState != blockExitStates[block]) {
+                blockExitStates[block] = exitState
+                for (successor in blockSuccessors[block]) {
+                    pending.set(positions[successor])
+                }
+            }
+        }
+    }
+
+    private fun collectPredecessors(pseudocode: Pseudocode, isLocal: Boolean, subgraphPredecessors: Collection<Instruction>) {
+        for (instruction in pseudocode.getInstructions()) {
+            val previous: Collection<Instruction>
+            if (instruction is LocalFunctionDeclarationInstruction) {
+                val body = instruction.body
+                if (mergeDataWithLocalDeclarations) {
+                    collectPredecessors(body, true, instruction.getPreviousInstructions(traversalOrder))
+                    previous = listOf(body.getLastInstruction(traversalOrder))
+                }
+                else {
+                    collectPredecessors(body, true, Collections.emptyList())
+                    previous = instruction.getPreviousInstructions(traversalOrder)
+                }
+            }
+            else if (instruction.isStartInstruction(traversalOrder)) {
+                previous = if (isLocal) instruction.getPreviousInstructions(traversalOrder) + subgraphPredecessors else listOf()
+            }
+            else {
+                previous = instruction.getPreviousInstructions(traversalOrder)
+            }
+
+            val node = nodeIndices[instruction] ?: continue
+            val nodes = ArrayList<Int>(previous.size())
+            val depths = ArrayList<Int>(previous.size())
+            for (previousInstruction in previous) {
+                val previousNode = nodeIndices[previousInstruction] ?: continue
+                nodes.add(previousNode)
+                // If an edge goes from deeper lexical scope to a less deep one, this means that it points outside of the deeper scope.
+                val toDepth = instruction.lexicalScope.depth
+                depths.add(if (toDepth < previousInstruction.lexicalScope.depth) toDepth else NO_SCOPE_FILTER)
+            }
+            predecessors[node] = nodes.toIntArray()
+            predecessorScopeDepths[node] = depths.toIntArray()
+        }
+    }
+
+    private fun computeBlocks() {
+        val nodeCount = instructions.size()
+        val successorCounts = IntArray(nodeCount)
+        for (node in 0..nodeCount - 1) {
+            for (predecessor in predecessors[node]) {
+                successorCounts[predecessor]++
+            }
+        }
+
+        val starts = ArrayList<Int>()
+        blockOfNode = IntArray(nodeCount)
+        for (node in 0..nodeCount - 1) {
+            val previous = predecessors[node]
+            val continuesBlock = previous.size() == 1 && previous[0] == node - 1 && successorCounts[node - 1] == 1
+            if (!continuesBlock) {
+                starts.add(node)
+            }
+            blockOfNode[node] = starts.size() - 1
+        }
+        blockStarts = starts.toIntArray()
+
+        val successors = ArrayList<MutableList<Int>>()
+        for (block in blockStarts.indices) {
+            successors.add(ArrayList<Int>(2))
+            blockEntryStates.add(BitSet())
+            blockExitStates.add(BitSet())
+        }
+        for (block in blockStarts.indices) {
+            for (predecessor in predecessors[blockStarts[block]]) {
+                successors[blockOfNode[predecessor]].add(block)
+            }
+        }
+        blockSuccessors = successors.mapTo(ArrayList<IntArray>()) { it.toIntArray() }
+    }
+
+    private fun computeReversePostOrder(): List<Int> {
+        val blockCount = blockStarts.size()
+        val visited = BooleanArray(blockCount)
+        val postOrder = ArrayList<Int>(blockCount)
+
+        fun visit(root: Int) {
+            // pairs of a block and the index of its next successor to visit
+            val stack = ArrayDeque<IntArray>()
+            visited[root] = true
+            stack.push(intArray(root, 0))
+            while (!stack.isEmpty()) {
+                val top = stack.peek()
+                val successors = blockSuccessors[top[0]]
+                if (top[1] < successors.size()) {
+                    val successor = successors[top[1]++]
+                    if (!visited[successor]) {
+                        visited[successor] = true
+                        stack.push(intArray(successor, 0))
+                    }
+                }
+                else {
+                    stack.pop()
+                    postOrder.add(top[0])
+                }
+            }
+        }
+
+        for (block in 0..blockCount - 1) {
+            if (predecessors[blockStarts[block]].isEmpty() && !visited[block]) visit(block)
+        }
+        for (block in 0..blockCount - 1) {
+            if (!visited[block]) visit(block)
+        }
+        return postOrder.reverse()
+    }
+
+    private fun mergePredecessorStates(node: Int): BitSet {
+        val result = BitSet()
+        val previous = predecessors[node]
+        for (i in previous.indices) {
+            result.or(filterOutOfScope(blockExitStates[blockOfNode[previous[i]]], predecessorScopeDepths[node][i], copy = true))
+        }
+        return result
+    }
+
+    // Variables declared in an inner (deeper) scope can't be accessed from an outer scope,
+    // thus they are filtered out upon leaving the inner scope.
+    private fun filterOutOfScope(state: BitSet, toDepth: Int, copy: Boolean): BitSet {
+        if (toDepth == NO_SCOPE_FILTER) return state
+        val result = if (copy) state.clone() as BitSet else state
+        result.andNot(getOutOfScopeMask(toDepth))
+        return result
+    }
+
+    private fun getOutOfScopeMask(depth: Int): BitSet {
+        return outOfScopeMasks.getOrPut(depth) {
+            val mask = BitSet()
+            for (variable in 0..variables.size - 1) {
+                // '-1' for variables declared outside this pseudocode
+                val variableDepth = lexicalScopeVariableInfo.declaredIn[variables.getVariable(variable)]?.depth ?: -1
+                if (variableDepth > depth) {
+                    for (plane in 0..planeCount - 1) {
+                        mask.set(bit(plane, variable))
+                    }
+                }
+            }
+            mask
+        }
+    }
+
+    /**
+     * Computes the states of the instructions of [block] up to [lastNode] inclusive (the end of the block if negative)
+     * and returns the outgoing state of the last processed instruction
+     */
+    private fun processBlock(
+            block: Int,
+            entryState: BitSet,
+            lastNode: Int,
+            analyzeInstruction: ((Instruction, BitSet, BitSet) -> Unit)?
+    ): BitSet {
+        val start = blockStarts[block]
+        val end = if (lastNode >= 0) lastNode + 1 else if (block + 1 < blockStarts.size()) blockStarts[block + 1] else instructions.size()
+
+        val state = entryState.clone() as BitSet
+        for (node in start..end - 1) {
+            if (node != start) {
+                filterOutOfScope(state, predecessorScopeDepths[node][0], copy = false)
+            }
+            val incoming = if (analyzeInstruction != null) state.clone() as BitSet else state
+            val variable = nodeVariables[node]
+            if (variable >= 0) {
+                transfer(instructions[node], variable, state)
+            }
+            if (analyzeInstruction != null) {
+                analyzeInstruction(instructions[node], incoming, state.clone() as BitSet)
+            }
+        }
+        return state
+    }
+
+    class object {
+        private val NO_SCOPE_FILTER = -1
+    }
+}
+
+private fun List<Int>.toIntArray(): IntArray {
+    val result = IntArray(size())
+    for ((index, value) in withIndex()) {
+        result[index] = value
+    }
+    return result
+}
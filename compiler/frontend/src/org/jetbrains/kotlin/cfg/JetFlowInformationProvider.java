@@ -43,9 +43,7 @@ import org.jetbrains.kotlin.cfg.pseudocode.instructions.special.LocalFunctionDec
 import org.jetbrains.kotlin.cfg.pseudocode.instructions.special.MarkInstruction;
 import org.jetbrains.kotlin.cfg.pseudocode.instructions.special.SubroutineExitInstruction;
 import org.jetbrains.kotlin.cfg.pseudocode.instructions.special.VariableDeclarationInstruction;
-import org.jetbrains.kotlin.cfg.pseudocodeTraverser.Edges;
 import org.jetbrains.kotlin.cfg.pseudocodeTraverser.PseudocodeTraverserPackage;
-import org.jetbrains.kotlin.cfg.pseudocodeTraverser.TraversalOrder;
 import org.jetbrains.kotlin.descriptors.*;
 import org.jetbrains.kotlin.diagnostics.Diagnostic;
 import org.jetbrains.kotlin.diagnostics.DiagnosticFactory;
@@ -303,21 +301,18 @@ public class JetFlowInformationProvider {
         final boolean processClassOrObject = subroutine instanceof JetClassOrObject;
 
         PseudocodeVariablesData pseudocodeVariablesData = getPseudocodeVariablesData();
-        Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> initializers =
-                pseudocodeVariablesData.getVariableInitializers();
         final Set<VariableDescriptor> declaredVariables = pseudocodeVariablesData.getDeclaredVariables(pseudocode, true);
         final LexicalScopeVariableInfo lexicalScopeVariableInfo = pseudocodeVariablesData.getLexicalScopeVariableInfo();
 
         final Map<Instruction, DiagnosticFactory<?>> reportedDiagnosticMap = Maps.newHashMap();
 
-        PseudocodeTraverserPackage.traverse(
-                pseudocode, FORWARD, initializers,
-                new InstructionDataAnalyzeStrategy<Map<VariableDescriptor, VariableInitState>>() {
+        pseudocodeVariablesData.getVariableInitializationAnalysis().traverse(
+                new InstructionDataAnalyzeStrategy<VariableStates<VariableInitState>>() {
                     @Override
                     public void execute(
                             @NotNull Instruction instruction,
-                            @Nullable Map<VariableDescriptor, VariableInitState> in,
-                            @Nullable Map<VariableDescriptor, VariableInitState> out
+                            @Nullable VariableStates<VariableInitState> in,
+                            @Nullable VariableStates<VariableInitState> out
                     ) {
                         assert in != null && out != null;
                         VariableInitContext ctxt =
@@ -352,8 +347,7 @@ public class JetFlowInformationProvider {
     public void recordInitializedVariables() {
         PseudocodeVariablesData pseudocodeVariablesData = getPseudocodeVariablesData();
         Pseudocode pseudocode = pseudocodeVariablesData.getPseudocode();
-        Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> initializers =
-                pseudocodeVariablesData.getVariableInitializers();
+        BitsetDataFlowAnalysis<VariableInitState> initializers = pseudocodeVariablesData.getVariableInitializationAnalysis();
         recordInitializedVariables(pseudocode, initializers);
         for (LocalFunctionDeclarationInstruction instruction : pseudocode.getLocalDeclarations()) {
             recordInitializedVariables(instruction.getBody(), initializers);
@@ -570,13 +564,13 @@ public class JetFlowInformationProvider {
 
     private void recordInitializedVariables(
             @NotNull Pseudocode pseudocode,
-            @NotNull Map<Instruction, Edges<Map<VariableDescriptor, PseudocodeVariablesData.VariableInitState>>> initializersMap
+            @NotNull BitsetDataFlowAnalysis<VariableInitState> initializersAnalysis
     ) {
-        Edges<Map<VariableDescriptor, VariableInitState>> initializers = initializersMap.get(pseudocode.getExitInstruction());
+        VariableStates<VariableInitState> initializers = initializersAnalysis.getIncomingStates(pseudocode.getExitInstruction());
         Set<VariableDescriptor> declaredVariables = getPseudocodeVariablesData().getDeclaredVariables(pseudocode, false);
         for (VariableDescriptor variable : declaredVariables) {
             if (variable instanceof PropertyDescriptor) {
-                PseudocodeVariablesData.VariableInitState variableInitState = initializers.getIncoming().get(variable);
+                PseudocodeVariablesData.VariableInitState variableInitState = initializers.get(variable);
                 if (variableInitState == null) return;
                 trace.record(BindingContext.IS_INITIALIZED, (PropertyDescriptor) variable, variableInitState.isInitialized);
             }
@@ -588,16 +582,14 @@ public class JetFlowInformationProvider {
 
     public void markUnusedVariables() {
         final PseudocodeVariablesData pseudocodeVariablesData = getPseudocodeVariablesData();
-        Map<Instruction, Edges<Map<VariableDescriptor, VariableUseState>>> variableStatusData =
-                pseudocodeVariablesData.getVariableUseStatusData();
         final Map<Instruction, DiagnosticFactory<?>> reportedDiagnosticMap = Maps.newHashMap();
-        InstructionDataAnalyzeStrategy<Map<VariableDescriptor, VariableUseState>> variableStatusAnalyzeStrategy =
-                new InstructionDataAnalyzeStrategy<Map<VariableDescriptor, VariableUseState>>() {
+        InstructionDataAnalyzeStrategy<VariableStates<VariableUseState>> variableStatusAnalyzeStrategy =
+                new InstructionDataAnalyzeStrategy<VariableStates<VariableUseState>>() {
                     @Override
                     public void execute(
                             @NotNull Instruction instruction,
-                            @Nullable Map<VariableDescriptor, VariableUseState> in,
-                            @Nullable Map<VariableDescriptor, VariableUseState> out
+                            @Nullable VariableStates<VariableUseState> in,
+                            @Nullable VariableStates<VariableUseState> out
                     ) {
 
                         assert in != null && out != null;
@@ -677,7 +669,7 @@ public class JetFlowInformationProvider {
                         }
                     }
                 };
-        PseudocodeTraverserPackage.traverse(pseudocode, TraversalOrder.BACKWARD, variableStatusData, variableStatusAnalyzeStrategy);
+        pseudocodeVariablesData.getVariableUseAnalysis().traverse(variableStatusAnalyzeStrategy);
     }
 
 ////////////////////////////////////////////////////////////////////////////////
@@ -968,8 +960,8 @@ public class JetFlowInformationProvider {
         private VariableInitContext(
                 @NotNull Instruction instruction,
                 @NotNull Map<Instruction, DiagnosticFactory<?>> map,
-                @NotNull Map<VariableDescriptor, VariableInitState> in,
-                @NotNull Map<VariableDescriptor, VariableInitState> out,
+                @NotNull VariableStates<VariableInitState> in,
+                @NotNull VariableStates<VariableInitState> out,
                 @NotNull LexicalScopeVariableInfo lexicalScopeVariableInfo
         ) {
             super(instruction, map);
@@ -980,10 +972,10 @@ public class JetFlowInformationProvider {
         private VariableInitState initialize(
                 VariableDescriptor variableDescriptor,
                 LexicalScopeVariableInfo lexicalScopeVariableInfo,
-                Map<VariableDescriptor, VariableInitState> map
+                VariableStates<VariableInitState> states
         ) {
             if (variableDescriptor == null) return null;
-            VariableInitState state = map.get(variableDescriptor);
+            VariableInitState state = states.get(variableDescriptor);
             if (state != null) return state;
             return PseudocodeVariablesData.getDefaultValueForInitializers(variableDescriptor, instruction, lexicalScopeVariableInfo);
         }
@@ -997,8 +989,8 @@ public class JetFlowInformationProvider {
         private VariableUseContext(
                 @NotNull Instruction instruction,
                 @NotNull Map<Instruction, DiagnosticFactory<?>> map,
-                @NotNull Map<VariableDescriptor, VariableUseState> in,
-                @NotNull Map<VariableDescriptor, VariableUseState> out
+                @NotNull VariableStates<VariableUseState> in,
+                @NotNull VariableStates<VariableUseState> out
         ) {
             super(instruction, map);
             enterUseState = variableDescriptor != null ? in.get(variableDescriptor) : null;
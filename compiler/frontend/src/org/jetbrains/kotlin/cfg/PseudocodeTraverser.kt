@@ -54,117 +54,6 @@ public fun <D> Pseudocode.traverse(
     }
 }
 
-public fun <D> Pseudocode.collectData(
-        traversalOrder: TraversalOrder,
-        mergeDataWithLocalDeclarations: Boolean,
-        mergeEdges: (Instruction, Collection<D>) -> Edges<D>,
-        updateEdge: (Instruction, Instruction, D) -> D,
-        initialDataValue: D
-): Map<Instruction, Edges<D>> {
-    val edgesMap = LinkedHashMap<Instruction, Edges<D>>()
-    initializeEdgesMap(edgesMap, initialDataValue)
-    edgesMap.put(getStartInstruction(traversalOrder), Edges(initialDataValue, initialDataValue))
-
-    val changed = BooleanArray(1)
-    changed[0] = true
-    while (changed[0]) {
-        changed[0] = false
-        collectDataFromSubgraph(
-                traversalOrder, mergeDataWithLocalDeclarations, edgesMap,
-                mergeEdges, updateEdge, Collections.emptyList<Instruction>(), changed, false)
-    }
-    return edgesMap
-}
-
-private fun <D> Pseudocode.initializeEdgesMap(
-        edgesMap: MutableMap<Instruction, Edges<D>>,
-        initialDataValue: D
-) {
-    val instructions = getInstructions()
-    val initialEdge = Edges(initialDataValue, initialDataValue)
-    for (instruction in instructions) {
-        edgesMap.put(instruction, initialEdge)
-        if (instruction is LocalFunctionDeclarationInstruction) {
-            instruction.body.initializeEdgesMap(edgesMap, initialDataValue)
-        }
-    }
-}
-
-private fun <D> Pseudocode.collectDataFromSubgraph(
-        traversalOrder: TraversalOrder,
-        mergeDataWithLocalDeclarations: Boolean,
-        edgesMap: MutableMap<Instruction, Edges<D>>,
-        mergeEdges: (Instruction, Collection<D>) -> Edges<D>,
-        updateEdge: (Instruction, Instruction, D) -> D,
-        previousSubGraphInstructions: Collection<Instruction>,
-        changed: BooleanArray,
-        isLocal: Boolean
-) {
-    val instructions = getInstructions(traversalOrder)
-    val startInstruction = getStartInstruction(traversalOrder)
-
-    for (instruction in instructions) {
-        val isStart = instruction.isStartInstruction(traversalOrder)
-        if (!isLocal && isStart)
-            continue
-
-        fun getPreviousIncludingSubGraphInstructions(): Collection<Instruction> {
-            val previous = instruction.getPreviousInstructions(traversalOrder)
-            if (instruction != startInstruction || previousSubGraphInstructions.isEmpty()) {
-                return previous
-            }
-            val result = ArrayList(previous)
-            result.addAll(previousSubGraphInstructions)
-            return result
-        }
-        val previousInstructions = getPreviousIncludingSubGraphInstructions()
-
-        fun updateEdgeDataForInstruction(
-                previousValue: Edges<D>?,
-                newValue: Edges<D>?
-        ) {
-            if (previousValue != newValue && newValue != null) {
-                changed[0] = true
-                edgesMap.put(instruction, newValue)
-            }
-        }
-
-        if (instruction is LocalFunctionDeclarationInstruction) {
-            val subroutinePseudocode = instruction.body
-            val previous = if (mergeDataWithLocalDeclarations) previousInstructions else Collections.emptyList()
-            subroutinePseudocode.collectDataFromSubgraph(
-                    traversalOrder, mergeDataWithLocalDeclarations,
-                    edgesMap, mergeEdges, updateEdge, previous, changed, true)
-            if (mergeDataWithLocalDeclarations) {
-                val lastInstruction = subroutinePseudocode.getLastInstruction(traversalOrder)
-                val previousValue = edgesMap.get(instruction)
-                val newValue = edgesMap.get(lastInstruction)
-                val updatedValue =
-                        if (newValue == null)
-                            null
-                        else
-                            Edges(updateEdge(lastInstruction, instruction, newValue.incoming),
-                                  updateEdge(lastInstruction, instruction, newValue.outgoing))
-                updateEdgeDataForInstruction(previousValue, updatedValue)
-                continue
-            }
-        }
-        val previousDataValue = edgesMap.get(instruction)
-
-        val incomingEdgesData = HashSet<D>()
-
-        for (previousInstruction in previousInstructions) {
-            val previousData = edgesMap.get(previousInstruction)
-            if (previousData != null) {
-                incomingEdgesData.add(updateEdge(
-                        previousInstruction, instruction, previousData.outgoing))
-            }
-        }
-        val mergedData = mergeEdges(instruction, incomingEdgesData)
-        updateEdgeDataForInstruction(previousDataValue, mergedData)
-    }
-}
-
 data class Edges<T>(val incoming: T, val outgoing: T)
 
 
@@ -38,7 +38,7 @@ import org.jetbrains.kotlin.psi.JetDeclaration;
 import org.jetbrains.kotlin.psi.JetProperty;
 import org.jetbrains.kotlin.resolve.BindingContext;
 
-import java.util.Collection;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
@@ -54,7 +54,9 @@ public class PseudocodeVariablesData {
     private final Map<Pseudocode, Set<VariableDescriptor>> declaredVariablesForDeclaration = Maps.newHashMap();
     private final Map<Pseudocode, Set<VariableDescriptor>> usedVariablesForDeclaration = Maps.newHashMap();
 
-    private Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> variableInitializers;
+    private VariableIndex variableIndex;
+    private BitsetDataFlowAnalysis<VariableInitState> variableInitializationAnalysis;
+    private BitsetDataFlowAnalysis<VariableUseState> variableUseAnalysis;
 
     public PseudocodeVariablesData(@NotNull Pseudocode pseudocode, @NotNull BindingContext bindingContext) {
         this.pseudocode = pseudocode;
@@ -135,40 +137,45 @@ public class PseudocodeVariablesData {
         return Collections.unmodifiableSet(declaredVariables);
     }
 
+    @NotNull
+    private VariableIndex getVariableIndex() {
+        if (variableIndex == null) {
+            final VariableIndex result = new VariableIndex();
+            for (VariableDescriptor variable : getLexicalScopeVariableInfo().getDeclaredIn().keySet()) {
+                result.register(variable);
+            }
+            PseudocodeTraverserPackage.traverse(pseudocode, FORWARD, new Function1<Instruction, Unit>() {
+                @Override
+                public Unit invoke(@NotNull Instruction instruction) {
+                    VariableDescriptor variable = PseudocodeUtil.extractVariableDescriptorIfAny(instruction, false, bindingContext);
+                    if (variable != null) {
+                        result.register(variable);
+                    }
+                    VariableDescriptor referencedVariable = PseudocodeUtil.extractVariableDescriptorIfAny(instruction, true, bindingContext);
+                    if (referencedVariable != null) {
+                        result.register(referencedVariable);
+                    }
+                    return Unit.INSTANCE$;
+                }
+            });
+            variableIndex = result;
+        }
+        return variableIndex;
+    }
+
     // variable initializers
 
     @NotNull
-    public Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> getVariableInitializers() {
-        if (variableInitializers == null) {
-            variableInitializers = computeVariableInitializers();
+    public BitsetDataFlowAnalysis<VariableInitState> getVariableInitializationAnalysis() {
+        if (variableInitializationAnalysis == null) {
+            variableInitializationAnalysis = new VariableInitializationAnalysis();
         }
-
-        return variableInitializers;
+        return variableInitializationAnalysis;
     }
 
     @NotNull
-    private Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> computeVariableInitializers() {
-
-        final LexicalScopeVariableInfo lexicalScopeVariableInfo = pseudocodeVariableDataCollector.getLexicalScopeVariableInfo();
-
-        return pseudocodeVariableDataCollector.collectData(
-                FORWARD, /*mergeDataWithLocalDeclarations=*/ false,
-                new InstructionDataMergeStrategy<VariableInitState>() {
-                    @NotNull
-                    @Override
-                    public Edges<Map<VariableDescriptor, VariableInitState>> invoke(
-                            @NotNull Instruction instruction,
-                            @NotNull Collection<? extends Map<VariableDescriptor, VariableInitState>> incomingEdgesData
-                    ) {
-
-                        Map<VariableDescriptor, VariableInitState> enterInstructionData =
-                                mergeIncomingEdgesDataForInitializers(incomingEdgesData);
-                        Map<VariableDescriptor, VariableInitState> exitInstructionData = addVariableInitStateFromCurrentInstructionIfAny(
-                                instruction, enterInstructionData, lexicalScopeVariableInfo);
-                        return new Edges<Map<VariableDescriptor, VariableInitState>>(enterInstructionData, exitInstructionData);
-                    }
-                }
-        );
+    public Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> getVariableInitializers() {
+        return getVariableInitializationAnalysis().getAllStates();
     }
 
     public static VariableInitState getDefaultValueForInitializers(
@@ -184,120 +191,118 @@ public class PseudocodeVariablesData {
         return VariableInitState.create(/*isInitialized=*/declaredOutsideThisDeclaration);
     }
 
-    @NotNull
-    private static Map<VariableDescriptor, VariableInitState> mergeIncomingEdgesDataForInitializers(
-            @NotNull Collection<? extends Map<VariableDescriptor, VariableInitState>> incomingEdgesData
-    ) {
-        Set<VariableDescriptor> variablesInScope = Sets.newHashSet();
-        for (Map<VariableDescriptor, VariableInitState> edgeData : incomingEdgesData) {
-            variablesInScope.addAll(edgeData.keySet());
+    /**
+     * A variable is absent from the state until it's declared or written, which corresponds to a missing map entry.
+     * A known variable is initialized and declared unless the corresponding bit is set, so that merging the states
+     * with a union makes a variable initialized (declared) only if it's initialized (declared) on every incoming edge.
+     */
+    private class VariableInitializationAnalysis extends BitsetDataFlowAnalysis<VariableInitState> {
+        private static final int KNOWN = 0;
+        private static final int NOT_INITIALIZED = 1;
+        private static final int NOT_DECLARED = 2;
+
+        private VariableInitializationAnalysis() {
+            super(pseudocode, FORWARD, /*mergeDataWithLocalDeclarations=*/ false, getVariableIndex(), getLexicalScopeVariableInfo(), 3);
         }
 
-        Map<VariableDescriptor, VariableInitState> enterInstructionData = Maps.newHashMap();
-        for (VariableDescriptor variable : variablesInScope) {
-            boolean isInitialized = true;
-            boolean isDeclared = true;
-            for (Map<VariableDescriptor, VariableInitState> edgeData : incomingEdgesData) {
-                VariableInitState initState = edgeData.get(variable);
-                if (initState != null) {
-                    if (!initState.isInitialized) {
-                        isInitialized = false;
-                    }
-                    if (!initState.isDeclared) {
-                        isDeclared = false;
-                    }
+        @Nullable
+        @Override
+        protected VariableDescriptor getVariable(@NotNull Instruction instruction) {
+            if (!(instruction instanceof WriteValueInstruction) && !(instruction instanceof VariableDeclarationInstruction)) {
+                return null;
+            }
+            return PseudocodeUtil.extractVariableDescriptorIfAny(instruction, false, bindingContext);
+        }
+
+        @Override
+        protected void transfer(@NotNull Instruction instruction, int variable, @NotNull BitSet state) {
+            boolean isKnown = state.get(bit(KNOWN, variable));
+            if (instruction instanceof WriteValueInstruction) {
+                state.set(bit(KNOWN, variable));
+                state.clear(bit(NOT_INITIALIZED, variable));
+                if (((WriteValueInstruction) instruction).getElement() instanceof JetProperty) {
+                    state.clear(bit(NOT_DECLARED, variable));
+                }
+                else if (!isKnown) {
+                    state.set(bit(NOT_DECLARED, variable));
+                }
+            }
+            else { // instruction instanceof VariableDeclarationInstruction
+                if (!isKnown) {
+                    VariableInitState defaultState =
+                            getDefaultValueForInitializers(getVariables().getVariable(variable), instruction, getLexicalScopeVariableInfo());
+                    state.set(bit(KNOWN, variable));
+                    state.set(bit(NOT_INITIALIZED, variable), !defaultState.isInitialized);
                 }
+                state.clear(bit(NOT_DECLARED, variable));
             }
-            enterInstructionData.put(variable, VariableInitState.create(isInitialized, isDeclared));
         }
-        return enterInstructionData;
+
+        @Nullable
+        @Override
+        public VariableInitState decode(@NotNull BitSet state, int variable) {
+            if (!state.get(bit(KNOWN, variable))) return null;
+            return VariableInitState.create(!state.get(bit(NOT_INITIALIZED, variable)), !state.get(bit(NOT_DECLARED, variable)));
+        }
     }
 
+// variable use
+
     @NotNull
-    private Map<VariableDescriptor, VariableInitState> addVariableInitStateFromCurrentInstructionIfAny(
-            @NotNull Instruction instruction,
-            @NotNull Map<VariableDescriptor, VariableInitState> enterInstructionData,
-            @NotNull LexicalScopeVariableInfo lexicalScopeVariableInfo
-    ) {
-        if (!(instruction instanceof WriteValueInstruction) && !(instruction instanceof VariableDeclarationInstruction)) {
-            return enterInstructionData;
+    public BitsetDataFlowAnalysis<VariableUseState> getVariableUseAnalysis() {
+        if (variableUseAnalysis == null) {
+            variableUseAnalysis = new VariableUseAnalysis();
         }
-        VariableDescriptor variable = PseudocodeUtil.extractVariableDescriptorIfAny(instruction, false, bindingContext);
-        if (variable == null) {
-            return enterInstructionData;
+        return variableUseAnalysis;
+    }
+
+    @NotNull
+    public Map<Instruction, Edges<Map<VariableDescriptor, VariableUseState>>> getVariableUseStatusData() {
+        return getVariableUseAnalysis().getAllStates();
+    }
+
+    /**
+     * The use state of a variable is encoded with a bit per state at least as high as the variable's one in {@link VariableUseState},
+     * so that the union of the states is their maximum. {@link VariableUseState#UNUSED} is the same as the absence of a variable.
+     */
+    private class VariableUseAnalysis extends BitsetDataFlowAnalysis<VariableUseState> {
+        private static final int WRITTEN = 0;
+        private static final int WRITTEN_AFTER_READ = 1;
+        private static final int READ = 2;
+
+        private VariableUseAnalysis() {
+            super(pseudocode, BACKWARD, /*mergeDataWithLocalDeclarations=*/ true, getVariableIndex(), getLexicalScopeVariableInfo(), 3);
         }
-        Map<VariableDescriptor, VariableInitState> exitInstructionData = Maps.newHashMap(enterInstructionData);
-        if (instruction instanceof WriteValueInstruction) {
-            VariableInitState enterInitState = enterInstructionData.get(variable);
-            VariableInitState initializationAtThisElement =
-                    VariableInitState.create(((WriteValueInstruction) instruction).getElement() instanceof JetProperty, enterInitState);
-            exitInstructionData.put(variable, initializationAtThisElement);
+
+        @Nullable
+        @Override
+        protected VariableDescriptor getVariable(@NotNull Instruction instruction) {
+            if (!(instruction instanceof ReadValueInstruction) && !(instruction instanceof WriteValueInstruction)) {
+                return null;
+            }
+            return PseudocodeUtil.extractVariableDescriptorIfAny(instruction, true, bindingContext);
         }
-        else { // instruction instanceof VariableDeclarationInstruction
-            VariableInitState enterInitState = enterInstructionData.get(variable);
-            if (enterInitState == null) {
-                enterInitState = getDefaultValueForInitializers(variable, instruction, lexicalScopeVariableInfo);
+
+        @Override
+        protected void transfer(@NotNull Instruction instruction, int variable, @NotNull BitSet state) {
+            state.set(bit(WRITTEN, variable));
+            if (instruction instanceof ReadValueInstruction) {
+                state.set(bit(WRITTEN_AFTER_READ, variable));
+                state.set(bit(READ, variable));
             }
-            if (enterInitState == null || !enterInitState.isInitialized || !enterInitState.isDeclared) {
-                boolean isInitialized = enterInitState != null && enterInitState.isInitialized;
-                VariableInitState variableDeclarationInfo = VariableInitState.create(isInitialized, true);
-                exitInstructionData.put(variable, variableDeclarationInfo);
+            else { //instruction instanceof WriteValueInstruction
+                state.clear(bit(READ, variable));
             }
         }
-        return exitInstructionData;
-    }
-
-// variable use
 
-    @NotNull
-    public Map<Instruction, Edges<Map<VariableDescriptor, VariableUseState>>> getVariableUseStatusData() {
-        return pseudocodeVariableDataCollector.collectData(
-                BACKWARD, /*mergeDataWithLocalDeclarations=*/ true,
-                new InstructionDataMergeStrategy<VariableUseState>() {
-                    @NotNull
-                    @Override
-                    public Edges<Map<VariableDescriptor, VariableUseState>> invoke(
-                            @NotNull Instruction instruction,
-                            @NotNull Collection<? extends Map<VariableDescriptor, VariableUseState>> incomingEdgesData
-                    ) {
-
-                        Map<VariableDescriptor, VariableUseState> enterResult = Maps.newHashMap();
-                        for (Map<VariableDescriptor, VariableUseState> edgeData : incomingEdgesData) {
-                            for (Map.Entry<VariableDescriptor, VariableUseState> entry : edgeData.entrySet()) {
-                                VariableDescriptor variableDescriptor = entry.getKey();
-                                VariableUseState variableUseState = entry.getValue();
-                                enterResult.put(variableDescriptor, variableUseState.merge(enterResult.get(variableDescriptor)));
-                            }
-                        }
-                        VariableDescriptor variableDescriptor = PseudocodeUtil.extractVariableDescriptorIfAny(
-                                instruction, true, bindingContext);
-                        if (variableDescriptor == null ||
-                            (!(instruction instanceof ReadValueInstruction) && !(instruction instanceof WriteValueInstruction))) {
-                            return new Edges<Map<VariableDescriptor, VariableUseState>>(enterResult, enterResult);
-                        }
-                        Map<VariableDescriptor, VariableUseState> exitResult = Maps.newHashMap(enterResult);
-                        if (instruction instanceof ReadValueInstruction) {
-                            exitResult.put(variableDescriptor, VariableUseState.READ);
-                        }
-                        else { //instruction instanceof WriteValueInstruction
-                            VariableUseState variableUseState = enterResult.get(variableDescriptor);
-                            if (variableUseState == null) {
-                                variableUseState = VariableUseState.UNUSED;
-                            }
-                            switch (variableUseState) {
-                                case UNUSED:
-                                case ONLY_WRITTEN_NEVER_READ:
-                                    exitResult.put(variableDescriptor, VariableUseState.ONLY_WRITTEN_NEVER_READ);
-                                    break;
-                                case WRITTEN_AFTER_READ:
-                                case READ:
-                                    exitResult.put(variableDescriptor, VariableUseState.WRITTEN_AFTER_READ);
-                            }
-                        }
-                        return new Edges<Map<VariableDescriptor, VariableUseState>>(enterResult, exitResult);
-                    }
-                }
-        );
+        @Nullable
+        @Override
+        public VariableUseState decode(@NotNull BitSet state, int variable) {
+            if (state.get(bit(READ, variable))) return VariableUseState.READ;
+            if (state.get(bit(WRITTEN_AFTER_READ, variable))) return VariableUseState.WRITTEN_AFTER_READ;
+            if (state.get(bit(WRITTEN, variable))) return VariableUseState.ONLY_WRITTEN_NEVER_READ;
+            return null;
+        }
     }
 
     public static class VariableInitState {
@@ -328,10 +333,6 @@ public class PseudocodeVariablesData {
             return create(isInitialized, false);
         }
 
-        private static VariableInitState create(boolean isDeclaredHere, @Nullable VariableInitState mergedEdgesData) {
-            return create(true, isDeclaredHere || (mergedEdgesData != null && mergedEdgesData.isDeclared));
-        }
-
         @Override
         public String toString() {
             if (!isInitialized && !isDeclared) return "-";
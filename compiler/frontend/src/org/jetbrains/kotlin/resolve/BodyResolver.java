@@ -16,10 +16,12 @@
 
 package org.jetbrains.kotlin.resolve;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.intellij.psi.PsiElement;
 import com.intellij.util.containers.Queue;
+import kotlin.Function0;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.descriptors.*;
@@ -29,21 +31,27 @@ import org.jetbrains.kotlin.resolve.calls.CallResolver;
 import org.jetbrains.kotlin.resolve.calls.results.OverloadResolutionResults;
 import org.jetbrains.kotlin.resolve.calls.util.CallMaker;
 import org.jetbrains.kotlin.resolve.constants.CompileTimeConstant;
+import org.jetbrains.kotlin.resolve.diagnostics.Diagnostics;
 import org.jetbrains.kotlin.resolve.scopes.*;
 import org.jetbrains.kotlin.resolve.scopes.receivers.ReceiverValue;
+import org.jetbrains.kotlin.storage.StorageManager;
 import org.jetbrains.kotlin.types.*;
 import org.jetbrains.kotlin.types.expressions.ExpressionTypingServices;
 import org.jetbrains.kotlin.util.Box;
 import org.jetbrains.kotlin.util.ReenteringLazyValueComputationException;
+import org.jetbrains.kotlin.util.slicedMap.ReadOnlySlice;
 import org.jetbrains.kotlin.util.slicedMap.WritableSlice;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static org.jetbrains.kotlin.descriptors.ReceiverParameterDescriptor.NO_RECEIVER_PARAMETER;
 import static org.jetbrains.kotlin.diagnostics.Errors.*;
 import static org.jetbrains.kotlin.resolve.BindingContext.DEFERRED_TYPE;
 import static org.jetbrains.kotlin.types.TypeUtils.NO_EXPECTED_TYPE;
+import static org.jetbrains.kotlin.utils.UtilsPackage.rethrow;
 
 public class BodyResolver {
     private ScriptBodyResolver scriptBodyResolverResolver;
@@ -123,12 +131,190 @@ public class BodyResolver {
     }
 
     public void resolveBodies(@NotNull BodiesResolveContext c) {
-        resolveBehaviorDeclarationBodies(c);
-        controlFlowAnalyzer.process(c);
+        CompilerPhaseMetrics phaseMetrics = c.getTopDownAnalysisParameters().getPhaseMetrics();
+        CompilerPhaseMetrics.Measurement measurement = CompilerPhaseMetrics.start(phaseMetrics, CompilerPhaseMetrics.Phase.BODY_RESOLVE);
+        try {
+            int threads = c.getTopDownAnalysisParameters().getBodyResolveThreads();
+            if (threads > 1 && c.getScripts().isEmpty() && c.getFiles().size() > 1) {
+                resolveBehaviorDeclarationBodiesInParallel(c, threads);
+            }
+            else {
+                resolveBehaviorDeclarationBodies(c);
+            }
+        }
+        finally {
+            CompilerPhaseMetrics.finish(measurement);
+        }
+
+        measurement = CompilerPhaseMetrics.start(phaseMetrics, CompilerPhaseMetrics.Phase.CONTROL_FLOW_ANALYSIS);
+        try {
+            controlFlowAnalyzer.process(c);
+        }
+        finally {
+            CompilerPhaseMetrics.finish(measurement);
+        }
+
         declarationsChecker.process(c);
         functionAnalyzerExtension.process(c);
     }
 
+    /**
+     * Resolves bodies of each file with a separate trace, the traces are merged into the main one in the order of files
+     * after all files are resolved. Declarations of a file only see the results of their own file and of lazy resolution,
+     * which writes to the main trace under the lock of the storage manager.
+     */
+    private void resolveBehaviorDeclarationBodiesInParallel(@NotNull final BodiesResolveContext c, int threads) {
+        final BindingContext mainContext = trace.getBindingContext();
+        List<FileBodiesResolveContext> fileContexts = FileBodiesResolveContext.splitByFile(c);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, fileContexts.size()));
+        try {
+            List<Future<DelegatingBindingTrace>> fileTraces = new ArrayList<Future<DelegatingBindingTrace>>(fileContexts.size());
+            for (final FileBodiesResolveContext fileContext : fileContexts) {
+                fileTraces.add(executor.submit(new Callable<DelegatingBindingTrace>() {
+                    @Override
+                    public DelegatingBindingTrace call() {
+                        BindingContext parentContext = new LockProtectedBindingContext(c.getStorageManager(), mainContext);
+                        DelegatingBindingTrace fileTrace = new DelegatingBindingTrace(
+                                parentContext, "Bodies of file", fileContext.getFile().getName());
+                        copyWithTrace(fileTrace).resolveBehaviorDeclarationBodies(fileContext);
+                        return fileTrace;
+                    }
+                }));
+            }
+
+            // The main trace is written only when no worker reads it anymore
+            List<DelegatingBindingTrace> resolvedFileTraces = new ArrayList<DelegatingBindingTrace>(fileTraces.size());
+            for (Future<DelegatingBindingTrace> fileTrace : fileTraces) {
+                resolvedFileTraces.add(getResult(fileTrace));
+            }
+            for (DelegatingBindingTrace fileTrace : resolvedFileTraces) {
+                fileTrace.addAllMyDataTo(trace);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        // Deferred types of a file may have been computed in the trace of another file
+        if (!c.getTopDownAnalysisParameters().isDeclaredLocally()) {
+            computeDeferredTypes();
+        }
+    }
+
+    /**
+     * Creates a resolver for bodies of one file, which is run on a worker thread. It shares the services with this resolver:
+     * they (and the services they depend on, like ExpressionTypingComponents, CallCompleter or TypeResolver) only hold
+     * other services injected before the analysis, all the state of resolution is passed in contexts and traces.
+     * Services which hold the main trace (control flow analyzer, declarations checker, function analyzer extension)
+     * are not passed, since they are only run after the bodies of all files are resolved.
+     */
+    @NotNull
+    private BodyResolver copyWithTrace(@NotNull BindingTrace trace) {
+        BodyResolver copy = new BodyResolver();
+        copy.setScriptBodyResolverResolver(scriptBodyResolverResolver);
+        copy.setExpressionTypingServices(expressionTypingServices);
+        copy.setCallResolver(callResolver);
+        copy.setTrace(trace);
+        copy.setAnnotationResolver(annotationResolver);
+        copy.setDelegatedPropertyResolver(delegatedPropertyResolver);
+        return copy;
+    }
+
+    @NotNull
+    private static <T> T getResult(@NotNull Future<T> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while resolving bodies", e);
+        }
+        catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * Reads the main context under the lock of the storage manager, since lazy resolution may write to it from other threads.
+     * Values which are already computed are remembered, so that reading them again doesn't take the lock:
+     * lazy resolution only adds values to the main context, but doesn't change them. Absent values and false are not
+     * remembered, because they may be added by lazy resolution later.
+     *
+     * Each worker thread has its own instance.
+     */
+    private static class LockProtectedBindingContext implements BindingContext {
+        private final StorageManager storageManager;
+        private final BindingContext context;
+        private final Map<ReadOnlySlice<?, ?>, Map<Object, Object>> computedValues = new HashMap<ReadOnlySlice<?, ?>, Map<Object, Object>>();
+
+        public LockProtectedBindingContext(@NotNull StorageManager storageManager, @NotNull BindingContext context) {
+            this.storageManager = storageManager;
+            this.context = context;
+        }
+
+        @NotNull
+        @Override
+        public Diagnostics getDiagnostics() {
+            return storageManager.compute(new Function0<Diagnostics>() {
+                @Override
+                public Diagnostics invoke() {
+                    return context.getDiagnostics();
+                }
+            });
+        }
+
+        @Nullable
+        @Override
+        public <K, V> V get(final ReadOnlySlice<K, V> slice, final K key) {
+            Map<Object, Object> sliceValues = computedValues.get(slice);
+            if (sliceValues != null) {
+                //noinspection unchecked
+                V value = (V) sliceValues.get(key);
+                if (value != null) return value;
+            }
+
+            V value = storageManager.compute(new Function0<V>() {
+                @Override
+                public V invoke() {
+                    return context.get(slice, key);
+                }
+            });
+
+            if (value != null && !Boolean.FALSE.equals(value)) {
+                if (sliceValues == null) {
+                    sliceValues = new HashMap<Object, Object>();
+                    computedValues.put(slice, sliceValues);
+                }
+                sliceValues.put(key, value);
+            }
+            return value;
+        }
+
+        @NotNull
+        @Override
+        public <K, V> Collection<K> getKeys(final WritableSlice<K, V> slice) {
+            // A copy, since the keys may be added by lazy resolution in other threads
+            return storageManager.compute(new Function0<Collection<K>>() {
+                @Override
+                public Collection<K> invoke() {
+                    return new ArrayList<K>(context.getKeys(slice));
+                }
+            });
+        }
+
+        @NotNull
+        @Override
+        public <K, V> ImmutableMap<K, V> getSliceContents(@NotNull final ReadOnlySlice<K, V> slice) {
+            return storageManager.compute(new Function0<ImmutableMap<K, V>>() {
+                @Override
+                public ImmutableMap<K, V> invoke() {
+                    return context.getSliceContents(slice);
+                }
+            });
+        }
+    }
+
     private void resolveDelegationSpecifierLists(@NotNull BodiesResolveContext c) {
         // TODO : Make sure the same thing is not initialized twice
         for (Map.Entry<JetClassOrObject, ClassDescriptorWithResolutionScopes> entry : c.getDeclaredClasses().entrySet()) {
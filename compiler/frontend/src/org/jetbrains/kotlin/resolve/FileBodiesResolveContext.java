@@ -0,0 +1,145 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.resolve;
+
+import com.google.common.base.Function;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.descriptors.ClassDescriptorWithResolutionScopes;
+import org.jetbrains.kotlin.descriptors.PropertyDescriptor;
+import org.jetbrains.kotlin.descriptors.ScriptDescriptor;
+import org.jetbrains.kotlin.descriptors.SimpleFunctionDescriptor;
+import org.jetbrains.kotlin.psi.*;
+import org.jetbrains.kotlin.resolve.calls.smartcasts.DataFlowInfo;
+import org.jetbrains.kotlin.resolve.scopes.JetScope;
+import org.jetbrains.kotlin.storage.ExceptionTracker;
+import org.jetbrains.kotlin.storage.StorageManager;
+
+import java.util.*;
+
+/**
+ * Declarations of a {@link BodiesResolveContext} which belong to one file
+ */
+class FileBodiesResolveContext implements BodiesResolveContext {
+    private final BodiesResolveContext context;
+    private final JetFile file;
+
+    private final Map<JetClassOrObject, ClassDescriptorWithResolutionScopes> declaredClasses;
+    private final Map<JetClassInitializer, ClassDescriptorWithResolutionScopes> anonymousInitializers;
+    private final Map<JetProperty, PropertyDescriptor> properties;
+    private final Map<JetNamedFunction, SimpleFunctionDescriptor> functions;
+
+    /**
+     * @return contexts of the files of the given context, in the same order as the files
+     */
+    @NotNull
+    public static List<FileBodiesResolveContext> splitByFile(@NotNull BodiesResolveContext context) {
+        List<FileBodiesResolveContext> result = new ArrayList<FileBodiesResolveContext>(context.getFiles().size());
+        for (JetFile file : context.getFiles()) {
+            result.add(new FileBodiesResolveContext(context, file));
+        }
+        return result;
+    }
+
+    private FileBodiesResolveContext(@NotNull BodiesResolveContext context, @NotNull JetFile file) {
+        this.context = context;
+        this.file = file;
+        this.declaredClasses = filterByFile(context.getDeclaredClasses(), file);
+        this.anonymousInitializers = filterByFile(context.getAnonymousInitializers(), file);
+        this.properties = filterByFile(context.getProperties(), file);
+        this.functions = filterByFile(context.getFunctions(), file);
+    }
+
+    @NotNull
+    private static <K extends PsiElement, V> Map<K, V> filterByFile(@NotNull Map<K, V> map, @NotNull JetFile file) {
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            if (entry.getKey().getContainingFile() == file) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    public JetFile getFile() {
+        return file;
+    }
+
+    @NotNull
+    @Override
+    public StorageManager getStorageManager() {
+        return context.getStorageManager();
+    }
+
+    @NotNull
+    @Override
+    public ExceptionTracker getExceptionTracker() {
+        return context.getExceptionTracker();
+    }
+
+    @Override
+    public Collection<JetFile> getFiles() {
+        return Collections.singletonList(file);
+    }
+
+    @Override
+    public Map<JetClassOrObject, ClassDescriptorWithResolutionScopes> getDeclaredClasses() {
+        return declaredClasses;
+    }
+
+    @Override
+    public Map<JetClassInitializer, ClassDescriptorWithResolutionScopes> getAnonymousInitializers() {
+        return anonymousInitializers;
+    }
+
+    @Override
+    public Map<JetScript, ScriptDescriptor> getScripts() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<JetProperty, PropertyDescriptor> getProperties() {
+        return properties;
+    }
+
+    @Override
+    public Map<JetNamedFunction, SimpleFunctionDescriptor> getFunctions() {
+        return functions;
+    }
+
+    @Override
+    public Function<JetDeclaration, JetScope> getDeclaringScopes() {
+        return context.getDeclaringScopes();
+    }
+
+    @Override
+    public DataFlowInfo getOuterDataFlowInfo() {
+        return context.getOuterDataFlowInfo();
+    }
+
+    @NotNull
+    @Override
+    public TopDownAnalysisParameters getTopDownAnalysisParameters() {
+        return context.getTopDownAnalysisParameters();
+    }
+
+    @Override
+    public boolean completeAnalysisNeeded(@NotNull PsiElement element) {
+        return context.completeAnalysisNeeded(element);
+    }
+}
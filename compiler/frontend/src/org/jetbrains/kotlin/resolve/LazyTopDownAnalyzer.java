@@ -30,6 +30,7 @@ import org.jetbrains.kotlin.resolve.lazy.*;
 import org.jetbrains.kotlin.resolve.lazy.descriptors.LazyClassDescriptor;
 import org.jetbrains.kotlin.resolve.resolveUtil.ResolveUtilPackage;
 import org.jetbrains.kotlin.resolve.varianceChecker.VarianceChecker;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
@@ -122,6 +123,22 @@ public class LazyTopDownAnalyzer {
             @NotNull TopDownAnalysisParameters topDownAnalysisParameters,
             @NotNull Collection<? extends PsiElement> declarations,
             @NotNull DataFlowInfo outerDataFlowInfo
+    ) {
+        CompilerPhaseMetrics.Measurement measurement = CompilerPhaseMetrics.start(
+                topDownAnalysisParameters.getPhaseMetrics(), CompilerPhaseMetrics.Phase.TOP_DOWN_ANALYSIS);
+        try {
+            return doAnalyzeDeclarations(topDownAnalysisParameters, declarations, outerDataFlowInfo);
+        }
+        finally {
+            CompilerPhaseMetrics.finish(measurement);
+        }
+    }
+
+    @NotNull
+    private TopDownAnalysisContext doAnalyzeDeclarations(
+            @NotNull TopDownAnalysisParameters topDownAnalysisParameters,
+            @NotNull Collection<? extends PsiElement> declarations,
+            @NotNull DataFlowInfo outerDataFlowInfo
     ) {
         assert topDownAnalysisParameters.isLazy() : "Lazy analyzer is run in non-lazy mode";
 
@@ -19,10 +19,12 @@ package org.jetbrains.kotlin.resolve;
 import com.google.common.base.Predicate;
 import com.intellij.psi.PsiFile;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.context.GlobalContext;
 import org.jetbrains.kotlin.context.LazinessToken;
 import org.jetbrains.kotlin.storage.ExceptionTracker;
 import org.jetbrains.kotlin.storage.StorageManager;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 
 /**
  * Various junk that cannot be placed into context (yet).
@@ -42,9 +44,42 @@ public class TopDownAnalysisParameters extends LazinessToken implements GlobalCo
             @NotNull Predicate<PsiFile> analyzeCompletely,
             boolean analyzingBootstrapLibrary,
             boolean declaredLocally
+    ) {
+        return create(storageManager, exceptionTracker, analyzeCompletely, analyzingBootstrapLibrary, declaredLocally, 1);
+    }
+
+    /**
+     * @param bodyResolveThreads number of threads to resolve bodies of declarations from different files on,
+     *                           see {@link BodyResolver#resolveBodies}
+     */
+    @NotNull
+    public static TopDownAnalysisParameters create(
+            @NotNull StorageManager storageManager,
+            @NotNull ExceptionTracker exceptionTracker,
+            @NotNull Predicate<PsiFile> analyzeCompletely,
+            boolean analyzingBootstrapLibrary,
+            boolean declaredLocally,
+            int bodyResolveThreads
+    ) {
+        return create(storageManager, exceptionTracker, analyzeCompletely, analyzingBootstrapLibrary, declaredLocally,
+                      bodyResolveThreads, null);
+    }
+
+    /**
+     * @param phaseMetrics metrics to record the analysis phases in, or null if they are not measured
+     */
+    @NotNull
+    public static TopDownAnalysisParameters create(
+            @NotNull StorageManager storageManager,
+            @NotNull ExceptionTracker exceptionTracker,
+            @NotNull Predicate<PsiFile> analyzeCompletely,
+            boolean analyzingBootstrapLibrary,
+            boolean declaredLocally,
+            int bodyResolveThreads,
+            @Nullable CompilerPhaseMetrics phaseMetrics
     ) {
         return new TopDownAnalysisParameters(storageManager, exceptionTracker, analyzeCompletely, analyzingBootstrapLibrary,
-                                             declaredLocally, LAZY);
+                                             declaredLocally, LAZY, bodyResolveThreads, phaseMetrics);
     }
 
     @NotNull
@@ -53,7 +88,7 @@ public class TopDownAnalysisParameters extends LazinessToken implements GlobalCo
             @NotNull ExceptionTracker exceptionTracker,
             @NotNull Predicate<PsiFile> analyzeCompletely
     ) {
-        return new TopDownAnalysisParameters(storageManager, exceptionTracker, analyzeCompletely, false, true, false);
+        return new TopDownAnalysisParameters(storageManager, exceptionTracker, analyzeCompletely, false, true, false, 1, null);
     }
 
     @NotNull private final StorageManager storageManager;
@@ -62,6 +97,8 @@ public class TopDownAnalysisParameters extends LazinessToken implements GlobalCo
     private final boolean analyzingBootstrapLibrary;
     private final boolean declaredLocally;
     private final boolean lazyTopDownAnalysis;
+    private final int bodyResolveThreads;
+    @Nullable private final CompilerPhaseMetrics phaseMetrics;
 
     private TopDownAnalysisParameters(
             @NotNull StorageManager storageManager,
@@ -69,7 +106,9 @@ public class TopDownAnalysisParameters extends LazinessToken implements GlobalCo
             @NotNull Predicate<PsiFile> analyzeCompletely,
             boolean analyzingBootstrapLibrary,
             boolean declaredLocally,
-            boolean lazyTopDownAnalysis
+            boolean lazyTopDownAnalysis,
+            int bodyResolveThreads,
+            @Nullable CompilerPhaseMetrics phaseMetrics
     ) {
         this.storageManager = storageManager;
         this.exceptionTracker = exceptionTracker;
@@ -77,6 +116,8 @@ public class TopDownAnalysisParameters extends LazinessToken implements GlobalCo
         this.analyzingBootstrapLibrary = analyzingBootstrapLibrary;
         this.declaredLocally = declaredLocally;
         this.lazyTopDownAnalysis = lazyTopDownAnalysis;
+        this.bodyResolveThreads = bodyResolveThreads;
+        this.phaseMetrics = phaseMetrics;
     }
 
     @Override
@@ -104,6 +145,15 @@ public class TopDownAnalysisParameters extends LazinessToken implements GlobalCo
         return declaredLocally;
     }
 
+    public int getBodyResolveThreads() {
+        return bodyResolveThreads;
+    }
+
+    @Nullable
+    public CompilerPhaseMetrics getPhaseMetrics() {
+        return phaseMetrics;
+    }
+
     // Used temporarily while we are transitioning from eager to lazy analysis of headers in the IDE
     @Override
     @Deprecated
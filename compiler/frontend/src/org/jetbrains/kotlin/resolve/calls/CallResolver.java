@@ -19,6 +19,7 @@ package org.jetbrains.kotlin.resolve.calls;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.intellij.openapi.progress.ProgressIndicatorProvider;
+import kotlin.Function0;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.descriptors.*;
@@ -169,14 +170,28 @@ public class CallResolver {
 
     @NotNull
     private <D extends CallableDescriptor, F extends D> OverloadResolutionResults<F> computeTasksAndResolveCall(
-            @NotNull BasicCallResolutionContext context,
-            @NotNull Name name,
-            @NotNull TracingStrategy tracing,
-            @NotNull CallableDescriptorCollectors<D> collectors,
+            @NotNull final BasicCallResolutionContext context,
+            @NotNull final Name name,
+            @NotNull final TracingStrategy tracing,
+            @NotNull final CallableDescriptorCollectors<D> collectors,
             @NotNull CallTransformer<D, F> callTransformer
     ) {
-        List<ResolutionTask<D, F>> tasks = taskPrioritizer.<D, F>computePrioritizedTasks(context, name, tracing, collectors);
-        return doResolveCallOrGetCachedResults(context, tasks, callTransformer, tracing);
+        // All candidates are needed for completion, and 'invoke' may be resolved on a receiver of a wrong type on purpose
+        // (see CandidateResolver.checkReceiverTypeError)
+        if (context.collectAllCandidates || context.call.getDispatchReceiver().exists()) {
+            List<ResolutionTask<D, F>> tasks = taskPrioritizer.<D, F>computePrioritizedTasks(context, name, tracing, collectors, null);
+            return doResolveCallOrGetCachedResults(context, tasks, callTransformer, tracing, null, null);
+        }
+
+        ExtensionReceiverTypeFilter receiverTypeFilter = new ExtensionReceiverTypeFilter();
+        List<ResolutionTask<D, F>> tasks = taskPrioritizer.<D, F>computePrioritizedTasks(context, name, tracing, collectors, receiverTypeFilter);
+        Function0<List<ResolutionTask<D, F>>> unfilteredTasks = new Function0<List<ResolutionTask<D, F>>>() {
+            @Override
+            public List<ResolutionTask<D, F>> invoke() {
+                return taskPrioritizer.<D, F>computePrioritizedTasks(context, name, tracing, collectors, null);
+            }
+        };
+        return doResolveCallOrGetCachedResults(context, tasks, callTransformer, tracing, receiverTypeFilter, unfilteredTasks);
     }
 
     @NotNull
@@ -330,6 +345,17 @@ public class CallResolver {
             @NotNull List<ResolutionTask<D, F>> prioritizedTasks,
             @NotNull CallTransformer<D, F> callTransformer,
             @NotNull TracingStrategy tracing
+    ) {
+        return doResolveCallOrGetCachedResults(context, prioritizedTasks, callTransformer, tracing, null, null);
+    }
+
+    private <D extends CallableDescriptor, F extends D> OverloadResolutionResultsImpl<F> doResolveCallOrGetCachedResults(
+            @NotNull BasicCallResolutionContext context,
+            @NotNull List<ResolutionTask<D, F>> prioritizedTasks,
+            @NotNull CallTransformer<D, F> callTransformer,
+            @NotNull TracingStrategy tracing,
+            @Nullable ExtensionReceiverTypeFilter receiverTypeFilter,
+            @Nullable Function0<List<ResolutionTask<D, F>>> unfilteredTasks
     ) {
         Call call = context.call;
         tracing.bindCall(context.trace, call);
@@ -348,7 +374,7 @@ public class CallResolver {
         if (results == null) {
             BasicCallResolutionContext newContext = context.replaceBindingTrace(traceToResolveCall);
             recordScopeAndDataFlowInfo(newContext, newContext.call.getCalleeExpression());
-            results = doResolveCall(newContext, prioritizedTasks, callTransformer, tracing);
+            results = doResolveCallWithReceiverTypeFilter(newContext, prioritizedTasks, callTransformer, tracing, receiverTypeFilter, unfilteredTasks);
             DelegatingBindingTrace deltasTraceForTypeInference = ((OverloadResolutionResultsImpl) results).getTrace();
             if (deltasTraceForTypeInference != null) {
                 deltasTraceForTypeInference.addAllMyDataTo(traceToResolveCall);
@@ -365,6 +391,38 @@ public class CallResolver {
         return results;
     }
 
+    @NotNull
+    private <D extends CallableDescriptor, F extends D> OverloadResolutionResultsImpl<F> doResolveCallWithReceiverTypeFilter(
+            @NotNull BasicCallResolutionContext context,
+            @NotNull List<ResolutionTask<D, F>> prioritizedTasks,
+            @NotNull CallTransformer<D, F> callTransformer,
+            @NotNull TracingStrategy tracing,
+            @Nullable ExtensionReceiverTypeFilter receiverTypeFilter,
+            @Nullable Function0<List<ResolutionTask<D, F>>> unfilteredTasks
+    ) {
+        if (receiverTypeFilter == null || unfilteredTasks == null) {
+            return doResolveCall(context, prioritizedTasks, callTransformer, tracing);
+        }
+
+        TemporaryBindingTrace filteredTrace =
+                TemporaryBindingTrace.create(context.trace, "trace to resolve call with filtered extensions", context.call);
+        OverloadResolutionResultsImpl<F> results =
+                doResolveCall(context.replaceBindingTrace(filteredTrace), prioritizedTasks, callTransformer, tracing);
+        if (!receiverTypeFilter.getHasDroppedCandidates() || !canBeChangedByDroppedCandidates(results.getResultCode())) {
+            filteredTrace.commit();
+            return results;
+        }
+
+        // Dropped candidates take part in error reporting, so the failed call is resolved once more with all of them
+        return doResolveCall(context, unfilteredTasks.invoke(), callTransformer, tracing);
+    }
+
+    // Dropped candidates could only fail with RECEIVER_TYPE_ERROR, and such candidates are only reported when no other candidate is found,
+    // see ResolutionResultsHandler.computeResultAndReportErrors. Any other result stays the same when they are resolved
+    private static boolean canBeChangedByDroppedCandidates(@NotNull OverloadResolutionResults.Code resultCode) {
+        return resultCode == NAME_NOT_FOUND || resultCode == CANDIDATES_WITH_WRONG_RECEIVER;
+    }
+
     private <D extends CallableDescriptor> void completeTypeInferenceDependentOnFunctionLiterals(
             @NotNull BasicCallResolutionContext context,
             @NotNull OverloadResolutionResultsImpl<D> results,
@@ -16,17 +16,18 @@
 
 package org.jetbrains.kotlin.resolve.calls.smartcasts;
 
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.SetMultimap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.types.JetType;
+import org.jetbrains.kotlin.util.HashTrieMap;
 
 import java.util.Map;
 import java.util.Set;
 
 public interface DataFlowInfo {
-    DataFlowInfo EMPTY = new DelegatingDataFlowInfo(null, ImmutableMap.<DataFlowValue, Nullability>of(),
-                                                    DelegatingDataFlowInfo.newTypeInfo());
+    DataFlowInfo EMPTY = new PersistentDataFlowInfo(HashTrieMap.<DataFlowValue, Nullability>empty(),
+                                                    HashTrieMap.<DataFlowValue, ImmutableSet<JetType>>empty());
 
     @NotNull
     Map<DataFlowValue, Nullability> getCompleteNullabilityInfo();
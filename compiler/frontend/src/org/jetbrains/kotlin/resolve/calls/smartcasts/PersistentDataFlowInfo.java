@@ -0,0 +1,252 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.resolve.calls.smartcasts;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.types.JetType;
+import org.jetbrains.kotlin.types.TypeUtils;
+import org.jetbrains.kotlin.util.HashTrieMap;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import static org.jetbrains.kotlin.resolve.calls.smartcasts.Nullability.NOT_NULL;
+
+/**
+ * Keeps complete information in persistent maps, so that lookups don't depend on how the info was obtained,
+ * and a derived info shares everything that didn't change with the original one.
+ *
+ * Possible types of a value are ordered from the most recently established ones.
+ */
+/* package */ class PersistentDataFlowInfo implements DataFlowInfo {
+    @NotNull
+    private final HashTrieMap<DataFlowValue, Nullability> nullabilityInfo;
+
+    @NotNull
+    private final HashTrieMap<DataFlowValue, ImmutableSet<JetType>> typeInfo;
+
+    /* package */ PersistentDataFlowInfo(
+            @NotNull HashTrieMap<DataFlowValue, Nullability> nullabilityInfo,
+            @NotNull HashTrieMap<DataFlowValue, ImmutableSet<JetType>> typeInfo
+    ) {
+        this.nullabilityInfo = nullabilityInfo;
+        this.typeInfo = typeInfo;
+    }
+
+    @Override
+    @NotNull
+    public Map<DataFlowValue, Nullability> getCompleteNullabilityInfo() {
+        return nullabilityInfo.toMap();
+    }
+
+    @Override
+    @NotNull
+    public SetMultimap<DataFlowValue, JetType> getCompleteTypeInfo() {
+        SetMultimap<DataFlowValue, JetType> result = LinkedHashMultimap.create();
+        for (Map.Entry<DataFlowValue, ImmutableSet<JetType>> entry : typeInfo) {
+            result.putAll(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    @NotNull
+    public Nullability getNullability(@NotNull DataFlowValue key) {
+        if (!key.isStableIdentifier()) return key.getImmanentNullability();
+        Nullability nullability = nullabilityInfo.get(key);
+        return nullability != null ? nullability : key.getImmanentNullability();
+    }
+
+    @NotNull
+    private Set<JetType> getTypes(@NotNull DataFlowValue key) {
+        ImmutableSet<JetType> types = typeInfo.get(key);
+        return types != null ? types : ImmutableSet.<JetType>of();
+    }
+
+    @Override
+    @NotNull
+    public Set<JetType> getPossibleTypes(@NotNull DataFlowValue key) {
+        Set<JetType> types = getTypes(key);
+        if (getNullability(key).canBeNull()) {
+            return types;
+        }
+
+        Set<JetType> enrichedTypes = Sets.newHashSetWithExpectedSize(types.size() + 1);
+        JetType originalType = key.getType();
+        if (originalType.isMarkedNullable()) {
+            enrichedTypes.add(TypeUtils.makeNotNullable(originalType));
+        }
+        for (JetType type : types) {
+            enrichedTypes.add(TypeUtils.makeNotNullable(type));
+        }
+
+        return enrichedTypes;
+    }
+
+    @NotNull
+    private HashTrieMap<DataFlowValue, Nullability> putNullability(
+            @NotNull HashTrieMap<DataFlowValue, Nullability> map,
+            @NotNull DataFlowValue value,
+            @NotNull Nullability nullability
+    ) {
+        if (!value.isStableIdentifier() || nullability == getNullability(value)) return map;
+        return map.plus(value, nullability);
+    }
+
+    @NotNull
+    private static HashTrieMap<DataFlowValue, ImmutableSet<JetType>> addTypes(
+            @NotNull HashTrieMap<DataFlowValue, ImmutableSet<JetType>> map,
+            @NotNull DataFlowValue value,
+            @NotNull Collection<JetType> types
+    ) {
+        ImmutableSet<JetType> oldTypes = map.get(value);
+        if (oldTypes == null) {
+            return types.isEmpty() ? map : map.plus(value, ImmutableSet.copyOf(types));
+        }
+        if (oldTypes.containsAll(types)) return map;
+        return map.plus(value, ImmutableSet.<JetType>builder().addAll(types).addAll(oldTypes).build());
+    }
+
+    @NotNull
+    private DataFlowInfo create(
+            @NotNull HashTrieMap<DataFlowValue, Nullability> newNullabilityInfo,
+            @NotNull HashTrieMap<DataFlowValue, ImmutableSet<JetType>> newTypeInfo
+    ) {
+        if (newNullabilityInfo == nullabilityInfo && newTypeInfo == typeInfo) return this;
+        return new PersistentDataFlowInfo(newNullabilityInfo, newTypeInfo);
+    }
+
+    @Override
+    @NotNull
+    public DataFlowInfo equate(@NotNull DataFlowValue a, @NotNull DataFlowValue b) {
+        Nullability nullabilityOfA = getNullability(a);
+        Nullability nullabilityOfB = getNullability(b);
+
+        HashTrieMap<DataFlowValue, Nullability> newNullabilityInfo = nullabilityInfo;
+        newNullabilityInfo = putNullability(newNullabilityInfo, a, nullabilityOfA.refine(nullabilityOfB));
+        newNullabilityInfo = putNullability(newNullabilityInfo, b, nullabilityOfB.refine(nullabilityOfA));
+
+        Set<JetType> typesOfA = getTypes(a);
+        Set<JetType> typesOfB = getTypes(b);
+        HashTrieMap<DataFlowValue, ImmutableSet<JetType>> newTypeInfo = typeInfo;
+        newTypeInfo = addTypes(newTypeInfo, a, typesOfB);
+        newTypeInfo = addTypes(newTypeInfo, b, typesOfA);
+
+        return create(newNullabilityInfo, newTypeInfo);
+    }
+
+    @Override
+    @NotNull
+    public DataFlowInfo disequate(@NotNull DataFlowValue a, @NotNull DataFlowValue b) {
+        Nullability nullabilityOfA = getNullability(a);
+        Nullability nullabilityOfB = getNullability(b);
+
+        HashTrieMap<DataFlowValue, Nullability> newNullabilityInfo = nullabilityInfo;
+        newNullabilityInfo = putNullability(newNullabilityInfo, a, nullabilityOfA.refine(nullabilityOfB.invert()));
+        newNullabilityInfo = putNullability(newNullabilityInfo, b, nullabilityOfB.refine(nullabilityOfA.invert()));
+
+        return create(newNullabilityInfo, typeInfo);
+    }
+
+    @Override
+    @NotNull
+    public DataFlowInfo establishSubtyping(@NotNull DataFlowValue value, @NotNull JetType type) {
+        if (value.getType().equals(type)) return this;
+        if (getPossibleTypes(value).contains(type)) return this;
+        HashTrieMap<DataFlowValue, Nullability> newNullabilityInfo =
+                type.isMarkedNullable() ? nullabilityInfo : nullabilityInfo.plus(value, NOT_NULL);
+        return create(newNullabilityInfo, addTypes(typeInfo, value, ImmutableSet.of(type)));
+    }
+
+    @NotNull
+    @Override
+    public DataFlowInfo and(@NotNull DataFlowInfo otherInfo) {
+        if (otherInfo == EMPTY) return this;
+        if (this == EMPTY) return otherInfo;
+        if (this == otherInfo) return this;
+
+        assert otherInfo instanceof PersistentDataFlowInfo : "Unknown DataFlowInfo type: " + otherInfo;
+        PersistentDataFlowInfo other = (PersistentDataFlowInfo) otherInfo;
+
+        HashTrieMap<DataFlowValue, Nullability> newNullabilityInfo = nullabilityInfo;
+        if (other.nullabilityInfo != nullabilityInfo) {
+            for (Map.Entry<DataFlowValue, Nullability> entry : other.nullabilityInfo) {
+                DataFlowValue key = entry.getKey();
+                Nullability thisFlags = getNullability(key);
+                Nullability flags = thisFlags.and(entry.getValue());
+                if (flags != thisFlags) {
+                    newNullabilityInfo = newNullabilityInfo.plus(key, flags);
+                }
+            }
+        }
+
+        HashTrieMap<DataFlowValue, ImmutableSet<JetType>> newTypeInfo = typeInfo;
+        if (other.typeInfo != typeInfo) {
+            for (Map.Entry<DataFlowValue, ImmutableSet<JetType>> entry : other.typeInfo) {
+                newTypeInfo = addTypes(newTypeInfo, entry.getKey(), entry.getValue());
+            }
+        }
+
+        return create(newNullabilityInfo, newTypeInfo);
+    }
+
+    @NotNull
+    @Override
+    public DataFlowInfo or(@NotNull DataFlowInfo otherInfo) {
+        if (otherInfo == EMPTY) return EMPTY;
+        if (this == EMPTY) return EMPTY;
+        if (this == otherInfo) return this;
+
+        assert otherInfo instanceof PersistentDataFlowInfo : "Unknown DataFlowInfo type: " + otherInfo;
+        PersistentDataFlowInfo other = (PersistentDataFlowInfo) otherInfo;
+
+        HashTrieMap<DataFlowValue, Nullability> newNullabilityInfo = HashTrieMap.empty();
+        for (Map.Entry<DataFlowValue, Nullability> entry : other.nullabilityInfo) {
+            DataFlowValue key = entry.getKey();
+            newNullabilityInfo = newNullabilityInfo.plus(key, getNullability(key).or(entry.getValue()));
+        }
+
+        HashTrieMap<DataFlowValue, ImmutableSet<JetType>> newTypeInfo = HashTrieMap.empty();
+        for (Map.Entry<DataFlowValue, ImmutableSet<JetType>> entry : other.typeInfo) {
+            ImmutableSet<JetType> thisTypes = typeInfo.get(entry.getKey());
+            if (thisTypes == null) continue;
+            Set<JetType> commonTypes = Sets.intersection(thisTypes, entry.getValue());
+            if (!commonTypes.isEmpty()) {
+                newTypeInfo = newTypeInfo.plus(entry.getKey(), ImmutableSet.copyOf(commonTypes));
+            }
+        }
+
+        if (newNullabilityInfo.isEmpty() && newTypeInfo.isEmpty()) {
+            return EMPTY;
+        }
+
+        return new PersistentDataFlowInfo(newNullabilityInfo, newTypeInfo);
+    }
+
+    @Override
+    public String toString() {
+        if (typeInfo.isEmpty() && nullabilityInfo.isEmpty()) {
+            return "EMPTY";
+        }
+        return "Non-trivial DataFlowInfo";
+    }
+}
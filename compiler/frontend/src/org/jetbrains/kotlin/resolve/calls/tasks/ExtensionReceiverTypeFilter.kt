@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.resolve.calls.tasks
+
+import org.jetbrains.kotlin.builtins.KotlinBuiltIns
+import org.jetbrains.kotlin.descriptors.CallableDescriptor
+import org.jetbrains.kotlin.descriptors.ClassDescriptor
+import org.jetbrains.kotlin.resolve.calls.context.ResolutionContext
+import org.jetbrains.kotlin.resolve.calls.smartcasts.SmartCastUtils
+import org.jetbrains.kotlin.resolve.scopes.receivers.ReceiverValue
+import org.jetbrains.kotlin.types.*
+import java.util.HashMap
+import java.util.HashSet
+
+/**
+ * Drops extension candidates which can't be applicable to the receiver of a call because the class of their extension receiver
+ * is not among the classes of the receiver type, its smart cast variants and their supertypes.
+ *
+ * Such candidates would fail with RECEIVER_TYPE_ERROR anyway, but they are still reported in UNRESOLVED_REFERENCE_WRONG_RECEIVER
+ * when nothing else is found, so the caller is expected to resolve the call once more without the filter
+ * if [hasDroppedCandidates] is true and no other candidates were found.
+ */
+public class ExtensionReceiverTypeFilter {
+    public var hasDroppedCandidates: Boolean = false
+        private set
+
+    // null means that the receiver type can't be used for filtering
+    private val receiverTypeConstructors = HashMap<ReceiverValue, Set<TypeConstructor>?>()
+
+    public fun <D : CallableDescriptor> filter(descriptors: Collection<D>, receiver: ReceiverValue, context: ResolutionContext<*>): Collection<D> {
+        if (descriptors.isEmpty() || !receiver.exists()) return descriptors
+
+        val constructors = getReceiverTypeConstructors(receiver, context) ?: return descriptors
+        // Usually all candidates pass, so they're checked before a filtered copy is made
+        if (descriptors.all { canBeApplicable(it, constructors) }) return descriptors
+
+        hasDroppedCandidates = true
+        return descriptors.filter { canBeApplicable(it, constructors) }
+    }
+
+    private fun canBeApplicable(descriptor: CallableDescriptor, receiverTypeConstructors: Set<TypeConstructor>): Boolean {
+        val receiverParameterType = descriptor.getExtensionReceiverParameter()?.getType() ?: return true
+        if (receiverParameterType.isError() || receiverParameterType.isDynamic() || receiverParameterType.isFlexible()
+            || receiverParameterType.getSupertypeRepresentative() != receiverParameterType) return true
+
+        val constructor = receiverParameterType.getConstructor()
+        return constructor.getDeclarationDescriptor() !is ClassDescriptor || constructor in receiverTypeConstructors
+    }
+
+    private fun getReceiverTypeConstructors(receiver: ReceiverValue, context: ResolutionContext<*>): Set<TypeConstructor>? {
+        if (receiverTypeConstructors.containsKey(receiver)) return receiverTypeConstructors[receiver]
+
+        val result = HashSet<TypeConstructor>()
+        val isApplicable = SmartCastUtils.getSmartCastVariants(receiver, context).all { collectTypeConstructors(it, result) }
+        val constructors = if (isApplicable) result else null
+        receiverTypeConstructors[receiver] = constructors
+        return constructors
+    }
+
+    private fun collectTypeConstructors(type: JetType, result: MutableSet<TypeConstructor>): Boolean {
+        if (type.isError() || type.isDynamic() || KotlinBuiltIns.isNothingOrNullableNothing(type)) return false
+
+        if (type.isFlexible()) {
+            val flexibility = type.flexibility()
+            return collectTypeConstructors(flexibility.getLowerBound(), result) && collectTypeConstructors(flexibility.getUpperBound(), result)
+        }
+        val representative = type.getSubtypeRepresentative()
+        if (representative != type && !collectTypeConstructors(representative, result)) return false
+
+        if (!result.add(type.getConstructor())) return true
+        return type.getConstructor().getSupertypes().all { collectTypeConstructors(it, result) }
+    }
+}
@@ -62,11 +62,14 @@ public class TaskPrioritizer(private val storageManager: StorageManager) {
             context: BasicCallResolutionContext,
             name: Name,
             tracing: TracingStrategy,
-            callableDescriptorCollectors: CallableDescriptorCollectors<D>
+            callableDescriptorCollectors: CallableDescriptorCollectors<D>,
+            extensionReceiverTypeFilter: ExtensionReceiverTypeFilter?
     ): List<ResolutionTask<D, F>> {
         val explicitReceiver = context.call.getExplicitReceiver()
         val result = ResolutionTaskHolder<D, F>(storageManager, context, PriorityProviderImpl<D>(context), tracing)
-        val taskPrioritizerContext = TaskPrioritizerContext(name, result, context, context.scope, callableDescriptorCollectors)
+        val taskPrioritizerContext = TaskPrioritizerContext(
+                name, result, context, context.scope, callableDescriptorCollectors, extensionReceiverTypeFilter
+        )
 
         if (explicitReceiver is QualifierReceiver) {
             val qualifierReceiver = explicitReceiver : QualifierReceiver
@@ -138,7 +141,7 @@ public class TaskPrioritizer(private val storageManager: StorageManager) {
                 convertWithImpliedThis(
                         c.scope,
                         explicitReceiver,
-                        callableDescriptorCollector.getExtensionsByName(c.scope, c.name, c.context.trace),
+                        c.filterExtensions(callableDescriptorCollector.getExtensionsByName(c.scope, c.name, c.context.trace), explicitReceiver),
                         createKind(EXTENSION_RECEIVER, isExplicit),
                         c.context.call
                 )
@@ -210,8 +213,10 @@ public class TaskPrioritizer(private val storageManager: StorageManager) {
             receiverKind: ExplicitReceiverKind
     ) {
         c.result.addCandidates {
-            val memberExtensions =
-                    callableDescriptorCollector.getExtensionsByName(dispatchReceiver.getType().getMemberScope(), c.name, c.context.trace)
+            val memberExtensions = c.filterExtensions(
+                    callableDescriptorCollector.getExtensionsByName(dispatchReceiver.getType().getMemberScope(), c.name, c.context.trace),
+                    receiverParameter
+            )
             convertWithReceivers(memberExtensions, dispatchReceiver, receiverParameter, receiverKind, c.context.call)
         }
     }
@@ -419,14 +424,19 @@ public class TaskPrioritizer(private val storageManager: StorageManager) {
             val result: ResolutionTaskHolder<D, F>,
             val context: BasicCallResolutionContext,
             val scope: JetScope,
-            val callableDescriptorCollectors: CallableDescriptorCollectors<D>
+            val callableDescriptorCollectors: CallableDescriptorCollectors<D>,
+            val extensionReceiverTypeFilter: ExtensionReceiverTypeFilter?
     ) {
         fun replaceScope(newScope: JetScope): TaskPrioritizerContext<D, F> {
-            return TaskPrioritizerContext(name, result, context, newScope, callableDescriptorCollectors)
+            return TaskPrioritizerContext(name, result, context, newScope, callableDescriptorCollectors, extensionReceiverTypeFilter)
         }
 
         fun replaceCollectors(newCollectors: CallableDescriptorCollectors<D>): TaskPrioritizerContext<D, F> {
-            return TaskPrioritizerContext(name, result, context, scope, newCollectors)
+            return TaskPrioritizerContext(name, result, context, scope, newCollectors, extensionReceiverTypeFilter)
+        }
+
+        fun filterExtensions(extensions: Collection<D>, receiver: ReceiverValue): Collection<D> {
+            return extensionReceiverTypeFilter?.filter(extensions, receiver, context as ResolutionContext<*>) ?: extensions
         }
     }
 }
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util;
+
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A persistent map from non-null keys to non-null values, implemented as a hash array mapped trie.
+ *
+ * Lookup and {@link #plus} take O(log n), a new version of the map shares all unchanged nodes with the old one.
+ * {@link #plus} returns the same instance if the key is already mapped to the same (identical) value,
+ * so comparing two versions by identity is a cheap check that nothing has changed.
+ */
+public final class HashTrieMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final HashTrieMap<Object, Object> EMPTY = new HashTrieMap<Object, Object>(null, 0);
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    public static <K, V> HashTrieMap<K, V> empty() {
+        return (HashTrieMap<K, V>) EMPTY;
+    }
+
+    @Nullable
+    private final Node root;
+    private final int size;
+
+    private HashTrieMap(@Nullable Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Nullable
+    public V get(@NotNull Object key) {
+        //noinspection unchecked
+        return root == null ? null : (V) root.get(0, key.hashCode(), key);
+    }
+
+    public boolean containsKey(@NotNull Object key) {
+        return get(key) != null;
+    }
+
+    @NotNull
+    public HashTrieMap<K, V> plus(@NotNull K key, @NotNull V value) {
+        boolean[] added = new boolean[1];
+        Node newRoot = root == null
+                       ? BitmapNode.EMPTY.plus(0, key.hashCode(), key, value, added)
+                       : root.plus(0, key.hashCode(), key, value, added);
+        if (newRoot == root) return this;
+        return new HashTrieMap<K, V>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    @NotNull
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        List<Map.Entry<K, V>> entries = new ArrayList<Map.Entry<K, V>>(size);
+        if (root != null) {
+            //noinspection unchecked
+            root.collectEntries((List) entries);
+        }
+        return entries.iterator();
+    }
+
+    @NotNull
+    public Map<K, V> toMap() {
+        Map<K, V> result = Maps.newHashMapWithExpectedSize(size);
+        for (Map.Entry<K, V> entry : this) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    private interface Node {
+        @Nullable
+        Object get(int shift, int hash, @NotNull Object key);
+
+        // added[0] is set to true if there was no entry with the given key
+        @NotNull
+        Node plus(int shift, int hash, @NotNull Object key, @NotNull Object value, @NotNull boolean[] added);
+
+        void collectEntries(@NotNull List<Map.Entry<Object, Object>> result);
+    }
+
+    /**
+     * Children are stored in pairs: a key and a value for an entry, or null and a node for a subtree
+     */
+    private static final class BitmapNode implements Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] array;
+
+        private BitmapNode(int bitmap, @NotNull Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Nullable
+        @Override
+        public Object get(int shift, int hash, @NotNull Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return null;
+
+            int index = index(bit);
+            Object keyOrNull = array[index];
+            Object valueOrNode = array[index + 1];
+            if (keyOrNull == null) {
+                return ((Node) valueOrNode).get(shift + BITS, hash, key);
+            }
+            return key.equals(keyOrNull) ? valueOrNode : null;
+        }
+
+        @NotNull
+        @Override
+        public Node plus(int shift, int hash, @NotNull Object key, @NotNull Object value, @NotNull boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, index);
+                newArray[index] = key;
+                newArray[index + 1] = value;
+                System.arraycopy(array, index, newArray, index + 2, array.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+
+            Object keyOrNull = array[index];
+            Object valueOrNode = array[index + 1];
+            if (keyOrNull == null) {
+                Node node = (Node) valueOrNode;
+                Node newNode = node.plus(shift + BITS, hash, key, value, added);
+                return newNode == node ? this : replace(index, null, newNode);
+            }
+            if (key.equals(keyOrNull)) {
+                return value == valueOrNode ? this : replace(index, keyOrNull, value);
+            }
+
+            added[0] = true;
+            return replace(index, null, createNode(shift + BITS, keyOrNull, valueOrNode, hash, key, value));
+        }
+
+        @NotNull
+        private BitmapNode replace(int index, @Nullable Object keyOrNull, @NotNull Object valueOrNode) {
+            Object[] newArray = array.clone();
+            newArray[index] = keyOrNull;
+            newArray[index + 1] = valueOrNode;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Override
+        public void collectEntries(@NotNull List<Map.Entry<Object, Object>> result) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).collectEntries(result);
+                }
+                else {
+                    result.add(Maps.immutableEntry(array[i], array[i + 1]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Entries with keys of the same hash code
+     */
+    private static final class CollisionNode implements Node {
+        private final int hash;
+        private final Object[] array;
+
+        private CollisionNode(int hash, @NotNull Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Nullable
+        @Override
+        public Object get(int shift, int hash, @NotNull Object key) {
+            if (hash != this.hash) return null;
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) return array[i + 1];
+            }
+            return null;
+        }
+
+        @NotNull
+        @Override
+        public Node plus(int shift, int hash, @NotNull Object key, @NotNull Object value, @NotNull boolean[] added) {
+            if (hash != this.hash) {
+                return new BitmapNode(bit(this.hash, shift), new Object[] {null, this}).plus(shift, hash, key, value, added);
+            }
+
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    if (value == array[i + 1]) return this;
+                    Object[] newArray = array.clone();
+                    newArray[i + 1] = value;
+                    return new CollisionNode(hash, newArray);
+                }
+            }
+
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        public void collectEntries(@NotNull List<Map.Entry<Object, Object>> result) {
+            for (int i = 0; i < array.length; i += 2) {
+                result.add(Maps.immutableEntry(array[i], array[i + 1]));
+            }
+        }
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    @NotNull
+    private static Node createNode(int shift, @NotNull Object key1, @NotNull Object value1, int hash2, @NotNull Object key2, @NotNull Object value2) {
+        int hash1 = key1.hashCode();
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+        }
+        boolean[] ignored = new boolean[1];
+        return BitmapNode.EMPTY
+                .plus(shift, hash1, key1, value1, ignored)
+                .plus(shift, hash2, key2, value2, ignored);
+    }
+}
@@ -54,7 +54,17 @@ public class BasicWritableSlice<K, V> implements WritableSlice<K, V> {
 
     @Override
     public SlicedMapKey<K, V> makeKey(K key) {
-        return new SlicedMapKey<K, V>(this, key);
+        return new SlicedMapKey<K, V>(getStorageSlice(), normalizeKey(key));
+    }
+
+    @Override
+    public WritableSlice<K, V> getStorageSlice() {
+        return this;
+    }
+
+    @Override
+    public K normalizeKey(K key) {
+        return key;
     }
 
     // True to put, false to skip
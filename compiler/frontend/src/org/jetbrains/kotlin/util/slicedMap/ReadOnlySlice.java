@@ -19,6 +19,16 @@ package org.jetbrains.kotlin.util.slicedMap;
 public interface ReadOnlySlice<K, V> {
     SlicedMapKey<K, V> makeKey(K key);
 
+    /**
+     * @return the slice values are stored under, i.e. the same slice as {@code makeKey(key).getSlice()}
+     */
+    WritableSlice<K, V> getStorageSlice();
+
+    /**
+     * @return the key values are stored under, i.e. the same key as {@code makeKey(key).getKey()}
+     */
+    K normalizeKey(K key);
+
     V computeValue(SlicedMap map, K key, V value, boolean valueNotFound);
 
     /**
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util.slicedMap;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Keeps a separate map for each slice instead of one map from {@link SlicedMapKey} to value,
+ * so that no key object is allocated on {@link #get} and {@link #put}.
+ *
+ * Slices don't override equals()/hashCode(), so the map of slices is effectively identity-keyed.
+ * Keys inside a slice are compared with equals(), as in {@link SlicedMapImpl}.
+ */
+public class SlicePartitionedMap implements MutableSlicedMap {
+
+    public static SlicePartitionedMap create() {
+        return new SlicePartitionedMap();
+    }
+
+    private final Map<WritableSlice<?, ?>, Map<Object, Object>> sliceMaps = Maps.newLinkedHashMap();
+    private final Multimap<WritableSlice<?, ?>, Object> collectiveSliceKeys = ArrayListMultimap.create();
+
+    protected SlicePartitionedMap() {
+    }
+
+    @Override
+    public <K, V> void put(WritableSlice<K, V> slice, K key, V value) {
+        if (!slice.check(key, value)) {
+            return;
+        }
+
+        Map<Object, Object> sliceMap = getOrCreateSliceMap(slice.getStorageSlice());
+        K normalizedKey = slice.normalizeKey(key);
+        RewritePolicy rewritePolicy = slice.getRewritePolicy();
+        if (rewritePolicy.rewriteProcessingNeeded(key)) {
+            if (sliceMap.containsKey(normalizedKey)) {
+                //noinspection unchecked
+                if (!rewritePolicy.processRewrite(slice, key, (V) sliceMap.get(normalizedKey), value)) {
+                    return;
+                }
+            }
+        }
+
+        if (slice.isCollective()) {
+            collectiveSliceKeys.put(slice, key);
+        }
+
+        sliceMap.put(normalizedKey, value);
+        slice.afterPut(this, key, value);
+    }
+
+    @NotNull
+    private Map<Object, Object> getOrCreateSliceMap(@NotNull WritableSlice<?, ?> storageSlice) {
+        Map<Object, Object> sliceMap = sliceMaps.get(storageSlice);
+        if (sliceMap == null) {
+            sliceMap = Maps.newLinkedHashMap();
+            sliceMaps.put(storageSlice, sliceMap);
+        }
+        return sliceMap;
+    }
+
+    @Override
+    public void clear() {
+        sliceMaps.clear();
+        collectiveSliceKeys.clear();
+    }
+
+    @Override
+    public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+        Map<Object, Object> sliceMap = sliceMaps.get(slice.getStorageSlice());
+        if (sliceMap == null) {
+            return slice.computeValue(this, key, null, true);
+        }
+        K normalizedKey = slice.normalizeKey(key);
+        //noinspection unchecked
+        V value = (V) sliceMap.get(normalizedKey);
+        return slice.computeValue(this, key, value, value == null && !sliceMap.containsKey(normalizedKey));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+        assert slice.isCollective() : "Keys are not collected for slice " + slice;
+        return (Collection<K>) collectiveSliceKeys.get(slice);
+    }
+
+    @Override
+    public <K, V> V remove(RemovableSlice<K, V> slice, K key) {
+        Map<Object, Object> sliceMap = sliceMaps.get(slice.getStorageSlice());
+        if (sliceMap == null) return null;
+        //noinspection unchecked
+        return (V) sliceMap.remove(slice.normalizeKey(key));
+    }
+
+    @NotNull
+    @Override
+    public Iterator<Map.Entry<SlicedMapKey<?, ?>, ?>> iterator() {
+        List<Iterator<Map.Entry<SlicedMapKey<?, ?>, ?>>> iterators =
+                new ArrayList<Iterator<Map.Entry<SlicedMapKey<?, ?>, ?>>>(sliceMaps.size());
+        for (Map.Entry<WritableSlice<?, ?>, Map<Object, Object>> sliceEntry : sliceMaps.entrySet()) {
+            //noinspection unchecked
+            final WritableSlice<Object, Object> slice = (WritableSlice<Object, Object>) sliceEntry.getKey();
+            iterators.add(Iterators.transform(
+                    sliceEntry.getValue().entrySet().iterator(),
+                    new Function<Map.Entry<Object, Object>, Map.Entry<SlicedMapKey<?, ?>, ?>>() {
+                        @Override
+                        public Map.Entry<SlicedMapKey<?, ?>, ?> apply(Map.Entry<Object, Object> entry) {
+                            return Maps.<SlicedMapKey<?, ?>, Object>immutableEntry(
+                                    new SlicedMapKey<Object, Object>(slice, entry.getKey()), entry.getValue());
+                        }
+                    }
+            ));
+        }
+        return Iterators.concat(iterators.iterator());
+    }
+
+    @NotNull
+    @Override
+    public <K, V> ImmutableMap<K, V> getSliceContents(@NotNull ReadOnlySlice<K, V> slice) {
+        Map<Object, Object> sliceMap = sliceMaps.get(slice.getStorageSlice());
+        if (sliceMap == null) return ImmutableMap.of();
+        //noinspection unchecked
+        return ImmutableMap.copyOf((Map<K, V>) sliceMap);
+    }
+}
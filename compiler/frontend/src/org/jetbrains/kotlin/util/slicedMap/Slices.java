@@ -186,12 +186,13 @@ public class Slices {
                 map.put(opposite, value, key);
             }
         }
+
         @Override
-        public SlicedMapKey<K, V> makeKey(K key) {
+        public K normalizeKey(K key) {
             if (keyNormalizer == null) {
-                return super.makeKey(key);
+                return key;
             }
-            return super.makeKey(keyNormalizer.normalize(key));
+            return keyNormalizer.normalize(key);
         }
 
     }
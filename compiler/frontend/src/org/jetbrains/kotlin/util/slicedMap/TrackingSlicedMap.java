@@ -159,6 +159,17 @@ public class TrackingSlicedMap extends SlicedMapImpl {
             return (SlicedMapKey) delegate.makeKey(key);
         }
 
+        @Override
+        public WritableSlice<K, TrackableValue<V>> getStorageSlice() {
+            //noinspection unchecked
+            return (WritableSlice) delegate.getStorageSlice();
+        }
+
+        @Override
+        public K normalizeKey(K key) {
+            return delegate.normalizeKey(key);
+        }
+
         @Override
         public TrackableValue<V> computeValue(SlicedMap map, K key, TrackableValue<V> value, boolean valueNotFound) {
             return new TrackableValue<V>(delegate.computeValue(map, key, value == null ? null : value.value, valueNotFound), trackWithStackTraces);
@@ -17,6 +17,7 @@
 package org.jetbrains.kotlin.asJava
 
 import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.util.Key
 import com.intellij.psi.*
 import com.intellij.psi.impl.PsiModificationTrackerImpl
 import com.intellij.psi.impl.PsiTreeChangeEventImpl.PsiEventType.*
@@ -80,6 +81,15 @@ public class KotlinCodeBlockModificationListener(modificationTracker: PsiModific
 
             if (containsClassesInside(child1) || (child2 != child1 && containsClassesInside(child2))) {
                 myModificationTracker.incCounter()
+                return
+            }
+
+            if (parent != null && parent.getParent() != null) {
+                val codeBlockOwner = getCodeBlockOwner(parent)
+                if (codeBlockOwner != null) {
+                    incInBlockModificationCount(codeBlockOwner)
+                }
+                incInBlockModificationCount(parent.getContainingFile())
             }
         }
         catch (e: PsiInvalidElementAccessException) {
@@ -103,10 +113,31 @@ public class KotlinCodeBlockModificationListener(modificationTracker: PsiModific
             return false
         }
 
+        private val IN_BLOCK_MODIFICATION_COUNT = Key.create<Long>("IN_BLOCK_MODIFICATION_COUNT")
+
+        /**
+         * Returns the number of modifications inside code blocks of the given function or property,
+         * or of all declarations of the given file. Such modifications don't change the out of code block modification count,
+         * so caches of analysis results for separate declarations can be checked against this count instead
+         */
+        public fun getInBlockModificationCount(element: PsiElement): Long =
+                element.getUserData(IN_BLOCK_MODIFICATION_COUNT) ?: 0L
+
+        private fun incInBlockModificationCount(element: PsiElement) {
+            element.putUserData(IN_BLOCK_MODIFICATION_COUNT, getInBlockModificationCount(element) + 1)
+        }
+
         private fun isInsideCodeBlock(element: PsiElement?): Boolean {
             if (element is PsiFileSystemItem) return false
             if (element == null || element.getParent() == null) return true
 
+            return getCodeBlockOwner(element) != null
+        }
+
+        /**
+         * Returns the topmost function or property which has the element inside its body, or null if the element is not inside a code block
+         */
+        private fun getCodeBlockOwner(element: PsiElement): JetCallableDeclaration? {
             val blockDeclarationCandidate = JetPsiUtil.getTopmostParentOfTypes(
                     element,
                     javaClass<JetProperty>(),
@@ -116,25 +147,25 @@ public class KotlinCodeBlockModificationListener(modificationTracker: PsiModific
                 is JetNamedFunction -> {
                     val function = blockDeclarationCandidate : JetNamedFunction
                     if (function.hasBlockBody() && function.getBodyExpression().isAncestorOf(element)) {
-                        return true
+                        return function
                     }
 
                     if (function.hasDeclaredReturnType() && function.getInitializer().isAncestorOf(element)) {
-                        return true
+                        return function
                     }
                 }
                 is JetProperty -> {
                     val property = blockDeclarationCandidate : JetProperty
                     for (accessor in property.getAccessors()) {
                         when {
-                            accessor.getInitializer().isAncestorOf(element) -> return true
-                            accessor.getBodyExpression().isAncestorOf(element) -> return true
+                            accessor.getInitializer().isAncestorOf(element) -> return property
+                            accessor.getBodyExpression().isAncestorOf(element) -> return property
                         }
                     }
                 }
             }
 
-            return false
+            return null
         }
 
         private fun PsiElement?.isAncestorOf(element: PsiElement) = PsiTreeUtil.isAncestor(this, element, false)
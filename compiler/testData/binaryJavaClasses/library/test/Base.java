@@ -0,0 +1,12 @@
+package test;
+
+import java.util.List;
+
+public class Base<T> {
+    public void take(T t) {
+    }
+
+    public List<T> list() {
+        return null;
+    }
+}
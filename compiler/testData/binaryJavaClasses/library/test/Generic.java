@@ -0,0 +1,34 @@
+package test;
+
+import java.util.List;
+import java.util.Map;
+
+public class Generic<T extends Comparable<T>> {
+    public T value;
+
+    public <E extends T> List<? extends E> extendsList(Map<String, ? super E> map) {
+        return null;
+    }
+
+    public T[] array(int[][] ints, T... rest) {
+        return null;
+    }
+
+    public class Inner<U> {
+        public Generic<T>.Inner<U> self() {
+            return this;
+        }
+
+        public U apply(T t) {
+            return null;
+        }
+    }
+
+    public static class Nested<V extends Number & Comparable<V>> {
+        public V get() {
+            return null;
+        }
+
+        public static final int CONSTANT = 42;
+    }
+}
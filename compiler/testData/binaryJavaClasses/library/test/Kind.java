@@ -0,0 +1,28 @@
+package test;
+
+public enum Kind {
+    FIRST("first") {
+        @Override
+        public int ordinalPlusOne() {
+            return 1;
+        }
+    },
+    SECOND("second") {
+        @Override
+        public int ordinalPlusOne() {
+            return 2;
+        }
+    };
+
+    private final String title;
+
+    Kind(String title) {
+        this.title = title;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public abstract int ordinalPlusOne();
+}
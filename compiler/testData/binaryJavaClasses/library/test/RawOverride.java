@@ -0,0 +1,14 @@
+package test;
+
+import java.util.List;
+
+public class RawOverride extends Base {
+    @Override
+    public void take(Object o) {
+    }
+
+    @Override
+    public List list() {
+        return null;
+    }
+}
@@ -0,0 +1,5 @@
+package test;
+
+public interface Sam<T> {
+    T run(T t);
+}
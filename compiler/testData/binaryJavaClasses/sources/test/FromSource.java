@@ -0,0 +1,19 @@
+package test;
+
+import java.util.List;
+
+public class FromSource extends Generic<String> {
+    public Generic<String>.Inner<Integer> inner() {
+        return null;
+    }
+
+    public Kind kind(Sam<String> sam) {
+        return null;
+    }
+
+    public static class SubclassOfBinary extends Base<List<String>> {
+        @Override
+        public void take(List<String> list) {
+        }
+    }
+}
@@ -0,0 +1,5 @@
+fun foo() {
+    bar()
+}
+
+val x = baz
@@ -0,0 +1,3 @@
+fun qux() = quux
+
+fun usesFoo() = foo()
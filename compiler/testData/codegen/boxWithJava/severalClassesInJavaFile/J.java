@@ -0,0 +1,15 @@
+public class J {
+    public static String o() {
+        return Helper.O;
+    }
+
+    public static class Nested {
+        public String k() {
+            return "K";
+        }
+    }
+}
+
+class Helper {
+    static final String O = "O";
+}
@@ -0,0 +1,3 @@
+fun box(): String {
+    return J.o() + J.Nested().k()
+}
@@ -0,0 +1,33 @@
+import kotlin.reflect.jvm.accessible
+
+public class A {
+    public var x: Int = 42
+    private val y: String = "y"
+
+    fun refY() = ::y
+}
+
+public var topLevel: Int = 0
+
+public val String.ext: Int get() = length()
+public val Int.ext: Int get() = this
+
+fun box(): String {
+    if (A::x identityEquals A::x) {} else return "Fail: public member property is not cached"
+    if (::topLevel identityEquals ::topLevel) {} else return "Fail: top-level property is not cached"
+    if (String::ext identityEquals String::ext) {} else return "Fail: extension property is not cached"
+    if (Int::ext.get(1) != 1) return "Fail: extension property with another receiver"
+    if (String::ext.get("abc") != 3) return "Fail: extension property after another receiver"
+    val intExt = Int::ext
+    if (String::ext identityEquals intExt) return "Fail: extension properties with different receivers are the same"
+    if (Int::ext identityEquals intExt) {} else return "Fail: extension property is evicted by another receiver"
+
+    // Private properties are not shared, so that making one of them accessible doesn't affect others
+    val y1 = A().refY()
+    val y2 = A().refY()
+    if (y1 identityEquals y2) return "Fail: private property is cached"
+    y1.accessible = true
+    if (y2.accessible) return "Fail: accessible leaked to another instance"
+
+    return "OK"
+}
@@ -0,0 +1,21 @@
+fun box(): String {
+    val ints = intArray(1, 2, 3)
+    var sum = 0
+    for (i in ints.indices) {
+        sum = sum * 10 + ints[i]
+    }
+    if (sum != 123) return "Fail IntArray: $sum"
+
+    val strings = array("a", "b", "c")
+    var result = ""
+    for (i in strings.indices) {
+        result += i.toString() + strings[i]
+    }
+    if (result != "0a1b2c") return "Fail Array<String>: $result"
+
+    for (i in IntArray(0).indices) {
+        return "Fail empty array: $i"
+    }
+
+    return "OK"
+}
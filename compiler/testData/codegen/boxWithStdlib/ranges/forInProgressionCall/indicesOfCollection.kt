@@ -0,0 +1,26 @@
+import java.util.ArrayList
+import java.util.HashSet
+
+fun box(): String {
+    val list = listOf(1, 2, 3)
+    var sum = 0
+    for (i in list.indices) {
+        sum = sum * 10 + list[i]
+    }
+    if (sum != 123) return "Fail List: $sum"
+
+    val set = HashSet<String>()
+    set.add("a")
+    set.add("b")
+    var count = 0
+    for (i in set.indices) {
+        count += i + 1
+    }
+    if (count != 3) return "Fail Set: $count"
+
+    for (i in ArrayList<String>().indices) {
+        return "Fail empty list: $i"
+    }
+
+    return "OK"
+}
@@ -0,0 +1,32 @@
+fun sumIndices(a: Any): Int {
+    var result = 0
+    if (a is Array<*>) {
+        for (i in a.indices) {
+            result += i
+        }
+    }
+    else if (a is IntArray) {
+        for (i in a.indices) {
+            result += a[i]
+        }
+    }
+    else if (a is List<*>) {
+        for (i in a.indices.reversed()) {
+            result = result * 10 + i
+        }
+    }
+    return result
+}
+
+fun box(): String {
+    val array = sumIndices(array("a", "b", "c"))
+    if (array != 3) return "Fail Array: $array"
+
+    val intArray = sumIndices(intArray(10, 20))
+    if (intArray != 30) return "Fail IntArray: $intArray"
+
+    val list = sumIndices(listOf("a", "b", "c"))
+    if (list != 210) return "Fail List: $list"
+
+    return "OK"
+}
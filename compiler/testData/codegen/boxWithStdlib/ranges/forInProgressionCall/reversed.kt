@@ -0,0 +1,38 @@
+fun box(): String {
+    var result = ""
+    for (i in (1..4).reversed()) {
+        result += i
+    }
+    if (result != "4321") return "Fail rangeTo: $result"
+
+    result = ""
+    for (i in (4 downTo 1).reversed()) {
+        result += i
+    }
+    if (result != "1234") return "Fail downTo: $result"
+
+    result = ""
+    for (i in (1..4).reversed().reversed()) {
+        result += i
+    }
+    if (result != "1234") return "Fail reversed twice: $result"
+
+    result = ""
+    for (i in (1..7 step 3).reversed()) {
+        result += i
+    }
+    if (result != "741") return "Fail step: $result"
+
+    val array = array("a", "b", "c")
+    result = ""
+    for (i in array.indices.reversed()) {
+        result += array[i]
+    }
+    if (result != "cba") return "Fail indices: $result"
+
+    for (i in (1..0).reversed()) {
+        return "Fail empty: $i"
+    }
+
+    return "OK"
+}
@@ -0,0 +1,33 @@
+fun box(): String {
+    var result = ""
+    for (i in 1..10 step 3) {
+        result += i
+    }
+    if (result != "14710") return "Fail rangeTo: $result"
+
+    result = ""
+    for (i in 10 downTo 1 step 4) {
+        result += i
+    }
+    if (result != "1062") return "Fail downTo: $result"
+
+    result = ""
+    for (i in 0..2 step 5) {
+        result += i
+    }
+    if (result != "0") return "Fail big step: $result"
+
+    result = ""
+    for (i in (0..10 step 2) step 5) {
+        result += i
+    }
+    if (result != "0510") return "Fail step twice: $result"
+
+    result = ""
+    for (i in Int.MAX_VALUE - 2..Int.MAX_VALUE step 2) {
+        result += i - Int.MAX_VALUE
+    }
+    if (result != "-20") return "Fail overflow: $result"
+
+    return "OK"
+}
@@ -0,0 +1,34 @@
+fun loop(s: Int): String {
+    try {
+        for (i in 1..10 step s) {
+            return "Fail: loop is executed for step $s"
+        }
+        return "Fail: no exception for step $s"
+    }
+    catch (e: IllegalArgumentException) {
+        return "OK"
+    }
+}
+
+fun loopDownTo(s: Int): String {
+    try {
+        for (i in 10 downTo 1 step s) {
+            return "Fail: loop is executed for step $s"
+        }
+        return "Fail: no exception for step $s"
+    }
+    catch (e: IllegalArgumentException) {
+        return "OK"
+    }
+}
+
+fun box(): String {
+    for (step in array(0, -1, Int.MIN_VALUE)) {
+        val result = loop(step)
+        if (result != "OK") return result
+
+        val resultDownTo = loopDownTo(step)
+        if (resultDownTo != "OK") return resultDownTo
+    }
+    return "OK"
+}
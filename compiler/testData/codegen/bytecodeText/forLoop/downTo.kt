@@ -0,0 +1,21 @@
+fun sum(n: Int): Int {
+    var result = 0
+    for (i in n downTo 1) {
+        result += i
+    }
+    return result
+}
+
+fun chars(): String {
+    val sb = StringBuilder()
+    for (c in 'z' downTo 'a') {
+        sb.append(c)
+    }
+    return sb.toString()
+}
+
+// 0 INVOKESTATIC kotlin/KotlinPackage.downTo
+// 0 NEW kotlin/IntProgression
+// 0 NEW kotlin/CharProgression
+// 0 iterator
+// 2 getProgressionFinalElement
@@ -0,0 +1,31 @@
+fun sumArray(a: IntArray): Int {
+    var result = 0
+    for (i in a.indices) {
+        result += a[i]
+    }
+    return result
+}
+
+fun sumObjectArray(a: Array<String>): Int {
+    var result = 0
+    for (i in a.indices.reversed()) {
+        result += a[i].length()
+    }
+    return result
+}
+
+fun sumList(list: List<Int>): Int {
+    var result = 0
+    for (i in list.indices) {
+        result += list[i]
+    }
+    return result
+}
+
+// 0 INVOKESTATIC kotlin/KotlinPackage.getIndices
+// 0 INVOKESTATIC kotlin/KotlinPackage.reversed
+// 0 NEW kotlin/IntRange
+// 0 NEW kotlin/IntProgression
+// 0 iterator
+// 2 ARRAYLENGTH
+// 1 INVOKEINTERFACE java/util/Collection.size
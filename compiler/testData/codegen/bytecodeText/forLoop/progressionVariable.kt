@@ -0,0 +1,11 @@
+fun sum(p: IntProgression): Int {
+    var result = 0
+    for (i in p.reversed()) {
+        result += i
+    }
+    return result
+}
+
+// Only calls on literal ranges and other intrinsified progressions are optimized
+// 1 INVOKESTATIC kotlin/KotlinPackage.reversed
+// 0 iterator
@@ -0,0 +1,21 @@
+fun sum(n: Int): Int {
+    var result = 0
+    for (i in (1..n).reversed()) {
+        result += i
+    }
+    for (i in (1..n step 2).reversed()) {
+        result += i
+    }
+    for (i in (n downTo 1).reversed()) {
+        result += i
+    }
+    return result
+}
+
+// 0 INVOKESTATIC kotlin/KotlinPackage.reversed
+// 0 INVOKESTATIC kotlin/KotlinPackage.step
+// 0 INVOKESTATIC kotlin/KotlinPackage.downTo
+// 0 NEW kotlin/IntRange
+// 0 NEW kotlin/IntProgression
+// 0 iterator
+// 3 getProgressionFinalElement
@@ -0,0 +1,28 @@
+fun sum(n: Int, s: Int): Int {
+    var result = 0
+    for (i in 0..n step s) {
+        result += i
+    }
+    for (i in n downTo 0 step s) {
+        result += i
+    }
+    return result
+}
+
+fun sumLong(n: Long): Long {
+    var result = 0L
+    for (i in 0L..n step 3L) {
+        result += i
+    }
+    return result
+}
+
+// 0 INVOKESTATIC kotlin/KotlinPackage.step
+// 0 INVOKESTATIC kotlin/KotlinPackage.downTo
+// 0 NEW kotlin/IntRange
+// 0 NEW kotlin/IntProgression
+// 0 NEW kotlin/LongRange
+// 0 NEW kotlin/LongProgression
+// 0 iterator
+// 3 NEW java/lang/IllegalArgumentException
+// 3 getProgressionFinalElement
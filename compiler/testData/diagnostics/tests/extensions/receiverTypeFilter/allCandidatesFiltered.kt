@@ -0,0 +1,22 @@
+package b
+
+class A
+class B
+class C
+
+fun A.foo() {}
+fun B.foo(<!UNUSED_PARAMETER!>i<!>: Int) {}
+
+val A.prop: Int get() = 1
+
+fun test(c: C) {
+    c.<!UNRESOLVED_REFERENCE_WRONG_RECEIVER!>foo<!>()
+    c.<!UNRESOLVED_REFERENCE_WRONG_RECEIVER!>foo<!>(1)
+    c.<!UNRESOLVED_REFERENCE_WRONG_RECEIVER!>prop<!>
+}
+
+fun testSmartCast(any: Any) {
+    if (any is C) {
+        any.<!UNRESOLVED_REFERENCE_WRONG_RECEIVER!>foo<!>()
+    }
+}
@@ -0,0 +1,24 @@
+// !DIAGNOSTICS: -UNUSED_PARAMETER
+package c
+
+trait X
+trait Y
+class Z : X, Y
+class A
+
+fun X.foo() {}
+fun Y.foo() {}
+fun A.foo() {}
+
+fun X.bar(i: Int) {}
+fun A.bar(s: String) {}
+
+fun X.baz(i: Int) {}
+fun Y.baz(i: Int) {}
+fun A.baz(s: String) {}
+
+fun test(z: Z) {
+    z.<!OVERLOAD_RESOLUTION_AMBIGUITY!>foo<!>()
+    z.bar(<!TYPE_MISMATCH!>""<!>)
+    z.<!NONE_APPLICABLE!>baz<!>("")
+}
@@ -0,0 +1,27 @@
+package a
+
+class A
+class B
+open class Base
+class Derived : Base()
+trait T
+
+fun A.foo(): Int = 1
+fun B.foo(): String = ""
+fun Base.foo(): Double = 1.0
+fun T.foo(): Char = 'c'
+
+fun testClass(a: A): Int = a.foo()
+
+fun testSupertype(d: Derived): Double = d.foo()
+
+fun testSmartCast(any: Any): String = if (any is B) <!DEBUG_INFO_SMARTCAST!>any<!>.foo() else ""
+
+fun testTrait(any: Any): Char = if (any is T) <!DEBUG_INFO_SMARTCAST!>any<!>.foo() else 'd'
+
+class Host {
+    fun A.bar(): Int = 1
+    fun B.bar(): String = ""
+
+    fun testMemberExtension(b: B): String = b.bar()
+}
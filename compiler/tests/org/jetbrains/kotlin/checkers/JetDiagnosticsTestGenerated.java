@@ -4314,6 +4314,7 @@ public class JetDiagnosticsTestGenerated extends AbstractJetDiagnosticsTest {
 
         @TestMetadata("compiler/testData/diagnostics/tests/extensions")
         @TestDataPath("$PROJECT_ROOT")
+        @InnerTestClasses({Extensions.ReceiverTypeFilter.class})
         @RunWith(JUnit3RunnerWithInners.class)
         public static class Extensions extends AbstractJetDiagnosticsTest {
             public void testAllFilesPresentInExtensions() throws Exception {
@@ -4409,6 +4410,33 @@ public class JetDiagnosticsTestGenerated extends AbstractJetDiagnosticsTest {
                 String fileName = JetTestUtils.navigationMetadata("compiler/testData/diagnostics/tests/extensions/throwOutCandidatesByReceiver2.kt");
                 doTest(fileName);
             }
+
+            @TestMetadata("compiler/testData/diagnostics/tests/extensions/receiverTypeFilter")
+            @TestDataPath("$PROJECT_ROOT")
+            @RunWith(JUnit3RunnerWithInners.class)
+            public static class ReceiverTypeFilter extends AbstractJetDiagnosticsTest {
+                public void testAllFilesPresentInReceiverTypeFilter() throws Exception {
+                    JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), new File("compiler/testData/diagnostics/tests/extensions/receiverTypeFilter"), Pattern.compile("^(.+)\\.kt$"), true);
+                }
+
+                @TestMetadata("allCandidatesFiltered.kt")
+                public void testAllCandidatesFiltered() throws Exception {
+                    String fileName = JetTestUtils.navigationMetadata("compiler/testData/diagnostics/tests/extensions/receiverTypeFilter/allCandidatesFiltered.kt");
+                    doTest(fileName);
+                }
+
+                @TestMetadata("ambiguityAndErrors.kt")
+                public void testAmbiguityAndErrors() throws Exception {
+                    String fileName = JetTestUtils.navigationMetadata("compiler/testData/diagnostics/tests/extensions/receiverTypeFilter/ambiguityAndErrors.kt");
+                    doTest(fileName);
+                }
+
+                @TestMetadata("applicableCandidates.kt")
+                public void testApplicableCandidates() throws Exception {
+                    String fileName = JetTestUtils.navigationMetadata("compiler/testData/diagnostics/tests/extensions/receiverTypeFilter/applicableCandidates.kt");
+                    doTest(fileName);
+                }
+            }
         }
 
         @TestMetadata("compiler/testData/diagnostics/tests/functionLiterals")
@@ -99,6 +99,18 @@ public class KotlincExecutableTestGenerated extends AbstractKotlincExecutableTes
             doJvmTest(fileName);
         }
 
+        @TestMetadata("parallelBodyResolve.args")
+        public void testParallelBodyResolve() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("compiler/testData/cli/jvm/parallelBodyResolve.args");
+            doJvmTest(fileName);
+        }
+
+        @TestMetadata("phaseMetrics.args")
+        public void testPhaseMetrics() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("compiler/testData/cli/jvm/phaseMetrics.args");
+            doJvmTest(fileName);
+        }
+
         @TestMetadata("signatureClash.args")
         public void testSignatureClash() throws Exception {
             String fileName = JetTestUtils.navigationMetadata("compiler/testData/cli/jvm/signatureClash.args");
@@ -111,6 +123,12 @@ public class KotlincExecutableTestGenerated extends AbstractKotlincExecutableTes
             doJvmTest(fileName);
         }
 
+        @TestMetadata("streamOutput.args")
+        public void testStreamOutput() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("compiler/testData/cli/jvm/streamOutput.args");
+            doJvmTest(fileName);
+        }
+
         @TestMetadata("suppressAllWarningsJvm.args")
         public void testSuppressAllWarningsJvm() throws Exception {
             String fileName = JetTestUtils.navigationMetadata("compiler/testData/cli/jvm/suppressAllWarningsJvm.args");
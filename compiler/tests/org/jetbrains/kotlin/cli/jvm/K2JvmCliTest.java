@@ -16,9 +16,11 @@
 
 package org.jetbrains.kotlin.cli.jvm;
 
+import com.intellij.openapi.util.io.FileUtil;
 import org.jetbrains.kotlin.load.kotlin.PackageClassUtils;
 import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.cli.CliBaseTest;
+import org.jetbrains.kotlin.utils.CompilerPhaseMetrics;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -61,4 +63,26 @@ public class K2JvmCliTest extends CliBaseTest {
     public void conflictingOverloads() throws Exception {
         executeCompilerCompareOutputJVM();
     }
+
+    @Test
+    public void streamOutput() throws Exception {
+        executeCompilerCompareOutputJVM();
+
+        Assert.assertTrue(new File(tmpdir.getTmpDir(), PackageClassUtils.getPackageClassName(FqName.ROOT) + ".class").isFile());
+    }
+
+    @Test
+    public void phaseMetrics() throws Exception {
+        executeCompilerCompareOutputJVM();
+
+        String metrics = FileUtil.loadFile(new File(tmpdir.getTmpDir(), "metrics.json"));
+        for (CompilerPhaseMetrics.Phase phase : CompilerPhaseMetrics.Phase.values()) {
+            Assert.assertTrue(metrics, metrics.contains("\"" + phase.name() + "\""));
+        }
+    }
+
+    @Test
+    public void parallelBodyResolve() throws Exception {
+        executeCompilerCompareOutputJVM();
+    }
 }
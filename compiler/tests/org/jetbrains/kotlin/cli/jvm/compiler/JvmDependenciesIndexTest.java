@@ -0,0 +1,80 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.StandardFileSystems;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class JvmDependenciesIndexTest extends KotlinTestWithEnvironment {
+    private File tmpdir;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        tmpdir = JetTestUtils.tmpDirForTest(this);
+    }
+
+    public void testPackageAndClassInDifferentRoots() throws IOException {
+        // a.b is a package in the first root and a class in the second one
+        File packageRoot = createFiles("packageRoot", "a/b/D.class");
+        File classRoot = createFiles("classRoot", "a/b.class", "a/b$C.class");
+
+        JvmDependenciesIndex index = new JvmDependenciesIndex(Arrays.asList(toVirtualFile(packageRoot), toVirtualFile(classRoot)));
+
+        assertFile(new File(packageRoot, "a/b/D.class"), index.findTopLevelClassFile("a.b.D", '.', ".class"));
+        assertFile(new File(classRoot, "a/b.class"), index.findTopLevelClassFile("a.b.C", '.', ".class"));
+        assertFile(new File(classRoot, "a/b$C.class"), index.findClassFile("a/b/C", '/'));
+        assertNull(index.findTopLevelClassFile("a.b.E", '.', ".class"));
+    }
+
+    @NotNull
+    private File createFiles(@NotNull String rootName, @NotNull String... paths) throws IOException {
+        File root = new File(tmpdir, rootName);
+        for (String path : paths) {
+            File file = new File(root, path);
+            FileUtil.createParentDirs(file);
+            assertTrue(file.createNewFile());
+        }
+        return root;
+    }
+
+    @NotNull
+    private static VirtualFile toVirtualFile(@NotNull File file) {
+        VirtualFile result = StandardFileSystems.local().findFileByPath(file.getAbsolutePath());
+        assertNotNull(result);
+        return result;
+    }
+
+    private static void assertFile(@NotNull File expected, VirtualFile actual) {
+        assertNotNull(actual);
+        assertEquals(FileUtil.toSystemIndependentName(expected.getAbsolutePath()), actual.getPath());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.daemon;
+
+import org.jetbrains.kotlin.cli.common.ExitCode;
+import org.jetbrains.kotlin.cli.common.daemon.CompileDaemonClient;
+import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
+import org.jetbrains.kotlin.load.kotlin.PackageClassUtils;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.test.Tmpdir;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.*;
+
+public class CompileDaemonTest {
+    @Rule
+    public final Tmpdir tmpdir = new Tmpdir();
+
+    @Test
+    public void compileTwiceAndShutdown() throws Exception {
+        File tokenFile = new File(tmpdir.getTmpDir(), "daemon.token");
+        CompileDaemon daemon = new CompileDaemon(0, tokenFile, MessageCollector.NONE);
+        Thread daemonThread = startDaemon(daemon);
+
+        try {
+            File source = new File("compiler/testData/cli/jvm/simple.kt").getAbsoluteFile();
+            for (int i = 0; i < 2; i++) {
+                // The destination is relative to the working directory of the client, not of the daemon
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                ExitCode exitCode = CompileDaemonClient.compile(
+                        daemon.getPort(), tokenFile, tmpdir.getTmpDir(),
+                        new String[] {source.getPath(), "-d", "out" + i},
+                        new PrintStream(output)
+                );
+
+                Assert.assertEquals(output.toString(), ExitCode.OK, exitCode);
+                File outputDir = new File(tmpdir.getTmpDir(), "out" + i);
+                Assert.assertTrue(new File(outputDir, PackageClassUtils.getPackageClassName(FqName.ROOT) + ".class").isFile());
+            }
+        }
+        finally {
+            CompileDaemonClient.shutdown(daemon.getPort(), tokenFile);
+            daemonThread.join();
+        }
+        Assert.assertFalse("Token file should be deleted on shutdown", tokenFile.exists());
+    }
+
+    @Test
+    public void requestWithWrongTokenIsRejected() throws Exception {
+        File tokenFile = new File(tmpdir.getTmpDir(), "daemon.token");
+        CompileDaemon daemon = new CompileDaemon(0, tokenFile, MessageCollector.NONE);
+        Thread daemonThread = startDaemon(daemon);
+
+        try {
+            Assert.assertFalse("Token file should be readable only by its owner", canBeReadByOthers(tokenFile));
+
+            File wrongTokenFile = new File(tmpdir.getTmpDir(), "wrong.token");
+            FileWriter writer = new FileWriter(wrongTokenFile);
+            try {
+                writer.write("0123456789abcdef");
+            }
+            finally {
+                writer.close();
+            }
+
+            File outputDir = new File(tmpdir.getTmpDir(), "out");
+            try {
+                CompileDaemonClient.compile(
+                        daemon.getPort(), wrongTokenFile, tmpdir.getTmpDir(),
+                        new String[] {new File("compiler/testData/cli/jvm/simple.kt").getAbsolutePath(), "-d", outputDir.getPath()},
+                        new PrintStream(new ByteArrayOutputStream())
+                );
+                Assert.fail("Request with a wrong token should be rejected");
+            }
+            catch (IOException expected) {
+            }
+            Assert.assertFalse(outputDir.exists());
+
+            CompileDaemonClient.shutdown(daemon.getPort(), wrongTokenFile);
+            Assert.assertTrue("Shutdown with a wrong token should be ignored", daemonThread.isAlive());
+        }
+        finally {
+            CompileDaemonClient.shutdown(daemon.getPort(), tokenFile);
+            daemonThread.join();
+        }
+    }
+
+    @Test
+    public void wrongArgumentsAreCompilationError() throws Exception {
+        File tokenFile = new File(tmpdir.getTmpDir(), "daemon.token");
+        CompileDaemon daemon = new CompileDaemon(0, tokenFile, MessageCollector.NONE);
+        Thread daemonThread = startDaemon(daemon);
+
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ExitCode exitCode = CompileDaemonClient.compile(
+                    daemon.getPort(), tokenFile, tmpdir.getTmpDir(), new String[] {"-wrong-argument"}, new PrintStream(output)
+            );
+            Assert.assertEquals(output.toString(), ExitCode.COMPILATION_ERROR, exitCode);
+        }
+        finally {
+            CompileDaemonClient.shutdown(daemon.getPort(), tokenFile);
+            daemonThread.join();
+        }
+    }
+
+    @Test
+    public void scriptIsRefused() throws Exception {
+        File tokenFile = new File(tmpdir.getTmpDir(), "daemon.token");
+        CompileDaemon daemon = new CompileDaemon(0, tokenFile, MessageCollector.NONE);
+        Thread daemonThread = startDaemon(daemon);
+
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try {
+                CompileDaemonClient.compile(
+                        daemon.getPort(), tokenFile, tmpdir.getTmpDir(),
+                        new String[] {"-script", new File("compiler/testData/cli/jvm/hello.kts").getAbsolutePath()},
+                        new PrintStream(output)
+                );
+                Assert.fail("Script should be refused by the daemon");
+            }
+            catch (IOException expected) {
+            }
+            Assert.assertEquals("Nothing should be printed when the daemon refuses to compile", 0, output.size());
+        }
+        finally {
+            CompileDaemonClient.shutdown(daemon.getPort(), tokenFile);
+            daemonThread.join();
+        }
+    }
+
+    private static boolean canBeReadByOthers(File file) throws IOException {
+        if (!File.separator.equals("/")) return false;
+        Process process = new ProcessBuilder("ls", "-l", file.getAbsolutePath()).start();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        try {
+            String permissions = reader.readLine();
+            return permissions.charAt(4) != '-' || permissions.charAt(7) != '-';
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private static Thread startDaemon(final CompileDaemon daemon) {
+        Thread daemonThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    daemon.run();
+                }
+                catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        daemonThread.start();
+        return daemonThread;
+    }
+}
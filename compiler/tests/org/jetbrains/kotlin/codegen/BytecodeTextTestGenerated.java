@@ -391,6 +391,45 @@ public class BytecodeTextTestGenerated extends AbstractBytecodeTextTest {
         }
     }
 
+    @TestMetadata("compiler/testData/codegen/bytecodeText/forLoop")
+    @TestDataPath("$PROJECT_ROOT")
+    @RunWith(JUnit3RunnerWithInners.class)
+    public static class ForLoop extends AbstractBytecodeTextTest {
+        public void testAllFilesPresentInForLoop() throws Exception {
+            JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), new File("compiler/testData/codegen/bytecodeText/forLoop"), Pattern.compile("^(.+)\\.kt$"), true);
+        }
+
+        @TestMetadata("downTo.kt")
+        public void testDownTo() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/bytecodeText/forLoop/downTo.kt");
+            doTest(fileName);
+        }
+
+        @TestMetadata("indices.kt")
+        public void testIndices() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/bytecodeText/forLoop/indices.kt");
+            doTest(fileName);
+        }
+
+        @TestMetadata("progressionVariable.kt")
+        public void testProgressionVariable() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/bytecodeText/forLoop/progressionVariable.kt");
+            doTest(fileName);
+        }
+
+        @TestMetadata("reversed.kt")
+        public void testReversed() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/bytecodeText/forLoop/reversed.kt");
+            doTest(fileName);
+        }
+
+        @TestMetadata("step.kt")
+        public void testStep() throws Exception {
+            String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/bytecodeText/forLoop/step.kt");
+            doTest(fileName);
+        }
+    }
+
     @TestMetadata("compiler/testData/codegen/bytecodeText/inline")
     @TestDataPath("$PROJECT_ROOT")
     @RunWith(JUnit3RunnerWithInners.class)
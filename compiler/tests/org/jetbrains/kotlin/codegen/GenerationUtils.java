@@ -20,7 +20,9 @@ import com.google.common.base.Predicates;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiFile;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.analyzer.AnalysisResult;
+import org.jetbrains.kotlin.backend.common.output.OutputFileSink;
 import org.jetbrains.kotlin.codegen.state.GenerationState;
 import org.jetbrains.kotlin.codegen.state.Progress;
 import org.jetbrains.kotlin.diagnostics.DiagnosticSink;
@@ -58,6 +60,27 @@ public class GenerationUtils {
             @NotNull Project project,
             @NotNull AnalysisResult analysisResult,
             @NotNull List<JetFile> files
+    ) {
+        return compileFilesGetGenerationState(project, analysisResult, files, null);
+    }
+
+    @NotNull
+    public static GenerationState compileFilesGetGenerationState(
+            @NotNull Project project,
+            @NotNull AnalysisResult analysisResult,
+            @NotNull List<JetFile> files,
+            @Nullable OutputFileSink sink
+    ) {
+        return compileFilesGetGenerationState(project, analysisResult, files, sink, 1);
+    }
+
+    @NotNull
+    public static GenerationState compileFilesGetGenerationState(
+            @NotNull Project project,
+            @NotNull AnalysisResult analysisResult,
+            @NotNull List<JetFile> files,
+            @Nullable OutputFileSink sink,
+            int threads
     ) {
         analysisResult.throwIfError();
         GenerationState state = new GenerationState(
@@ -66,7 +89,10 @@ public class GenerationUtils {
                 files, false, false, GenerationState.GenerateClassFilter.GENERATE_ALL,
                 false, false, null, null, DiagnosticSink.DO_NOTHING, null
         );
-        KotlinCodegenFacade.compileCorrectFiles(state, CompilationErrorHandler.THROW_EXCEPTION);
+        if (sink != null) {
+            state.getFactory().setOutputSink(sink);
+        }
+        KotlinCodegenFacade.compileCorrectFiles(state, CompilationErrorHandler.THROW_EXCEPTION, threads);
         return state;
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen;
+
+import com.google.common.base.Predicates;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.analyzer.AnalysisResult;
+import org.jetbrains.kotlin.backend.common.output.OutputFile;
+import org.jetbrains.kotlin.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.resolve.lazy.JvmResolveUtil;
+import org.jetbrains.kotlin.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ParallelCodegenTest extends KotlinTestWithEnvironment {
+    private static final int PACKAGES = 6;
+    private static final int FILES_PER_PACKAGE = 2;
+    private static final int PARALLEL_RUNS = 3;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testParallelCodegenIsTheSameAsSerial() {
+        List<JetFile> files = new ArrayList<JetFile>();
+        for (int i = 0; i < PACKAGES; i++) {
+            for (int j = 0; j < FILES_PER_PACKAGE; j++) {
+                files.add(JetTestUtils.createFile("p" + i + "/file" + j + ".kt", fileText(i, j), getProject()));
+            }
+        }
+
+        List<OutputFile> serial = generate(files, 1);
+        assertTrue(serial.size() > PACKAGES * FILES_PER_PACKAGE);
+
+        for (int run = 0; run < PARALLEL_RUNS; run++) {
+            List<OutputFile> parallel = generate(files, 4);
+            assertEquals(relativePaths(serial), relativePaths(parallel));
+            for (int k = 0; k < serial.size(); k++) {
+                assertTrue("Class files differ: " + serial.get(k).getRelativePath(),
+                           Arrays.equals(serial.get(k).asByteArray(), parallel.get(k).asByteArray()));
+            }
+        }
+    }
+
+    @NotNull
+    private static String fileText(int i, int j) {
+        // Files use inline functions, enums and classes of the next package, so that packages depend on each other during codegen
+        int next = (i + 1) % PACKAGES;
+        return "package p" + i + "\n" +
+               "\n" +
+               "import p" + next + ".*\n" +
+               "\n" +
+               "enum class Kind" + i + "_" + j + " {\n" +
+               "    FIRST\n" +
+               "    SECOND\n" +
+               "}\n" +
+               "\n" +
+               "inline fun inline" + i + "_" + j + "(f: (Int) -> Int): Int = f(" + i + ") + object { fun get() = " + j + " }.get()\n" +
+               "\n" +
+               "fun whenOnEnum" + i + "_" + j + "(kind: Kind" + next + "_" + j + ") = when (kind) {\n" +
+               "    Kind" + next + "_" + j + ".FIRST -> 1\n" +
+               "    Kind" + next + "_" + j + ".SECOND -> 2\n" +
+               "}\n" +
+               "\n" +
+               "class Class" + i + "_" + j + "(val value: Int) {\n" +
+               "    val lambda = { x: Int -> x + value }\n" +
+               "    fun useInline() = inline" + next + "_" + j + " { it * value }\n" +
+               "    fun runnable() = Runnable { val result = lambda(1) }\n" +
+               "\n" +
+               "    class object {\n" +
+               "        val instance = Class" + i + "_" + j + "(" + j + ")\n" +
+               "    }\n" +
+               "}\n" +
+               "\n" +
+               "fun local" + i + "_" + j + "(): Int {\n" +
+               "    fun localFun(s: String) = s.length() + Class" + i + "_" + j + ".instance.useInline()\n" +
+               "    return localFun(\"" + i + "\") + whenOnEnum" + i + "_" + j + "(Kind" + next + "_" + j + ".SECOND)\n" +
+               "}\n";
+    }
+
+    @NotNull
+    private List<OutputFile> generate(@NotNull List<JetFile> files, int threads) {
+        AnalysisResult analysisResult = JvmResolveUtil.analyzeFilesWithJavaIntegrationAndCheckForErrors(
+                getProject(), files, Predicates.<PsiFile>alwaysTrue());
+        return GenerationUtils.compileFilesGetGenerationState(getProject(), analysisResult, files, null, threads).getFactory().asList();
+    }
+
+    @NotNull
+    private static List<String> relativePaths(@NotNull List<OutputFile> outputFiles) {
+        List<String> result = new ArrayList<String>(outputFiles.size());
+        for (OutputFile outputFile : outputFiles) {
+            result.add(outputFile.getRelativePath());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen;
+
+import com.google.common.base.Predicates;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.analyzer.AnalysisResult;
+import org.jetbrains.kotlin.backend.common.output.OutputFile;
+import org.jetbrains.kotlin.backend.common.output.OutputFileSink;
+import org.jetbrains.kotlin.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.resolve.lazy.JvmResolveUtil;
+import org.jetbrains.kotlin.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+public class StreamingOutputTest extends KotlinTestWithEnvironment {
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testClassesAreWrittenToSinkAndReleased() {
+        List<JetFile> files = Arrays.asList(
+                JetTestUtils.createFile("a.kt", "package a\n\nclass A { inner class Inner }\n\nfun lambda() = { 42 }\n", getProject()),
+                JetTestUtils.createFile("b.kt", "package b\n\n" +
+                                                "inline fun withObject(f: () -> Int): Int = f() + object { fun one() = 1 }.one()\n",
+                                        getProject()),
+                JetTestUtils.createFile("c.kt", "package c\n\nimport b.withObject\n\nfun useInline() = withObject { 2 }\n", getProject())
+        );
+        AnalysisResult analysisResult = JvmResolveUtil.analyzeFilesWithJavaIntegrationAndCheckForErrors(
+                getProject(), files, Predicates.<PsiFile>alwaysTrue());
+
+        final List<String> written = new ArrayList<String>();
+        OutputFileSink sink = new OutputFileSink() {
+            @Override
+            public void write(@NotNull OutputFile outputFile) {
+                assertTrue(outputFile.asByteArray().length > 0);
+                written.add(outputFile.getRelativePath());
+            }
+        };
+        ClassFileFactory factory = GenerationUtils.compileFilesGetGenerationState(getProject(), analysisResult, files, sink).getFactory();
+
+        List<String> outputs = new ArrayList<String>();
+        for (OutputFile outputFile : factory.asList()) {
+            outputs.add(outputFile.getRelativePath());
+        }
+        assertEquals("Each class should be written once: " + written, new HashSet<String>(written).size(), written.size());
+        assertSameElements(written, outputs);
+        assertTrue(written.contains("a/A.class"));
+        assertTrue(written.contains("a/A$Inner.class"));
+
+        OutputFile released = factory.get("a/A.class");
+        assertNotNull(released);
+        try {
+            released.asByteArray();
+            fail("Bytes of a written class should be released");
+        }
+        catch (IllegalStateException expected) {
+        }
+
+        // Anonymous classes of inline functions are read by the inliner after they are written
+        boolean hasObjectOfInlineFunction = false;
+        for (String output : outputs) {
+            if (output.startsWith("b/") && output.contains("withObject")) {
+                hasObjectOfInlineFunction = true;
+                OutputFile outputFile = factory.get(output);
+                assertNotNull(outputFile);
+                assertTrue(outputFile.asByteArray().length > 0);
+            }
+        }
+        assertTrue("No anonymous class of the inline function in " + outputs, hasObjectOfInlineFunction);
+
+        try {
+            factory.createText();
+            fail("Text of classes should not be available in the streaming mode");
+        }
+        catch (IllegalStateException expected) {
+        }
+    }
+}
@@ -55,6 +55,12 @@ public class BlackBoxWithJavaCodegenTestGenerated extends AbstractBlackBoxCodege
         doTestWithJava(fileName);
     }
 
+    @TestMetadata("severalClassesInJavaFile")
+    public void testSeveralClassesInJavaFile() throws Exception {
+        String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/boxWithJava/severalClassesInJavaFile/");
+        doTestWithJava(fileName);
+    }
+
     @TestMetadata("trait")
     public void testTrait() throws Exception {
         String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/boxWithJava/trait/");
@@ -760,6 +760,12 @@ public class BlackBoxWithStdlibCodegenTestGenerated extends AbstractBlackBoxCode
                 doTestWithStdlib(fileName);
             }
 
+            @TestMetadata("sharedInstances.kt")
+            public void testSharedInstances() throws Exception {
+                String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/callableReference/property/sharedInstances.kt");
+                doTestWithStdlib(fileName);
+            }
+
             @TestMetadata("simpleExtension.kt")
             public void testSimpleExtension() throws Exception {
                 String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/callableReference/property/simpleExtension.kt");
@@ -2041,7 +2047,7 @@ public class BlackBoxWithStdlibCodegenTestGenerated extends AbstractBlackBoxCode
 
     @TestMetadata("compiler/testData/codegen/boxWithStdlib/ranges")
     @TestDataPath("$PROJECT_ROOT")
-    @InnerTestClasses({Ranges.Expression.class, Ranges.Literal.class})
+    @InnerTestClasses({Ranges.Expression.class, Ranges.ForInProgressionCall.class, Ranges.Literal.class})
     @RunWith(JUnit3RunnerWithInners.class)
     public static class Ranges extends AbstractBlackBoxCodegenTest {
         public void testAllFilesPresentInRanges() throws Exception {
@@ -2249,6 +2255,51 @@ public class BlackBoxWithStdlibCodegenTestGenerated extends AbstractBlackBoxCode
             }
         }
 
+        @TestMetadata("compiler/testData/codegen/boxWithStdlib/ranges/forInProgressionCall")
+        @TestDataPath("$PROJECT_ROOT")
+        @RunWith(JUnit3RunnerWithInners.class)
+        public static class ForInProgressionCall extends AbstractBlackBoxCodegenTest {
+            public void testAllFilesPresentInForInProgressionCall() throws Exception {
+                JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), new File("compiler/testData/codegen/boxWithStdlib/ranges/forInProgressionCall"), Pattern.compile("^(.+)\\.kt$"), true);
+            }
+
+            @TestMetadata("indicesOfArray.kt")
+            public void testIndicesOfArray() throws Exception {
+                String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/ranges/forInProgressionCall/indicesOfArray.kt");
+                doTestWithStdlib(fileName);
+            }
+
+            @TestMetadata("indicesOfCollection.kt")
+            public void testIndicesOfCollection() throws Exception {
+                String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/ranges/forInProgressionCall/indicesOfCollection.kt");
+                doTestWithStdlib(fileName);
+            }
+
+            @TestMetadata("indicesOfSmartCastReceiver.kt")
+            public void testIndicesOfSmartCastReceiver() throws Exception {
+                String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/ranges/forInProgressionCall/indicesOfSmartCastReceiver.kt");
+                doTestWithStdlib(fileName);
+            }
+
+            @TestMetadata("reversed.kt")
+            public void testReversed() throws Exception {
+                String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/ranges/forInProgressionCall/reversed.kt");
+                doTestWithStdlib(fileName);
+            }
+
+            @TestMetadata("step.kt")
+            public void testStep() throws Exception {
+                String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/ranges/forInProgressionCall/step.kt");
+                doTestWithStdlib(fileName);
+            }
+
+            @TestMetadata("stepNotPositive.kt")
+            public void testStepNotPositive() throws Exception {
+                String fileName = JetTestUtils.navigationMetadata("compiler/testData/codegen/boxWithStdlib/ranges/forInProgressionCall/stepNotPositive.kt");
+                doTestWithStdlib(fileName);
+            }
+        }
+
         @TestMetadata("compiler/testData/codegen/boxWithStdlib/ranges/literal")
         @TestDataPath("$PROJECT_ROOT")
         @RunWith(JUnit3RunnerWithInners.class)
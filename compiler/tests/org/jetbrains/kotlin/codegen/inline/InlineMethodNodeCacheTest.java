@@ -0,0 +1,110 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.inline;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.StandardFileSystems;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.kotlin.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.org.objectweb.asm.ClassWriter;
+import org.jetbrains.org.objectweb.asm.MethodVisitor;
+import org.jetbrains.org.objectweb.asm.Opcodes;
+import org.jetbrains.org.objectweb.asm.tree.MethodNode;
+
+import java.io.File;
+import java.io.IOException;
+
+public class InlineMethodNodeCacheTest extends KotlinTestWithEnvironment {
+    private VirtualFile classFile;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        File file = new File(JetTestUtils.tmpDirForTest(this), "A.class");
+        FileUtil.writeToFile(file, createClass());
+        classFile = StandardFileSystems.local().findFileByPath(file.getAbsolutePath());
+        assertNotNull(classFile);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        classFile = null;
+        super.tearDown();
+    }
+
+    public void testOnlyRequestedMethodsAreRead() throws IOException {
+        InlineMethodNodeCache cache = new InlineMethodNodeCache();
+
+        assertNotNull(cache.getMethodNode(classFile, "one", "()I"));
+        assertNotNull(cache.getMethodNode(classFile, "one", "()I"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        assertNotNull(cache.getMethodNode(classFile, "two", "()I"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        assertNull(cache.getMethodNode(classFile, "one", "()J"));
+        assertNull(cache.getMethodNode(classFile, "three", "()I"));
+    }
+
+    public void testCallersReceiveCopies() throws IOException {
+        InlineMethodNodeCache cache = new InlineMethodNodeCache();
+
+        MethodNode first = cache.getMethodNode(classFile, "one", "()I");
+        assertNotNull(first);
+        assertEquals(2, first.instructions.size());
+        // The inliner transforms the nodes it is given
+        first.instructions.clear();
+        first.visitInsn(Opcodes.ICONST_0);
+        first.visitInsn(Opcodes.IRETURN);
+
+        MethodNode second = cache.getMethodNode(classFile, "one", "()I");
+        assertNotNull(second);
+        assertNotSame(first, second);
+        assertEquals(2, second.instructions.size());
+        assertEquals(Opcodes.ICONST_1, second.instructions.getFirst().getOpcode());
+    }
+
+    @NotNull
+    private static byte[] createClass() {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "A", null, "java/lang/Object", null);
+        createMethod(writer, "one", Opcodes.ICONST_1);
+        createMethod(writer, "two", Opcodes.ICONST_2);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void createMethod(@NotNull ClassWriter writer, @NotNull String name, int constantOpcode) {
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, name, "()I", null, null);
+        method.visitCode();
+        method.visitInsn(constantOpcode);
+        method.visitInsn(Opcodes.IRETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+}
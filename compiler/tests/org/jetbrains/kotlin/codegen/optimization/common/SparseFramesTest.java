@@ -0,0 +1,229 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.optimization.common;
+
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.codegen.optimization.OptimizationMethodVisitor;
+import org.jetbrains.org.objectweb.asm.Label;
+import org.jetbrains.org.objectweb.asm.MethodVisitor;
+import org.jetbrains.org.objectweb.asm.Opcodes;
+import org.jetbrains.org.objectweb.asm.tree.MethodNode;
+import org.jetbrains.org.objectweb.asm.tree.analysis.Analyzer;
+import org.jetbrains.org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.jetbrains.org.objectweb.asm.tree.analysis.BasicValue;
+import org.jetbrains.org.objectweb.asm.tree.analysis.Frame;
+
+import static org.jetbrains.org.objectweb.asm.Opcodes.*;
+
+/*
+    Compares frames of SparseFrames with the ones computed by ASM's Analyzer.
+*/
+public class SparseFramesTest extends TestCase {
+    private static final String OWNER = "test/Owner";
+
+    public void testStraightLine() throws Exception {
+        MethodNode node = new MethodNode(ACC_PUBLIC, "straightLine", "(JLjava/lang/String;)I", null, null);
+        node.visitCode();
+        node.visitVarInsn(ALOAD, 3);
+        node.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "length", "()I", false);
+        node.visitVarInsn(LLOAD, 1);
+        node.visitInsn(L2I);
+        node.visitInsn(IADD);
+        node.visitInsn(IRETURN);
+        node.visitMaxs(3, 4);
+        node.visitEnd();
+
+        assertFramesEqual(node);
+    }
+
+    public void testLoopWithLocalOfDifferentTypes() throws Exception {
+        MethodNode node = new MethodNode(ACC_STATIC, "loop", "(I)I", null, null);
+        Label check = new Label();
+        Label end = new Label();
+        node.visitCode();
+        node.visitInsn(ICONST_0);
+        node.visitVarInsn(ISTORE, 1);
+        node.visitInsn(ICONST_0);
+        node.visitVarInsn(ISTORE, 2);
+        node.visitInsn(ACONST_NULL);
+        node.visitVarInsn(ASTORE, 3);
+        node.visitLabel(check);
+        node.visitVarInsn(ILOAD, 2);
+        node.visitVarInsn(ILOAD, 0);
+        node.visitJumpInsn(IF_ICMPGE, end);
+        node.visitVarInsn(ILOAD, 1);
+        node.visitVarInsn(ILOAD, 2);
+        node.visitInsn(IADD);
+        node.visitVarInsn(ISTORE, 1);
+        node.visitInsn(ICONST_1);
+        node.visitVarInsn(ISTORE, 3);
+        node.visitIincInsn(2, 1);
+        node.visitJumpInsn(GOTO, check);
+        node.visitLabel(end);
+        node.visitVarInsn(ILOAD, 1);
+        node.visitInsn(IRETURN);
+        node.visitMaxs(2, 4);
+        node.visitEnd();
+
+        assertFramesEqual(node);
+    }
+
+    public void testSwitchInLoop() throws Exception {
+        MethodNode node = new MethodNode(ACC_STATIC, "switchInLoop", "(I)V", null, null);
+        Label loop = new Label();
+        Label first = new Label();
+        Label second = new Label();
+        Label dflt = new Label();
+        node.visitCode();
+        node.visitLabel(loop);
+        node.visitVarInsn(ILOAD, 0);
+        node.visitTableSwitchInsn(0, 1, dflt, first, second);
+        node.visitLabel(first);
+        node.visitLdcInsn("first");
+        node.visitVarInsn(ASTORE, 1);
+        node.visitIincInsn(0, 1);
+        node.visitJumpInsn(GOTO, loop);
+        node.visitLabel(second);
+        node.visitLdcInsn(2L);
+        node.visitVarInsn(LSTORE, 1);
+        node.visitIincInsn(0, -2);
+        node.visitJumpInsn(GOTO, loop);
+        node.visitLabel(dflt);
+        node.visitInsn(RETURN);
+        node.visitMaxs(2, 3);
+        node.visitEnd();
+
+        assertFramesEqual(node);
+    }
+
+    public void testTryCatch() throws Exception {
+        MethodNode node = new MethodNode(ACC_STATIC, "tryCatch", "(Ljava/lang/String;)I", null, null);
+        Label start = new Label();
+        Label end = new Label();
+        Label handler = new Label();
+        Label anyHandler = new Label();
+        Label after = new Label();
+        node.visitCode();
+        node.visitTryCatchBlock(start, end, handler, "java/lang/RuntimeException");
+        node.visitTryCatchBlock(start, end, anyHandler, null);
+        node.visitInsn(ICONST_0);
+        node.visitVarInsn(ISTORE, 1);
+        node.visitLabel(start);
+        node.visitVarInsn(ALOAD, 0);
+        node.visitVarInsn(ASTORE, 2);
+        node.visitVarInsn(ALOAD, 0);
+        node.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "length", "()I", false);
+        node.visitVarInsn(ISTORE, 1);
+        node.visitLdcInsn(1.0);
+        node.visitVarInsn(DSTORE, 2);
+        node.visitLabel(end);
+        node.visitJumpInsn(GOTO, after);
+        node.visitLabel(handler);
+        node.visitVarInsn(ASTORE, 2);
+        node.visitInsn(ICONST_M1);
+        node.visitVarInsn(ISTORE, 1);
+        node.visitJumpInsn(GOTO, after);
+        node.visitLabel(anyHandler);
+        node.visitVarInsn(ASTORE, 2);
+        node.visitVarInsn(ALOAD, 2);
+        node.visitInsn(ATHROW);
+        node.visitLabel(after);
+        node.visitVarInsn(ILOAD, 1);
+        node.visitInsn(IRETURN);
+        node.visitMaxs(2, 4);
+        node.visitEnd();
+
+        assertFramesEqual(node);
+    }
+
+    public void testDeadCode() throws Exception {
+        MethodNode node = new MethodNode(ACC_STATIC, "deadCode", "(Z)I", null, null);
+        Label skip = new Label();
+        Label dead = new Label();
+        Label deadTarget = new Label();
+        node.visitCode();
+        node.visitJumpInsn(GOTO, skip);
+        node.visitInsn(ICONST_0);
+        node.visitInsn(POP);
+        node.visitLabel(skip);
+        node.visitInsn(ICONST_1);
+        node.visitInsn(IRETURN);
+        node.visitLabel(dead);
+        node.visitVarInsn(ILOAD, 0);
+        node.visitJumpInsn(IFEQ, deadTarget);
+        node.visitInsn(ICONST_2);
+        node.visitInsn(IRETURN);
+        node.visitLabel(deadTarget);
+        node.visitInsn(ICONST_3);
+        node.visitInsn(IRETURN);
+        node.visitMaxs(1, 1);
+        node.visitEnd();
+
+        SparseFrames<BasicValue> frames = assertFramesEqual(node);
+        assertTrue(frames.isReachable(0));
+        assertFalse(frames.isReachable(node.instructions.indexOf(node.instructions.getLast())));
+    }
+
+    public void testSubroutinesAreNotOptimized() throws Exception {
+        MethodNode result = new MethodNode(ACC_STATIC, "subroutine", "()V", null, null);
+        MethodVisitor visitor = new OptimizationMethodVisitor(result, ACC_STATIC, "subroutine", "()V", null, null, null);
+        Label subroutine = new Label();
+        Label end = new Label();
+        visitor.visitCode();
+        visitor.visitJumpInsn(JSR, subroutine);
+        visitor.visitJumpInsn(GOTO, end);
+        visitor.visitLabel(subroutine);
+        visitor.visitVarInsn(ASTORE, 0);
+        visitor.visitVarInsn(RET, 0);
+        visitor.visitLabel(end);
+        visitor.visitInsn(RETURN);
+        visitor.visitMaxs(1, 1);
+        visitor.visitEnd();
+
+        assertTrue(MethodControlFlowGraph.hasSubroutines(result));
+        assertEquals(Opcodes.JSR, result.instructions.getFirst().getOpcode());
+    }
+
+    @NotNull
+    private static SparseFrames<BasicValue> assertFramesEqual(@NotNull MethodNode node) throws AnalyzerException {
+        Frame<BasicValue>[] expected = new Analyzer<BasicValue>(new OptimizationBasicInterpreter()).analyze(OWNER, node);
+        SparseFrames<BasicValue> actual = SparseFrames.analyze(OWNER, node, new OptimizationBasicInterpreter());
+        assertEquals(expected.length, actual.size());
+
+        for (int i = 0; i < expected.length; i++) {
+            assertFrameEquals(node, i, expected[i], actual.get(i));
+        }
+        // Frames requested out of order are recomputed from the starts of their blocks
+        for (int i = expected.length - 1; i >= 0; i--) {
+            assertFrameEquals(node, i, expected[i], actual.get(i));
+            assertEquals(expected[i] != null, actual.isReachable(i));
+        }
+        return actual;
+    }
+
+    private static void assertFrameEquals(
+            @NotNull MethodNode node,
+            int insnIndex,
+            @Nullable Frame<BasicValue> expected,
+            @Nullable Frame<BasicValue> actual
+    ) {
+        assertEquals("Frame before instruction " + insnIndex + " of " + node.name,
+                     expected != null ? expected.toString() : null, actual != null ? actual.toString() : null);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.jvm.compiler;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.jvm.JVMConfigurationKeys;
+import org.jetbrains.kotlin.cli.jvm.compiler.CliLightClassGenerationSupport;
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
+import org.jetbrains.kotlin.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.kotlin.config.CompilerConfiguration;
+import org.jetbrains.kotlin.descriptors.ModuleDescriptor;
+import org.jetbrains.kotlin.descriptors.PackageViewDescriptor;
+import org.jetbrains.kotlin.name.ClassId;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.resolve.BindingTrace;
+import org.jetbrains.kotlin.resolve.jvm.KotlinCliJavaClassFinder;
+import org.jetbrains.kotlin.resolve.lazy.LazyResolveTestUtil;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir;
+import org.jetbrains.kotlin.test.TestJdkKind;
+import org.jetbrains.kotlin.test.util.RecursiveDescriptorComparator;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import static org.jetbrains.kotlin.jvm.compiler.LoadDescriptorUtil.TEST_PACKAGE_FQNAME;
+import static org.jetbrains.kotlin.test.util.RecursiveDescriptorComparator.DONT_INCLUDE_METHODS_OF_OBJECT;
+
+/*
+    Compares descriptors of compiled Java classes read from class files (see BinaryJavaClass) with the ones loaded through PSI.
+    Java sources extending the compiled classes check substitution of PSI classes with types read from class files.
+*/
+public class BinaryJavaClassTest extends TestCaseWithTmpdir {
+    private static final String TEST_DATA_PATH = "compiler/testData/binaryJavaClasses/";
+
+    private static final ClassId GENERIC_CLASS_ID = ClassId.topLevel(new FqName("test.Generic"));
+
+    public void testBinaryAndPsiDescriptorsAreEqual() throws Exception {
+        File libraryDir = new File(tmpdir, "library");
+        assertTrue(libraryDir.mkdir());
+        JetTestUtils.compileJavaFiles(
+                FileUtil.findFilesByMask(Pattern.compile(".+\\.java"), new File(TEST_DATA_PATH + "library")),
+                Arrays.asList("-d", libraryDir.getPath())
+        );
+        File sourcesDir = new File(TEST_DATA_PATH + "sources");
+
+        String fromClassFiles = renderTestPackage(libraryDir, sourcesDir, false);
+        String fromPsi = renderTestPackage(libraryDir, sourcesDir, true);
+
+        assertEquals(fromPsi, fromClassFiles);
+    }
+
+    @NotNull
+    private String renderTestPackage(@NotNull File libraryDir, @NotNull File sourcesDir, boolean usePsiClassFilesReading) {
+        CompilerConfiguration configuration = JetTestUtils.compilerConfigurationForTests(
+                ConfigurationKind.JDK_ONLY, TestJdkKind.MOCK_JDK, libraryDir, sourcesDir);
+        configuration.put(JVMConfigurationKeys.USE_PSI_CLASS_FILES_READING, usePsiClassFilesReading);
+        JetCoreEnvironment environment =
+                JetCoreEnvironment.createForTests(getTestRootDisposable(), configuration, EnvironmentConfigFiles.JVM_CONFIG_FILES);
+
+        KotlinCliJavaClassFinder classFinder = ServiceManager.getService(environment.getProject(), KotlinCliJavaClassFinder.class);
+        boolean readFromClassFile =
+                classFinder.findBinaryClassFile(GENERIC_CLASS_ID, GlobalSearchScope.allScope(environment.getProject())) != null;
+        assertEquals(!usePsiClassFilesReading, readFromClassFile);
+
+        BindingTrace trace = new CliLightClassGenerationSupport.NoScopeRecordCliBindingTrace();
+        ModuleDescriptor module = LazyResolveTestUtil.resolve(environment.getProject(), trace, Collections.<JetFile>emptyList());
+        PackageViewDescriptor packageView = module.getPackage(TEST_PACKAGE_FQNAME);
+        assertNotNull(packageView);
+
+        RecursiveDescriptorComparator comparator = new RecursiveDescriptorComparator(DONT_INCLUDE_METHODS_OF_OBJECT);
+        return comparator.serializeRecursively(packageView);
+    }
+}
@@ -20,19 +20,23 @@ import com.intellij.openapi.util.io.FileUtil;
 import junit.framework.TestCase;
 import org.jetbrains.kotlin.cli.common.ExitCode;
 import org.jetbrains.kotlin.cli.jvm.K2JVMCompiler;
+import org.jetbrains.kotlin.cli.jvm.compiler.JarWriter;
 import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime;
 import org.jetbrains.kotlin.load.kotlin.PackageClassUtils;
 import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.test.JetTestUtils;
 import org.junit.Assert;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
 
 public class CompileEnvironmentTest extends TestCase {
     public void testSmokeWithCompilerJar() throws IOException {
@@ -97,6 +101,85 @@ public class CompileEnvironmentTest extends TestCase {
         }
     }
 
+    public void testJarWriter() throws IOException {
+        File tempDir = FileUtil.createTempDirectory("compilerTest", "compilerTest");
+        try {
+            File stdlib = ForTestCompileRuntime.runtimeJarForTests();
+            File first = writeJarWithRuntime(new File(tempDir, "first.jar"), stdlib, 4);
+            File second = writeJarWithRuntime(new File(tempDir, "second.jar"), stdlib, 1);
+            assertTrue("jars should be the same", Arrays.equals(FileUtil.loadFileBytes(first), FileUtil.loadFileBytes(second)));
+
+            JarFile result = new JarFile(first);
+            JarFile runtime = new JarFile(stdlib);
+            try {
+                assertEquals("Foo", result.getManifest().getMainAttributes().getValue("Main-Class"));
+                for (int i = 0; i < 100; i++) {
+                    assertTrue(Arrays.equals(generatedClassBytes(i), loadEntry(result, result.getEntry("test/C" + i + ".class"))));
+                }
+                int runtimeClasses = 0;
+                for (Enumeration<JarEntry> entries = runtime.entries(); entries.hasMoreElements(); ) {
+                    JarEntry entry = entries.nextElement();
+                    if (!entry.getName().endsWith(".class")) continue;
+                    runtimeClasses++;
+                    ZipEntry copied = result.getEntry(entry.getName());
+                    assertNotNull(entry.getName(), copied);
+                    assertTrue(entry.getName(), Arrays.equals(loadEntry(runtime, entry), loadEntry(result, copied)));
+                }
+                assertEquals(runtimeClasses + 101, result.size());
+            }
+            finally {
+                result.close();
+                runtime.close();
+            }
+        }
+        finally {
+            FileUtil.delete(tempDir);
+        }
+    }
+
+    private static File writeJarWithRuntime(File jar, File runtime, int threads) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        manifest.getMainAttributes().putValue("Main-Class", "Foo");
+
+        OutputStream stream = new FileOutputStream(jar);
+        try {
+            JarWriter writer = new JarWriter(stream, manifest, threads);
+            try {
+                for (int i = 0; i < 100; i++) {
+                    writer.addEntry("test/C" + i + ".class", generatedClassBytes(i));
+                }
+                writer.copyClassesFrom(runtime);
+                writer.finish();
+            }
+            finally {
+                writer.close();
+            }
+        }
+        finally {
+            stream.close();
+        }
+        return jar;
+    }
+
+    private static byte[] generatedClassBytes(int index) {
+        byte[] bytes = new byte[index * 100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i % (index + 1));
+        }
+        return bytes;
+    }
+
+    private static byte[] loadEntry(JarFile jar, ZipEntry entry) throws IOException {
+        InputStream stream = jar.getInputStream(entry);
+        try {
+            return FileUtil.loadBytes(stream);
+        }
+        finally {
+            stream.close();
+        }
+    }
+
     private static List<String> listEntries(JarInputStream is) throws IOException {
         List<String> entries = new ArrayList<String>();
         while (true) {
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.resolve;
+
+import com.google.common.base.Predicates;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
+import org.jetbrains.kotlin.cli.jvm.compiler.CliLightClassGenerationSupport;
+import org.jetbrains.kotlin.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.kotlin.context.ContextPackage;
+import org.jetbrains.kotlin.descriptors.DeclarationDescriptor;
+import org.jetbrains.kotlin.descriptors.impl.ModuleDescriptorImpl;
+import org.jetbrains.kotlin.diagnostics.Diagnostic;
+import org.jetbrains.kotlin.diagnostics.DiagnosticUtils;
+import org.jetbrains.kotlin.diagnostics.rendering.DefaultErrorMessages;
+import org.jetbrains.kotlin.psi.JetExpression;
+import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.psi.JetReferenceExpression;
+import org.jetbrains.kotlin.psi.JetTreeVisitorVoid;
+import org.jetbrains.kotlin.renderer.DescriptorRenderer;
+import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM;
+import org.jetbrains.kotlin.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.kotlin.types.JetType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelBodyResolveTest extends KotlinTestWithEnvironment {
+    private static final int FILES = 8;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testParallelResolveIsTheSameAsSerial() {
+        List<JetFile> files = new ArrayList<JetFile>();
+        for (int i = 0; i < FILES; i++) {
+            files.add(JetTestUtils.createFile("file" + i + ".kt", fileText(i), getProject()));
+        }
+
+        String serial = render(analyze(files, 1), files);
+        String parallel = render(analyze(files, 4), files);
+
+        assertTrue(serial.contains("UNRESOLVED_REFERENCE"));
+        assertEquals(serial, parallel);
+    }
+
+    @NotNull
+    private static String fileText(int i) {
+        // Every file uses inferred types of declarations in the next one, so that they are resolved lazily from several threads
+        int next = (i + 1) % FILES;
+        return "package test\n" +
+               "\n" +
+               "fun <T, R> T.apply" + i + "(f: (T) -> R): R = f(this)\n" +
+               "\n" +
+               "val property" + i + " = function" + next + "(" + i + ")\n" +
+               "\n" +
+               "fun function" + i + "(x: Int) = x + " + i + "\n" +
+               "\n" +
+               "class Class" + i + "(val value: Int) {\n" +
+               "    val derived = Class" + next + "(value).inferred()\n" +
+               "    fun inferred() = value.apply" + i + " { it * 2 }.toString()\n" +
+               "    fun usesNext(c: Class" + next + ") = c.derived + property" + next + "\n" +
+               "}\n" +
+               "\n" +
+               "fun local" + i + "(): Any {\n" +
+               "    val o = object {\n" +
+               "        fun get() = property" + i + " + function" + next + "(property" + next + ")\n" +
+               "    }\n" +
+               "    fun localFun(s: String) = s.length() + o.get()\n" +
+               "    return localFun(Class" + i + "(" + i + ").usesNext(Class" + next + "(0)))\n" +
+               "}\n" +
+               "\n" +
+               "fun errors" + i + "() {\n" +
+               "    unresolved" + i + "()\n" +
+               "    val s: String = function" + next + "(1)\n" +
+               "}\n";
+    }
+
+    @NotNull
+    private BindingContext analyze(@NotNull List<JetFile> files, int bodyResolveThreads) {
+        ModuleDescriptorImpl module = TopDownAnalyzerFacadeForJVM.createJavaModule("<module>");
+        module.addDependencyOnModule(module);
+        module.addDependencyOnModule(KotlinBuiltIns.getInstance().getBuiltInsModule());
+        module.seal();
+
+        BindingTrace trace = new CliLightClassGenerationSupport.CliBindingTrace();
+
+        return TopDownAnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationWithCustomContext(
+                getProject(), ContextPackage.GlobalContext(), files, trace, Predicates.<PsiFile>alwaysTrue(), module, null, null,
+                bodyResolveThreads
+        ).getBindingContext();
+    }
+
+    /**
+     * Renders diagnostics in the order they are reported by the compiler, and types and references in the order of the elements
+     * in the files, so that the result doesn't depend on the order in which resolution recorded them
+     */
+    @NotNull
+    private static String render(@NotNull final BindingContext context, @NotNull List<JetFile> files) {
+        final StringBuilder result = new StringBuilder();
+
+        for (Diagnostic diagnostic : DiagnosticUtils.sortedDiagnostics(context.getDiagnostics().all())) {
+            result.append("diagnostic ").append(location(diagnostic.getPsiFile(), diagnostic.getTextRanges().get(0).getStartOffset()))
+                    .append(" ").append(diagnostic.getFactory().getName()).append(": ").append(DefaultErrorMessages.render(diagnostic))
+                    .append("\n");
+        }
+
+        for (JetFile file : files) {
+            file.accept(new JetTreeVisitorVoid() {
+                @Override
+                public void visitElement(@NotNull PsiElement element) {
+                    if (element instanceof JetExpression) {
+                        JetType type = context.get(BindingContext.EXPRESSION_TYPE, (JetExpression) element);
+                        if (type != null) {
+                            result.append("type ").append(location(element.getContainingFile(), element.getTextOffset())).append(" ")
+                                    .append(element.getText()).append(": ").append(type).append("\n");
+                        }
+                    }
+                    if (element instanceof JetReferenceExpression) {
+                        DeclarationDescriptor target = context.get(BindingContext.REFERENCE_TARGET, (JetReferenceExpression) element);
+                        if (target != null) {
+                            result.append("reference ").append(location(element.getContainingFile(), element.getTextOffset())).append(" ")
+                                    .append(element.getText()).append(": ").append(DescriptorRenderer.FQ_NAMES_IN_TYPES.render(target))
+                                    .append("\n");
+                        }
+                    }
+                    super.visitElement(element);
+                }
+            });
+        }
+
+        return result.toString();
+    }
+
+    @NotNull
+    private static String location(@NotNull PsiFile file, int offset) {
+        return file.getName() + ":" + offset;
+    }
+}
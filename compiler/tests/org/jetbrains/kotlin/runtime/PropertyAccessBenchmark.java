@@ -0,0 +1,149 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.runtime;
+
+import kotlin.jvm.internal.Reflection;
+import kotlin.reflect.KMutableMemberProperty;
+import kotlin.reflect.KMutableTopLevelVariable;
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Compares reading and writing a member property and a top-level property through kotlin.reflect with calls to their accessors
+ * and with Method.invoke. The benchmark is loaded together with kotlin-runtime.jar from dist, so that the current implementation
+ * of reflection is measured rather than the one from the runtime the tests are compiled against.
+ *
+ * Not a part of the test suite, run main() manually after 'ant dist'.
+ */
+public class PropertyAccessBenchmark {
+    public static void main(String[] args) throws Exception {
+        URL runtime = ForTestCompileRuntime.runtimeJarForTests().toURI().toURL();
+        URL tests = PropertyAccessBenchmark.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader classLoader = new URLClassLoader(new URL[] {runtime, tests}, null);
+        classLoader.loadClass(Rounds.class.getName()).getMethod("run").invoke(null);
+    }
+
+    // Only depends on the JDK and the runtime, since it's loaded by a class loader without a parent
+    public static class Rounds {
+        private static final int ROUNDS = 10;
+        private static final int ITERATIONS = 10000000;
+
+        public static void run() throws Exception {
+            // Warm up
+            runRound();
+
+            for (int round = 1; round <= ROUNDS; round++) {
+                System.out.printf("Round %d: %s%n", round, runRound());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static String runRound() throws Exception {
+            Point point = new Point();
+            Method getX = Point.class.getMethod("getX");
+            Method setX = Point.class.getMethod("setX", int.class);
+            KMutableMemberProperty<Point, Integer> x =
+                    Reflection.mutableMemberProperty("x", Reflection.createKotlinClass(Point.class));
+
+            Method getCount = Counter.class.getMethod("getCount");
+            Method setCount = Counter.class.getMethod("setCount", int.class);
+            KMutableTopLevelVariable<Integer> count =
+                    Reflection.mutableTopLevelVariable("count", Reflection.createKotlinPackage(Counter.class));
+
+            StringBuilder result = new StringBuilder();
+            long sum = 0;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                point.setX(i);
+                sum += point.getX();
+            }
+            result.append("member: direct ").append(millisSince(start));
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                setX.invoke(point, i);
+                sum += (Integer) getX.invoke(point);
+            }
+            result.append(" ms, Method.invoke ").append(millisSince(start));
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                x.set(point, i);
+                sum += x.get(point);
+            }
+            result.append(" ms, kotlin.reflect ").append(millisSince(start));
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                Counter.setCount(i);
+                sum += Counter.getCount();
+            }
+            result.append(" ms; top-level: direct ").append(millisSince(start));
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                setCount.invoke(null, i);
+                sum += (Integer) getCount.invoke(null);
+            }
+            result.append(" ms, Method.invoke ").append(millisSince(start));
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                count.set(i);
+                sum += count.get();
+            }
+            result.append(" ms, kotlin.reflect ").append(millisSince(start)).append(" ms");
+
+            // Print the sum, so that the loops are not eliminated as dead code
+            return result.append(" (").append(sum).append(")").toString();
+        }
+
+        private static long millisSince(long start) {
+            return (System.nanoTime() - start) / 1000000;
+        }
+    }
+
+    // Mimics a Kotlin class with a property 'var x: Int'
+    public static class Point {
+        private int x;
+
+        public int getX() {
+            return x;
+        }
+
+        public void setX(int x) {
+            this.x = x;
+        }
+    }
+
+    // Mimics a Kotlin package with a top-level property 'var count: Int'
+    public static class Counter {
+        private static int count;
+
+        public static int getCount() {
+            return count;
+        }
+
+        public static void setCount(int count) {
+            Counter.count = count;
+        }
+    }
+}
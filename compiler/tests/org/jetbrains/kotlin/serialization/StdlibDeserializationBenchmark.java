@@ -0,0 +1,82 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
+import org.jetbrains.kotlin.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.kotlin.descriptors.DeclarationDescriptor;
+import org.jetbrains.kotlin.descriptors.ModuleDescriptor;
+import org.jetbrains.kotlin.descriptors.PackageViewDescriptor;
+import org.jetbrains.kotlin.descriptors.impl.DeclarationDescriptorVisitorEmptyBodies;
+import org.jetbrains.kotlin.name.FqName;
+import org.jetbrains.kotlin.renderer.DescriptorRenderer;
+import org.jetbrains.kotlin.resolve.lazy.LazyResolveTestUtil;
+import org.jetbrains.kotlin.test.ConfigurationKind;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.kotlin.test.TestJdkKind;
+import org.jetbrains.kotlin.test.util.RecursiveDescriptorProcessor;
+
+/**
+ * Deserializes and renders all descriptors of the Kotlin runtime library, with a new module on each round.
+ *
+ * Not a part of the test suite, run main() manually.
+ */
+public class StdlibDeserializationBenchmark {
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        // Warm up
+        run();
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            int descriptors = run();
+            System.out.printf("Round %d: %d descriptors in %d ms%n", round, descriptors, (System.nanoTime() - start) / 1000000);
+        }
+    }
+
+    private static int run() {
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            JetCoreEnvironment environment = JetCoreEnvironment.createForTests(
+                    disposable,
+                    JetTestUtils.compilerConfigurationForTests(ConfigurationKind.ALL, TestJdkKind.MOCK_JDK),
+                    EnvironmentConfigFiles.JVM_CONFIG_FILES
+            );
+            ModuleDescriptor module = LazyResolveTestUtil.resolveProject(environment.getProject());
+            PackageViewDescriptor kotlinPackage = module.getPackage(new FqName("kotlin"));
+            assert kotlinPackage != null : "No kotlin package in " + module;
+
+            final int[] count = new int[1];
+            RecursiveDescriptorProcessor.process(kotlinPackage, null, new DeclarationDescriptorVisitorEmptyBodies<Boolean, Void>() {
+                @Override
+                public Boolean visitDeclarationDescriptor(DeclarationDescriptor descriptor, Void data) {
+                    // Rendering resolves all types mentioned in the declaration
+                    DescriptorRenderer.FQ_NAMES_IN_TYPES.render(descriptor);
+                    count[0]++;
+                    return true;
+                }
+            });
+            return count[0];
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+}
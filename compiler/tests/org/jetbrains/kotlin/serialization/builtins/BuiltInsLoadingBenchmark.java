@@ -0,0 +1,138 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.serialization.builtins;
+
+import com.intellij.openapi.util.io.FileUtil;
+import kotlin.Function1;
+import kotlin.Function2;
+import kotlin.Unit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.builtins.BuiltinsPackageFragment;
+import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
+import org.jetbrains.kotlin.descriptors.DeclarationDescriptor;
+import org.jetbrains.kotlin.descriptors.PackageViewDescriptor;
+import org.jetbrains.kotlin.descriptors.impl.DeclarationDescriptorVisitorEmptyBodies;
+import org.jetbrains.kotlin.descriptors.impl.ModuleDescriptorImpl;
+import org.jetbrains.kotlin.name.Name;
+import org.jetbrains.kotlin.platform.PlatformToKotlinClassMap;
+import org.jetbrains.kotlin.renderer.DescriptorRenderer;
+import org.jetbrains.kotlin.resolve.ImportPath;
+import org.jetbrains.kotlin.storage.LockBasedStorageManager;
+import org.jetbrains.kotlin.test.JetTestUtils;
+import org.jetbrains.kotlin.test.util.RecursiveDescriptorProcessor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarOutputStream;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+
+/**
+ * Compares loading the built-ins from a .kotlin_builtins snapshot of the package with loading them from separate files.
+ * Both layouts are serialized from core/builtins and packed to jars, since that's where the built-ins are loaded from
+ * by KotlinBuiltIns. Each round loads the package with a new class loader and renders all its descriptors.
+ *
+ * Not a part of the test suite, run main() manually.
+ */
+public class BuiltInsLoadingBenchmark {
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        File tmpdir = JetTestUtils.tmpDir("builtInsLoadingBenchmark");
+        File snapshotJar = serializeBuiltIns(new File(tmpdir, "snapshot"), true);
+        File separateFilesJar = serializeBuiltIns(new File(tmpdir, "separateFiles"), false);
+
+        // Warm up
+        load(snapshotJar);
+        load(separateFilesJar);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long snapshot = load(snapshotJar);
+            long separateFiles = load(separateFilesJar);
+            System.out.printf("Round %d: snapshot %d ms, separate files %d ms%n", round, snapshot, separateFiles);
+        }
+    }
+
+    @NotNull
+    private static File serializeBuiltIns(@NotNull File destDir, boolean writeSnapshots) throws IOException {
+        new BuiltInsSerializer(false, writeSnapshots).serialize(
+                destDir,
+                Arrays.asList(new File("core/builtins/native"), new File("core/builtins/src")),
+                Collections.<File>emptyList(),
+                new Function2<Integer, Integer, Unit>() {
+                    @Override
+                    public Unit invoke(Integer totalSize, Integer totalFiles) {
+                        return Unit.INSTANCE$;
+                    }
+                }
+        );
+
+        File jar = new File(destDir.getPath() + ".jar");
+        JarOutputStream output = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (File file : FileUtil.findFilesByMask(Pattern.compile(".+"), destDir)) {
+                output.putNextEntry(new ZipEntry(FileUtil.toSystemIndependentName(FileUtil.getRelativePath(destDir, file))));
+                output.write(FileUtil.loadFileBytes(file));
+                output.closeEntry();
+            }
+        }
+        finally {
+            output.close();
+        }
+        return jar;
+    }
+
+    private static long load(@NotNull File jar) throws Exception {
+        long start = System.nanoTime();
+
+        final ClassLoader classLoader = new URLClassLoader(new URL[] {jar.toURI().toURL()}, null);
+        ModuleDescriptorImpl module = new ModuleDescriptorImpl(
+                Name.special("<built-ins module>"), Collections.<ImportPath>emptyList(), PlatformToKotlinClassMap.EMPTY
+        );
+        BuiltinsPackageFragment packageFragment = new BuiltinsPackageFragment(
+                KotlinBuiltIns.BUILT_INS_PACKAGE_FQ_NAME, new LockBasedStorageManager(), module,
+                new Function1<String, InputStream>() {
+                    @Override
+                    public InputStream invoke(String path) {
+                        return classLoader.getResourceAsStream(path);
+                    }
+                }
+        );
+        module.initialize(packageFragment.getProvider());
+        module.addDependencyOnModule(module);
+        module.seal();
+
+        PackageViewDescriptor builtInsPackage = module.getPackage(KotlinBuiltIns.BUILT_INS_PACKAGE_FQ_NAME);
+        assert builtInsPackage != null : "No built-ins package in " + module;
+        RecursiveDescriptorProcessor.process(builtInsPackage, null, new DeclarationDescriptorVisitorEmptyBodies<Boolean, Void>() {
+            @Override
+            public Boolean visitDeclarationDescriptor(DeclarationDescriptor descriptor, Void data) {
+                // Rendering resolves all types mentioned in the declaration
+                DescriptorRenderer.FQ_NAMES_IN_TYPES.render(descriptor);
+                return true;
+            }
+        });
+
+        return (System.nanoTime() - start) / 1000000;
+    }
+}
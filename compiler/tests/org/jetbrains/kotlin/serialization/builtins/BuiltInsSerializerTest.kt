@@ -22,21 +22,39 @@ import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
 import org.jetbrains.kotlin.test.JetTestUtils
 import org.jetbrains.kotlin.storage.LockBasedStorageManager
 import java.io.FileInputStream
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.util.Arrays
+import java.util.LinkedHashMap
+import org.jetbrains.kotlin.builtins.BuiltInsSnapshot
 import org.jetbrains.kotlin.builtins.BuiltinsPackageFragment
+import org.jetbrains.kotlin.builtins.BuiltInsSerializationUtil
 import org.jetbrains.kotlin.builtins.KotlinBuiltIns
 import org.jetbrains.kotlin.test.util.RecursiveDescriptorComparator
 import org.jetbrains.kotlin.jvm.compiler.LoadDescriptorUtil.TEST_PACKAGE_FQNAME
 
 public class BuiltInsSerializerTest : TestCaseWithTmpdir() {
-    private fun doTest(fileName: String) {
+    private fun doTest(fileName: String, withSnapshot: Boolean = true) {
         val source = "compiler/testData/serialization/builtinsSerializer/$fileName"
-        BuiltInsSerializer(dependOnOldBuiltIns = true).serialize(
+        BuiltInsSerializer(dependOnOldBuiltIns = true, writeSnapshots = withSnapshot).serialize(
                 tmpdir,
                 srcDirs = listOf(File(source)),
                 extraClassPath = listOf(ForTestCompileRuntime.runtimeJarForTests()),
                 onComplete = { totalSize, totalFiles -> }
         )
 
+        // With a snapshot, the package is only loaded from it, otherwise from the separate files
+        val snapshotFile = File(tmpdir, BuiltInsSerializationUtil.getSnapshotFilePath(TEST_PACKAGE_FQNAME))
+        val packageFiles = snapshotFile.getParentFile().listFiles()!!.map { it.getName() }
+        if (withSnapshot) {
+            assertEquals(listOf(snapshotFile.getName()), packageFiles)
+        }
+        else {
+            assertFalse(snapshotFile.exists())
+            assertTrue(packageFiles.toString(), packageFiles.size() > 1)
+        }
+
         val module = JetTestUtils.createEmptyModule("<module>")
 
         val packageFragment = BuiltinsPackageFragment(TEST_PACKAGE_FQNAME, LockBasedStorageManager(), module) {
@@ -57,10 +75,38 @@ public class BuiltInsSerializerTest : TestCaseWithTmpdir() {
         )
     }
 
+    fun testSnapshotRoundTrip() {
+        val files = LinkedHashMap<String, ByteArray>()
+        files["test/.kotlin_package"] = byteArray(1, 2, 3)
+        files["test/.kotlin_string_table"] = byteArray()
+        val large = ByteArray(100000)
+        for (i in large.indices) {
+            large[i] = i.toByte()
+        }
+        files["test/A.kotlin_class"] = large
+
+        val output = ByteArrayOutputStream()
+        BuiltInsSnapshot.write(files, output)
+        val snapshot = BuiltInsSnapshot.read(ByteArrayInputStream(output.toByteArray()))!!
+
+        for ((path, bytes) in files) {
+            assertTrue(path, Arrays.equals(bytes, snapshot.getStream(path)!!.readBytes()))
+        }
+        assertNull(snapshot.getStream("test/B.kotlin_class"))
+
+        val unsupportedVersion = ByteArrayOutputStream()
+        DataOutputStream(unsupportedVersion).writeInt(Int.MAX_VALUE)
+        assertNull(BuiltInsSnapshot.read(ByteArrayInputStream(unsupportedVersion.toByteArray())))
+    }
+
     fun testSimple() {
         doTest("simple.kt")
     }
 
+    fun testSimpleWithoutSnapshot() {
+        doTest("simple.kt", withSnapshot = false)
+    }
+
     fun testCompileTimeConstants() {
         doTest("compileTimeConstants.kt")
     }
@@ -460,6 +460,19 @@ public class JetTypeCheckerTest extends JetLiteFixture {
         assertSupertypes("Derived1_inT<Int>", "Derived_T<Int>", "Base_T<Int>", "Any", "Base_inT<Int>");
     }
 
+    public void testLibraryClassHierarchies() throws Exception {
+        // Supertypes of built-in and Java classes are looked up in supertype tables, see AbstractClassDescriptor.getSupertypeTable()
+        assertSubtype("Int", "Comparable<Int>");
+        assertNotSubtype("Int", "Comparable<Long>");
+        assertSubtype("MutableList<String>", "Collection<CharSequence>");
+        assertNotSubtype("List<CharSequence>", "Collection<String>");
+        assertSubtype("java.util.ArrayList<Int>", "MutableCollection<Int>");
+        assertSubtype("java.util.ArrayList<Int>", "Iterable<Any>");
+        assertSubtype("java.util.ArrayList<Int>", "java.util.AbstractCollection<Int>");
+        assertNotSubtype("java.util.ArrayList<Any>", "MutableCollection<Int>");
+        assertNotSubtype("java.util.ArrayList<Int>", "Map<Int, Int>");
+    }
+
     public void testEffectiveProjectionKinds() throws Exception {
         assertSubtype("Base_outT<Int>", "Base_outT<Int>");
         assertSubtype("Base_outT<out Int>", "Base_outT<out Int>");
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util;
+
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class HashTrieMapTest extends TestCase {
+    private static class CollidingKey {
+        private final String name;
+
+        private CollidingKey(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+    public void testPlusAndGet() {
+        HashTrieMap<String, Integer> empty = HashTrieMap.empty();
+        HashTrieMap<String, Integer> map = empty.plus("a", 1).plus("b", 2);
+
+        assertEquals(0, empty.size());
+        assertNull(empty.get("a"));
+        assertEquals(2, map.size());
+        assertEquals(1, (int) map.get("a"));
+        assertEquals(2, (int) map.get("b"));
+        assertNull(map.get("c"));
+    }
+
+    public void testOldVersionIsNotChanged() {
+        HashTrieMap<String, Integer> first = HashTrieMap.<String, Integer>empty().plus("a", 1);
+        HashTrieMap<String, Integer> second = first.plus("a", 2);
+
+        assertEquals(1, (int) first.get("a"));
+        assertEquals(2, (int) second.get("a"));
+        assertEquals(1, second.size());
+    }
+
+    public void testSameValueReturnsSameMap() {
+        Integer value = 1000;
+        HashTrieMap<String, Integer> map = HashTrieMap.<String, Integer>empty().plus("a", value).plus("b", 2);
+        assertSame(map, map.plus("a", value));
+    }
+
+    public void testCollisions() {
+        CollidingKey a = new CollidingKey("a");
+        CollidingKey b = new CollidingKey("b");
+        HashTrieMap<Object, String> map = HashTrieMap.<Object, String>empty().plus(a, "a").plus(b, "b").plus(a, "A").plus("c", "c");
+
+        assertEquals(3, map.size());
+        assertEquals("A", map.get(new CollidingKey("a")));
+        assertEquals("b", map.get(b));
+        assertEquals("c", map.get("c"));
+        assertNull(map.get(new CollidingKey("d")));
+    }
+
+    public void testRandomAgainstHashMap() {
+        Random random = new Random(239);
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        HashTrieMap<Integer, Integer> map = HashTrieMap.empty();
+        for (int i = 0; i < 10000; i++) {
+            int key = random.nextInt(3000) * (random.nextBoolean() ? 1 : 1 << 20);
+            int value = random.nextInt();
+            expected.put(key, value);
+            map = map.plus(key, value);
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map.toMap());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.util.slicedMap;
+
+import com.google.common.collect.ImmutableMap;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class SlicePartitionedMapTest extends TestCase {
+    public void testPutAndGet() {
+        WritableSlice<String, Integer> NAME_COLOR = Slices.<String, Integer>sliceBuilder().setDebugName("NAME_COLOR").build();
+        WritableSlice<String, Integer> NAME_SIZE = Slices.<String, Integer>sliceBuilder().setDebugName("NAME_SIZE").build();
+
+        SlicePartitionedMap map = SlicePartitionedMap.create();
+        map.put(NAME_COLOR, "RED", 0xff0000);
+        map.put(NAME_SIZE, "RED", 3);
+
+        assertEquals(0xff0000, (int) map.get(NAME_COLOR, "RED"));
+        assertEquals(3, (int) map.get(NAME_SIZE, "RED"));
+        assertNull(map.get(NAME_COLOR, "GREEN"));
+    }
+
+    public void testDefaultValueAndRawValueVersion() {
+        WritableSlice<String, Boolean> FLAG = Slices.<String, Boolean>sliceBuilder().setDefaultValue(true).setDebugName("FLAG").build();
+
+        SlicePartitionedMap map = SlicePartitionedMap.create();
+        assertTrue(map.get(FLAG, "a"));
+        assertNull(map.get(FLAG.makeRawValueVersion(), "a"));
+
+        map.put(FLAG, "a", false);
+        assertFalse(map.get(FLAG, "a"));
+        assertFalse(map.get(FLAG.makeRawValueVersion(), "a"));
+        assertEquals(ImmutableMap.of("a", false), map.getSliceContents(FLAG.makeRawValueVersion()));
+    }
+
+    public void testKeyNormalizer() {
+        WritableSlice<String, Integer> SLICE = Slices.<String, Integer>sliceBuilder().setKeyNormalizer(
+                new Slices.KeyNormalizer<String>() {
+                    @Override
+                    public String normalize(String key) {
+                        return key.toLowerCase();
+                    }
+                }
+        ).setDebugName("SLICE").build();
+
+        SlicePartitionedMap map = SlicePartitionedMap.create();
+        map.put(SLICE, "Key", 1);
+        assertEquals(1, (int) map.get(SLICE, "KEY"));
+    }
+
+    public void testOppositeAndCollectiveSlices() {
+        WritableSlice<Integer, String> COLOR_NAME = Slices.createCollectiveSlice();
+        WritableSlice<String, Integer> NAME_COLOR = Slices.<String, Integer>sliceBuilder().setOpposite(COLOR_NAME).setDebugName("NAME_COLOR").build();
+
+        SlicePartitionedMap map = SlicePartitionedMap.create();
+        map.put(NAME_COLOR, "RED", 0xff0000);
+        map.put(NAME_COLOR, "GREEN", 0x00ff00);
+
+        assertEquals("RED", map.get(COLOR_NAME, 0xff0000));
+        assertEquals(Arrays.asList(0xff0000, 0x00ff00), map.getKeys(COLOR_NAME));
+    }
+
+    public void testRemoveAndSliceContents() {
+        RemovableSlice<String, Integer> NAME_COLOR = Slices.<String, Integer>sliceBuilder().setDebugName("NAME_COLOR").build();
+        WritableSlice<String, Integer> NAME_SIZE = Slices.<String, Integer>sliceBuilder().setDebugName("NAME_SIZE").build();
+
+        SlicePartitionedMap map = SlicePartitionedMap.create();
+        map.put(NAME_COLOR, "RED", 0xff0000);
+        map.put(NAME_COLOR, "GREEN", 0x00ff00);
+        map.put(NAME_SIZE, "RED", 3);
+
+        assertEquals(0x00ff00, (int) map.remove(NAME_COLOR, "GREEN"));
+        assertEquals(ImmutableMap.of("RED", 0xff0000), map.getSliceContents(NAME_COLOR));
+
+        int entries = 0;
+        for (Map.Entry<SlicedMapKey<?, ?>, ?> entry : map) {
+            assertEquals("RED", entry.getKey().getKey());
+            entries++;
+        }
+        assertEquals(2, entries);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wall time, CPU time and allocated bytes of the compiler phases of one compilation.
+ *
+ * A phase is measured on the thread which runs it, so measurements of phases run on several threads (e.g. parallel codegen)
+ * are summed up. A phase nested in another one (e.g. inlining during codegen) is included in the outer phase.
+ * Recursive entries of the same phase (e.g. analysis of local declarations) are counted once.
+ *
+ * An instance is created for each compilation and passed to its phases (see JVMConfigurationKeys.PHASE_METRICS), so that
+ * compilations running concurrently in the same process, e.g. in a daemon, are measured separately.
+ * Phases are not measured when they are given null instead of an instance.
+ */
+public final class CompilerPhaseMetrics {
+    public enum Phase {
+        ENVIRONMENT_SETUP,
+        PARSING,
+        TOP_DOWN_ANALYSIS,
+        BODY_RESOLVE,
+        CONTROL_FLOW_ANALYSIS,
+        CODEGEN,
+        OPTIMIZATION,
+        INLINING,
+        OUTPUT_WRITING
+    }
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+    private static final boolean ALLOCATED_BYTES_SUPPORTED = THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean &&
+                                                             ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemorySupported();
+
+    /**
+     * @return the measurement to be passed to {@link #finish}, or null if metrics are not collected
+     */
+    @Nullable
+    public static Measurement start(@Nullable CompilerPhaseMetrics metrics, @NotNull Phase phase) {
+        return start(metrics, phase, null, null);
+    }
+
+    /**
+     * Same as {@link #start(CompilerPhaseMetrics, Phase)}, also recording the metrics of the phase for the given file and/or package
+     * if metrics are collected in the detailed mode
+     */
+    @Nullable
+    public static Measurement start(
+            @Nullable CompilerPhaseMetrics metrics,
+            @NotNull Phase phase,
+            @Nullable String filePath,
+            @Nullable String packageFqName
+    ) {
+        if (metrics == null) return null;
+
+        int depth = metrics.phaseDepths.get()[phase.ordinal()]++;
+        return new Measurement(metrics, phase, depth == 0,
+                               metrics.detailed ? filePath : null,
+                               metrics.detailed ? packageFqName : null);
+    }
+
+    public static void finish(@Nullable Measurement measurement) {
+        if (measurement == null) return;
+
+        measurement.metrics.phaseDepths.get()[measurement.phase.ordinal()]--;
+        measurement.metrics.record(measurement);
+    }
+
+    public static final class Measurement {
+        private final CompilerPhaseMetrics metrics;
+        private final Phase phase;
+        private final boolean outermost;
+        private final String filePath;
+        private final String packageFqName;
+
+        private final long wallTimeStart = System.nanoTime();
+        private final long cpuTimeStart = currentThreadCpuTime();
+        private final long allocatedBytesStart = currentThreadAllocatedBytes();
+
+        private Measurement(
+                @NotNull CompilerPhaseMetrics metrics,
+                @NotNull Phase phase,
+                boolean outermost,
+                @Nullable String filePath,
+                @Nullable String packageFqName
+        ) {
+            this.metrics = metrics;
+            this.phase = phase;
+            this.outermost = outermost;
+            this.filePath = filePath;
+            this.packageFqName = packageFqName;
+        }
+    }
+
+    private static final class Counter {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong wallTime = new AtomicLong();
+        private final AtomicLong cpuTime = new AtomicLong();
+        private final AtomicLong allocatedBytes = new AtomicLong();
+
+        public void add(long wallTime, long cpuTime, long allocatedBytes) {
+            this.count.incrementAndGet();
+            this.wallTime.addAndGet(wallTime);
+            this.cpuTime.addAndGet(cpuTime);
+            this.allocatedBytes.addAndGet(allocatedBytes);
+        }
+
+        public void appendJson(@NotNull Appendable out) throws IOException {
+            out.append("{\"count\": ").append(String.valueOf(count.get()))
+                    .append(", \"wallTimeNanos\": ").append(String.valueOf(wallTime.get()))
+                    .append(", \"cpuTimeNanos\": ").append(String.valueOf(CPU_TIME_SUPPORTED ? cpuTime.get() : -1))
+                    .append(", \"allocatedBytes\": ").append(String.valueOf(ALLOCATED_BYTES_SUPPORTED ? allocatedBytes.get() : -1))
+                    .append("}");
+        }
+    }
+
+    private final boolean detailed;
+    // Number of active measurements of each phase on the current thread
+    private final ThreadLocal<int[]> phaseDepths = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[Phase.values().length];
+        }
+    };
+    private final Map<Phase, Counter> totals = new EnumMap<Phase, Counter>(Phase.class);
+    // file path or package name -> phase -> counter
+    private final ConcurrentMap<String, ConcurrentMap<Phase, Counter>> files = new ConcurrentHashMap<String, ConcurrentMap<Phase, Counter>>();
+    private final ConcurrentMap<String, ConcurrentMap<Phase, Counter>> packages = new ConcurrentHashMap<String, ConcurrentMap<Phase, Counter>>();
+
+    /**
+     * @param detailed whether to collect metrics of each file and package along with the totals
+     */
+    public CompilerPhaseMetrics(boolean detailed) {
+        this.detailed = detailed;
+        for (Phase phase : Phase.values()) {
+            totals.put(phase, new Counter());
+        }
+    }
+
+    private void record(@NotNull Measurement measurement) {
+        long wallTime = System.nanoTime() - measurement.wallTimeStart;
+        long cpuTime = currentThreadCpuTime() - measurement.cpuTimeStart;
+        long allocatedBytes = currentThreadAllocatedBytes() - measurement.allocatedBytesStart;
+
+        if (measurement.outermost) {
+            totals.get(measurement.phase).add(wallTime, cpuTime, allocatedBytes);
+        }
+        if (measurement.filePath != null) {
+            getCounter(files, measurement.filePath, measurement.phase).add(wallTime, cpuTime, allocatedBytes);
+        }
+        if (measurement.packageFqName != null) {
+            getCounter(packages, measurement.packageFqName, measurement.phase).add(wallTime, cpuTime, allocatedBytes);
+        }
+    }
+
+    @NotNull
+    private static Counter getCounter(@NotNull ConcurrentMap<String, ConcurrentMap<Phase, Counter>> counters, @NotNull String key, @NotNull Phase phase) {
+        ConcurrentMap<Phase, Counter> phases = counters.get(key);
+        if (phases == null) {
+            ConcurrentMap<Phase, Counter> newPhases = new ConcurrentHashMap<Phase, Counter>();
+            phases = counters.putIfAbsent(key, newPhases);
+            if (phases == null) phases = newPhases;
+        }
+
+        Counter counter = phases.get(phase);
+        if (counter == null) {
+            Counter newCounter = new Counter();
+            counter = phases.putIfAbsent(phase, newCounter);
+            if (counter == null) counter = newCounter;
+        }
+        return counter;
+    }
+
+    /**
+     * Writes the metrics as a JSON object with the totals of each phase in "phases", and, in the detailed mode,
+     * the metrics of phases for each file and package in "files" and "packages". Times are in nanoseconds,
+     * -1 stands for the values not supported by the JVM
+     */
+    public void writeJson(@NotNull Appendable out) throws IOException {
+        out.append("{\n  \"phases\": ");
+        appendPhases(out, totals, "  ");
+
+        if (detailed) {
+            out.append(",\n  \"files\": ");
+            appendBreakdown(out, files);
+            out.append(",\n  \"packages\": ");
+            appendBreakdown(out, packages);
+        }
+        out.append("\n}\n");
+    }
+
+    private static void appendBreakdown(@NotNull Appendable out, @NotNull Map<String, ConcurrentMap<Phase, Counter>> breakdown)
+            throws IOException {
+        out.append("{");
+        String separator = "\n";
+        for (Map.Entry<String, ConcurrentMap<Phase, Counter>> entry : new TreeMap<String, ConcurrentMap<Phase, Counter>>(breakdown).entrySet()) {
+            out.append(separator).append("    ");
+            appendString(out, entry.getKey());
+            out.append(": ");
+            appendPhases(out, new EnumMap<Phase, Counter>(entry.getValue()), "    ");
+            separator = ",\n";
+        }
+        out.append(breakdown.isEmpty() ? "}" : "\n  }");
+    }
+
+    private static void appendPhases(@NotNull Appendable out, @NotNull Map<Phase, Counter> phases, @NotNull String indent)
+            throws IOException {
+        out.append("{");
+        String separator = "\n";
+        for (Map.Entry<Phase, Counter> entry : phases.entrySet()) {
+            out.append(separator).append(indent).append("  ");
+            appendString(out, entry.getKey().name());
+            out.append(": ");
+            entry.getValue().appendJson(out);
+            separator = ",\n";
+        }
+        out.append("\n").append(indent).append("}");
+    }
+
+    private static void appendString(@NotNull Appendable out, @NotNull String string) throws IOException {
+        out.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            }
+            else if (c < ' ') {
+                out.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static long currentThreadCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        return ALLOCATED_BYTES_SUPPORTED
+               ? ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId())
+               : 0;
+    }
+}
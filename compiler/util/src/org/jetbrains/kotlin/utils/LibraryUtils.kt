@@ -92,6 +92,16 @@ public object LibraryUtils {
         return checkAttributeValue(library, TITLE_KOTLIN_JAVASCRIPT_STDLIB, Attributes.Name.IMPLEMENTATION_TITLE)
     }
 
+    platformStatic
+    public fun createKotlinJavascriptLibraryManifest(moduleName: String): Manifest {
+        val manifest = Manifest()
+        val attributes = manifest.getMainAttributes()
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0")
+        attributes.put(Attributes.Name.SPECIFICATION_TITLE, TITLE_KOTLIN_JAVASCRIPT_LIB)
+        attributes.put(KOTLIN_JS_MODULE_ATTRIBUTE_NAME, moduleName)
+        return manifest
+    }
+
     platformStatic
     public fun copyJsFilesFromLibraries(libraries: List<String>, outputLibraryJsPath: String) {
         for (library in libraries) {
@@ -43,15 +43,19 @@ public class LazyJavaPackageFragmentProvider(
                 else null
             }
 
+    // Keyed by FQ name rather than by JavaClass, so that different JavaClass instances of the same class
+    // (e.g. one read from a class file and another one wrapping PSI) are resolved to the same descriptor
     private val topLevelClasses = c.storageManager.createMemoizedFunctionWithNullableValues @lambda {
-        (jClass: JavaClass): LazyJavaClassDescriptor? ->
-        val fqName = jClass.getFqName()
-        if (fqName == null) return@lambda null
-
-        val packageFragment = getPackageFragment(fqName.parent())
+        (request: TopLevelClassRequest): LazyJavaClassDescriptor? ->
+        val packageFragment = getPackageFragment(request.fqName.parent())
         if (packageFragment == null) return@lambda null
 
-        LazyJavaClassDescriptor(c, packageFragment, fqName, jClass)
+        LazyJavaClassDescriptor(c, packageFragment, request.fqName, request.jClass)
+    }
+
+    private class TopLevelClassRequest(val fqName: FqName, val jClass: JavaClass) {
+        override fun equals(other: Any?) = other is TopLevelClassRequest && fqName == other.fqName
+        override fun hashCode() = fqName.hashCode()
     }
 
     private fun getPackageFragment(fqName: FqName) = packageFragments(fqName)
@@ -73,7 +77,7 @@ public class LazyJavaPackageFragmentProvider(
             }
             val outerClass = javaClass.getOuterClass()
             if (outerClass == null) {
-                return c.lookupBinaryClass(javaClass) ?: topLevelClasses(javaClass)
+                return c.lookupBinaryClass(javaClass) ?: if (fqName != null) topLevelClasses(TopLevelClassRequest(fqName, javaClass)) else null
             }
             val outerClassScope = resolveClass(outerClass)?.getUnsubstitutedInnerClassesScope()
             return outerClassScope?.getClassifier(javaClass.getName()) as? ClassDescriptor
@@ -87,6 +87,8 @@ class LazyJavaClassDescriptor(
 
     override fun getDefaultObjectDescriptor(): ClassDescriptor? = null
 
+    override fun hasImmutableSupertypes() = true
+
     override fun getConstructors() = scopeForMemberLookup.constructors()
 
     private val annotations = c.storageManager.createLazyValue { c.resolveAnnotations(jClass) }
@@ -25,10 +25,10 @@ import org.jetbrains.kotlin.load.java.components.ErrorReporter;
 import org.jetbrains.kotlin.load.kotlin.header.KotlinClassHeader;
 import org.jetbrains.kotlin.name.Name;
 import org.jetbrains.kotlin.resolve.scopes.JetScope;
+import org.jetbrains.kotlin.serialization.ClassData;
 import org.jetbrains.kotlin.serialization.PackageData;
 import org.jetbrains.kotlin.serialization.deserialization.DeserializationComponents;
 import org.jetbrains.kotlin.serialization.deserialization.descriptors.DeserializedPackageMemberScope;
-import org.jetbrains.kotlin.serialization.jvm.JvmProtoBufUtil;
 
 import javax.inject.Inject;
 import java.util.Collection;
@@ -52,21 +52,18 @@ public final class DeserializedDescriptorResolver {
 
     @Nullable
     public ClassDescriptor resolveClass(@NotNull KotlinJvmBinaryClass kotlinClass) {
-        String[] data = readData(kotlinClass, CLASS);
-        if (data != null) {
-            return components.getClassDeserializer().deserializeClass(
-                    kotlinClass.getClassId(), JvmProtoBufUtil.readClassDataFrom(data)
-            );
+        ClassData classData = readClassData(kotlinClass);
+        if (classData != null) {
+            return components.getClassDeserializer().deserializeClass(kotlinClass.getClassId(), classData);
         }
         return null;
     }
 
     @Nullable
     public JetScope createKotlinPackageScope(@NotNull PackageFragmentDescriptor descriptor, @NotNull KotlinJvmBinaryClass kotlinClass) {
-        String[] data = readData(kotlinClass, PACKAGE_FACADE);
-        if (data != null) {
+        PackageData packageData = readData(kotlinClass, PACKAGE_FACADE) != null ? kotlinClass.getClassHeader().getPackageData() : null;
+        if (packageData != null) {
             //all classes are included in java scope
-            PackageData packageData = JvmProtoBufUtil.readPackageDataFrom(data);
             return new DeserializedPackageMemberScope(
                     descriptor, packageData.getPackageProto(), packageData.getNameResolver(), components,
                     new Function0<Collection<Name>>() {
@@ -80,6 +77,11 @@ public final class DeserializedDescriptorResolver {
         return null;
     }
 
+    @Nullable
+    public ClassData readClassData(@NotNull KotlinJvmBinaryClass kotlinClass) {
+        return readData(kotlinClass, CLASS) != null ? kotlinClass.getClassHeader().getClassData() : null;
+    }
+
     @Nullable
     public String[] readData(@NotNull KotlinJvmBinaryClass kotlinClass, @NotNull KotlinClassHeader.Kind expectedKind) {
         KotlinClassHeader header = kotlinClass.getClassHeader();
@@ -19,8 +19,6 @@ package org.jetbrains.kotlin.load.kotlin
 import org.jetbrains.kotlin.name.ClassId
 import org.jetbrains.kotlin.serialization.deserialization.ClassDataFinder
 import org.jetbrains.kotlin.serialization.ClassData
-import org.jetbrains.kotlin.serialization.jvm.JvmProtoBufUtil
-import org.jetbrains.kotlin.load.kotlin.header.KotlinClassHeader
 
 public class JavaClassDataFinder(
         private val kotlinClassFinder: KotlinClassFinder,
@@ -31,7 +29,6 @@ public class JavaClassDataFinder(
         assert(kotlinJvmBinaryClass.getClassId() == classId) {
             "Class with incorrect id found: expected $classId, actual ${kotlinJvmBinaryClass.getClassId()}"
         }
-        val data = deserializedDescriptorResolver.readData(kotlinJvmBinaryClass, KotlinClassHeader.Kind.CLASS) ?: return null
-        return JvmProtoBufUtil.readClassDataFrom(data)
+        return deserializedDescriptorResolver.readClassData(kotlinJvmBinaryClass)
     }
 }
@@ -19,6 +19,10 @@ package org.jetbrains.kotlin.load.kotlin.header
 import org.jetbrains.kotlin.load.java.JvmAnnotationNames.KotlinSyntheticClass
 import org.jetbrains.kotlin.load.java.JvmAnnotationNames.KotlinClass
 import org.jetbrains.kotlin.load.java.AbiVersionUtil
+import org.jetbrains.kotlin.serialization.ClassData
+import org.jetbrains.kotlin.serialization.PackageData
+import org.jetbrains.kotlin.serialization.jvm.JvmProtoBufUtil
+import kotlin.properties.Delegates
 
 public class KotlinClassHeader(
         public val kind: KotlinClassHeader.Kind,
@@ -29,6 +33,17 @@ public class KotlinClassHeader(
 ) {
     public val isCompatibleAbiVersion: Boolean get() = AbiVersionUtil.isAbiVersionCompatible(version);
 
+    // The data is parsed on the first request and kept with the header. The header of a library class lives as long as
+    // its parsed class file, which is cached for the whole application (and so for all compilations in the compile daemon)
+
+    public val classData: ClassData? by Delegates.blockingLazy {
+        if (kind == Kind.CLASS) annotationData?.let { JvmProtoBufUtil.readClassDataFrom(it) } else null
+    }
+
+    public val packageData: PackageData? by Delegates.blockingLazy {
+        if (kind == Kind.PACKAGE_FACADE) annotationData?.let { JvmProtoBufUtil.readPackageDataFrom(it) } else null
+    }
+
     {
         if (isCompatibleAbiVersion) {
             assert((annotationData == null) == (kind != Kind.CLASS && kind != Kind.PACKAGE_FACADE)) {
@@ -24,6 +24,7 @@ public object BuiltInsSerializationUtil {
     private val PACKAGE_FILE_NAME = ".kotlin_package"
     private val STRING_TABLE_FILE_NAME = ".kotlin_string_table"
     private val CLASS_NAMES_FILE_NAME = ".kotlin_class_names"
+    private val SNAPSHOT_FILE_NAME = ".kotlin_builtins"
 
     platformStatic public fun getClassMetadataPath(classId: ClassId): String {
         return packageFqNameToPath(classId.getPackageFqName()) + "/" + classId.getRelativeClassName().asString() +
@@ -39,6 +40,9 @@ public object BuiltInsSerializationUtil {
     platformStatic public fun getClassNamesFilePath(fqName: FqName): String =
             packageFqNameToPath(fqName) + "/" + CLASS_NAMES_FILE_NAME
 
+    platformStatic public fun getSnapshotFilePath(fqName: FqName): String =
+            packageFqNameToPath(fqName) + "/" + SNAPSHOT_FILE_NAME
+
     private fun packageFqNameToPath(fqName: FqName): String =
             fqName.asString().replace('.', '/')
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.builtins
+
+import java.io.*
+import java.util.HashMap
+
+/**
+ * All the serialized built-in files of one package (see [BuiltInsSerializationUtil]) packed into a single file,
+ * so that the package is loaded with one resource lookup and one bulk read instead of a lookup per class.
+ *
+ * The file starts with the format version and a table of entries: the path, the offset relative to the end of the table
+ * and the length of each file. The contents of all files follow the table. Files are only parsed when requested
+ */
+public class BuiltInsSnapshot private(private val offsets: Map<String, Long>, private val data: ByteArray) {
+    public fun getStream(path: String): InputStream? {
+        val offsetAndLength = offsets[path] ?: return null
+        return ByteArrayInputStream(data, (offsetAndLength ushr 32).toInt(), offsetAndLength.toInt())
+    }
+
+    class object {
+        private val FORMAT_VERSION = 1
+
+        /**
+         * Reads the snapshot from the stream and closes it, returns null if the snapshot has an unsupported version
+         */
+        public fun read(stream: InputStream): BuiltInsSnapshot? {
+            val input = DataInputStream(BufferedInputStream(stream))
+            try {
+                if (input.readInt() != FORMAT_VERSION) return null
+
+                val size = input.readInt()
+                val offsets = HashMap<String, Long>(size * 2)
+                var dataLength = 0
+                for (i in 0..size - 1) {
+                    val path = input.readUTF()
+                    val offset = input.readInt()
+                    val length = input.readInt()
+                    // Offset and length are packed into one value to avoid allocating a pair per entry
+                    offsets[path] = (offset.toLong() shl 32) or length.toLong()
+                    dataLength = Math.max(dataLength, offset + length)
+                }
+
+                val data = ByteArray(dataLength)
+                input.readFully(data)
+                return BuiltInsSnapshot(offsets, data)
+            }
+            finally {
+                input.close()
+            }
+        }
+
+        /**
+         * Writes the given files, mapped by their paths, in the snapshot format
+         */
+        public fun write(files: Map<String, ByteArray>, stream: OutputStream) {
+            val output = DataOutputStream(stream)
+            output.writeInt(FORMAT_VERSION)
+            output.writeInt(files.size())
+            var offset = 0
+            for ((path, bytes) in files) {
+                output.writeUTF(path)
+                output.writeInt(offset)
+                output.writeInt(bytes.size())
+                offset += bytes.size()
+            }
+            for (bytes in files.values()) {
+                output.write(bytes)
+            }
+            output.flush()
+        }
+    }
+}
@@ -48,6 +48,11 @@ public class BuiltinsPackageFragment(
         extensionRegistry
     }
 
+    // If the package has a snapshot, all its files are read from it, otherwise each file is a separate resource
+    private val snapshot: BuiltInsSnapshot? = loadResource(BuiltInsSerializationUtil.getSnapshotFilePath(fqName))?.let {
+        BuiltInsSnapshot.read(it)
+    }
+
     private val nameResolver = NameSerializationUtil.deserializeNameResolver(
             getStream(BuiltInsSerializationUtil.getStringTableFilePath(fqName))
     )
@@ -80,13 +85,16 @@ public class BuiltinsPackageFragment(
 
     override fun getMemberScope() = members
 
+    private fun findResource(path: String): InputStream? =
+            if (snapshot != null) snapshot.getStream(path) else loadResource(path)
+
     private fun getStream(path: String): InputStream =
-            loadResource(path) ?: throw IllegalStateException("Resource not found in classpath: $path")
+            findResource(path) ?: throw IllegalStateException("Resource not found in classpath: $path")
 
     private inner class BuiltInsClassDataFinder : ClassDataFinder {
         override fun findClassData(classId: ClassId): ClassData? {
             val metadataPath = BuiltInsSerializationUtil.getClassMetadataPath(classId) ?: return null
-            val stream = loadResource(metadataPath) ?: return null
+            val stream = findResource(metadataPath) ?: return null
 
             val classProto = ProtoBuf.Class.parseFrom(stream, extensionRegistry)
 
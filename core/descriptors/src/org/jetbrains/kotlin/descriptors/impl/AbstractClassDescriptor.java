@@ -26,9 +26,11 @@ import org.jetbrains.kotlin.resolve.scopes.InnerClassesScopeWrapper;
 import org.jetbrains.kotlin.resolve.scopes.JetScope;
 import org.jetbrains.kotlin.resolve.scopes.SubstitutingScope;
 import org.jetbrains.kotlin.storage.NotNullLazyValue;
+import org.jetbrains.kotlin.storage.NullableLazyValue;
 import org.jetbrains.kotlin.storage.StorageManager;
 import org.jetbrains.kotlin.types.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +39,7 @@ public abstract class AbstractClassDescriptor implements ClassDescriptor {
     protected final NotNullLazyValue<JetType> defaultType;
     private final NotNullLazyValue<JetScope> unsubstitutedInnerClassesScope;
     private final NotNullLazyValue<ReceiverParameterDescriptor> thisAsReceiverParameter;
+    private final NullableLazyValue<Map<TypeConstructor, JetType>> supertypeTable;
 
     public AbstractClassDescriptor(@NotNull StorageManager storageManager, @NotNull Name name) {
         this.name = name;
@@ -58,6 +61,54 @@ public abstract class AbstractClassDescriptor implements ClassDescriptor {
                 return new LazyClassReceiverParameterDescriptor(AbstractClassDescriptor.this);
             }
         });
+        this.supertypeTable = storageManager.createRecursionTolerantNullableLazyValue(new Function0<Map<TypeConstructor, JetType>>() {
+            @Override
+            public Map<TypeConstructor, JetType> invoke() {
+                return hasImmutableSupertypes() ? computeSupertypeTable() : null;
+            }
+        }, null);
+    }
+
+    /**
+     * Should return true if supertypes of this class never change and their computation doesn't depend on the resolution
+     * of other classes (as it does for classes in sources), so that they can be cached in the supertype table
+     */
+    protected boolean hasImmutableSupertypes() {
+        return false;
+    }
+
+    /**
+     * Maps type constructors of all proper superclasses of this class to the corresponding supertypes, expressed in terms
+     * of the type parameters of this class. If a class is reachable through several paths, the first one in depth-first order wins.
+     * Returns null if the table is not supported by this class or by some of its superclasses
+     */
+    @Nullable
+    public Map<TypeConstructor, JetType> getSupertypeTable() {
+        return supertypeTable.invoke();
+    }
+
+    @Nullable
+    private Map<TypeConstructor, JetType> computeSupertypeTable() {
+        Map<TypeConstructor, JetType> result = new LinkedHashMap<TypeConstructor, JetType>();
+        for (JetType supertype : getTypeConstructor().getSupertypes()) {
+            ClassifierDescriptor supertypeClass = supertype.getConstructor().getDeclarationDescriptor();
+            if (!(supertypeClass instanceof AbstractClassDescriptor)) return null;
+
+            Map<TypeConstructor, JetType> supertypeTable = ((AbstractClassDescriptor) supertypeClass).getSupertypeTable();
+            if (supertypeTable == null) return null;
+
+            if (!result.containsKey(supertype.getConstructor())) {
+                result.put(supertype.getConstructor(), supertype);
+            }
+
+            TypeSubstitutor substitutor = TypeSubstitutor.create(supertype);
+            for (Map.Entry<TypeConstructor, JetType> entry : supertypeTable.entrySet()) {
+                if (!result.containsKey(entry.getKey())) {
+                    result.put(entry.getKey(), substitutor.safeSubstitute(entry.getValue(), Variance.INVARIANT));
+                }
+            }
+        }
+        return result;
     }
 
     @NotNull
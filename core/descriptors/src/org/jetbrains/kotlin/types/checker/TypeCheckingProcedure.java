@@ -19,10 +19,14 @@ package org.jetbrains.kotlin.types.checker;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
+import org.jetbrains.kotlin.descriptors.ClassDescriptor;
+import org.jetbrains.kotlin.descriptors.ClassifierDescriptor;
 import org.jetbrains.kotlin.descriptors.TypeParameterDescriptor;
+import org.jetbrains.kotlin.descriptors.impl.AbstractClassDescriptor;
 import org.jetbrains.kotlin.types.*;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.jetbrains.kotlin.types.Variance.*;
 
@@ -43,6 +47,14 @@ public class TypeCheckingProcedure {
         if (typeCheckingProcedureCallbacks.assertEqualTypeConstructors(constructor, supertype.getConstructor())) {
             return subtype;
         }
+
+        Map<TypeConstructor, JetType> supertypeTable = getSupertypeTable(constructor, supertype.getConstructor());
+        if (supertypeTable != null) {
+            JetType correspondingSupertype = supertypeTable.get(supertype.getConstructor());
+            if (correspondingSupertype == null) return null;
+            return TypeSubstitutor.create(subtype).safeSubstitute(correspondingSupertype, Variance.INVARIANT);
+        }
+
         for (JetType immediateSupertype : constructor.getSupertypes()) {
             JetType correspondingSupertype = findCorrespondingSupertype(immediateSupertype, supertype, typeCheckingProcedureCallbacks);
             if (correspondingSupertype != null) {
@@ -52,6 +64,16 @@ public class TypeCheckingProcedure {
         return null;
     }
 
+    // The table can only be used when both constructors belong to classes: all callbacks compare class type constructors
+    // with equals(), and only allow other equalities for type parameters (see OverridingUtil)
+    @Nullable
+    private static Map<TypeConstructor, JetType> getSupertypeTable(@NotNull TypeConstructor subtypeConstructor, @NotNull TypeConstructor supertypeConstructor) {
+        ClassifierDescriptor subclass = subtypeConstructor.getDeclarationDescriptor();
+        if (!(subclass instanceof AbstractClassDescriptor)) return null;
+        if (!(supertypeConstructor.getDeclarationDescriptor() instanceof ClassDescriptor)) return null;
+        return ((AbstractClassDescriptor) subclass).getSupertypeTable();
+    }
+
     public static JetType getOutType(TypeParameterDescriptor parameter, TypeProjection argument) {
         boolean isOutProjected = argument.getProjectionKind() == IN_VARIANCE || parameter.getVariance() == IN_VARIANCE;
         return isOutProjected ? parameter.getUpperBoundsAsType() : argument.getType();
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package kotlin.reflect.jvm.internal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Calls to Method.invoke without arguments allocate an empty array for the varargs parameter, both in Java and in Kotlin.
+ * Getters are called on each access to a property through reflection, so they're invoked with a shared empty array instead.
+ */
+final class AccessorInvoker {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private AccessorInvoker() {
+    }
+
+    static Object invokeGetter(Method getter, Object receiver) throws IllegalAccessException, InvocationTargetException {
+        return getter.invoke(receiver, NO_ARGUMENTS);
+    }
+}
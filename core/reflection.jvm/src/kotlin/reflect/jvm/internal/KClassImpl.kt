@@ -16,9 +16,12 @@
 
 package kotlin.reflect.jvm.internal
 
+import java.lang.reflect.Member
+import java.lang.reflect.Modifier
 import kotlin.reflect.*
 import kotlin.jvm.internal.KotlinClass
 import kotlin.jvm.internal.KotlinSyntheticClass
+import kotlin.reflect.jvm.internal.pcollections.HashPMap
 
 enum class KClassOrigin {
     BUILT_IN
@@ -43,21 +46,62 @@ class KClassImpl<T>(val jClass: Class<T>, isKnownToBeKotlin: Boolean) : KClass<T
                 // TODO: built-in classes
             }
 
-    fun memberProperty(name: String): KMemberProperty<T, *> =
-            if (origin identityEquals KClassOrigin.KOTLIN) {
-                KMemberPropertyImpl<T, Any>(name, this)
-            }
-            else {
-                KForeignMemberProperty<T, Any>(name, this)
-            }
+    // Property objects are cached by name only if they're accessible without setAccessible(true), see isAccessibleByDefault().
+    // Otherwise setting 'accessible' on one property reference would affect all other references to the same property.
+    // These variables are not volatile intentionally, see FOREIGN_K_CLASSES
+    private var memberProperties = HashPMap.empty<String, KMemberProperty<T, *>>()
+    private var mutableMemberProperties = HashPMap.empty<String, KMutableMemberProperty<T, *>>()
 
-    fun mutableMemberProperty(name: String): KMutableMemberProperty<T, *> =
-            if (origin identityEquals KClassOrigin.KOTLIN) {
-                KMutableMemberPropertyImpl<T, Any>(name, this)
-            }
-            else {
-                KMutableForeignMemberProperty<T, Any>(name, this)
-            }
+    fun memberProperty(name: String): KMemberProperty<T, *> {
+        val cached = memberProperties[name]
+        if (cached != null) return cached
+
+        val property =
+                if (origin identityEquals KClassOrigin.KOTLIN) {
+                    KMemberPropertyImpl<T, Any>(name, this)
+                }
+                else {
+                    KForeignMemberProperty<T, Any>(name, this)
+                }
+        if (property.isAccessibleByDefault()) {
+            memberProperties = memberProperties.plus(name, property)
+        }
+        return property
+    }
+
+    fun mutableMemberProperty(name: String): KMutableMemberProperty<T, *> {
+        val cached = mutableMemberProperties[name]
+        if (cached != null) return cached
+
+        val property =
+                if (origin identityEquals KClassOrigin.KOTLIN) {
+                    KMutableMemberPropertyImpl<T, Any>(name, this)
+                }
+                else {
+                    KMutableForeignMemberProperty<T, Any>(name, this)
+                }
+        if (property.isAccessibleByDefault()) {
+            mutableMemberProperties = mutableMemberProperties.plus(name, property)
+        }
+        return property
+    }
+
+    private fun KPropertyImpl<*>.isAccessibleByDefault(): Boolean {
+        if (!Modifier.isPublic(jClass.getModifiers())) return false
+
+        val getter = getter
+        if (!(if (getter != null) getter.isPublic() else field.isPublic())) return false
+
+        if (this is KMutablePropertyImpl<*>) {
+            val setter = setter
+            if (!(if (setter != null) setter.isPublic() else field.isPublic())) return false
+        }
+
+        return true
+    }
+
+    private fun Member?.isPublic(): Boolean =
+            this != null && Modifier.isPublic(getModifiers())
 
     override fun equals(other: Any?): Boolean =
             other is KClassImpl<*> && jClass == other.jClass
@@ -48,7 +48,7 @@ open class KMemberPropertyImpl<T : Any, out R>(
 
     override fun get(receiver: T): R {
         try {
-            return (if (getter != null) getter!!(receiver) else field!!.get(receiver)) as R
+            return (if (getter != null) AccessorInvoker.invokeGetter(getter!!, receiver) else field!!.get(receiver)) as R
         }
         catch (e: java.lang.IllegalAccessException) {
             throw kotlin.reflect.IllegalAccessException(e)
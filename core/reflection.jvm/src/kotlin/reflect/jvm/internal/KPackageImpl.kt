@@ -16,12 +16,61 @@
 
 package kotlin.reflect.jvm.internal
 
-import kotlin.reflect.KPackage
+import kotlin.reflect.*
 import kotlin.jvm.internal.KotlinPackage
+import kotlin.reflect.jvm.internal.pcollections.HashPMap
 
 private val KOTLIN_PACKAGE_ANNOTATION_CLASS = javaClassOf<KotlinPackage>()
 
+private data class ExtensionPropertyKey(val name: String, val receiverClass: Class<*>)
+
 class KPackageImpl(val jClass: Class<*>) : KPackage {
+    // Top-level properties are always public on JVM, so their objects can be shared by all references, see KClassImpl.memberProperties.
+    // Extension properties are cached by name and receiver class, since several extensions with the same name may be declared in a package.
+    // These variables are not volatile intentionally, see FOREIGN_K_CLASSES
+    private var variables = HashPMap.empty<String, KTopLevelVariable<*>>()
+    private var mutableVariables = HashPMap.empty<String, KMutableTopLevelVariable<*>>()
+    private var extensionProperties = HashPMap.empty<ExtensionPropertyKey, KTopLevelExtensionProperty<*, *>>()
+    private var mutableExtensionProperties = HashPMap.empty<ExtensionPropertyKey, KMutableTopLevelExtensionProperty<*, *>>()
+
+    fun topLevelVariable(name: String): KTopLevelVariable<*> {
+        val cached = variables[name]
+        if (cached != null) return cached
+
+        val variable = KTopLevelVariableImpl<Any>(name, this)
+        variables = variables.plus(name, variable)
+        return variable
+    }
+
+    fun mutableTopLevelVariable(name: String): KMutableTopLevelVariable<*> {
+        val cached = mutableVariables[name]
+        if (cached != null) return cached
+
+        val variable = KMutableTopLevelVariableImpl<Any>(name, this)
+        mutableVariables = mutableVariables.plus(name, variable)
+        return variable
+    }
+
+    fun <T> topLevelExtensionProperty(name: String, receiverClass: Class<T>): KTopLevelExtensionProperty<T, *> {
+        val key = ExtensionPropertyKey(name, receiverClass)
+        val cached = extensionProperties[key]
+        if (cached != null) return cached as KTopLevelExtensionProperty<T, *>
+
+        val property = KTopLevelExtensionPropertyImpl<T, Any>(name, this, receiverClass)
+        extensionProperties = extensionProperties.plus(key, property)
+        return property
+    }
+
+    fun <T> mutableTopLevelExtensionProperty(name: String, receiverClass: Class<T>): KMutableTopLevelExtensionProperty<T, *> {
+        val key = ExtensionPropertyKey(name, receiverClass)
+        val cached = mutableExtensionProperties[key]
+        if (cached != null) return cached as KMutableTopLevelExtensionProperty<T, *>
+
+        val property = KMutableTopLevelExtensionPropertyImpl<T, Any>(name, this, receiverClass)
+        mutableExtensionProperties = mutableExtensionProperties.plus(key, property)
+        return property
+    }
+
     override fun equals(other: Any?): Boolean =
             other is KPackageImpl && jClass == other.jClass
 
@@ -22,7 +22,7 @@ import kotlin.reflect.*
 open class KTopLevelExtensionPropertyImpl<T, out R>(
         override val name: String,
         protected val owner: KPackageImpl,
-        protected val receiverClass: Class<T>
+        val receiverClass: Class<T>
 ) : KTopLevelExtensionProperty<T, R>, KPropertyImpl<R> {
     override val field: Field? get() = null
 
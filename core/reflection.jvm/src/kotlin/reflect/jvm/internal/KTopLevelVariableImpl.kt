@@ -36,7 +36,7 @@ open class KTopLevelVariableImpl<out R>(
 
     override fun get(): R {
         try {
-            return getter(null) as R
+            return AccessorInvoker.invokeGetter(getter, null) as R
         }
         catch (e: java.lang.IllegalAccessException) {
             throw kotlin.reflect.IllegalAccessException(e)
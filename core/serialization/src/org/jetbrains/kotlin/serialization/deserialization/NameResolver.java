@@ -23,20 +23,31 @@ import org.jetbrains.kotlin.name.FqNameUnsafe;
 import org.jetbrains.kotlin.name.Name;
 import org.jetbrains.kotlin.serialization.ProtoBuf;
 
-import java.util.LinkedList;
-
 import static org.jetbrains.kotlin.serialization.ProtoBuf.QualifiedNameTable.QualifiedName;
 
+/**
+ * Names, fq-names and class ids are created on the first request of each index and are cached afterwards.
+ * A resolver is shared by all members of a package or a class, so each index is resolved once per package or class.
+ *
+ * The caches are filled without synchronization: the values are immutable, so a race only results in the same value computed twice.
+ */
 public class NameResolver {
     private final ProtoBuf.StringTable strings;
     private final ProtoBuf.QualifiedNameTable qualifiedNames;
 
+    private final Name[] names;
+    private final FqName[] fqNames;
+    private final ClassId[] classIds;
+
     public NameResolver(
             @NotNull ProtoBuf.StringTable strings,
             @NotNull ProtoBuf.QualifiedNameTable qualifiedNames
     ) {
         this.strings = strings;
         this.qualifiedNames = qualifiedNames;
+        this.names = new Name[strings.getStringCount()];
+        this.fqNames = new FqName[qualifiedNames.getQualifiedNameCount()];
+        this.classIds = new ClassId[qualifiedNames.getQualifiedNameCount()];
     }
 
     @NotNull
@@ -56,45 +67,53 @@ public class NameResolver {
 
     @NotNull
     public Name getName(int index) {
-        String name = strings.getString(index);
-        return Name.guess(name);
+        Name name = names[index];
+        if (name == null) {
+            name = Name.guess(strings.getString(index));
+            names[index] = name;
+        }
+        return name;
     }
 
     @NotNull
     public ClassId getClassId(int index) {
-        LinkedList<String> packageFqName = new LinkedList<String>();
-        LinkedList<String> relativeClassName = new LinkedList<String>();
-        boolean local = false;
+        ClassId classId = classIds[index];
+        if (classId == null) {
+            classId = computeClassId(index);
+            classIds[index] = classId;
+        }
+        return classId;
+    }
 
-        while (index != -1) {
-            QualifiedName proto = qualifiedNames.getQualifiedName(index);
-            String shortName = strings.getString(proto.getShortName());
-            switch (proto.getKind()) {
-                case CLASS:
-                    relativeClassName.addFirst(shortName);
-                    break;
-                case PACKAGE:
-                    packageFqName.addFirst(shortName);
-                    break;
-                case LOCAL:
-                    relativeClassName.addFirst(shortName);
-                    local = true;
-                    break;
-            }
+    @NotNull
+    private ClassId computeClassId(int index) {
+        QualifiedName proto = qualifiedNames.getQualifiedName(index);
+        Name shortName = getName(proto.getShortName());
+        boolean local = proto.getKind() == QualifiedName.Kind.LOCAL;
 
-            index = proto.getParentQualifiedName();
+        int parentIndex = proto.getParentQualifiedName();
+        if (parentIndex == -1) {
+            return new ClassId(FqName.ROOT, FqNameUnsafe.topLevel(shortName), local);
+        }
+        if (qualifiedNames.getQualifiedName(parentIndex).getKind() == QualifiedName.Kind.PACKAGE) {
+            return new ClassId(getFqName(parentIndex), FqNameUnsafe.topLevel(shortName), local);
         }
 
-        return new ClassId(FqName.fromSegments(packageFqName), FqNameUnsafe.fromSegments(relativeClassName), local);
+        ClassId outer = getClassId(parentIndex);
+        return new ClassId(outer.getPackageFqName(), outer.getRelativeClassName().child(shortName), local || outer.isLocal());
     }
 
     @NotNull
     public FqName getFqName(int index) {
-        QualifiedName qualifiedName = qualifiedNames.getQualifiedName(index);
-        Name shortName = getName(qualifiedName.getShortName());
-        if (!qualifiedName.hasParentQualifiedName()) {
-            return FqName.topLevel(shortName);
+        FqName fqName = fqNames[index];
+        if (fqName == null) {
+            QualifiedName qualifiedName = qualifiedNames.getQualifiedName(index);
+            Name shortName = getName(qualifiedName.getShortName());
+            fqName = qualifiedName.hasParentQualifiedName()
+                     ? getFqName(qualifiedName.getParentQualifiedName()).child(shortName)
+                     : FqName.topLevel(shortName);
+            fqNames[index] = fqName;
         }
-        return getFqName(qualifiedName.getParentQualifiedName()).child(shortName);
+        return fqName;
     }
 }
@@ -118,6 +118,8 @@ public class DeserializedClassDescriptor(
 
     override fun getDefaultObjectDescriptor(): ClassDescriptor? = classObjectDescriptor()
 
+    override fun hasImmutableSupertypes() = true
+
     private fun computeSuperTypes(): Collection<JetType> {
         val supertypes = ArrayList<JetType>(classProto.getSupertypeCount())
         for (supertype in classProto.getSupertypeList()) {
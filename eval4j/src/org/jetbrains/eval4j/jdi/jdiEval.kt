@@ -23,6 +23,7 @@ import com.sun.jdi.ClassNotLoadedException
 import com.sun.tools.jdi.ReferenceTypeImpl
 import com.sun.jdi.ObjectReference
 import com.sun.jdi.Method
+import java.util.HashMap
 
 val CLASS = Type.getType(javaClass<Class<*>>())
 val BOOTSTRAP_CLASS_DESCRIPTORS = setOf("Ljava/lang/String;", "Ljava/lang/ClassLoader;", "Ljava/lang/Class;")
@@ -31,7 +32,8 @@ public class JDIEval(
         private val vm: jdi.VirtualMachine,
         private val classLoader: jdi.ClassLoaderReference,
         private val thread: jdi.ThreadReference,
-        private val invokePolicy: Int
+        private val invokePolicy: Int,
+        private val cacheMirrors: Boolean = true
 ) : Eval {
 
     private val primitiveTypes = mapOf(
@@ -45,7 +47,35 @@ public class JDIEval(
             Type.DOUBLE_TYPE.getClassName() to vm.mirrorOf(1.0).type()
     )
 
-    override fun loadClass(classType: Type): Value {
+    // Classes and members are looked up in the debuggee VM only once during the lifetime of this evaluator,
+    // instead of doing these round-trips on every execution of an instruction which refers to them.
+    // Without cacheMirrors, they are looked up every time, which is only useful to compare the results in tests
+    private val classObjects = HashMap<Type, Value>()
+    private val referenceTypes = HashMap<Type, jdi.ReferenceType>()
+    private val fields = HashMap<FieldDescription, jdi.Field>()
+    private val methods = HashMap<Pair<MethodDescription, jdi.ReferenceType>, jdi.Method>()
+    private val argumentTypes = HashMap<jdi.Method, List<jdi.Type>>()
+
+    // Number of classes and members looked up in the debuggee VM so far
+    public var mirrorLookups: Int = 0
+        private set
+
+    private fun <K, V> MutableMap<K, V>.cached(key: K, lookUp: () -> V): V {
+        if (cacheMirrors) {
+            val value = get(key)
+            if (value != null) return value
+        }
+        mirrorLookups++
+        val value = lookUp()
+        if (cacheMirrors) {
+            put(key, value)
+        }
+        return value
+    }
+
+    override fun loadClass(classType: Type): Value = classObjects.cached(classType) { doLoadClass(classType) }
+
+    private fun doLoadClass(classType: Type): Value {
         val loadedClasses = vm.classesByName(classType.getInternalName())
         if (!loadedClasses.isEmpty()) {
             val loadedClass = loadedClasses[0]
@@ -89,7 +119,7 @@ public class JDIEval(
                 listOf(value)).boolean
     }
 
-    fun Type.asReferenceType(): jdi.ReferenceType = loadClass(this).jdiClass!!.reflectedType()
+    fun Type.asReferenceType(): jdi.ReferenceType = referenceTypes.cached(this) { loadClass(this).jdiClass!!.reflectedType() }
     fun Type.asArrayType(): jdi.ArrayType = asReferenceType() as jdi.ArrayType
 
     override fun newArray(arrayType: Type, size: Int): Value {
@@ -144,13 +174,13 @@ public class JDIEval(
         }
     }
 
-    private fun findField(fieldDesc: FieldDescription): jdi.Field {
+    private fun findField(fieldDesc: FieldDescription): jdi.Field = fields.cached(fieldDesc) {
         val _class = fieldDesc.ownerType.asReferenceType()
         val field = _class.fieldByName(fieldDesc.name)
         if (field == null) {
             throwBrokenCodeException(NoSuchFieldError("Field not found: $fieldDesc"))
         }
-        return field
+        field
     }
 
     private fun findStaticField(fieldDesc: FieldDescription): jdi.Field {
@@ -182,7 +212,10 @@ public class JDIEval(
         mayThrow { _class.setValue(field, jdiValue) }
     }
 
-    private fun findMethod(methodDesc: MethodDescription, _class: jdi.ReferenceType = methodDesc.ownerType.asReferenceType()): jdi.Method {
+    private fun findMethod(
+            methodDesc: MethodDescription,
+            _class: jdi.ReferenceType = methodDesc.ownerType.asReferenceType()
+    ): jdi.Method = methods.cached(Pair(methodDesc, _class)) {
         val method = when (_class) {
             is jdi.ClassType -> {
                 val m = _class.concreteMethodByName(methodDesc.name, methodDesc.desc)
@@ -193,7 +226,7 @@ public class JDIEval(
         if (method.isEmpty()) {
             throwBrokenCodeException(NoSuchMethodError("Method not found: $methodDesc"))
         }
-        return method[0]
+        method[0]
     }
 
     override fun invokeStaticMethod(methodDesc: MethodDescription, arguments: List<Value>): Value {
@@ -259,7 +292,9 @@ public class JDIEval(
         }
     }
 
-    private fun jdi.Method.safeArgumentTypes(): List<jdi.Type> {
+    private fun jdi.Method.safeArgumentTypes(): List<jdi.Type> = argumentTypes.cached(this) { doGetSafeArgumentTypes() }
+
+    private fun jdi.Method.doGetSafeArgumentTypes(): List<jdi.Type> {
         try {
             return argumentTypes()
         }
@@ -101,8 +101,26 @@ fun suite(): TestSuite {
         object : TestCase(getTestName(methodNode.name)) {
 
             override fun runTest() {
-                val eval = JDIEval(vm, classLoader!!, thread!!, 0)
+                try {
+                    val eval = JDIEval(vm, classLoader!!, thread!!, 0)
+                    checkResult(eval, evaluate(eval))
+
+                    // Cached mirrors should give the same results as looking them up every time
+                    val uncachedEval = JDIEval(vm, classLoader!!, thread!!, 0, cacheMirrors = false)
+                    checkResult(uncachedEval, evaluate(uncachedEval))
+
+                    val lookups = "${eval.mirrorLookups} lookups with cache, ${uncachedEval.mirrorLookups} without cache"
+                    assertTrue(lookups, eval.mirrorLookups <= uncachedEval.mirrorLookups)
+                    if (methodNode.name == "memberAccessInLoop") {
+                        assertTrue(lookups, eval.mirrorLookups < uncachedEval.mirrorLookups)
+                    }
+                }
+                finally {
+                    if (remainingTests.decrementAndGet() == 0) vm.resume()
+                }
+            }
 
+            private fun evaluate(eval: JDIEval): InterpreterResult {
                 val args = if ((methodNode.access and Opcodes.ACC_STATIC) == 0) {
                     // Instance method
                     val newInstance = eval.newInstance(Type.getType(ownerClass))
@@ -113,12 +131,14 @@ fun suite(): TestSuite {
                     listOf()
                 }
 
-                val value = interpreterLoop(
+                return interpreterLoop(
                         methodNode,
                         makeInitialFrame(methodNode, args),
                         eval
                 )
+            }
 
+            private fun checkResult(eval: JDIEval, value: InterpreterResult) {
                 fun jdi.ObjectReference?.callToString(): String? {
                     if (this == null) return "null"
                     return (eval.invokeMethod(
@@ -133,23 +153,17 @@ fun suite(): TestSuite {
 
                 }
 
-                try {
-                    if (expected is ValueReturned && value is ValueReturned && value.result is ObjectValue) {
-                        assertEquals(expected.result.obj().toString(), value.result.jdiObj.callToString())
-                    }
-                    else if (expected is ExceptionThrown && value is ExceptionThrown) {
-                        val valueObj = value.exception.obj()
-                        val actual = if (valueObj is ObjectReference) valueObj.callToString() else valueObj.toString()
-                        assertEquals(expected.exception.obj().toString(), actual)
-                    }
-                    else {
-                        assertEquals(expected, value)
-                    }
+                if (expected is ValueReturned && value is ValueReturned && value.result is ObjectValue) {
+                    assertEquals(expected.result.obj().toString(), value.result.jdiObj.callToString())
                 }
-                finally {
-                    if (remainingTests.decrementAndGet() == 0) vm.resume()
+                else if (expected is ExceptionThrown && value is ExceptionThrown) {
+                    val valueObj = value.exception.obj()
+                    val actual = if (valueObj is ObjectReference) valueObj.callToString() else valueObj.toString()
+                    assertEquals(expected.exception.obj().toString(), actual)
+                }
+                else {
+                    assertEquals(expected, value)
                 }
-
             }
         }
     }
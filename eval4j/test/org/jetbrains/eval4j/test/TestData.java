@@ -287,6 +287,14 @@ class TestData extends BaseTestData {
         return f2 + f1;
     }
 
+    static int memberAccessInLoop() {
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            sum += C.FOO.length() + new C(i).y;
+        }
+        return sum;
+    }
+
     static class C {
         static String FOO = "FOO";
 
@@ -137,6 +137,7 @@ import org.jetbrains.kotlin.idea.debugger.evaluate.AbstractCodeFragmentCompletio
 import org.jetbrains.kotlin.idea.coverage.AbstractKotlinCoverageOutputFilesTest
 import org.jetbrains.kotlin.js.test.semantics.AbstractDynamicTest
 import org.jetbrains.kotlin.js.test.semantics.AbstractMultiModuleTest
+import org.jetbrains.kotlin.js.test.semantics.AbstractMultiModuleWithMetadataTest
 import org.jetbrains.kotlin.completion.handlers.AbstractBasicCompletionHandlerTest
 import org.jetbrains.kotlin.idea.decompiler.stubBuilder.AbstractClsStubBuilderTest
 import org.jetbrains.kotlin.codegen.AbstractLineNumberTest
@@ -737,6 +738,10 @@ fun main(args: Array<String>) {
         testClass(javaClass<AbstractMultiModuleTest>()) {
             model("multiModule/cases", extension = null, recursive=false)
         }
+
+        testClass(javaClass<AbstractMultiModuleWithMetadataTest>()) {
+            model("multiModuleWithMetadata/cases", extension = null, recursive=false)
+        }
     }
 
     testGroup("js/js.tests/test", "compiler/testData") {
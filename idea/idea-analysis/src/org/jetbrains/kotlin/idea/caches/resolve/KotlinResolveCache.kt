@@ -32,6 +32,7 @@ import org.jetbrains.kotlin.resolve.TopDownAnalysisParameters
 import com.intellij.openapi.progress.ProcessCanceledException
 import com.intellij.psi.util.CachedValueProvider
 import org.jetbrains.kotlin.asJava.LightClassUtil
+import org.jetbrains.kotlin.asJava.KotlinCodeBlockModificationListener
 import org.jetbrains.kotlin.resolve.LibrarySourceHacks
 import org.jetbrains.kotlin.idea.project.TargetPlatform
 import org.jetbrains.kotlin.idea.project.ResolveSessionForBodies
@@ -100,7 +101,8 @@ private class KotlinResolveCache(
                 return PerFileAnalysisCache(file!!, resolverProvider.resolveSessionForBodiesByModule(file.getModuleInfo()))
             }
         }
-        CachedValueProvider.Result(results, PsiModificationTracker.MODIFICATION_COUNT, resolverProvider.exceptionTracker)
+        // Modifications inside code blocks are checked by each PerFileAnalysisCache
+        CachedValueProvider.Result(results, PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT, resolverProvider.exceptionTracker)
     }, false)
 
     fun getAnalysisResultsForElements(elements: Collection<JetElement>): AnalysisResult {
@@ -124,7 +126,17 @@ private class KotlinResolveCache(
 }
 
 private class PerFileAnalysisCache(val file: JetFile, val resolveSession: ResolveSessionForBodies) {
-    private val cache = HashMap<PsiElement, AnalysisResult>()
+    private class CachedAnalysisResult(val result: AnalysisResult, val inBlockModificationCount: Long)
+
+    private val cache = HashMap<PsiElement, CachedAnalysisResult>()
+
+    // Modifications inside the body of a function or a property can only affect the analysis of that declaration,
+    // see KotlinCodeBlockModificationListener. Results for other analyzable elements (classes, the whole file, etc.)
+    // are invalidated by a modification inside any code block of the file
+    private fun getInBlockModificationCount(analyzableElement: PsiElement): Long =
+            KotlinCodeBlockModificationListener.getInBlockModificationCount(
+                    if (analyzableElement is JetNamedFunction || analyzableElement is JetProperty) analyzableElement else file
+            )
 
     private fun lookUp(analyzableElement: JetElement): AnalysisResult? {
         // Looking for parent elements that are already analyzed
@@ -136,8 +148,11 @@ private class PerFileAnalysisCache(val file: JetFile, val resolveSession: Resolv
         var result: AnalysisResult? = null
         while (current != null) {
             val cached = cache[current]
-            if (cached != null) {
-                result = cached
+            if (cached != null && cached.inBlockModificationCount != getInBlockModificationCount(current!!)) {
+                cache.remove(current)
+            }
+            else if (cached != null) {
+                result = cached.result
                 toRemove.addAll(descendantsOfCurrent)
                 descendantsOfCurrent.clear()
             }
@@ -163,7 +178,7 @@ private class PerFileAnalysisCache(val file: JetFile, val resolveSession: Resolv
 
             val result = analyze(analyzableParent)
 
-            cache[analyzableParent] = result
+            cache[analyzableParent] = CachedAnalysisResult(result, getInBlockModificationCount(analyzableParent))
 
             return@synchronized result
         }
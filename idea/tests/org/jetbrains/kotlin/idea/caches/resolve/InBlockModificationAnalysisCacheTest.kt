@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.idea.caches.resolve
+
+import com.intellij.psi.PsiDocumentManager
+import org.jetbrains.kotlin.idea.JetFileType
+import org.jetbrains.kotlin.idea.JetLightCodeInsightFixtureTestCase
+import org.jetbrains.kotlin.idea.JetWithJdkAndRuntimeLightProjectDescriptor
+import org.jetbrains.kotlin.psi.JetFile
+
+public class InBlockModificationAnalysisCacheTest : JetLightCodeInsightFixtureTestCase() {
+    override fun getProjectDescriptor() = JetWithJdkAndRuntimeLightProjectDescriptor.INSTANCE
+
+    fun testFunctionBody() {
+        configure("<caret>1", "2", "3")
+        assertEquals(listOf("foo"), getDeclarationsReanalyzedAfterTyping("1 + "))
+    }
+
+    fun testPropertyAccessor() {
+        configure("1", "<caret>2", "3")
+        assertEquals(listOf("bar"), getDeclarationsReanalyzedAfterTyping("1 + "))
+    }
+
+    fun testExpressionBodyWithDeclaredType() {
+        configure("1", "2", "<caret>3")
+        assertEquals(listOf("baz"), getDeclarationsReanalyzedAfterTyping("1 + "))
+    }
+
+    fun testOutOfBlock() {
+        configure("1", "2", "3", fooParameters = "<caret>")
+        assertEquals(listOf("foo", "bar", "baz"), getDeclarationsReanalyzedAfterTyping("a: Int"))
+    }
+
+    private fun configure(fooBody: String, barBody: String, bazBody: String, fooParameters: String = "") {
+        myFixture.configureByText(JetFileType.INSTANCE, """
+fun foo($fooParameters): Int {
+    return $fooBody
+}
+
+val bar: Int
+    get() = $barBody
+
+fun baz(): Int = $bazBody
+""")
+    }
+
+    // Analyzes each top-level declaration, types the text at the caret and returns the names of declarations
+    // whose analysis results were recomputed, that is, declarations which were resolved again after the modification
+    private fun getDeclarationsReanalyzedAfterTyping(text: String): List<String> {
+        val file = myFixture.getFile() as JetFile
+        val contextsBefore = file.getDeclarations().map { it.analyzeFully() }
+
+        myFixture.type(text)
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments()
+
+        val declarationsAfter = file.getDeclarations()
+        assertEquals(contextsBefore.size(), declarationsAfter.size())
+        return declarationsAfter.indices
+                .filter { !(declarationsAfter[it].analyzeFully() identityEquals contextsBefore[it]) }
+                .map { declarationsAfter[it].getName()!! }
+    }
+}
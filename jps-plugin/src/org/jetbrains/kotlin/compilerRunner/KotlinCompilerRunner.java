@@ -28,9 +28,12 @@ import org.jetbrains.kotlin.cli.common.ExitCode;
 import org.jetbrains.kotlin.cli.common.arguments.CommonCompilerArguments;
 import org.jetbrains.kotlin.cli.common.arguments.K2JSCompilerArguments;
 import org.jetbrains.kotlin.cli.common.arguments.K2JVMCompilerArguments;
+import org.jetbrains.kotlin.cli.common.daemon.CompileDaemonClient;
+import org.jetbrains.kotlin.cli.common.daemon.CompileDaemonProtocol;
 import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
 import org.jetbrains.kotlin.cli.common.messages.MessageCollectorUtil;
 import org.jetbrains.kotlin.config.CompilerSettings;
+import org.jetbrains.kotlin.config.IncrementalCompilation;
 
 import java.io.*;
 import java.util.Collection;
@@ -39,12 +42,16 @@ import java.util.List;
 import static org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation.NO_LOCATION;
 import static org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity.ERROR;
 import static org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity.INFO;
+import static org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity.WARNING;
 
 public class KotlinCompilerRunner {
     private static final String K2JVM_COMPILER = "org.jetbrains.kotlin.cli.jvm.K2JVMCompiler";
     private static final String K2JS_COMPILER = "org.jetbrains.kotlin.cli.js.K2JSCompiler";
     private static final String INTERNAL_ERROR = ExitCode.INTERNAL_ERROR.toString();
 
+    // Port of a running compile daemon (see CompileDaemon) to compile JVM modules in
+    public static final String DAEMON_PORT_PROPERTY = "kotlin.daemon.port";
+
     public static void runK2JvmCompiler(
             CommonCompilerArguments commonArguments,
             K2JVMCompilerArguments k2jvmArguments,
@@ -113,6 +120,20 @@ public class KotlinCompilerRunner {
             List<String> argumentsList = ArgumentUtils.convertArgumentsToStringList(arguments);
             argumentsList.addAll(StringUtil.split(additionalArguments, " "));
 
+            Integer daemonPort = getDaemonPort(compilerClassName);
+            if (daemonPort != null) {
+                try {
+                    return CompileDaemonClient.compile(
+                            daemonPort, CompileDaemonProtocol.getDefaultTokenFile(daemonPort), new File(System.getProperty("user.dir")),
+                            ArrayUtil.toStringArray(argumentsList), out
+                    ).toString();
+                }
+                catch (IOException e) {
+                    messageCollector.report(WARNING, "Could not use compile daemon on port " + daemonPort + ": " + e.getMessage() +
+                                                     ", compiling in process", NO_LOCATION);
+                }
+            }
+
             Object rc = CompilerRunnerUtil.invokeExecMethod(
                     compilerClassName, ArrayUtil.toStringArray(argumentsList), environment, messageCollector, out
             );
@@ -127,6 +148,24 @@ public class KotlinCompilerRunner {
         }
     }
 
+    /**
+     * Services (e.g. incremental caches) are not passed to the daemon, so it's only used when they are not needed
+     */
+    @Nullable
+    private static Integer getDaemonPort(@NotNull String compilerClassName) {
+        if (!K2JVM_COMPILER.equals(compilerClassName) || IncrementalCompilation.ENABLED) return null;
+
+        String port = System.getProperty(DAEMON_PORT_PROPERTY);
+        if (port == null) return null;
+
+        try {
+            return Integer.valueOf(port);
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     @NotNull
     private static String getReturnCodeFromObject(@Nullable Object rc) throws Exception {
         if (rc == null) {
@@ -26,15 +26,15 @@ class LocalFileKotlinClass private(
         private val fileContents: ByteArray,
         className: ClassId,
         classHeader: KotlinClassHeader,
-        innerClasses: FileBasedKotlinClass.InnerClassesInfo
-) : FileBasedKotlinClass(className, classHeader, innerClasses) {
+        data: FileBasedKotlinClass.ClassFileData
+) : FileBasedKotlinClass(className, classHeader, data) {
 
     class object {
         fun create(file: File): LocalFileKotlinClass? {
             val fileContents = file.readBytes()
             return FileBasedKotlinClass.create(fileContents) {
-                className, classHeader, innerClasses ->
-                LocalFileKotlinClass(file, fileContents, className, classHeader, innerClasses)
+                className, classHeader, data ->
+                LocalFileKotlinClass(file, fileContents, className, classHeader, data)
             }
         }
     }
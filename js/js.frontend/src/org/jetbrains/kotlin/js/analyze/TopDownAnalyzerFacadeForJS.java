@@ -78,6 +78,9 @@ public final class TopDownAnalyzerFacadeForJS {
         if (libraryModule != null) {
             module.addDependencyOnModule((ModuleDescriptorImpl) libraryModule); // "import" analyzed library module
         }
+        for (ModuleDescriptorImpl metadataModule : config.getMetadataModules()) {
+            module.addDependencyOnModule(metadataModule);
+        }
         module.seal();
 
         return analyzeFilesWithGivenTrace(files, trace, module, filesToAnalyzeCompletely, config);
@@ -23,12 +23,14 @@ import kotlin.Unit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.descriptors.ModuleDescriptor;
+import org.jetbrains.kotlin.descriptors.impl.ModuleDescriptorImpl;
 import org.jetbrains.kotlin.psi.JetFile;
 import org.jetbrains.kotlin.resolve.BindingContext;
 import org.jetbrains.kotlin.resolve.BindingTrace;
 import org.jetbrains.kotlin.resolve.BindingTraceContext;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -117,6 +119,22 @@ public abstract class Config {
         return null;
     }
 
+    /**
+     * @return modules of the libraries which are loaded from serialized metadata instead of being analyzed from sources
+     */
+    @NotNull
+    public List<ModuleDescriptorImpl> getMetadataModules() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return name of the JavaScript module for a module returned by {@link #getMetadataModules()}, or null for any other module
+     */
+    @Nullable
+    public String getMetadataModuleName(@NotNull ModuleDescriptor module) {
+        return null;
+    }
+
     @NotNull
     public static Collection<JetFile> withJsLibAdded(@NotNull Collection<JetFile> files, @NotNull Config config) {
         Collection<JetFile> allFiles = Lists.newArrayList();
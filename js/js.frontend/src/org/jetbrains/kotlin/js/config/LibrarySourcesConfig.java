@@ -28,15 +28,20 @@ import kotlin.Function2;
 import kotlin.Unit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
+import org.jetbrains.kotlin.descriptors.ModuleDescriptor;
+import org.jetbrains.kotlin.descriptors.impl.ModuleDescriptorImpl;
 import org.jetbrains.kotlin.js.JavaScript;
 import org.jetbrains.kotlin.idea.JetFileType;
+import org.jetbrains.kotlin.js.serialization.KotlinJavascriptSerializationUtil;
 import org.jetbrains.kotlin.psi.JetFile;
+import org.jetbrains.kotlin.storage.LockBasedStorageManager;
+import org.jetbrains.kotlin.storage.StorageManager;
 import org.jetbrains.kotlin.utils.LibraryUtils;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.io.IOException;
+import java.util.*;
 
 import static org.jetbrains.kotlin.utils.LibraryUtils.isKotlinJavascriptLibrary;
 import static org.jetbrains.kotlin.utils.LibraryUtils.isKotlinJavascriptStdLibrary;
@@ -55,6 +60,9 @@ public class LibrarySourcesConfig extends Config {
     @NotNull
     private final List<String> files;
 
+    @Nullable
+    private Map<ModuleDescriptor, String> metadataModuleNames = null;
+
     public LibrarySourcesConfig(
             @NotNull Project project,
             @NotNull String moduleId,
@@ -87,6 +95,8 @@ public class LibrarySourcesConfig extends Config {
         Function2<String, VirtualFile, Unit> action = new Function2<String, VirtualFile, Unit>() {
             @Override
             public Unit invoke(String moduleName, VirtualFile file) {
+                if (findMetadataFile(moduleName, file) != null) return Unit.INSTANCE$;
+
                 JetFileCollector jetFileCollector = new JetFileCollector(jetFiles, moduleName, psiManager);
                 VfsUtilCore.visitChildrenRecursively(file, jetFileCollector);
                 return Unit.INSTANCE$;
@@ -99,6 +109,82 @@ public class LibrarySourcesConfig extends Config {
         return jetFiles;
     }
 
+    @NotNull
+    @Override
+    public List<ModuleDescriptorImpl> getMetadataModules() {
+        return new ArrayList<ModuleDescriptorImpl>(getMetadataModuleNames().keySet());
+    }
+
+    @Nullable
+    @Override
+    public String getMetadataModuleName(@NotNull ModuleDescriptor module) {
+        return getMetadataModuleNames().get(module);
+    }
+
+    @NotNull
+    private Map<ModuleDescriptor, String> getMetadataModuleNames() {
+        if (metadataModuleNames == null) {
+            metadataModuleNames = loadMetadataModules();
+        }
+        return metadataModuleNames;
+    }
+
+    @NotNull
+    private Map<ModuleDescriptor, String> loadMetadataModules() {
+        if (files.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final StorageManager storageManager = new LockBasedStorageManager();
+        final Map<ModuleDescriptorImpl, String> modules = new LinkedHashMap<ModuleDescriptorImpl, String>();
+
+        Function1<String, Unit> report = new Function1<String, Unit>() {
+            @Override
+            public Unit invoke(String message) {
+                throw new IllegalStateException(message);
+            }
+        };
+
+        Function2<String, VirtualFile, Unit> action = new Function2<String, VirtualFile, Unit>() {
+            @Override
+            public Unit invoke(String moduleName, VirtualFile file) {
+                VirtualFile metadataFile = findMetadataFile(moduleName, file);
+                if (metadataFile == null) return Unit.INSTANCE$;
+
+                try {
+                    modules.put(KotlinJavascriptSerializationUtil.createModuleFromMetadata(
+                            moduleName, metadataFile.contentsToByteArray(), storageManager), moduleName);
+                }
+                catch (IOException e) {
+                    throw new IllegalStateException("Could not read metadata of library " + file.getPath(), e);
+                }
+                return Unit.INSTANCE$;
+            }
+        };
+
+        boolean hasErrors = checkLibFilesAndReportErrors(report, action);
+        assert !hasErrors : "hasErrors should be false";
+
+        // Libraries may refer to each other, so every metadata module depends on all of them
+        for (ModuleDescriptorImpl module : modules.keySet()) {
+            for (ModuleDescriptorImpl dependency : modules.keySet()) {
+                if (dependency != module) {
+                    module.addDependencyOnModule(dependency);
+                }
+            }
+            module.addDependencyOnModule(KotlinBuiltIns.getInstance().getBuiltInsModule());
+            module.seal();
+        }
+
+        return new LinkedHashMap<ModuleDescriptor, String>(modules);
+    }
+
+    @Nullable
+    private static VirtualFile findMetadataFile(@NotNull String moduleName, @NotNull VirtualFile libraryRoot) {
+        if (!libraryRoot.isDirectory()) return null;
+        return libraryRoot.findChild(KotlinJavascriptSerializationUtil.getMetadataFileName(moduleName));
+    }
+
     @Override
     public boolean checkLibFilesAndReportErrors(@NotNull Function1<String, Unit> report) {
         return checkLibFilesAndReportErrors(report, null);
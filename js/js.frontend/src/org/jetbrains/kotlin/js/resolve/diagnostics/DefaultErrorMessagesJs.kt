@@ -34,6 +34,8 @@ private val DIAGNOSTIC_FACTORY_TO_RENDERER by Delegates.lazy {
         put(ErrorsJs.JSCODE_ERROR, "JavaScript: {0}", Renderers.TO_STRING, Renderers.TO_STRING)
         put(ErrorsJs.JSCODE_WARNING, "JavaScript: {0}", Renderers.TO_STRING, Renderers.TO_STRING)
         put(ErrorsJs.JSCODE_ARGUMENT_SHOULD_BE_LITERAL, "Argument must be string literal")
+        put(ErrorsJs.DEFAULT_VALUE_FROM_LIBRARY_WITHOUT_SOURCES,
+            "Default value of parameter ''{0}'' is declared in a library without sources and can''t be computed by an overriding function", Renderers.NAME)
 
         this
     }
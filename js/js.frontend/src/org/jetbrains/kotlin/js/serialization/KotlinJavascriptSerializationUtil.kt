@@ -0,0 +1,176 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.serialization
+
+import org.jetbrains.kotlin.builtins.BuiltInsSerializationUtil
+import org.jetbrains.kotlin.builtins.BuiltinsPackageFragment
+import org.jetbrains.kotlin.descriptors.*
+import org.jetbrains.kotlin.descriptors.impl.ModuleDescriptorImpl
+import org.jetbrains.kotlin.js.analyze.TopDownAnalyzerFacadeForJS
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.kotlin.psi.JetFile
+import org.jetbrains.kotlin.resolve.BindingContext
+import org.jetbrains.kotlin.resolve.descriptorUtil.classId
+import org.jetbrains.kotlin.serialization.DescriptorSerializer
+import org.jetbrains.kotlin.serialization.NameSerializationUtil
+import org.jetbrains.kotlin.serialization.ProtoBuf
+import org.jetbrains.kotlin.serialization.builtins.BuiltInsProtoBuf
+import org.jetbrains.kotlin.serialization.builtins.BuiltInsSerializerExtension
+import org.jetbrains.kotlin.storage.StorageManager
+import java.io.*
+import java.util.LinkedHashMap
+import kotlin.platform.platformStatic
+
+/**
+ * Kotlin/JS libraries may contain a metadata file with serialized descriptors of the library,
+ * so that the compiler doesn't need to analyze library sources.
+ *
+ * The file contains the list of packages and the entries of the same layout as the built-ins
+ * (see [BuiltInsSerializationUtil]), which are loaded lazily with [BuiltinsPackageFragment].
+ */
+public object KotlinJavascriptSerializationUtil {
+    public val METADATA_FILE_EXTENSION: String = "kjsm"
+
+    private val FORMAT_VERSION = 1
+
+    platformStatic public fun getMetadataFileName(moduleName: String): String = "$moduleName.$METADATA_FILE_EXTENSION"
+
+    /**
+     * Serializes top-level declarations of the given files, which are expected to be analyzed with the given binding context
+     */
+    platformStatic public fun serializeMetadata(files: Collection<JetFile>, bindingContext: BindingContext, stream: OutputStream) {
+        val packages = LinkedHashMap<FqName, MutableList<DeclarationDescriptor>>()
+        for (file in files) {
+            val descriptors = packages.getOrPut(file.getPackageFqName()) { arrayListOf() }
+            for (declaration in file.getDeclarations()) {
+                val descriptor = bindingContext.get(BindingContext.DECLARATION_TO_DESCRIPTOR, declaration)
+                if (descriptor is ClassDescriptor || descriptor is CallableMemberDescriptor) {
+                    descriptors.add(descriptor)
+                }
+            }
+        }
+
+        val entries = LinkedHashMap<String, ByteArray>()
+        for ((fqName, descriptors) in packages) {
+            serializePackage(fqName, descriptors, entries)
+        }
+
+        val output = DataOutputStream(stream)
+        output.writeInt(FORMAT_VERSION)
+        output.writeInt(packages.size())
+        for (fqName in packages.keySet()) {
+            output.writeUTF(fqName.asString())
+        }
+        output.writeInt(entries.size())
+        for ((path, bytes) in entries) {
+            output.writeUTF(path)
+            output.writeInt(bytes.size())
+            output.write(bytes)
+        }
+        output.flush()
+    }
+
+    private fun serializePackage(fqName: FqName, descriptors: List<DeclarationDescriptor>, entries: MutableMap<String, ByteArray>) {
+        val serializer = DescriptorSerializer.createTopLevel(BuiltInsSerializerExtension)
+
+        val classes = DescriptorSerializer.sort(descriptors.filterIsInstance<ClassDescriptor>())
+        serializeClasses(classes, serializer, entries)
+
+        val packageProto = ProtoBuf.Package.newBuilder()
+        for (callable in DescriptorSerializer.sort(descriptors.filterIsInstance<CallableMemberDescriptor>())) {
+            packageProto.addMember(serializer.callableProto(callable))
+        }
+        for (classDescriptor in classes) {
+            packageProto.addExtension(BuiltInsProtoBuf.className, serializer.getStringTable().getSimpleNameIndex(classDescriptor.getName()))
+        }
+        entries[BuiltInsSerializationUtil.getPackageFilePath(fqName)] = packageProto.build().toByteArray()
+
+        val nameStream = ByteArrayOutputStream()
+        NameSerializationUtil.serializeStringTable(nameStream, serializer.getStringTable())
+        entries[BuiltInsSerializationUtil.getStringTableFilePath(fqName)] = nameStream.toByteArray()
+    }
+
+    private fun serializeClasses(
+            descriptors: Collection<DeclarationDescriptor>,
+            serializer: DescriptorSerializer,
+            entries: MutableMap<String, ByteArray>
+    ) {
+        for (descriptor in descriptors) {
+            if (descriptor !is ClassDescriptor) continue
+
+            val classProto = serializer.classProto(descriptor).build() ?: error("Class not serialized: $descriptor")
+            entries[BuiltInsSerializationUtil.getClassMetadataPath(descriptor.classId)] = classProto.toByteArray()
+
+            serializeClasses(descriptor.getUnsubstitutedInnerClassesScope().getAllDescriptors(), serializer, entries)
+        }
+    }
+
+    /**
+     * Creates a module for the library with the given metadata. The module depends on itself only and is not sealed,
+     * so that dependencies on built-ins and other libraries can be added by the caller
+     */
+    platformStatic public fun createModuleFromMetadata(
+            moduleName: String,
+            metadata: ByteArray,
+            storageManager: StorageManager
+    ): ModuleDescriptorImpl {
+        val input = DataInputStream(ByteArrayInputStream(metadata))
+        val version = input.readInt()
+        if (version != FORMAT_VERSION) {
+            throw IllegalStateException("Unsupported metadata version $version for module $moduleName, expected $FORMAT_VERSION")
+        }
+
+        val packageFqNames = (1..input.readInt()).map { FqName(input.readUTF()) }.toSet()
+
+        val entries = hashMapOf<String, ByteArray>()
+        for (i in 1..input.readInt()) {
+            val path = input.readUTF()
+            val bytes = ByteArray(input.readInt())
+            input.readFully(bytes)
+            entries[path] = bytes
+        }
+
+        val module = TopDownAnalyzerFacadeForJS.createJsModule("<$moduleName>")
+        module.initialize(KotlinJavascriptPackageFragmentProvider(storageManager, module, packageFqNames) { path ->
+            val bytes = entries[path]
+            if (bytes != null) ByteArrayInputStream(bytes) else null
+        })
+        module.addDependencyOnModule(module)
+        return module
+    }
+
+    private class KotlinJavascriptPackageFragmentProvider(
+            storageManager: StorageManager,
+            module: ModuleDescriptor,
+            private val packageFqNames: Set<FqName>,
+            loadResource: (path: String) -> InputStream?
+    ) : PackageFragmentProvider {
+        private val packageFragments = storageManager.createMemoizedFunctionWithNullableValues {
+            (fqName: FqName) ->
+            if (fqName in packageFqNames) BuiltinsPackageFragment(fqName, storageManager, module, loadResource) else null
+        }
+
+        override fun getPackageFragments(fqName: FqName): List<PackageFragmentDescriptor> {
+            val fragment = packageFragments(fqName)
+            return if (fragment != null) listOf(fragment) else listOf()
+        }
+
+        override fun getSubPackagesOf(fqName: FqName, nameFilter: (Name) -> Boolean): Collection<FqName> =
+                packageFqNames.filter { !it.isRoot() && it.parent() == fqName && nameFilter(it.shortName()) }
+    }
+}
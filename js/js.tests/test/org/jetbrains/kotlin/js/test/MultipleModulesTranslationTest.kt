@@ -16,11 +16,21 @@
 
 package org.jetbrains.kotlin.js.test
 
+import com.google.common.base.Predicates
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.psi.PsiFile
+import org.jetbrains.kotlin.diagnostics.Severity
+import org.jetbrains.kotlin.js.analyze.TopDownAnalyzerFacadeForJS
+import org.jetbrains.kotlin.js.config.Config
 import org.jetbrains.kotlin.js.config.EcmaVersion
 import org.jetbrains.kotlin.js.facade.MainCallParameters
+import org.jetbrains.kotlin.js.serialization.KotlinJavascriptSerializationUtil
 import org.jetbrains.kotlin.js.test.rhino.RhinoFunctionResultChecker
 import org.jetbrains.kotlin.js.test.utils.JsTestUtils.getAllFilesInDir
+import org.jetbrains.kotlin.psi.JetFile
+import org.jetbrains.kotlin.test.JetTestUtils
 import java.io.File
+import java.io.FileOutputStream
 import java.util.ArrayList
 import java.util.LinkedHashMap
 
@@ -28,6 +38,13 @@ public abstract class MultipleModulesTranslationTest(main: String) : BasicTest(m
 
     private val MAIN_MODULE_NAME: String = "main"
     private var dependencies: Map<String, Array<String>>? = null
+    private var moduleFilePaths: Set<String> = setOf()
+    private var mainModuleErrors: List<String> = listOf()
+
+    /**
+     * If true, dependencies are passed to the modules using them as libraries with serialized descriptors instead of sources
+     */
+    protected open val dependenciesFromMetadata: Boolean = false
 
     override fun checkFooBoxIsOkByPath(filePath: String) {
         val dirName = getTestName(true)
@@ -37,6 +54,14 @@ public abstract class MultipleModulesTranslationTest(main: String) : BasicTest(m
             translateModule(dirName, filePath, moduleName, *dependencies)
         }
 
+        // A test expecting errors in the main module has them in errors.txt, and isn't run
+        val expectedErrors = File(filePath, "errors.txt")
+        if (expectedErrors.exists()) {
+            JetTestUtils.assertEqualsToFile(expectedErrors, mainModuleErrors.joinToString(separator = "\n"))
+            return
+        }
+        assert(mainModuleErrors.isEmpty(), "Unexpected errors in the main module: " + mainModuleErrors)
+
         val filename = getInputFilePath(getModuleDirectoryName(dirName, MAIN_MODULE_NAME) + File.separator + MAIN_MODULE_NAME + ".kt")
         val packageName = getPackageName(filename)
         runMultiModuleTest(dirName, packageName, BasicTest.TEST_FUNCTION, "OK")
@@ -53,11 +78,44 @@ public abstract class MultipleModulesTranslationTest(main: String) : BasicTest(m
         val libraries = ArrayList<String>()
         for (dependencyName in dependencies) {
             libraries.add("@" + dependencyName)
-            libraries.add(pathToDir + File.separator + dependencyName)
+            libraries.add(if (dependenciesFromMetadata) getMetadataDirectory(dirName, dependencyName).getPath()
+                          else pathToDir + File.separator + dependencyName)
         }
+        moduleFilePaths = fullFilePaths.map { FileUtil.toSystemIndependentName(File(it).getAbsolutePath()) }.toSet()
         generateJavaScriptFiles(fullFilePaths, moduleDirectoryName, MainCallParameters.noCall(), BasicTest.DEFAULT_ECMA_VERSIONS, moduleName, libraries)
     }
 
+    override fun translateFiles(jetFiles: List<JetFile>, outputFile: File, mainCallParameters: MainCallParameters, config: Config) {
+        super.translateFiles(jetFiles, outputFile, mainCallParameters, config)
+
+        val moduleName = config.getModuleId()
+        if (moduleName == MAIN_MODULE_NAME) {
+            mainModuleErrors = config.getTrace().getBindingContext().getDiagnostics().all()
+                    .filter { it.getSeverity() == Severity.ERROR }
+                    .map { "${it.getPsiFile().getName()}: ${it.getFactory().getName()}: ${it.getPsiElement().getText()}" }
+        }
+        if (!dependenciesFromMetadata || moduleName == MAIN_MODULE_NAME) return
+
+        // Only the declarations of the module itself, without the common files added to every module
+        val moduleFiles = jetFiles.filter { it.getVirtualFile().getPath() in moduleFilePaths }
+        val bindingContext = TopDownAnalyzerFacadeForJS.analyzeFiles(moduleFiles, Predicates.alwaysTrue<PsiFile>(), config).getBindingContext()
+
+        val metadataDirectory = getMetadataDirectory(getTestName(true), moduleName)
+        metadataDirectory.mkdirs()
+        val stream = FileOutputStream(File(metadataDirectory, KotlinJavascriptSerializationUtil.getMetadataFileName(moduleName)))
+        try {
+            KotlinJavascriptSerializationUtil.serializeMetadata(moduleFiles, bindingContext, stream)
+        }
+        finally {
+            stream.close()
+        }
+    }
+
+    private fun getMetadataDirectory(dirName: String, moduleName: String): File {
+        val outputFile = File(getOutputFilePath(getModuleDirectoryName(dirName, moduleName), BasicTest.DEFAULT_ECMA_VERSIONS.first()))
+        return File(outputFile.getParentFile(), moduleName + "-metadata")
+    }
+
     override fun additionalJsFiles(ecmaVersion: EcmaVersion): List<String> {
         val result = super.additionalJsFiles(ecmaVersion)
         val dirName = getTestName(true)
@@ -490,7 +490,7 @@ public final class StaticContext {
                     }
 
                     if (element == null) {
-                        return null;
+                        return config.getMetadataModuleName(DescriptorUtils.getContainingModule(descriptor));
                     }
                     return element.getContainingFile().getUserData(LibrarySourcesConfig.EXTERNAL_MODULE_NAME);
                 }
@@ -82,9 +82,12 @@ public final class BindingUtils {
         return (JetFunction) result;
     }
 
-    @NotNull
+    @Nullable
     private static JetParameter getParameterForDescriptor(@NotNull ValueParameterDescriptor descriptor) {
         PsiElement result = DescriptorToSourceUtils.descriptorToDeclaration(descriptor);
+        // Descriptors loaded from a library's metadata have no sources
+        if (result == null) return null;
+
         assert result instanceof JetParameter : message(descriptor, "ValueParameterDescriptor should have corresponding JetParameter");
         return (JetParameter) result;
     }
@@ -175,11 +178,17 @@ public final class BindingUtils {
         return null;
     }
 
-    @NotNull
+    /**
+     * @return the default value of the parameter, or null if it's declared in a library loaded from serialized descriptors,
+     * which have no sources
+     */
+    @Nullable
     public static JetExpression getDefaultArgument(@NotNull ValueParameterDescriptor parameterDescriptor) {
         ValueParameterDescriptor descriptorWhichDeclaresDefaultValue =
                 getOriginalDescriptorWhichDeclaresDefaultValue(parameterDescriptor);
         JetParameter psiParameter = getParameterForDescriptor(descriptorWhichDeclaresDefaultValue);
+        if (psiParameter == null) return null;
+
         JetExpression defaultValue = psiParameter.getDefaultValue();
         assert defaultValue != null : message(parameterDescriptor, "No default value found in PSI");
         return defaultValue;
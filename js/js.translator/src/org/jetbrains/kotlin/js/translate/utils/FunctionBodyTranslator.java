@@ -17,16 +17,20 @@
 package org.jetbrains.kotlin.js.translate.utils;
 
 import com.google.dart.compiler.backend.js.ast.*;
+import com.intellij.psi.PsiElement;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
 import org.jetbrains.kotlin.descriptors.FunctionDescriptor;
 import org.jetbrains.kotlin.descriptors.ValueParameterDescriptor;
+import org.jetbrains.kotlin.js.resolve.diagnostics.ErrorsJs;
 import org.jetbrains.kotlin.js.translate.context.TranslationContext;
 import org.jetbrains.kotlin.js.translate.general.AbstractTranslator;
 import org.jetbrains.kotlin.js.translate.general.Translation;
 import org.jetbrains.kotlin.js.translate.utils.mutator.Mutator;
 import org.jetbrains.kotlin.psi.JetDeclarationWithBody;
 import org.jetbrains.kotlin.psi.JetExpression;
+import org.jetbrains.kotlin.psi.JetParameter;
+import org.jetbrains.kotlin.resolve.DescriptorToSourceUtils;
 import org.jetbrains.kotlin.types.JetType;
 
 import java.util.ArrayList;
@@ -51,8 +55,13 @@ public final class FunctionBodyTranslator extends AbstractTranslator {
         List<JsStatement> result = new ArrayList<JsStatement>();
         for (ValueParameterDescriptor valueParameter : descriptor.getValueParameters()) {
             if (valueParameter.hasDefaultValue()) {
-                JsNameRef jsNameRef = functionBodyContext.getNameForDescriptor(valueParameter).makeRef();
                 JetExpression defaultArgument = getDefaultArgument(valueParameter);
+                if (defaultArgument == null) {
+                    reportDefaultValueWithoutSources(valueParameter, functionBodyContext);
+                    continue;
+                }
+
+                JsNameRef jsNameRef = functionBodyContext.getNameForDescriptor(valueParameter).makeRef();
                 JsBlock defaultArgBlock = new JsBlock();
                 JsExpression defaultValue = Translation.translateAsExpression(defaultArgument, functionBodyContext, defaultArgBlock);
                 JsStatement assignStatement = assignment(jsNameRef, defaultValue).makeStmt();
@@ -65,6 +74,19 @@ public final class FunctionBodyTranslator extends AbstractTranslator {
         return result;
     }
 
+    /**
+     * Default values are not serialized into the metadata of libraries, so an overriding function can't compute them.
+     * Compilation fails instead of leaving the parameter undefined
+     */
+    private static void reportDefaultValueWithoutSources(
+            @NotNull ValueParameterDescriptor valueParameter,
+            @NotNull TranslationContext context
+    ) {
+        PsiElement parameter = DescriptorToSourceUtils.descriptorToDeclaration(valueParameter);
+        assert parameter instanceof JetParameter : "A parameter of a translated function should have a declaration: " + valueParameter;
+        context.getTrace().report(ErrorsJs.DEFAULT_VALUE_FROM_LIBRARY_WITHOUT_SOURCES.on((JetParameter) parameter, valueParameter));
+    }
+
     @NotNull
     private final FunctionDescriptor descriptor;
     @NotNull
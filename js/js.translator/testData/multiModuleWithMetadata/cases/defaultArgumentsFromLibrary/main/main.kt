@@ -0,0 +1,12 @@
+package foo
+
+import library.*
+
+fun box(): String {
+    assertEquals("Hello, library", greet())
+    assertEquals("Hello, main", greet("main"))
+    assertEquals(1, Base().x)
+    assertEquals(10, Base().scale())
+
+    return "OK"
+}
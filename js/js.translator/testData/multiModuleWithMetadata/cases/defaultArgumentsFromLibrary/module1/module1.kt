@@ -0,0 +1,7 @@
+package library
+
+public fun greet(name: String = "library"): String = "Hello, ${name}"
+
+public open class Base(public val x: Int = 1) {
+    public open fun scale(factor: Int = 10): Int = x * factor
+}
@@ -0,0 +1,14 @@
+package foo
+
+import library.*
+
+class Derived : Base(3) {
+    // The default value of the parameter is declared in the library, which has no sources
+    override fun scale(factor: Int): Int = x * factor + 1
+}
+
+fun box(): String {
+    assertEquals(31, Derived().scale())
+
+    return "OK"
+}
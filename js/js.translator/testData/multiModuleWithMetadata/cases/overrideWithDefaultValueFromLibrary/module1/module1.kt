@@ -0,0 +1,5 @@
+package library
+
+public open class Base(public val x: Int = 1) {
+    public open fun scale(factor: Int = 10): Int = x * factor
+}